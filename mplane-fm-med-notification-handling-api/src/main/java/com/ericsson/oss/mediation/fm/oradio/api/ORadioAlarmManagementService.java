@@ -14,6 +14,9 @@
 package com.ericsson.oss.mediation.fm.oradio.api;
 
 import com.ericsson.oss.itpf.sdk.core.annotation.EService;
+import com.ericsson.oss.mediation.fm.oradio.api.models.InspectionPage;
+import com.ericsson.oss.mediation.fm.oradio.api.models.InspectionQuery;
+import com.ericsson.oss.mediation.fm.oradio.api.models.ORadioNotification;
 
 import java.util.List;
 import java.util.Map;
@@ -23,7 +26,7 @@ import javax.ejb.Local;
  * ORadioAlarmManagementService is used to generate EventNotifications and pass it to APS, it does this by
  * Checking to see if FMAlarmSupervision is active on the node, gets the ossPrefix for the node and generates the EventNotification
  * This notification will then be placed in the EventNotificationBuffer where it may be merged with another incoming notification or
- * passed to APS after a certain amount of time (defined by the TIMEOUT_VALUE in the constants)
+ * passed to APS after a certain amount of time (defined by the configured correlation window)
  */
 @Local
 @EService
@@ -39,31 +42,63 @@ public interface ORadioAlarmManagementService {
      */
     List<String> processNotification(final String netconfPayload, final String networkElementName);
 
+    /**
+     * Processes a batch of received notifications in one invocation. The notifications are grouped by network element, so the
+     * FMAlarmSupervision state and the ossPrefix of each network element are only resolved once for the batch. The notifications of a
+     * network element are processed in the order they are in the batch.
+     *
+     * @param notifications - the notifications received from the nodes
+     * @return Map of the network element name to its List of String, Currently used for testing, should be removed once the orchestrator
+     * is in place - will return void
+     */
+    Map<String, List<String>> processNotifications(final List<ORadioNotification> notifications);
+
     /**
      * Used for testing, specifically in the WAR module to be able to inspect the supervision cache during run time.
+     * Only the page of the cache selected by the query is copied.
      *
      * This will be removed once the orchestrator is in place
      *
-     * @return Map of String String, containing a copy of the current state of the supervision cache
+     * @param query - the network elements and the page of the cache to get
+     * @return InspectionPage of the supervision state keyed by NetworkElement fdn
      */
-    Map<String,String> getSupervisionCache();
+    InspectionPage getSupervisionCache(final InspectionQuery query);
 
     /**
      * Used for testing, specifically in the WAR module to be able to inspect the ossPrefix cache during run time.
+     * Only the page of the cache selected by the query is copied.
      *
      * This will be removed once the orchestrator is in place
      *
-     * @return Map of String String, containing a copy of the current state of the ossPrefix cache
+     * @param query - the network elements and the page of the cache to get
+     * @return InspectionPage of the ossPrefix keyed by NetworkElement fdn
      */
-    Map<String,String> getOssPrefixCache();
+    InspectionPage getOssPrefixCache(final InspectionQuery query);
 
     /**
      * Used for testing, specifically in the WAR module to be able to inspect the eventNotificationBuffer cache during run time.
+     * Only the EventNotifications of the page selected by the query are converted to String.
      *
      * This will be removed once the orchestrator is in place
      *
-     * @return Map of String String, containing a copy of the current state of the eventNotificationBuffer cache
+     * @param query - the network elements and the page of the buffer to get
+     * @return InspectionPage of the EventNotifications keyed by EventNotificationMarker
+     */
+    InspectionPage getCurrentEventNotificationBuffer(final InspectionQuery query);
+
+    /**
+     * Used to get the size of the caches during run time without reading their entries.
+     *
+     * @return Map of String String, containing the number of entries in each cache and the estimated bytes of the eventNotificationBuffer
+     */
+    Map<String, String> getInspectionSummary();
+
+    /**
+     * Used to see the progress of the NodeStateCache warm-up during run time, so it is known when the instance can take load.
+     *
+     * @return Map of String String, containing the warm-up state, the nodes and pages loaded, the time taken and the number of held
+     * notifications
      */
-    Map<String, String> getCurrentEventNotificationBuffer();
+    Map<String, String> getNodeStateCacheStatus();
 
 }
\ No newline at end of file
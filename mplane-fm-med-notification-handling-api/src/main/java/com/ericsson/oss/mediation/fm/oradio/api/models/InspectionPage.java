@@ -0,0 +1,68 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+package com.ericsson.oss.mediation.fm.oradio.api.models;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * A page of the entries of a cache of the service selected by an InspectionQuery. Only the entries of the page are copied, the total is
+ * the number of entries matching the query when the cache was read, so the next page can be asked for.
+ */
+public class InspectionPage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int total;
+
+    private final int offset;
+
+    private final int limit;
+
+    private final Map<String, String> entries;
+
+    /**
+     * @param total - number of entries matching the query
+     * @param offset - number of matching entries skipped
+     * @param limit - maximum number of entries in the page, after it was limited by the service
+     * @param entries - the entries of the page, in the order they were read
+     */
+    public InspectionPage(final int total, final int offset, final int limit, final Map<String, String> entries) {
+        this.total = total;
+        this.offset = offset;
+        this.limit = limit;
+        this.entries = entries;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public Map<String, String> getEntries() {
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+        return "InspectionPage{total=" + total + ", offset=" + offset + ", limit=" + limit + ", entries=" + entries.size() + "}";
+    }
+}
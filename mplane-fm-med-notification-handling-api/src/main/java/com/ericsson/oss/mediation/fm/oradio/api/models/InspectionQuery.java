@@ -0,0 +1,78 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+package com.ericsson.oss.mediation.fm.oradio.api.models;
+
+import java.io.Serializable;
+
+/**
+ * Selects a page of the entries of a cache of the service for inspection. The entries are filtered by the name of their network element,
+ * either exactly or by the start of the name, and then the page from offset to offset + limit of the matching entries is taken.
+ */
+public class InspectionQuery implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String networkElementName;
+
+    private final String networkElementNamePrefix;
+
+    private final int offset;
+
+    private final int limit;
+
+    /**
+     * @param networkElementName - only the entries of this network element, null for every network element
+     * @param networkElementNamePrefix - only the entries of the network elements whose name starts with this, null for every network element
+     * @param offset - number of matching entries to skip
+     * @param limit - maximum number of entries in the page
+     */
+    public InspectionQuery(final String networkElementName, final String networkElementNamePrefix, final int offset, final int limit) {
+        this.networkElementName = networkElementName;
+        this.networkElementNamePrefix = networkElementNamePrefix;
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    /**
+     * Checks the name of the network element of an entry against the filters of the query
+     * @param name - the name of the network element of the entry
+     * @return true if the entry is selected by the query
+     */
+    public boolean matches(final String name) {
+        return (networkElementName == null || networkElementName.equals(name))
+                && (networkElementNamePrefix == null || name != null && name.startsWith(networkElementNamePrefix));
+    }
+
+    public String getNetworkElementName() {
+        return networkElementName;
+    }
+
+    public String getNetworkElementNamePrefix() {
+        return networkElementNamePrefix;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public String toString() {
+        return "InspectionQuery{networkElementName='" + networkElementName + "', networkElementNamePrefix='" + networkElementNamePrefix
+                + "', offset=" + offset + ", limit=" + limit + "}";
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+package com.ericsson.oss.mediation.fm.oradio.api.models;
+
+import java.io.Serializable;
+
+/**
+ * A notification received from a node, as passed to ORadioAlarmManagementService.processNotifications
+ */
+public class ORadioNotification implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String networkElementName;
+
+    private final String netconfPayload;
+
+    /**
+     * @param networkElementName - the name of the network element that the notification came from
+     * @param netconfPayload - the raw netconf XML that has been passed from the node to ENM
+     */
+    public ORadioNotification(final String networkElementName, final String netconfPayload) {
+        this.networkElementName = networkElementName;
+        this.netconfPayload = netconfPayload;
+    }
+
+    public String getNetworkElementName() {
+        return networkElementName;
+    }
+
+    public String getNetconfPayload() {
+        return netconfPayload;
+    }
+
+    @Override
+    public String toString() {
+        return "ORadioNotification{networkElementName='" + networkElementName + "', netconfPayload='" + netconfPayload + "'}";
+    }
+}
@@ -14,27 +14,54 @@
 
 package com.ericsson.oss.mediation.fm.oradio.ejb;
 
-import java.util.regex.Pattern;
-
 public final class Constants {
     private Constants(){
 
     }
-    //Timer Timeout and timer Setup in seconds
-    public static final int TIMEOUT_VALUE = 2;
+    //Number of shards the EventNotificationBuffer is partitioned into, must be a power of 2
+    public static final int EVENT_NOTIFICATION_BUFFER_SHARDS = 16;
+    //Clustered cache holding the correlation state shared by all instances, and the service cluster the instances join
+    public static final String CLUSTERED_CORRELATION_CACHE = "MplaneFmMedNotificationCorrelationCache";
+    public static final String SERVICE_CLUSTER_NAME = "MplaneFmMedNotificationHandlingCluster";
+    public static final String NODE_IDENTIFIER_PROPERTY = "com.ericsson.oss.sdk.node.identifier";
+    //Number of NetworkElements in a page of the NodeStateCache warm-up, the pages are loaded in parallel
+    public static final int NODE_STATE_WARM_UP_PAGE_SIZE = 5000;
+    //Maximum number of values in the in restriction of a dps query, the ids and fdns of a page are restricted in batches of this size
+    public static final int DPS_IN_RESTRICTION_MAX_VALUES = 1000;
+    //Delay in milliseconds before a failed NodeStateCache warm-up is retried
+    public static final long NODE_STATE_WARM_UP_RETRY_MILLIS = 30_000L;
+    //Maximum number of nodes remembered as not existing in DPS by the NodeStateCache
+    public static final int NODE_STATE_MISS_MAX_ENTRIES = 10_000;
+    //Number of nodes the NodeStateCache is sized for before it grows
+    public static final int NODE_STATE_CACHE_INITIAL_CAPACITY = 10_000;
+    //Delay in milliseconds between the chunks of nodes checked by a NodeStateCache reconciliation pass
+    public static final long NODE_STATE_RECONCILIATION_CHUNK_INTERVAL_MILLIS = 1000L;
+    //Maximum number of NetworkElement names held by the NetworkElementNamePool
+    public static final int NETWORK_ELEMENT_NAME_POOL_MAX_SIZE = 1 << 20;
+    //Maximum number of EventNotificationTemplates held for all nodes and alarm types by the EventNotificationTemplateCache
+    public static final int EVENT_NOTIFICATION_TEMPLATE_MAX_ENTRIES = 100_000;
+    //Maximum number of characters of the targetAttributeInfo describing the notification an EventNotification was merged with
+    public static final int TARGET_ATTRIBUTE_INFO_MAX_LENGTH = 512;
+    //Maximum number of entries in a page of a cache inspected through the service
+    public static final int INSPECTION_PAGE_MAX_LIMIT = 1000;
+    //Size in bytes of each block of direct memory holding the EventNotifications of a shard of the EventNotificationBuffer off heap
+    public static final int EVENT_NOTIFICATION_OFF_HEAP_SEGMENT_BYTES = 1024 * 1024;
+    //Size in bytes after which the EventNotificationBuffer journal starts a new segment
+    public static final long EVENT_NOTIFICATION_JOURNAL_SEGMENT_BYTES = 16L * 1024 * 1024;
     public static final String FM_ALARM_SUPERVISION_EVENT_ENDPOINT = "jms:/topic/FmSupervisionStatusTopic";
     //Clustered-dps-notification-event
     public static final String DPS_NOTIFICATION_EVENT_ENDPOINT = "jms:/topic/dps-notification-event";
     public static final String FM_ALARM_SUPERVISION_FILTER = "((bucketName IS NOT NULL) AND (bucketName = 'Live')) AND ((namespace IS NOT NULL) " +
             "AND (namespace = 'OSS_NE_FM_DEF')) AND ((type IS NOT NULL) AND (type='FmAlarmSupervision'))";
     public static final String OSS_NE_DEF_NS = "OSS_NE_DEF";
+    public static final String OSS_NE_FM_DEF_NS = "OSS_NE_FM_DEF";
     public static final String ORADIO_NE_TYPE = "ORadio";
     public static final String NE_TYPE_ATTR = "neType";
     public static final String NETWORK_ELEMENT_TYPE = "NetworkElement";
     public static final String FM_ALARM_SUPERVISION_TYPE = "FmAlarmSupervision";
     public static final String FM_ALARM_SUPERVISION_RDN = FM_ALARM_SUPERVISION_TYPE + "=1";
     public static final String ACTIVE_ATTR = "active";
-    public static final  Pattern NEID_PATTERN = Pattern.compile(".*?(NetworkElement)=([A-Za-z0-9-._:/?%&!\\s]*)");
+    public static final String OSS_PREFIX_ATTR = "ossPrefix";
 
     public static final String NETWORK_ELEMENT_FDN = "NetworkElement=";
     public static final String TARGET_ATTRIBUTE_INFO ="targetAttributeInfo";
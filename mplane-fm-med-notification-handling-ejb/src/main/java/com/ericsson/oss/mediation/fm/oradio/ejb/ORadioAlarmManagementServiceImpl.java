@@ -14,28 +14,45 @@
 package com.ericsson.oss.mediation.fm.oradio.ejb;
 
 import com.ericsson.oss.itpf.sdk.core.annotation.EServiceRef;
+import com.ericsson.oss.mediation.fm.impl.ServiceStatisticsBean;
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EarlyNotificationQueue;
 import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EventNotificationBuffer;
-import com.ericsson.oss.mediation.fm.oradio.ejb.cache.OssPrefixCache;
-import com.ericsson.oss.mediation.fm.oradio.ejb.cache.SupervisionStateCache;
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeState;
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeStateCache;
+import com.ericsson.oss.mediation.fm.oradio.ejb.dispatch.AlarmDispatcher;
+import com.ericsson.oss.mediation.fm.oradio.ejb.exception.NetconfNotificationParseException;
+import com.ericsson.oss.mediation.fm.oradio.ejb.fdn.NetworkElementNamePool;
+import com.ericsson.oss.mediation.fm.oradio.ejb.merge.EventNotificationMerger;
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.CorrelationResult;
+import com.ericsson.oss.mediation.fm.oradio.ejb.parser.AlarmNotificationParser;
+import com.ericsson.oss.mediation.fm.oradio.ejb.parser.EventNotificationTemplateCache;
+import com.ericsson.oss.mediation.fm.oradio.ejb.parser.NodeEventNotificationTemplates;
 import com.ericsson.oss.mediation.fm.oradio.api.MPlaneAlarmService;
+import com.ericsson.oss.mediation.fm.oradio.api.models.InspectionPage;
+import com.ericsson.oss.mediation.fm.oradio.api.models.InspectionQuery;
+import com.ericsson.oss.mediation.fm.oradio.api.models.ORadioNotification;
 import com.ericsson.oss.mediation.translator.model.EventNotification;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import javax.ejb.Stateless;
 import javax.inject.Inject;
 
-
-import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.*;
-import static com.ericsson.oss.mediation.fm.util.EventNotificationUtil.setEventTimeAndTimeZone;
-
 /**
  * ORadioAlarmManagementServiceImpl is the implementation class of @class ORadioAlarmManagementService entry point is processNotification
- * It will check the SupervisionStateCache to see if the notification should be dropped, gets the ossPrefix from the ossPrefixCache and then
- * add the EventNotification to the EventNotificationBuffer. If there is a EventNotification already in the EventNotificationBuffer that matches
- * the networkElementName and alarmId then it will be merged with the new Notification and sent through to APS directly.
+ * It will get the NodeState of the node from the NodeStateCache to see if the notification should be dropped and to get the ossPrefix, and then
+ * add the EventNotification parsed from the O-RAN alarm-notif of the notification to the EventNotificationBuffer. If there is a EventNotification
+ * already in the EventNotificationBuffer that matches the networkElementName and alarmId then it will be merged with the new Notification by
+ * the EventNotificationMerger and sent through to APS directly. A notification holding several alarm entries, such as an alarm-sync reply, is
+ * split into an EventNotification per entry as it is parsed and each is correlated on its own. Notifications which cannot be parsed are dropped.
+ * EventNotifications are sent to APS through the AlarmDispatcher, which batches them and sends them asynchronously.
+ * processNotifications does the same for a batch of notifications, resolving the supervision state and ossPrefix once per network element.
+ * While the NodeStateCache is warming up, notifications from nodes which are not in it yet are held in the EarlyNotificationQueue and
+ * processed once it is ready.
  */
 @Stateless
 @Slf4j
@@ -45,119 +62,245 @@ public class ORadioAlarmManagementServiceImpl implements ORadioAlarmManagementSe
     private MPlaneAlarmService mplaneAlarmService;
 
     @Inject
-    private SupervisionStateCache supervisionStateCache;
+    private NodeStateCache nodeStateCache;
 
     @Inject
-    private OssPrefixCache ossPrefixCache;
+    private EventNotificationBuffer eventNotificationBuffer;
 
     @Inject
-    private EventNotificationBuffer eventNotificationBuffer;
+    private AlarmDispatcher alarmDispatcher;
 
+    @Inject
+    private ServiceStatisticsBean serviceStatistics;
+
+    @Inject
+    private EarlyNotificationQueue earlyNotificationQueue;
+
+    @Inject
+    private NetworkElementNamePool networkElementNamePool;
+
+    @Inject
+    private EventNotificationTemplateCache eventNotificationTemplateCache;
 
     @Override
     public List<String> processNotification(final String netconfPayload, final String networkElementName) {
-        final String networkElementFdn = NETWORK_ELEMENT_FDN + networkElementName;
-
         final List<String> response = new ArrayList<>();
         response.add("Something has been received");
         log.debug("Received Notification for: {}, Netconf payload: {}", networkElementName, netconfPayload);
-        //Check to see if FMAlarmSupervision is Enabled for the node
-        if (!supervisionStateCache.isSupervisionActive(networkElementFdn)) {
-            response.add("Dropping Alarm from " + networkElementName + " as FMAlarmSupervision is not enabled");
-            log.info("Dropping Alarm from {}, as FMAlarmSupervision is not enabled", networkElementName);
-            return response;
+        final List<String> netconfPayloads = new ArrayList<>(1);
+        netconfPayloads.add(netconfPayload);
+        processNetworkElementNotifications(networkElementName, netconfPayloads, response);
+        log.info("Finished ProcessNotification: response to UI: {}", response);
+        return response;
+    }
+
+    @Override
+    public Map<String, List<String>> processNotifications(final List<ORadioNotification> notifications) {
+        final Map<String, List<String>> netconfPayloadsByNetworkElement = new LinkedHashMap<>();
+        for (final ORadioNotification notification : notifications) {
+            netconfPayloadsByNetworkElement.computeIfAbsent(notification.getNetworkElementName(), networkElementName -> new ArrayList<>())
+                    .add(notification.getNetconfPayload());
         }
-        //Get FDN from the subnetwork cache
-        final String ossPrefix = ossPrefixCache.getOssPrefix(networkElementFdn);
+        log.debug("Received {} Notifications for {} network elements", notifications.size(), netconfPayloadsByNetworkElement.size());
+        final Map<String, List<String>> responses = new LinkedHashMap<>();
+        for (final Map.Entry<String, List<String>> networkElementNotifications : netconfPayloadsByNetworkElement.entrySet()) {
+            final List<String> response = new ArrayList<>();
+            response.add("Received " + networkElementNotifications.getValue().size() + " notifications");
+            processNetworkElementNotifications(networkElementNotifications.getKey(), networkElementNotifications.getValue(), response);
+            responses.put(networkElementNotifications.getKey(), response);
+        }
+        log.info("Finished ProcessNotifications: response to UI: {}", responses);
+        return responses;
+    }
 
-        response.add("Found ossPrefix: " + ossPrefix + " for node " + networkElementName);
-        log.debug("Found OssPrefix: {} for node: {}", ossPrefix, networkElementName);
+    @Override
+    public InspectionPage getSupervisionCache(final InspectionQuery query) {
+        return nodeStateCache.getSupervisionStateCache(query);
+    }
 
-        /* TODO: Reinstate these two lines:
-         * ORadioAlarmNotification parsedNotification = mplaneAlarmService.parseAlarm(netconfPayload, networkElementName);
-         * EventNotification eventNotif = mplaneAlarmService.transformAlarm(parsedNotification, networkElementName, ossPrefix);
-         */
-
-        // TODO: Remove the below line once Transformation is in place, is for testing only
-        response.add("Creating Dummy eventNotification for Testing ");
-        EventNotification eventNotif = createTestEventNotification(networkElementFdn, ossPrefix);
-
-        eventNotif.setExternalEventId(netconfPayload);
-        response.add("Adding EventNotification to Eventbuffer: " + ossPrefix + " for node " + networkElementName);
-
-        if(eventNotificationBuffer.eventNotificationExists(eventNotif.getExternalEventId(), networkElementName)) {
-            final EventNotification bufferedEventNotification = eventNotificationBuffer
-                    .getEventNotification(eventNotif.getExternalEventId(), networkElementName);
-            //remove the notification from the cache as we are processing it
-            eventNotificationBuffer.removeEventNotification(eventNotif.getExternalEventId(), networkElementName);
-            //merge the notifications
-            final EventNotification eventToSend = mergeEventNotification(eventNotif,bufferedEventNotification, netconfPayload);
-            log.info("EVENT-TO-SEND:{}", eventToSend);
-            mplaneAlarmService.sendAlarm(eventToSend);
-        } else {
-            log.info("EVENT-TO-BUFFER:{}", eventNotif);
-            // There is no EventNotification In the buffer so store.
-            eventNotificationBuffer.addEventNotification(eventNotif, networkElementName);
-        }
-        log.info("Finished ProcessNotification: response to UI: {}", response);
-        return response;
+    @Override
+    public InspectionPage getOssPrefixCache(final InspectionQuery query) {
+        return nodeStateCache.getOssPrefixCache(query);
     }
 
     @Override
-    public Map<String, String> getSupervisionCache() {
-        return supervisionStateCache.getSupervisionStateCache();
+    public InspectionPage getCurrentEventNotificationBuffer(final InspectionQuery query) {
+        return eventNotificationBuffer.getEventNotificationBuffer(query);
     }
 
     @Override
-    public Map<String, String> getOssPrefixCache() {
-        return ossPrefixCache.getCache();
+    public Map<String, String> getInspectionSummary() {
+        final Map<String, String> summary = new LinkedHashMap<>();
+        summary.put("nodeStateCacheState", String.valueOf(nodeStateCache.getWarmUpState()));
+        summary.put("nodeStateCacheNodes", String.valueOf(nodeStateCache.getSize()));
+        summary.put("eventNotificationBufferEntries", String.valueOf(eventNotificationBuffer.getSize()));
+        summary.put("eventNotificationBufferEstimatedBytes", String.valueOf(eventNotificationBuffer.getEstimatedBytes()));
+        summary.put("eventNotificationBufferOffHeapBytes", String.valueOf(eventNotificationBuffer.getOffHeapBytes()));
+        summary.put("heldNotifications", String.valueOf(earlyNotificationQueue.getSize()));
+        return summary;
     }
 
     @Override
-    public Map<String,String> getCurrentEventNotificationBuffer(){
-        return eventNotificationBuffer.getEventNotificationBuffer();
+    public Map<String, String> getNodeStateCacheStatus() {
+        return nodeStateCache.getWarmUpStatus();
     }
 
-    private EventNotification mergeEventNotification(final EventNotification newEvent, final EventNotification cachedEvent, final String netconfPayload){
-        if(cachedEvent.getPerceivedSeverity().equals("ALARM")) {
-            final Map<String,String> additionalAttr = cachedEvent.getAdditionalAttributes();
-            final String targetAdditionalInfo = additionalAttr.get(TARGET_ATTRIBUTE_INFO);
-            additionalAttr.replace(TARGET_ATTRIBUTE_INFO, targetAdditionalInfo + netconfPayload);
-            cachedEvent.setAdditionalAttributes(additionalAttr);
-            log.debug("merged received Alarm with Cleared alarm from the cache");
-            return cachedEvent;
-
-        } else {
-            // Must be alarm then
-            final Map<String,String> additionalAttr = cachedEvent.getAdditionalAttributes();
-            final String targetAdditionalInfo = additionalAttr.get(TARGET_ATTRIBUTE_INFO);
-            additionalAttr.replace(TARGET_ATTRIBUTE_INFO, targetAdditionalInfo + netconfPayload);
-            newEvent.setAdditionalAttributes(additionalAttr);
-            log.debug("merged received Cleared Alarm with Alarm from the cache");
-            return newEvent;
+    /**
+     * Processes the notifications of one network element, its NodeState is looked up once for all of them
+     */
+    private void processNetworkElementNotifications(final String networkElementName, final List<String> netconfPayloads,
+                                                    final List<String> response) {
+        final NodeState nodeState = nodeStateCache.getNodeStateByName(networkElementName);
+        if (nodeState == null && !nodeStateCache.isReady()) {
+            holdEarlyNotifications(networkElementName, netconfPayloads, response);
+            return;
+        }
+        serviceStatistics.addReceivedNotifications(netconfPayloads.size());
+        //Check to see if FMAlarmSupervision is Enabled for the node
+        if (nodeState == null || !nodeState.isSupervisionActive()) {
+            serviceStatistics.addUnsupervisedNotifications(netconfPayloads.size());
+            response.add("Dropping Alarm from " + networkElementName + " as FMAlarmSupervision is not enabled");
+            log.info("Dropping {} Alarms from {}, as FMAlarmSupervision is not enabled", netconfPayloads.size(), networkElementName);
+            return;
+        }
+        final String ossPrefix = nodeState.getOssPrefix();
+        if (ossPrefix == null) {
+            serviceStatistics.addOssPrefixMisses(netconfPayloads.size());
+        }
+        // The node is supervised so it is known, its canonical name is held by the buffer and its markers rather than the received copy
+        final String canonicalNetworkElementName = networkElementNamePool.intern(networkElementName);
+        final String networkElementFdn = networkElementNamePool.getNetworkElementFdn(canonicalNetworkElementName);
+        final NodeEventNotificationTemplates templates =
+                eventNotificationTemplateCache.getNodeTemplates(canonicalNetworkElementName, networkElementFdn, ossPrefix);
+
+        response.add("Found ossPrefix: " + ossPrefix + " for node " + networkElementName);
+        log.debug("Found OssPrefix: {} for node: {}", ossPrefix, networkElementName);
+        for (final String netconfPayload : netconfPayloads) {
+            processNotification(netconfPayload, canonicalNetworkElementName, templates, ossPrefix, response);
+        }
+    }
+
+    /**
+     * The node may not have been loaded into the NodeStateCache yet, so the notifications are held until it is ready rather than dropped
+     */
+    private void holdEarlyNotifications(final String networkElementName, final List<String> netconfPayloads, final List<String> response) {
+        int held = 0;
+        for (final String netconfPayload : netconfPayloads) {
+            if (earlyNotificationQueue.offer(new ORadioNotification(networkElementName, netconfPayload))) {
+                held++;
+            }
+        }
+        final int dropped = netconfPayloads.size() - held;
+        if (held > 0) {
+            serviceStatistics.addHeldEarlyNotifications(held);
+            response.add("Holding Alarm from " + networkElementName + " until the NodeStateCache is ready");
+            log.debug("Holding {} Alarms from {} until the NodeStateCache is ready", held, networkElementName);
+        }
+        if (dropped > 0) {
+            serviceStatistics.addDroppedEarlyNotifications(dropped);
+            response.add("Dropping Alarm from " + networkElementName + " as the EarlyNotificationQueue is full");
+            log.warn("Dropping {} Alarms from {}, as the EarlyNotificationQueue is full", dropped, networkElementName);
+        }
+        // the cache may have become ready and replayed the queue after it was checked, so these would not be replayed by it
+        if (nodeStateCache.isReady()) {
+            earlyNotificationQueue.replay();
+        }
+    }
+
+    /**
+     * Splits the notification into its alarm entries as it is parsed, each entry is correlated or buffered on its own as soon as it is read
+     */
+    private void processNotification(final String netconfPayload, final String networkElementName,
+                                     final NodeEventNotificationTemplates templates, final String ossPrefix, final List<String> response) {
+        final long transformStartTime = System.nanoTime();
+        final AlarmEntryProcessor alarmEntryProcessor = new AlarmEntryProcessor(networkElementName);
+        final int skipped;
+        try {
+            skipped = AlarmNotificationParser.parse(netconfPayload, templates, alarmEntryProcessor);
+        } catch (final NetconfNotificationParseException e) {
+            serviceStatistics.addUnparsableNotifications(1);
+            log.warn("Dropping Alarm from {} as the notification could not be parsed: {}", networkElementName, e.getMessage());
+            response.add("Dropping Alarm from " + networkElementName + " as the notification could not be parsed");
+            alarmEntryProcessor.addResponses(ossPrefix, response);
+            return;
+        }
+        // the entries were correlated while the notification was parsed, the rest of the time was spent parsing
+        serviceStatistics.addTransformTime(System.nanoTime() - transformStartTime - alarmEntryProcessor.correlationTime);
+        if (skipped > 0) {
+            serviceStatistics.addUnparsableNotifications(skipped);
+            log.warn("Dropping {} Alarms from {} as they could not be parsed", skipped, networkElementName);
+            response.add("Dropping " + skipped + " Alarms from " + networkElementName + " as they could not be parsed");
+        }
+        alarmEntryProcessor.addResponses(ossPrefix, response);
+    }
+
+    /**
+     * Correlates or buffers the EventNotification of each alarm entry of a notification as it is parsed. It only keeps counts for the response,
+     * so nothing is held for the entries which have been processed.
+     */
+    private final class AlarmEntryProcessor implements Consumer<EventNotification> {
 
+        private final String networkElementName;
+        private long correlationTime;
+        private int processed;
+        private int dropped;
+
+        private AlarmEntryProcessor(final String networkElementName) {
+            this.networkElementName = networkElementName;
+        }
+
+        @Override
+        public void accept(final EventNotification eventNotif) {
+            processed++;
+            final long correlationStartTime = System.nanoTime();
+            final CorrelationResult correlationResult = eventNotificationBuffer.correlateOrBuffer(eventNotif, networkElementName);
+            final long entryCorrelationTime = System.nanoTime() - correlationStartTime;
+            correlationTime += entryCorrelationTime;
+            serviceStatistics.addCorrelationTime(entryCorrelationTime);
+            switch (correlationResult.getOutcome()) {
+                case CORRELATED:
+                    serviceStatistics.addCorrelatedNotification();
+                    //merge the notifications, the buffered notification has already been removed from the cache
+                    final EventNotification eventToSend = EventNotificationMerger.merge(eventNotif, correlationResult.getPartner());
+                    log.info("EVENT-TO-SEND:{}", eventToSend);
+                    alarmDispatcher.dispatch(eventToSend);
+                    break;
+                case BYPASSED:
+                    // The buffer is full so the EventNotification is sent without waiting for a matching notification
+                    log.debug("EventNotificationBuffer is full, sending EventNotification without buffering:{}", eventNotif);
+                    serviceStatistics.addEarlySentNotifications(1);
+                    alarmDispatcher.dispatch(eventNotif);
+                    break;
+                case DROPPED:
+                    log.debug("EventNotificationBuffer is full, dropping low severity EventNotification:{}", eventNotif);
+                    serviceStatistics.addDroppedNotifications(1);
+                    dropped++;
+                    break;
+                default:
+                    // There was no EventNotification In the buffer so it has been stored.
+                    serviceStatistics.addBufferedNotification();
+                    log.info("EVENT-TO-BUFFER:{}", eventNotif);
+                    sendEvictedEventNotifications(correlationResult.getEvicted());
+                    break;
+            }
+        }
+
+        private void addResponses(final String ossPrefix, final List<String> response) {
+            if (processed > 0) {
+                response.add("Added " + processed + " EventNotifications to Eventbuffer: " + ossPrefix + " for node " + networkElementName);
+            }
+            if (dropped > 0) {
+                response.add("Dropping " + dropped + " Alarms from " + networkElementName + " as the EventNotificationBuffer is full");
+            }
         }
     }
-    private EventNotification createTestEventNotification(final String fdn, final String ossPrefix){
-        final EventNotification eventNotification = new EventNotification();
-        if (ossPrefix != null && !ossPrefix.isEmpty()) {
-            eventNotification.setManagedObjectInstance(ossPrefix);
-        } else {
-            eventNotification.setManagedObjectInstance(fdn);
-        }
-
-        eventNotification.setSourceType(ORADIO_NE_TYPE);
-        eventNotification.addAdditionalAttribute("fdn", fdn);
-        eventNotification.addAdditionalAttribute("behalf", "ManagementSystem=ENM");
-        eventNotification.setPerceivedSeverity("INDETERMINATE");
-        eventNotification.setRecordType("ALARM");
-        setEventTimeAndTimeZone(eventNotification);
-        eventNotification.setPerceivedSeverity("MAJOR");
-        eventNotification.setSpecificProblem("Testing Failure");
-        eventNotification.setEventType("Communications alarm");
-        eventNotification.setProbableCause("Testing in LAN Error/Communication Error");
-        eventNotification.addAdditionalAttribute("additionalText", "someAdditionalTextHere");
-
-        return eventNotification;
+
+    private void sendEvictedEventNotifications(final List<EventNotification> evicted) {
+        if (!evicted.isEmpty()) {
+            log.debug("EventNotificationBuffer is full, sending {} oldest EventNotifications early", evicted.size());
+            serviceStatistics.addEvictedNotifications(evicted.size());
+            serviceStatistics.addEarlySentNotifications(evicted.size());
+            alarmDispatcher.dispatchAll(evicted);
+        }
     }
 }
@@ -0,0 +1,109 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.EventNotificationMarker;
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+
+/**
+ * An entry of an EventNotificationBufferShard, holds the EventNotification together with its marker, the time in milliseconds since epoch it
+ * was buffered and the estimated size used to keep the buffer within its limits. Equality is identity so an entry from the expiry queue only matches the exact entry it was created for.
+ * When the EventNotification is held off heap the entry holds its location in the OffHeapEventNotificationStore instead, it is read back
+ * into the entry when the entry is released from the shard.
+ */
+final class BufferedEventNotification {
+
+    private final EventNotificationMarker marker;
+
+    // Null while the EventNotification is only held off heap
+    private volatile EventNotification eventNotification;
+
+    private final long entryTime;
+
+    private final long estimatedBytes;
+
+    private final OffHeapEventNotificationStore offHeapStore;
+
+    private final long offHeapHandle;
+
+    private final int offHeapLength;
+
+    BufferedEventNotification(final EventNotificationMarker marker, final EventNotification eventNotification, final long entryTime,
+                              final long estimatedBytes) {
+        this.marker = marker;
+        this.eventNotification = eventNotification;
+        this.entryTime = entryTime;
+        this.estimatedBytes = estimatedBytes;
+        this.offHeapStore = null;
+        this.offHeapHandle = 0L;
+        this.offHeapLength = 0;
+    }
+
+    BufferedEventNotification(final EventNotificationMarker marker, final long entryTime, final long estimatedBytes,
+                              final OffHeapEventNotificationStore offHeapStore, final long offHeapHandle, final int offHeapLength) {
+        this.marker = marker;
+        this.entryTime = entryTime;
+        this.estimatedBytes = estimatedBytes;
+        this.offHeapStore = offHeapStore;
+        this.offHeapHandle = offHeapHandle;
+        this.offHeapLength = offHeapLength;
+    }
+
+    EventNotificationMarker getMarker() {
+        return marker;
+    }
+
+    /**
+     * @return the EventNotification, a new copy is read from direct memory on every call while it is held off heap
+     */
+    EventNotification getEventNotification() {
+        final EventNotification heldEventNotification = eventNotification;
+        if (heldEventNotification != null || offHeapStore == null) {
+            return heldEventNotification;
+        }
+        return offHeapStore.read(this);
+    }
+
+    long getEntryTime() {
+        return entryTime;
+    }
+
+    long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Called once the entry has been removed from its shard. An EventNotification held off heap is read back into the entry before its
+     * memory is freed, so it can still be returned by getEventNotification.
+     */
+    void release() {
+        if (offHeapStore != null && eventNotification == null) {
+            eventNotification = offHeapStore.read(this);
+            offHeapStore.free(offHeapHandle);
+        }
+    }
+
+    EventNotification getReleasedEventNotification() {
+        return eventNotification;
+    }
+
+    long getOffHeapHandle() {
+        return offHeapHandle;
+    }
+
+    int getOffHeapLength() {
+        return offHeapLength;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.EventNotificationMarker;
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A value of the clustered correlation cache, holds the EventNotification together with the time it was buffered and the node id of the
+ * instance which is responsible for sending it to APS once it has expired.
+ * Equality is on the id of the entry and its owner, so a conditional remove only succeeds for the exact entry and only while it has not
+ * been adopted by another instance.
+ */
+public final class ClusteredEventNotification implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String id;
+
+    private final EventNotificationMarker marker;
+
+    private final EventNotification eventNotification;
+
+    private final long entryTime;
+
+    private final String ownerNodeId;
+
+    ClusteredEventNotification(final EventNotificationMarker marker, final EventNotification eventNotification, final long entryTime,
+                               final String ownerNodeId) {
+        this(UUID.randomUUID().toString(), marker, eventNotification, entryTime, ownerNodeId);
+    }
+
+    private ClusteredEventNotification(final String id, final EventNotificationMarker marker, final EventNotification eventNotification,
+                                       final long entryTime, final String ownerNodeId) {
+        this.id = id;
+        this.marker = marker;
+        this.eventNotification = eventNotification;
+        this.entryTime = entryTime;
+        this.ownerNodeId = ownerNodeId;
+    }
+
+    /**
+     * Creates a copy of the entry owned by another instance
+     * @param newOwnerNodeId - node id of the adopting instance
+     * @return the adopted entry
+     */
+    ClusteredEventNotification adoptedBy(final String newOwnerNodeId) {
+        return new ClusteredEventNotification(id, marker, eventNotification, entryTime, newOwnerNodeId);
+    }
+
+    public EventNotificationMarker getMarker() {
+        return marker;
+    }
+
+    public EventNotification getEventNotification() {
+        return eventNotification;
+    }
+
+    public long getEntryTime() {
+        return entryTime;
+    }
+
+    public String getOwnerNodeId() {
+        return ownerNodeId;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        final ClusteredEventNotification that = (ClusteredEventNotification) o;
+        return id.equals(that.id) && Objects.equals(ownerNodeId, that.ownerNodeId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, ownerNodeId);
+    }
+
+    @Override
+    public String toString() {
+        return "ClusteredEventNotification{" + "marker=" + marker + ", entryTime=" + entryTime + ", ownerNodeId='" + ownerNodeId + '\'' + '}';
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+import com.ericsson.oss.itpf.sdk.cache.annotation.NamedCache;
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean;
+import com.ericsson.oss.mediation.fm.oradio.ejb.cluster.ClusterMembership;
+import com.ericsson.oss.mediation.fm.oradio.ejb.cluster.ServiceClusterMembership;
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.CorrelationResult;
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.EventNotificationMarker;
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.PostConstruct;
+import javax.cache.Cache;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.configuration.MutableCacheEntryListenerConfiguration;
+import javax.cache.event.CacheEntryCreatedListener;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryRemovedListener;
+import javax.cache.event.CacheEntryUpdatedListener;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.inject.Inject;
+
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.CLUSTERED_CORRELATION_CACHE;
+
+/**
+ * Holds the correlation state in a clustered cache shared by all the instances of the service, so an alarm and its clear meet even when
+ * they are received by different instances. It is used by the EventNotificationBuffer when clustered correlation is enabled, and is only
+ * created then, so the clustered cache is not looked up otherwise. The ServiceClusterMembership creates it at startup, or as soon as
+ * clustered correlation is enabled, so the entries buffered by the other members are indexed before this instance buffers anything.
+ *
+ * Every EventNotification is owned by the member which owns its network element by rendezvous hashing of the networkElementName, see
+ * ClusterMembership, whichever instance buffered it. The cache is replicated, so every instance is told of the entries created by the
+ * others through a cache entry listener: the owner adds them to its local expiry index and only the owner sends an EventNotification to APS
+ * once the correlation window has elapsed. Every instance also indexes the markers of the entries by owner, so when a member leaves only
+ * its EventNotifications are looked at, each being adopted by the new owner of its network element. A member joining owns the network
+ * elements which move to it from then on, the EventNotifications already buffered stay with their owner as it is still a member.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@Slf4j
+public class ClusteredEventNotificationStore {
+
+    @Inject
+    @NamedCache(CLUSTERED_CORRELATION_CACHE)
+    private Cache<EventNotificationMarker, ClusteredEventNotification> correlationCache;
+
+    @Inject
+    private ConfigurationBean configurationBean;
+
+    @Inject
+    private ServiceClusterMembership serviceClusterMembership;
+
+    private final Queue<ClusteredEventNotification> expiryIndex =
+            new PriorityBlockingQueue<>(64, Comparator.comparingLong(ClusteredEventNotification::getEntryTime));
+
+    private final Map<String, Set<EventNotificationMarker>> markersByOwner = new ConcurrentHashMap<>();
+
+    private final Lock expiryLock = new ReentrantLock();
+
+    /**
+     * Registers the listener which indexes the entries created, adopted and removed by all the instances, then indexes the entries already
+     * in the clustered cache, which were buffered by the other members before this instance created its store.
+     * An entry indexed both by the listener and from the cache is harmless: the markers are a set and the expiry index only removes the
+     * entry from the cache if it is still the same one.
+     */
+    @PostConstruct
+    public void registerCacheEntryListener() {
+        correlationCache.registerCacheEntryListener(new MutableCacheEntryListenerConfiguration<>(
+                new FactoryBuilder.SingletonFactory<>(new CorrelationCacheListener()), null, true, false));
+        final String localNodeId = clusterMembership().getLocalNodeId();
+        int indexed = 0;
+        for (final Cache.Entry<EventNotificationMarker, ClusteredEventNotification> cacheEntry : correlationCache) {
+            final ClusteredEventNotification entry = cacheEntry.getValue();
+            index(entry);
+            if (localNodeId.equals(entry.getOwnerNodeId())) {
+                expiryIndex.add(entry);
+            }
+            indexed++;
+        }
+        log.info("Indexed {} EventNotifications already in the clustered correlation cache", indexed);
+    }
+
+    /**
+     * Gets the number of EventNotifications owned by the members which are indexed by this instance
+     * @return number of entries
+     */
+    public int getIndexedSize() {
+        int indexedSize = 0;
+        for (final Set<EventNotificationMarker> markers : markersByOwner.values()) {
+            indexedSize += markers.size();
+        }
+        return indexedSize;
+    }
+
+    /**
+     * Atomically takes the matching EventNotification from the clustered cache, otherwise stores the given EventNotification in it, owned
+     * by the member which owns its network element.
+     * If another instance buffers a matching EventNotification in between, the loop takes that one instead.
+     * @param marker - key of the EventNotification
+     * @param eventNotif - an instance of @class EventNotification to correlate or store to the cache
+     * @param currentTimeMillis - the time in milliseconds since epoch the EventNotification was received
+     * @return @class CorrelationResult, correlated with the matching EventNotification or buffered
+     */
+    public CorrelationResult correlateOrBuffer(final EventNotificationMarker marker, final EventNotification eventNotif,
+                                               final long currentTimeMillis) {
+        final ClusteredEventNotification entry = new ClusteredEventNotification(marker, eventNotif, currentTimeMillis,
+                clusterMembership().ownerOf(marker.getNetworkElementName()));
+        while (true) {
+            final ClusteredEventNotification partner = correlationCache.getAndRemove(marker);
+            if (partner != null) {
+                return CorrelationResult.correlated(partner.getEventNotification());
+            }
+            if (correlationCache.putIfAbsent(marker, entry)) {
+                return CorrelationResult.buffered();
+            }
+        }
+    }
+
+    /**
+     * Checks if the oldest EventNotification owned by this instance may have elapsed at the given time.
+     * @param currentTimeMillis - the time in milliseconds since epoch to check the entries against
+     * @return true if removeExpired should be called
+     */
+    public boolean hasExpired(final long currentTimeMillis) {
+        final ClusteredEventNotification head = expiryIndex.peek();
+        return head != null && isExpired(head, currentTimeMillis);
+    }
+
+    /**
+     * Removes the EventNotifications owned by this instance which have elapsed and should be sent to APS. An EventNotification which has
+     * been correlated or adopted by another instance in the meantime is not removed, as the conditional remove does not match it.
+     * @param currentTimeMillis - the time in milliseconds since epoch to check the entries against
+     * @return Map of EventNotificationMarker, EventNotification the Map of EventNotifications which need to be sent to APS
+     */
+    public Map<EventNotificationMarker, EventNotification> removeExpired(final long currentTimeMillis) {
+        final Map<EventNotificationMarker, EventNotification> returnNotificationList = new HashMap<>();
+        if (!expiryLock.tryLock()) {
+            return returnNotificationList;
+        }
+        try {
+            ClusteredEventNotification head;
+            while ((head = expiryIndex.peek()) != null && isExpired(head, currentTimeMillis)) {
+                expiryIndex.poll();
+                if (correlationCache.remove(head.getMarker(), head)) {
+                    returnNotificationList.put(head.getMarker(), head.getEventNotification());
+                }
+            }
+        } finally {
+            expiryLock.unlock();
+        }
+        return returnNotificationList;
+    }
+
+    /**
+     * Gets the number of EventNotifications in the expiry index of this instance, some of them may already have been correlated elsewhere
+     * @return number of entries
+     */
+    public int getLocalSize() {
+        return expiryIndex.size();
+    }
+
+    /**
+     * Takes ownership of the EventNotifications owned by the members which have left whose network element is now owned by this instance.
+     * Only the entries indexed under the departed members are looked at. They keep their entry time so they are sent when they would have
+     * been by the member which left.
+     * @param departedNodeIds - node ids of the members which have left the service cluster
+     * @return number of adopted EventNotifications
+     */
+    public int adoptOrphans(final Collection<String> departedNodeIds) {
+        final ClusterMembership clusterMembership = clusterMembership();
+        int adopted = 0;
+        for (final String departedNodeId : departedNodeIds) {
+            //The entries adopted by the other members are indexed again under their new owner when they are replaced
+            final Set<EventNotificationMarker> orphans = markersByOwner.remove(departedNodeId);
+            if (orphans == null) {
+                continue;
+            }
+            for (final EventNotificationMarker marker : orphans) {
+                if (!clusterMembership.isLocalOwner(marker.getNetworkElementName())) {
+                    continue;
+                }
+                final ClusteredEventNotification entry = correlationCache.get(marker);
+                if (entry == null || !departedNodeId.equals(entry.getOwnerNodeId())) {
+                    continue;
+                }
+                final ClusteredEventNotification adoptedEntry = entry.adoptedBy(clusterMembership.getLocalNodeId());
+                if (correlationCache.replace(marker, entry, adoptedEntry)) {
+                    expiryIndex.add(adoptedEntry);
+                    adopted++;
+                }
+            }
+        }
+        log.info("Adopted {} EventNotifications from members {} which have left the service cluster", adopted, departedNodeIds);
+        return adopted;
+    }
+
+    private ClusterMembership clusterMembership() {
+        return serviceClusterMembership.getClusterMembership();
+    }
+
+    private boolean isExpired(final ClusteredEventNotification entry, final long currentTimeMillis) {
+        return entry.getEntryTime() + configurationBean.getEventNotificationCorrelationWindowMillis() <= currentTimeMillis;
+    }
+
+    private void index(final ClusteredEventNotification entry) {
+        markersByOwner.computeIfAbsent(entry.getOwnerNodeId(), ownerNodeId -> ConcurrentHashMap.newKeySet()).add(entry.getMarker());
+    }
+
+    private void unindex(final ClusteredEventNotification entry) {
+        markersByOwner.computeIfPresent(entry.getOwnerNodeId(), (ownerNodeId, markers) -> {
+            markers.remove(entry.getMarker());
+            return markers.isEmpty() ? null : markers;
+        });
+    }
+
+    /**
+     * Indexes the entries created, adopted and removed by any instance. An entry created for a network element owned by this instance is
+     * added to its expiry index, an adopted entry is added by the adopting instance itself.
+     */
+    private final class CorrelationCacheListener implements CacheEntryCreatedListener<EventNotificationMarker, ClusteredEventNotification>,
+            CacheEntryUpdatedListener<EventNotificationMarker, ClusteredEventNotification>,
+            CacheEntryRemovedListener<EventNotificationMarker, ClusteredEventNotification> {
+
+        @Override
+        public void onCreated(final Iterable<CacheEntryEvent<? extends EventNotificationMarker, ? extends ClusteredEventNotification>> events) {
+            final String localNodeId = clusterMembership().getLocalNodeId();
+            for (final CacheEntryEvent<? extends EventNotificationMarker, ? extends ClusteredEventNotification> event : events) {
+                final ClusteredEventNotification entry = event.getValue();
+                index(entry);
+                if (localNodeId.equals(entry.getOwnerNodeId())) {
+                    expiryIndex.add(entry);
+                }
+            }
+        }
+
+        @Override
+        public void onUpdated(final Iterable<CacheEntryEvent<? extends EventNotificationMarker, ? extends ClusteredEventNotification>> events) {
+            for (final CacheEntryEvent<? extends EventNotificationMarker, ? extends ClusteredEventNotification> event : events) {
+                if (event.isOldValueAvailable()) {
+                    unindex(event.getOldValue());
+                }
+                index(event.getValue());
+            }
+        }
+
+        @Override
+        public void onRemoved(final Iterable<CacheEntryEvent<? extends EventNotificationMarker, ? extends ClusteredEventNotification>> events) {
+            for (final CacheEntryEvent<? extends EventNotificationMarker, ? extends ClusteredEventNotification> event : events) {
+                if (event.isOldValueAvailable()) {
+                    unindex(event.getOldValue());
+                }
+            }
+        }
+    }
+}
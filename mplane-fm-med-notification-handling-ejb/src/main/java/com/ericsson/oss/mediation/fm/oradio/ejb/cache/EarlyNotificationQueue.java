@@ -0,0 +1,105 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean;
+import com.ericsson.oss.mediation.fm.oradio.api.models.ORadioNotification;
+import com.ericsson.oss.mediation.fm.oradio.ejb.ORadioAlarmManagementServiceLocal;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.inject.Inject;
+
+/**
+ * Holds the notifications received from nodes which are not yet in the NodeStateCache while it is warming up, so they are not dropped as
+ * unsupervised. The queue is bounded by the configured capacity. Once the NodeStateCache is ready the held notifications are processed in
+ * the order they were received.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@Slf4j
+public class EarlyNotificationQueue {
+
+    @Inject
+    private ConfigurationBean configurationBean;
+
+    @Inject
+    private ORadioAlarmManagementServiceLocal alarmManagementService;
+
+    private final Queue<ORadioNotification> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final Lock replayLock = new ReentrantLock();
+
+    /**
+     * Holds a notification until the NodeStateCache is ready
+     * @param notification - the notification received from the node
+     * @return false if the queue is full and the notification was not held
+     */
+    public boolean offer(final ORadioNotification notification) {
+        if (size.incrementAndGet() > configurationBean.getEarlyNotificationQueueCapacity()) {
+            size.decrementAndGet();
+            return false;
+        }
+        queue.add(notification);
+        return true;
+    }
+
+    /**
+     * Processes the held notifications. Only one thread replays at a time, a notification held while another thread is replaying is
+     * processed by that thread.
+     */
+    public void replay() {
+        while (!queue.isEmpty() && replayLock.tryLock()) {
+            try {
+                final List<ORadioNotification> notifications = drain();
+                if (!notifications.isEmpty()) {
+                    log.info("Processing {} notifications held until the NodeStateCache was ready", notifications.size());
+                    alarmManagementService.processNotifications(notifications);
+                }
+            } finally {
+                replayLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of notifications waiting for the NodeStateCache
+     * @return number of held notifications
+     */
+    public int getSize() {
+        return size.get();
+    }
+
+    private List<ORadioNotification> drain() {
+        final List<ORadioNotification> notifications = new ArrayList<>(Math.max(0, size.get()));
+        ORadioNotification notification;
+        while ((notification = queue.poll()) != null) {
+            size.decrementAndGet();
+            notifications.add(notification);
+        }
+        return notifications;
+    }
+}
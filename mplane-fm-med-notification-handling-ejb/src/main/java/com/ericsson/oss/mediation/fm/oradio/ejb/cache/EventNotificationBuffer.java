@@ -14,20 +14,33 @@
 
 package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
 
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean;
+import com.ericsson.oss.mediation.fm.oradio.api.models.InspectionPage;
+import com.ericsson.oss.mediation.fm.oradio.api.models.InspectionQuery;
+import com.ericsson.oss.mediation.fm.oradio.ejb.journal.EventNotificationJournal;
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.CorrelationResult;
 import com.ericsson.oss.mediation.fm.oradio.ejb.models.EventNotificationMarker;
 import com.ericsson.oss.mediation.translator.model.EventNotification;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
 import javax.ejb.Singleton;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
 
-import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.TIMEOUT_VALUE;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.EVENT_NOTIFICATION_BUFFER_SHARDS;
 
 /**
  * Used to store EventNotifications after transformation received from the node. The EventNotificationBufferTimer class reads this and clears the cache if the
- * EventNotifcation has been in the cache for over a certain amount of time, defined by the TIMEOUT_VALUE within the constants class.
+ * EventNotifcation has been in the cache for over a certain amount of time, defined by the correlation window in the ConfigurationBean.
  *
  * Specifically the O-RU node as defined by the ORAN specifications says that updates to alarms are a 2 notification process:
  * 1 - A notification to clear the current alarm
@@ -35,11 +48,60 @@ import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.TIMEOUT_VALUE;
  *
  * This class and ORadioAlarmManagementService are used to merge these two notifications in the case of an update.
  * The EventNotificationBuffertimer is used to ensure that new Alarms or Clears are still sent to APS in a reasonable amount of time.
+ *
+ * The buffer is partitioned into EVENT_NOTIFICATION_BUFFER_SHARDS shards by networkElementName, each shard is flushed independently so the
+ * expired EventNotifications of one busy node do not hold up the other nodes. All state is held in concurrent structures so the container
+ * lock of the Singleton is not used.
+ *
+ * The number of entries and their estimated size in bytes are limited by configuration. When a new EventNotification would go over the limits
+ * the configured OverflowPolicy decides whether the oldest entries are evicted to be sent early, or the new EventNotification is not buffered.
+ * The limits are checked before buffering without a lock, so under concurrent load they can be exceeded by the number of concurrent callers.
+ *
+ * When clustered correlation is enabled new EventNotifications are correlated in the ClusteredEventNotificationStore instead, which is
+ * shared by all instances; the limits and OverflowPolicy do not apply to it. The store is only looked up once clustered correlation is
+ * enabled, after that it keeps being flushed even if clustered correlation is disabled again.
+ *
+ * Every EventNotification buffered or removed from the shards is recorded in the EventNotificationJournal, which only queues the record
+ * unless the journal is enabled. The shards record the change while they hold the lock of the marker, so a removal racing with the
+ * insertion of the same EventNotification is never queued before it.
+ *
+ * The configured EventNotificationStorage decides whether new EventNotifications are held on the heap or serialized into direct memory,
+ * the estimated sizes the limits are applied to are those of the EventNotification objects in either case.
  */
 @Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
 public class EventNotificationBuffer {
 
-    private final Map<EventNotificationMarker, EventNotification> eventNotificationCache = new ConcurrentHashMap<>();
+    private static final String LOW_SEVERITY_WARNING = "WARNING";
+    private static final String LOW_SEVERITY_INDETERMINATE = "INDETERMINATE";
+
+    @Inject
+    private ConfigurationBean configurationBean;
+
+    @Inject
+    private Instance<ClusteredEventNotificationStore> clusteredStores;
+
+    private volatile ClusteredEventNotificationStore clusteredStore;
+
+    @Inject
+    private EventNotificationJournal journal;
+
+    private final EventNotificationBufferShard[] shards = new EventNotificationBufferShard[EVENT_NOTIFICATION_BUFFER_SHARDS];
+
+    // Counted by the shards, so the limits are applied to the totals without summing the shards for every EventNotification
+    private final AtomicInteger entries = new AtomicInteger();
+
+    private final AtomicLong estimatedBytes = new AtomicLong();
+
+    /**
+     * Constructor of the EventNotificationBuffer, creates the empty shards.
+     */
+    public EventNotificationBuffer() {
+        final EventNotificationBufferJournal journalRecorder = new JournalRecorder();
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new EventNotificationBufferShard(journalRecorder, entries, estimatedBytes);
+        }
+    }
 
     /**
      * Adds an EventNotification to the eventNotificationCache object.
@@ -48,8 +110,62 @@ public class EventNotificationBuffer {
      */
     public void addEventNotification(final EventNotification eventNotif, final String networkElementName) {
         final EventNotificationMarker marker = generateMarker(networkElementName,eventNotif.getExternalEventId());
-        marker.setEntryTime(System.currentTimeMillis());
-        eventNotificationCache.put(marker, eventNotif);
+        final long entryTime = System.currentTimeMillis();
+        shardFor(networkElementName).add(marker, eventNotif, entryTime, EventNotificationSizeEstimator.estimate(eventNotif),
+                getOffHeapMaxBytesPerShard(), true);
+    }
+
+    /**
+     * Adds an EventNotification replayed from the EventNotificationJournal, keeping the time it was first buffered. It is not journaled again.
+     * @param marker - key of the EventNotification
+     * @param eventNotif - an instance of @class EventNotification to store to the cache
+     * @param entryTime - the time in milliseconds since epoch the EventNotification was first buffered
+     */
+    public void restoreEventNotification(final EventNotificationMarker marker, final EventNotification eventNotif, final long entryTime) {
+        shardFor(marker.getNetworkElementName()).add(marker, eventNotif, entryTime, EventNotificationSizeEstimator.estimate(eventNotif),
+                getOffHeapMaxBytesPerShard(), false);
+    }
+
+    /**
+     * Checks the cache for an EventNotification with the same alarmId and networkElementName. If there is one it is removed from the
+     * cache and returned to be merged, otherwise the given EventNotification is added to the cache.
+     * Taking the match and the timer sending it are both atomic removes on the cache, so only one of them gets it; if a match is buffered
+     * by another thread after the check, adding fails and the match is taken instead.
+     * If the buffer is full the configured OverflowPolicy is applied, see CorrelationResult.
+     * @param eventNotif - an instance of @class EventNotification to correlate or store to the cache
+     * @param networkElementName - name of the node which has sent the EventNotification
+     * @return @class CorrelationResult, holding the matching EventNotification removed from the cache, or marking eventNotif as buffered
+     */
+    public CorrelationResult correlateOrBuffer(final EventNotification eventNotif, final String networkElementName) {
+        final EventNotificationMarker marker = generateMarker(networkElementName, eventNotif.getExternalEventId());
+        final long entryTime = System.currentTimeMillis();
+        if (configurationBean.isClusteredCorrelationEnabled()) {
+            return getClusteredStore().correlateOrBuffer(marker, eventNotif, entryTime);
+        }
+        final int shardIndex = shardIndexFor(networkElementName);
+        final EventNotificationBufferShard shard = shards[shardIndex];
+        EventNotification partner = shard.remove(marker);
+        if (partner != null) {
+            return CorrelationResult.correlated(partner);
+        }
+
+        //Only looked at once there is no partner, a correlated EventNotification is never buffered
+        final long estimatedSize = EventNotificationSizeEstimator.estimate(eventNotif);
+        final OverflowPolicy overflowPolicy = OverflowPolicy.fromValue(configurationBean.getEventNotificationBufferOverflowPolicy());
+        final boolean full = isFull(estimatedSize);
+        if (full && overflowPolicy != OverflowPolicy.SEND_OLDEST) {
+            return overflowPolicy == OverflowPolicy.DROP_LOW_SEVERITY && isLowSeverity(eventNotif) ? CorrelationResult.dropped()
+                    : CorrelationResult.bypassed();
+        }
+        //If the partner is buffered by another thread in between, take it instead
+        final long offHeapMaxBytes = getOffHeapMaxBytesPerShard();
+        while (!shard.putIfAbsent(marker, eventNotif, entryTime, estimatedSize, offHeapMaxBytes)) {
+            partner = shard.remove(marker);
+            if (partner != null) {
+                return CorrelationResult.correlated(partner);
+            }
+        }
+        return full ? CorrelationResult.buffered(removeOldestWhileFull(shardIndex)) : CorrelationResult.buffered();
     }
 
     /**
@@ -58,7 +174,8 @@ public class EventNotificationBuffer {
      * @param networkElementName - name of the node.
      */
     public void removeEventNotification(final String alarmId, final String networkElementName) {
-        eventNotificationCache.remove(generateMarker(networkElementName,alarmId));
+        final EventNotificationMarker marker = generateMarker(networkElementName,alarmId);
+        shardFor(networkElementName).remove(marker);
     }
 
     /**
@@ -66,7 +183,7 @@ public class EventNotificationBuffer {
      * @param eventNotifList - @class EventNotificationMarker, List of Markers which is used as keys to remove from the cache.
      */
     public void removeEventNotificationList(final Set<EventNotificationMarker> eventNotifList) {
-        eventNotifList.forEach(event -> removeEventNotification(event.getEventNotificationId(), event.getNetworkElementName()));
+        eventNotifList.forEach(marker -> shardFor(marker.getNetworkElementName()).remove(marker));
     }
 
     /**
@@ -76,7 +193,7 @@ public class EventNotificationBuffer {
      * @return @class EventNotification, the EventNotification which matches the alarmId and networkElementName.
      */
     public EventNotification getEventNotification(final String alarmId, final String networkElementName){
-        return eventNotificationCache.get(generateMarker(networkElementName,alarmId));
+        return shardFor(networkElementName).get(generateMarker(networkElementName,alarmId));
     }
 
     /**
@@ -86,39 +203,218 @@ public class EventNotificationBuffer {
      * @return
      */
     public boolean eventNotificationExists(final String alarmId, final String networkElementName){
-        return eventNotificationCache.containsKey(generateMarker(networkElementName,alarmId));
+        return shardFor(networkElementName).contains(generateMarker(networkElementName,alarmId));
     }
 
     /**
-     * DEBUG only: Gets the full Notification buffer as a Map(String,String)
-     * @return Map of the full eventNotificationCache.
+     * DEBUG only: Gets a page of the Notification buffer as a Map(String,String), only the EventNotifications in the page are converted to
+     * String. When the query is for one networkElementName only its shard is read. The entries are in the order of the shards, which
+     * changes as EventNotifications are buffered and sent.
+     * @param query - the nodes and the page to get
+     * @return InspectionPage of the EventNotifications keyed by EventNotificationMarker.
      */
-    public Map<String,String> getEventNotificationBuffer(){
-        HashMap<String,String> returnMap = new HashMap<>();
+    public InspectionPage getEventNotificationBuffer(final InspectionQuery query) {
+        final InspectionPageCollector page = new InspectionPageCollector(query);
+        if (query.getNetworkElementName() != null) {
+            addToPage(shardFor(query.getNetworkElementName()), page);
+        } else {
+            for (final EventNotificationBufferShard shard : shards) {
+                addToPage(shard, page);
+            }
+        }
+        return page.toPage();
+    }
 
-        eventNotificationCache.forEach((k,v) -> returnMap.put(k.toString(),v.toString()));
+    /**
+     * Gets the number of EventNotifications held in the buffer
+     * @return number of entries
+     */
+    public int getSize() {
+        return entries.get();
+    }
 
-        return returnMap;
+    /**
+     * Gets the estimated size in bytes of the EventNotifications held in the buffer
+     * @return estimated bytes
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes.get();
     }
 
     /**
-     * Used to return the list of notifications which have elapsed and should be sent to APS
+     * Gets the size in bytes of the direct memory allocated to hold EventNotifications off heap, it is kept for reuse once allocated
+     * @return allocated off heap bytes
+     */
+    public long getOffHeapBytes() {
+        long offHeapBytes = 0;
+        for (final EventNotificationBufferShard shard : shards) {
+            offHeapBytes += shard.getOffHeapBytes();
+        }
+        return offHeapBytes;
+    }
+
+    /**
+     * Gets the number of shards the buffer is partitioned into
+     * @return number of shards
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Used to remove the notifications which have elapsed and should be sent to APS. Only the expired head of the expiry queue of each shard
+     * is visited.
      * @return Map of EventNotificationMarker, EventNotification the Map of EventNotifications which need to be sent to APS
      */
-    public Map<EventNotificationMarker, EventNotification> getEventNotificationsfromTime() {
+    public Map<EventNotificationMarker, EventNotification> removeExpiredEventNotifications() {
+        return removeExpiredEventNotifications(System.currentTimeMillis());
+    }
+
+    /**
+     * Used to remove the notifications which have elapsed at the given time and should be sent to APS.
+     * @param currentTimeMillis - the time in milliseconds since epoch to check the entries against
+     * @return Map of EventNotificationMarker, EventNotification the Map of EventNotifications which need to be sent to APS
+     */
+    public Map<EventNotificationMarker, EventNotification> removeExpiredEventNotifications(final long currentTimeMillis) {
         final Map<EventNotificationMarker, EventNotification> returnNotificationList = new HashMap<>();
-        eventNotificationCache.keySet().forEach(marker -> {
-            long timePlusTwoSeconds = marker.getEntryTime() + (TIMEOUT_VALUE* 1000L);
-            //Is the notification over 2 seconds old?
-                if(timePlusTwoSeconds < System.currentTimeMillis()){
-                    returnNotificationList.put(marker,eventNotificationCache.get(marker));
-                }
-        });
+        final long correlationWindowMillis = configurationBean.getEventNotificationCorrelationWindowMillis();
+        for (final EventNotificationBufferShard shard : shards) {
+            returnNotificationList.putAll(shard.removeExpired(currentTimeMillis, correlationWindowMillis));
+        }
         return returnNotificationList;
     }
 
+    /**
+     * Used to remove the notifications of a single shard which have elapsed at the given time and should be sent to APS.
+     * @param shardIndex - index of the shard, from 0 to getShardCount() - 1
+     * @param currentTimeMillis - the time in milliseconds since epoch to check the entries against
+     * @return Map of EventNotificationMarker, EventNotification the Map of EventNotifications which need to be sent to APS
+     */
+    public Map<EventNotificationMarker, EventNotification> removeExpiredEventNotifications(final int shardIndex, final long currentTimeMillis) {
+        return shards[shardIndex].removeExpired(currentTimeMillis, configurationBean.getEventNotificationCorrelationWindowMillis());
+    }
+
+    /**
+     * Checks if a single shard may hold notifications which have elapsed at the given time, without removing them.
+     * @param shardIndex - index of the shard, from 0 to getShardCount() - 1
+     * @param currentTimeMillis - the time in milliseconds since epoch to check the entries against
+     * @return true if the shard should be flushed
+     */
+    public boolean hasExpiredEventNotifications(final int shardIndex, final long currentTimeMillis) {
+        return shards[shardIndex].hasExpired(currentTimeMillis, configurationBean.getEventNotificationCorrelationWindowMillis());
+    }
+
+    /**
+     * Checks if the clustered correlation store may hold notifications owned by this instance which have elapsed at the given time.
+     * @param currentTimeMillis - the time in milliseconds since epoch to check the entries against
+     * @return true if the clustered correlation store should be flushed
+     */
+    public boolean hasExpiredClusteredEventNotifications(final long currentTimeMillis) {
+        final ClusteredEventNotificationStore store = clusteredStore;
+        return store != null && store.hasExpired(currentTimeMillis);
+    }
+
+    /**
+     * Used to remove the notifications owned by this instance from the clustered correlation store which have elapsed at the given time.
+     * @param currentTimeMillis - the time in milliseconds since epoch to check the entries against
+     * @return Map of EventNotificationMarker, EventNotification the Map of EventNotifications which need to be sent to APS
+     */
+    public Map<EventNotificationMarker, EventNotification> removeExpiredClusteredEventNotifications(final long currentTimeMillis) {
+        final ClusteredEventNotificationStore store = clusteredStore;
+        return store == null ? Collections.emptyMap() : store.removeExpired(currentTimeMillis);
+    }
+
+    private ClusteredEventNotificationStore getClusteredStore() {
+        ClusteredEventNotificationStore store = clusteredStore;
+        if (store == null) {
+            store = clusteredStores.get();
+            clusteredStore = store;
+        }
+        return store;
+    }
+
+    /**
+     * The direct memory is split evenly between the shards, 0 when the EventNotifications are held on the heap
+     */
+    private long getOffHeapMaxBytesPerShard() {
+        if (EventNotificationStorage.fromValue(configurationBean.getEventNotificationBufferStorage()) != EventNotificationStorage.OFF_HEAP) {
+            return 0L;
+        }
+        return configurationBean.getEventNotificationBufferOffHeapMaxBytes() / shards.length;
+    }
+
+    private boolean isFull(final long additionalBytes) {
+        return getSize() >= configurationBean.getEventNotificationBufferMaxEntries()
+                || getEstimatedBytes() + additionalBytes > configurationBean.getEventNotificationBufferMaxBytes();
+    }
+
+    private boolean isOverLimit() {
+        return getSize() > configurationBean.getEventNotificationBufferMaxEntries()
+                || getEstimatedBytes() > configurationBean.getEventNotificationBufferMaxBytes();
+    }
+
+    /**
+     * Removes the oldest entries until the buffer is back within its limits, starting with the shard the new entry went to and then taking
+     * the oldest entry of each of the other shards in turn, as the age of the entries is only ordered within a shard.
+     */
+    private List<EventNotification> removeOldestWhileFull(final int firstShardIndex) {
+        final List<EventNotification> evicted = new ArrayList<>();
+        int shardIndex = firstShardIndex;
+        int emptyShards = 0;
+        while (emptyShards < shards.length && isOverLimit()) {
+            final BufferedEventNotification oldest = shards[shardIndex].removeOldest();
+            if (oldest == null) {
+                emptyShards++;
+            } else {
+                emptyShards = 0;
+                evicted.add(oldest.getEventNotification());
+            }
+            shardIndex = (shardIndex + 1) & (shards.length - 1);
+        }
+        return evicted;
+    }
+
+    private static boolean isLowSeverity(final EventNotification eventNotif) {
+        return LOW_SEVERITY_WARNING.equals(eventNotif.getPerceivedSeverity()) || LOW_SEVERITY_INDETERMINATE.equals(eventNotif.getPerceivedSeverity());
+    }
+
+    private static void addToPage(final EventNotificationBufferShard shard, final InspectionPageCollector page) {
+        shard.forEach(marker -> page.matches(marker.getNetworkElementName()) && page.inPage(),
+                (marker, eventNotification) -> page.add(marker.toString(), eventNotification.toString()));
+    }
+
+    private EventNotificationBufferShard shardFor(final String networkElementName) {
+        return shards[shardIndexFor(networkElementName)];
+    }
+
+    private int shardIndexFor(final String networkElementName) {
+        final int hash = networkElementName == null ? 0 : networkElementName.hashCode();
+        //spread the higher bits as the shard count is a power of 2
+        return (hash ^ (hash >>> 16)) & (shards.length - 1);
+    }
+
+    /**
+     * A new marker is created for every call, it is the key stored with a buffered EventNotification and only a lookup key otherwise, as
+     * the marker is immutable it can not be reused. The CorrelationResult of a correlation holds the partner so is also created per call,
+     * the results without a partner are shared.
+     */
     private EventNotificationMarker generateMarker(final String networkElementName, final String eventNotificationId) {
         return new EventNotificationMarker(networkElementName, eventNotificationId);
     }
 
+    /**
+     * Hands the records of the shards to the injected EventNotificationJournal
+     */
+    private final class JournalRecorder implements EventNotificationBufferJournal {
+
+        @Override
+        public void recordInsert(final EventNotificationMarker marker, final EventNotification eventNotification, final long entryTime) {
+            journal.recordInsert(marker, eventNotification, entryTime);
+        }
+
+        @Override
+        public void recordRemove(final EventNotificationMarker marker) {
+            journal.recordRemove(marker);
+        }
+    }
 }
@@ -0,0 +1,37 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.EventNotificationMarker;
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+
+/**
+ * Records the EventNotifications stored in and removed from an EventNotificationBufferShard. It is called while the shard holds the lock of
+ * the marker, so it must only queue the record.
+ */
+interface EventNotificationBufferJournal {
+
+    /**
+     * @param marker - key of the stored EventNotification
+     * @param eventNotification - the stored EventNotification
+     * @param entryTime - the time in milliseconds since epoch it was stored
+     */
+    void recordInsert(EventNotificationMarker marker, EventNotification eventNotification, long entryTime);
+
+    /**
+     * @param marker - key of the removed EventNotification
+     */
+    void recordRemove(EventNotificationMarker marker);
+}
@@ -0,0 +1,259 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.EventNotificationMarker;
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.EVENT_NOTIFICATION_OFF_HEAP_SEGMENT_BYTES;
+
+/**
+ * One partition of the EventNotificationBuffer. All the EventNotifications of a node are held in the same shard, each shard has its own cache
+ * and expiry queue so the shards can be flushed independently of each other.
+ *
+ * Every entry added to the cache is also appended to the expiry queue. As the correlation window is the same for every entry, the queue is
+ * ordered by deadline, so only the head of the queue has to be looked at to find the expired entries rather than scanning the whole cache.
+ * Entries which are removed from the cache before they expire (e.g. merged) are left in the queue and discarded when they reach the head.
+ *
+ * The shard counts its entries and their estimated size in the counters of the EventNotificationBuffer, which are shared by all the shards
+ * so the buffer reads its totals to apply its limits without summing the shards.
+ *
+ * When the EventNotificationBuffer holds the EventNotifications off heap they are written to the OffHeapEventNotificationStore of the
+ * shard, an EventNotification which does not fit in its direct memory is held on the heap.
+ *
+ * Every entry stored or removed is recorded in the EventNotificationBufferJournal of the shard while the cache holds the lock of its marker,
+ * so the records of an EventNotification are queued in the same order as the changes to the cache.
+ */
+class EventNotificationBufferShard {
+
+    private final Map<EventNotificationMarker, BufferedEventNotification> eventNotificationCache = new ConcurrentHashMap<>();
+
+    private final Queue<BufferedEventNotification> expiryQueue = new ConcurrentLinkedQueue<>();
+
+    private final Lock expiryLock = new ReentrantLock();
+
+    private final AtomicInteger entries;
+
+    private final AtomicLong estimatedBytes;
+
+    private final OffHeapEventNotificationStore offHeapStore = new OffHeapEventNotificationStore(EVENT_NOTIFICATION_OFF_HEAP_SEGMENT_BYTES);
+
+    private final EventNotificationBufferJournal journal;
+
+    /**
+     * @param journal - records the entries stored in and removed from the shard
+     * @param entries - the number of entries of the EventNotificationBuffer
+     * @param estimatedBytes - the estimated size in bytes of the entries of the EventNotificationBuffer
+     */
+    EventNotificationBufferShard(final EventNotificationBufferJournal journal, final AtomicInteger entries, final AtomicLong estimatedBytes) {
+        this.journal = journal;
+        this.entries = entries;
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    /**
+     * Stores the EventNotification, replacing any there is for the marker.
+     * @param offHeapMaxBytes - the maximum size in bytes of the direct memory the shard holds EventNotifications in, 0 to hold it on the heap
+     * @param journaled - false if the EventNotification is restored from the journal and is not to be recorded again
+     */
+    void add(final EventNotificationMarker marker, final EventNotification eventNotif, final long entryTime, final long estimatedSize,
+             final long offHeapMaxBytes, final boolean journaled) {
+        final BufferedEventNotification entry = createEntry(marker, eventNotif, entryTime, estimatedSize, offHeapMaxBytes);
+        eventNotificationCache.compute(marker, (key, replaced) -> {
+            released(replaced);
+            if (journaled) {
+                journal.recordInsert(key, eventNotif, entryTime);
+            }
+            return entry;
+        });
+        added(entry);
+    }
+
+    /**
+     * Stores the EventNotification unless there is already one for the marker. The entry is only created here, once the caller knows there
+     * was no matching EventNotification to correlate with.
+     * @param offHeapMaxBytes - the maximum size in bytes of the direct memory the shard holds EventNotifications in, 0 to hold it on the heap
+     * @return true if the EventNotification was stored, false if a matching EventNotification was buffered in the meantime
+     */
+    boolean putIfAbsent(final EventNotificationMarker marker, final EventNotification eventNotif, final long entryTime,
+                        final long estimatedSize, final long offHeapMaxBytes) {
+        final BufferedEventNotification entry = createEntry(marker, eventNotif, entryTime, estimatedSize, offHeapMaxBytes);
+        final BufferedEventNotification stored = eventNotificationCache.computeIfAbsent(marker, key -> {
+            journal.recordInsert(key, eventNotif, entryTime);
+            return entry;
+        });
+        if (stored != entry) {
+            // the entry was never buffered, only its direct memory is given back
+            entry.release();
+            return false;
+        }
+        added(entry);
+        return true;
+    }
+
+    /**
+     * Removes the EventNotification matching the marker
+     * @return the removed EventNotification, null if there was none
+     */
+    EventNotification remove(final EventNotificationMarker marker) {
+        final BufferedEventNotification[] removed = new BufferedEventNotification[1];
+        eventNotificationCache.computeIfPresent(marker, (key, entry) -> {
+            journal.recordRemove(key);
+            removed[0] = entry;
+            return null;
+        });
+        if (removed[0] == null) {
+            return null;
+        }
+        released(removed[0]);
+        return removed[0].getEventNotification();
+    }
+
+    EventNotification get(final EventNotificationMarker marker) {
+        final BufferedEventNotification entry = eventNotificationCache.get(marker);
+        return entry == null ? null : entry.getEventNotification();
+    }
+
+    boolean contains(final EventNotificationMarker marker) {
+        return eventNotificationCache.containsKey(marker);
+    }
+
+    long getOffHeapBytes() {
+        return offHeapStore.getAllocatedBytes();
+    }
+
+    /**
+     * Calls the action with the marker and EventNotification of the entries whose marker is accepted by the filter, only those
+     * EventNotifications are read back if they are held off heap
+     */
+    void forEach(final Predicate<EventNotificationMarker> markerFilter, final BiConsumer<EventNotificationMarker, EventNotification> action) {
+        eventNotificationCache.forEach((marker, entry) -> {
+            if (markerFilter.test(marker)) {
+                action.accept(marker, entry.getEventNotification());
+            }
+        });
+    }
+
+    /**
+     * Removes the expired entries from the head of the expiry queue. Adding is lock free, only the removal is serialised; if the shard is
+     * already being flushed by another thread nothing is returned rather than waiting, the other thread will send the expired entries.
+     */
+    Map<EventNotificationMarker, EventNotification> removeExpired(final long currentTimeMillis, final long correlationWindowMillis) {
+        final Map<EventNotificationMarker, EventNotification> returnNotificationList = new HashMap<>();
+        if (!expiryLock.tryLock()) {
+            return returnNotificationList;
+        }
+        try {
+            BufferedEventNotification head;
+            while ((head = expiryQueue.peek()) != null && isExpired(head, currentTimeMillis, correlationWindowMillis)) {
+                expiryQueue.poll();
+                if (removeIfBuffered(head)) {
+                    returnNotificationList.put(head.getMarker(), head.getEventNotification());
+                }
+            }
+        } finally {
+            expiryLock.unlock();
+        }
+        return returnNotificationList;
+    }
+
+    /**
+     * Checks the head of the expiry queue only, the head may already have been merged in which case removeExpired will return nothing.
+     */
+    boolean hasExpired(final long currentTimeMillis, final long correlationWindowMillis) {
+        final BufferedEventNotification head = expiryQueue.peek();
+        return head != null && isExpired(head, currentTimeMillis, correlationWindowMillis);
+    }
+
+    /**
+     * Removes the oldest entry of the shard, whether it has expired or not.
+     * @return the oldest entry, null if the shard is empty
+     */
+    BufferedEventNotification removeOldest() {
+        expiryLock.lock();
+        try {
+            BufferedEventNotification head;
+            while ((head = expiryQueue.poll()) != null) {
+                if (removeIfBuffered(head)) {
+                    return head;
+                }
+            }
+            return null;
+        } finally {
+            expiryLock.unlock();
+        }
+    }
+
+    /**
+     * The entry is only removed if it is still the one held in the cache, it may have been merged or replaced since it was queued
+     */
+    private boolean removeIfBuffered(final BufferedEventNotification entry) {
+        final boolean[] removed = new boolean[1];
+        eventNotificationCache.computeIfPresent(entry.getMarker(), (key, buffered) -> {
+            if (buffered != entry) {
+                return buffered;
+            }
+            journal.recordRemove(key);
+            removed[0] = true;
+            return null;
+        });
+        if (removed[0]) {
+            released(entry);
+        }
+        return removed[0];
+    }
+
+    private void added(final BufferedEventNotification entry) {
+        entries.incrementAndGet();
+        estimatedBytes.addAndGet(entry.getEstimatedBytes());
+        expiryQueue.add(entry);
+    }
+
+    private void released(final BufferedEventNotification entry) {
+        if (entry != null) {
+            entry.release();
+            entries.decrementAndGet();
+            estimatedBytes.addAndGet(-entry.getEstimatedBytes());
+        }
+    }
+
+    private BufferedEventNotification createEntry(final EventNotificationMarker marker, final EventNotification eventNotif, final long entryTime,
+                                                  final long estimatedSize, final long offHeapMaxBytes) {
+        if (offHeapMaxBytes > 0) {
+            final BufferedEventNotification entry = offHeapStore.write(marker, eventNotif, entryTime, estimatedSize, offHeapMaxBytes);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return new BufferedEventNotification(marker, eventNotif, entryTime, estimatedSize);
+    }
+
+    private static boolean isExpired(final BufferedEventNotification entry, final long currentTimeMillis, final long correlationWindowMillis) {
+        //Has the notification reached the end of the correlation window?
+        return entry.getEntryTime() + correlationWindowMillis <= currentTimeMillis;
+    }
+}
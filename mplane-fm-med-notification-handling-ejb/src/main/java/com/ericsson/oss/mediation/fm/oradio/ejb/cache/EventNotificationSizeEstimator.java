@@ -0,0 +1,61 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+
+import java.util.Map;
+
+/**
+ * Gives a rough estimate of the heap retained by an EventNotification, used to keep the EventNotificationBuffer within its byte limit.
+ * It counts the characters of the String fields and additional attributes which make up nearly all of the size, plus a fixed overhead per
+ * object; it is not meant to be exact.
+ */
+public final class EventNotificationSizeEstimator {
+
+    private static final long EVENT_NOTIFICATION_OVERHEAD = 256L;
+    private static final long STRING_OVERHEAD = 40L;
+    private static final long MAP_ENTRY_OVERHEAD = 32L;
+
+    private EventNotificationSizeEstimator() {
+
+    }
+
+    /**
+     * Estimates the number of bytes retained by the EventNotification
+     * @param eventNotification - the EventNotification to estimate
+     * @return estimated size in bytes
+     */
+    public static long estimate(final EventNotification eventNotification) {
+        long size = EVENT_NOTIFICATION_OVERHEAD;
+        size += estimate(eventNotification.getExternalEventId());
+        size += estimate(eventNotification.getManagedObjectInstance());
+        size += estimate(eventNotification.getPerceivedSeverity());
+        size += estimate(eventNotification.getSpecificProblem());
+        size += estimate(eventNotification.getProbableCause());
+        size += estimate(eventNotification.getEventType());
+        final Map<String, String> additionalAttributes = eventNotification.getAdditionalAttributes();
+        if (additionalAttributes != null) {
+            for (final Map.Entry<String, String> attribute : additionalAttributes.entrySet()) {
+                size += MAP_ENTRY_OVERHEAD + estimate(attribute.getKey()) + estimate(attribute.getValue());
+            }
+        }
+        return size;
+    }
+
+    private static long estimate(final String value) {
+        return value == null ? 0L : STRING_OVERHEAD + 2L * value.length();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+/**
+ * Where the EventNotificationBuffer holds the EventNotifications it buffers.
+ */
+public enum EventNotificationStorage {
+    /**
+     * Hold the EventNotification objects on the Java heap.
+     */
+    HEAP,
+    /**
+     * Hold the EventNotifications serialized in direct memory, outside the Java heap, so the buffer does not fill the old generation. An
+     * EventNotification is read back when it is correlated or flushed, if it does not fit in the direct memory it is held on the heap.
+     */
+    OFF_HEAP;
+
+    //values() returns a new copy of the array on every call, this is looked up for every EventNotification
+    private static final EventNotificationStorage[] STORAGES = values();
+
+    /**
+     * Gets the storage from its configured name
+     * @param value - name of the storage, case insensitive
+     * @return EventNotificationStorage matching the name, HEAP if the name is not known
+     */
+    public static EventNotificationStorage fromValue(final String value) {
+        for (final EventNotificationStorage storage : STORAGES) {
+            if (storage.name().equalsIgnoreCase(value)) {
+                return storage;
+            }
+        }
+        return HEAP;
+    }
+}
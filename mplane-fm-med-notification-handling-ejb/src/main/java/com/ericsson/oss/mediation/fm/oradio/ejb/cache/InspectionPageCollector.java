@@ -0,0 +1,73 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.INSPECTION_PAGE_MAX_LIMIT;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.ericsson.oss.mediation.fm.oradio.api.models.InspectionPage;
+import com.ericsson.oss.mediation.fm.oradio.api.models.InspectionQuery;
+
+/**
+ * Collects the page of the entries of a cache selected by an InspectionQuery while the cache is read. Every entry matching the query is
+ * counted, but only the entries of the page are converted to String and copied, so inspecting a large cache does not copy it.
+ * The limit of the page is capped at INSPECTION_PAGE_MAX_LIMIT.
+ */
+final class InspectionPageCollector {
+
+    private final InspectionQuery query;
+
+    private final int offset;
+
+    private final int limit;
+
+    private final Map<String, String> entries;
+
+    private int total;
+
+    InspectionPageCollector(final InspectionQuery query) {
+        this.query = query;
+        this.offset = Math.max(0, query.getOffset());
+        this.limit = query.getLimit() <= 0 ? INSPECTION_PAGE_MAX_LIMIT : Math.min(query.getLimit(), INSPECTION_PAGE_MAX_LIMIT);
+        this.entries = new LinkedHashMap<>(Math.min(limit, 64) * 4 / 3 + 1);
+    }
+
+    /**
+     * @param networkElementName - name of the network element of the entry
+     * @return true if the entry is selected by the filters of the query, it then has to be counted with inPage
+     */
+    boolean matches(final String networkElementName) {
+        return query.matches(networkElementName);
+    }
+
+    /**
+     * Counts a matching entry
+     * @return true if the entry is in the page and has to be added
+     */
+    boolean inPage() {
+        final int position = total++;
+        return position >= offset && position - offset < limit;
+    }
+
+    void add(final String key, final String value) {
+        entries.put(key, value);
+    }
+
+    InspectionPage toPage() {
+        return new InspectionPage(total, offset, limit, entries);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+import java.util.Objects;
+
+/**
+ * Immutable state of one ORadio node held by the NodeStateCache. Everything needed to process a notification from the node is read with
+ * a single lookup of this record. A change to the node replaces the record, so a reader always sees a consistent state.
+ */
+public final class NodeState {
+
+    private static final NodeState UNKNOWN = new NodeState(null, null);
+
+    private final SupervisionState supervisionState;
+
+    private final String ossPrefix;
+
+    private NodeState(final SupervisionState supervisionState, final String ossPrefix) {
+        this.supervisionState = supervisionState;
+        this.ossPrefix = ossPrefix;
+    }
+
+    /**
+     * Gets the state of a node which nothing is known about yet, the other state is added with the with methods
+     * @return NodeState without a supervision state or ossPrefix
+     */
+    public static NodeState unknown() {
+        return UNKNOWN;
+    }
+
+    /**
+     * Used by the NodeStateTable to recreate the state of a node from its stored form
+     */
+    static NodeState of(final SupervisionState supervisionState, final String ossPrefix) {
+        return supervisionState == null && ossPrefix == null ? UNKNOWN : new NodeState(supervisionState, ossPrefix);
+    }
+
+    /**
+     * Creates a copy of this state with the FMAlarmSupervision state replaced
+     * @param active - the value of the active attribute of the FmAlarmSupervision MO
+     * @return the new NodeState
+     */
+    public NodeState withSupervisionActive(final boolean active) {
+        return new NodeState(SupervisionState.fromActiveAttrValue(active), ossPrefix);
+    }
+
+    /**
+     * Creates a copy of this state with the ossPrefix replaced
+     * @param ossPrefix - the ossPrefix of the node, the empty string is a valid ossPrefix
+     * @return the new NodeState
+     */
+    public NodeState withOssPrefix(final String ossPrefix) {
+        return new NodeState(supervisionState, ossPrefix);
+    }
+
+    /**
+     * Used to check to see if the node has its FMAlarmSupervision enabled, false if its state is not known
+     * @return boolean if the node is being supervised
+     */
+    public boolean isSupervisionActive() {
+        return supervisionState == SupervisionState.ACTIVE;
+    }
+
+    /**
+     * @return the FMAlarmSupervision state, null if the node has no FmAlarmSupervision MO
+     */
+    public SupervisionState getSupervisionState() {
+        return supervisionState;
+    }
+
+    /**
+     * @return the ossPrefix of the node, null if it is not known
+     */
+    public String getOssPrefix() {
+        return ossPrefix;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final NodeState nodeState = (NodeState) o;
+        return supervisionState == nodeState.supervisionState && Objects.equals(ossPrefix, nodeState.ossPrefix);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(supervisionState, ossPrefix);
+    }
+
+    @Override
+    public String toString() {
+        return "NodeState{supervisionState=" + supervisionState + ", ossPrefix='" + ossPrefix + "'}";
+    }
+
+    public enum SupervisionState {
+        ACTIVE,
+        INACTIVE;
+
+        public static SupervisionState fromActiveAttrValue(final boolean stateValue) {
+            return stateValue ? ACTIVE : INACTIVE;
+        }
+    }
+}
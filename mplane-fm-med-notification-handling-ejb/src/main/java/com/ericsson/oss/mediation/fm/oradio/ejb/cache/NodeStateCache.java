@@ -0,0 +1,448 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.Timer;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.inject.Inject;
+
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean;
+import com.ericsson.oss.mediation.fm.impl.ServiceStatisticsBean;
+import com.ericsson.oss.mediation.fm.oradio.api.models.InspectionPage;
+import com.ericsson.oss.mediation.fm.oradio.api.models.InspectionQuery;
+import com.ericsson.oss.mediation.fm.oradio.ejb.dps.DpsAccess;
+import com.ericsson.oss.mediation.fm.oradio.ejb.dps.NetworkElementProjection;
+import com.ericsson.oss.mediation.fm.oradio.ejb.fdn.Fdns;
+import com.ericsson.oss.mediation.fm.oradio.ejb.fdn.NetworkElementNamePool;
+import com.ericsson.oss.mediation.fm.oradio.ejb.parser.EventNotificationTemplateCache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.NODE_STATE_CACHE_INITIAL_CAPACITY;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.NODE_STATE_MISS_MAX_ENTRIES;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.NODE_STATE_WARM_UP_PAGE_SIZE;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.NODE_STATE_WARM_UP_RETRY_MILLIS;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.ORADIO_NE_TYPE;
+
+/**
+ * This class stores the state of the ORadio nodes so that it is available when the raw notifications are processed. The state of a node is
+ * a single NodeState record holding its FMAlarmSupervision state and its ossPrefix, so a notification needs a single lookup. The nodes are
+ * held in a compact NodeStateTable keyed by NetworkElement name, so a notification is looked up by the name it is received with and the
+ * fdn is not built for it. The cache is kept up to date from the DPS notifications, which are coalesced by node and applied in batches by
+ * the NodeStateEventCoalescer.
+ *
+ * At startup only the FDN, ossPrefix and FmAlarmSupervision active attribute of the nodes are read from DPS, in pages which are built into
+ * NodeStates in parallel by the NodeStatePageLoader. The warm-up runs in the background on a timer so the deployment is not held up, until
+ * it is ready notifications from nodes which are not in the cache are held in the EarlyNotificationQueue. The progress of the warm-up is
+ * reported in the ServiceStatisticsBean. The cache uses bean managed concurrency so it is read while it is warming up.
+ *
+ * Once it is ready a node missing from the cache, e.g. because its DPS create notification was lost, is read through from DPS. Concurrent
+ * lookups of the same missing node share one DPS read, and a node which does not exist in DPS is remembered as missing for a configured
+ * time so notifications from an unknown node do not each cause a DPS read. The nodes in the cache are reconciled against DPS in the
+ * background by the NodeStateReconciliationTimer, correcting the nodes whose DPS notifications were missed.
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@Slf4j
+public class NodeStateCache {
+
+    public enum WarmUpState {
+        WARMING_UP,
+        READY,
+        FAILED
+    }
+
+    @Inject
+    private DpsAccess dpsAccess;
+
+    @Inject
+    private NodeStatePageLoader nodeStatePageLoader;
+
+    @Inject
+    private ServiceStatisticsBean serviceStatistics;
+
+    @Inject
+    private EarlyNotificationQueue earlyNotificationQueue;
+
+    @Inject
+    private TimerService timerService;
+
+    @Inject
+    private ConfigurationBean configurationBean;
+
+    @Inject
+    private NetworkElementNamePool networkElementNamePool;
+
+    @Inject
+    private EventNotificationTemplateCache eventNotificationTemplateCache;
+
+    private final NodeStateTable nodeStateCache = new NodeStateTable(NODE_STATE_CACHE_INITIAL_CAPACITY);
+
+    // DPS reads of missing nodes in progress, keyed by NetworkElement name
+    private final Map<String, CompletableFuture<NodeState>> nodeStateLoads = new ConcurrentHashMap<>();
+
+    // Nodes which do not exist in DPS, keyed by NetworkElement name, with the time until which they are not read again. The time to live is
+    // the same for every node so the insertion order is the expiry order, once NODE_STATE_MISS_MAX_ENTRIES are held the oldest is evicted
+    private final Map<String, Long> missingNodes = Collections.synchronizedMap(new LinkedHashMap<String, Long>() {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Long> eldest) {
+            return size() > NODE_STATE_MISS_MAX_ENTRIES;
+        }
+    });
+
+    private volatile WarmUpState warmUpState = WarmUpState.WARMING_UP;
+
+    private volatile long warmUpStartTime = System.currentTimeMillis();
+
+    private volatile int pagesLoaded;
+
+    @PostConstruct
+    void initialiseNodeStateCache() {
+        log.debug("Scheduling the NodeStateCache warm-up");
+        scheduleWarmUp(0);
+    }
+
+    /**
+     * Warms up the cache in the background, the deployment is not held up by the DPS read. Once the cache is ready the notifications held
+     * in the EarlyNotificationQueue are processed. If DPS can not be read the warm-up is retried and the cache stays not ready.
+     * @param timer - the timer object that has elapsed.
+     */
+    @Timeout
+    public void warmUp(final Timer timer) {
+        warmUpState = WarmUpState.WARMING_UP;
+        warmUpStartTime = System.currentTimeMillis();
+        try {
+            loadNodeStates();
+            warmUpState = WarmUpState.READY;
+            serviceStatistics.setNodeStateCacheReady(true);
+            log.info("Initialised NodeStateCache with {} nodes from {} pages in {} ms.", nodeStateCache.size(), pagesLoaded,
+                    getWarmUpMillis());
+            earlyNotificationQueue.replay();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            warmUpState = WarmUpState.FAILED;
+            log.error("Interrupted while initialising node state cache, retrying in {} ms", NODE_STATE_WARM_UP_RETRY_MILLIS, e);
+            scheduleWarmUp(NODE_STATE_WARM_UP_RETRY_MILLIS);
+        } catch (final Exception e) {
+            // TODO catch proper exception and decide what to do with it
+            warmUpState = WarmUpState.FAILED;
+            log.error("Failed to initialise node state cache, retrying in {} ms", NODE_STATE_WARM_UP_RETRY_MILLIS, e);
+            scheduleWarmUp(NODE_STATE_WARM_UP_RETRY_MILLIS);
+        }
+    }
+
+    /**
+     * Reads the nodes from DPS in pages, which are built in parallel. A node changed by a DPS notification during the warm-up is not
+     * overwritten by the state read from DPS.
+     */
+    private void loadNodeStates() throws InterruptedException, ExecutionException {
+        final List<Future<Map<String, NodeState>>> pages = new ArrayList<>();
+        dpsAccess.getNetworkElementProjections(ORADIO_NE_TYPE, NODE_STATE_WARM_UP_PAGE_SIZE,
+                page -> pages.add(nodeStatePageLoader.loadPage(page)));
+        pagesLoaded = 0;
+        for (final Future<Map<String, NodeState>> page : pages) {
+            for (final Map.Entry<String, NodeState> nodeState : page.get().entrySet()) {
+                nodeStateCache.putIfAbsent(nodeState.getKey(), nodeState.getValue());
+            }
+            pagesLoaded++;
+            serviceStatistics.setNodeStateCacheWarmUp(nodeStateCache.size(), getWarmUpMillis());
+        }
+    }
+
+    private void scheduleWarmUp(final long delayMillis) {
+        timerService.createSingleActionTimer(delayMillis, new TimerConfig(null, false));
+    }
+
+    @PreDestroy
+    void onServiceStopping() {
+        nodeStateCache.clear();
+        missingNodes.clear();
+        log.info("Stopping NodeStateCache");
+    }
+
+    /**
+     * Applies a batch of changes made to the nodes by DPS events, as coalesced by the NodeStateEventCoalescer. Each change is applied to its
+     * node atomically, the batch holds at most one change per node. Only the created events are filtered to ORadio nodes, so once the cache
+     * is ready a change of a node which is not in it is dropped rather than giving the node an id: the node is not an ORadio node, or it is
+     * read from DPS when it is looked up. During the warm-up the change is kept so it is not overwritten by the state read from DPS, the
+     * nodes which are not ORadio nodes are removed by the reconciliation.
+     * @param changes - the changes to apply
+     */
+    public void applyNodeStateChanges(final Collection<NodeStateChange> changes) {
+        for (final NodeStateChange change : changes) {
+            final String networkElementName = change.getNetworkElementName();
+            if (change.isDeleted()) {
+                nodeStateCache.remove(networkElementName);
+                eventNotificationTemplateCache.invalidate(networkElementName);
+                continue;
+            }
+            if (change.isCreated()) {
+                missingNodes.remove(networkElementName);
+            }
+            if (change.isCreated() || !isReady()) {
+                nodeStateCache.compute(networkElementName, (name, nodeState) -> change.applyTo(nodeState));
+            } else {
+                nodeStateCache.computeIfPresent(networkElementName, (name, nodeState) -> change.applyTo(nodeState));
+            }
+        }
+    }
+
+    /**
+     * Gets the state of a node with a single lookup, once the cache is ready a node missing from it is read from DPS
+     * @param networkElementFdn - fdn of the NetworkElement
+     * @return the NodeState of the node, null if the node is not in the cache and, once it is ready, does not exist in DPS
+     */
+    public NodeState getNodeState(final String networkElementFdn) {
+        return getNodeStateByName(networkElementNamePool.getNetworkElementName(networkElementFdn));
+    }
+
+    /**
+     * Gets the state of a node by the name its notifications are received with, without building its fdn
+     * @param networkElementName - name of the NetworkElement
+     * @return the NodeState of the node, null if the node is not in the cache and, once it is ready, does not exist in DPS
+     */
+    public NodeState getNodeStateByName(final String networkElementName) {
+        final NodeState nodeState = nodeStateCache.get(networkElementName);
+        if (nodeState != null || !isReady()) {
+            return nodeState;
+        }
+        return loadNodeState(networkElementName);
+    }
+
+    /**
+     * Used to check to see if the node has its FMAlarmSupervision enabled or disabled
+     * @param networkElementFdn - fdn of the NetworkElement
+     * @return boolean if the node is being supervised
+     */
+    public boolean isSupervisionActive(final String networkElementFdn) {
+        final NodeState nodeState = getNodeState(networkElementFdn);
+        return nodeState != null && nodeState.isSupervisionActive();
+    }
+
+    /**
+     * returns the ossPrefix for a node
+     * @param networkElementFdn - fdn of the NetworkElement
+     * @return ossPrefix, null if it is not known
+     */
+    public String getOssPrefix(final String networkElementFdn) {
+        final NodeState nodeState = getNodeState(networkElementFdn);
+        return nodeState == null ? null : nodeState.getOssPrefix();
+    }
+
+    /**
+     * DEBUG ONLY: Used to view the supervision state of the nodes in the cache, a page at a time
+     * @param query - the nodes and the page to view
+     * @return copy of the supervision state of each node in the page which has one, keyed by fdn
+     */
+    public InspectionPage getSupervisionStateCache(final InspectionQuery query) {
+        final InspectionPageCollector page = new InspectionPageCollector(query);
+        nodeStateCache.forEach(page::matches, (networkElementName, nodeState) -> {
+            if (nodeState.getSupervisionState() != null && page.inPage()) {
+                page.add(Fdns.toNetworkElementFdn(networkElementName), nodeState.getSupervisionState().toString());
+            }
+        });
+        return page.toPage();
+    }
+
+    /**
+     * DEBUG ONLY: Used to view the ossPrefix of the nodes in the cache, a page at a time
+     * @param query - the nodes and the page to view
+     * @return copy of the ossPrefix of each node in the page which has one, keyed by fdn
+     */
+    public InspectionPage getOssPrefixCache(final InspectionQuery query) {
+        final InspectionPageCollector page = new InspectionPageCollector(query);
+        nodeStateCache.forEach(page::matches, (networkElementName, nodeState) -> {
+            if (nodeState.getOssPrefix() != null && page.inPage()) {
+                page.add(Fdns.toNetworkElementFdn(networkElementName), nodeState.getOssPrefix());
+            }
+        });
+        return page.toPage();
+    }
+
+    /**
+     * Used by the reconciliation to get the nodes to check against DPS
+     * @return copy of the fdns of the nodes in the cache
+     */
+    public List<String> getNetworkElementFdns() {
+        final List<String> networkElementFdns = new ArrayList<>(nodeStateCache.size());
+        nodeStateCache.forEach((networkElementName, nodeState) -> networkElementFdns.add(Fdns.toNetworkElementFdn(networkElementName)));
+        return networkElementFdns;
+    }
+
+    /**
+     * Compares the state of a node in the cache with DPS and corrects it if a DPS notification was missed. The node is only corrected if
+     * it has not been changed by a DPS notification while DPS was read.
+     * @param networkElementFdn - fdn of the NetworkElement
+     * @return true if the node was corrected
+     */
+    public boolean reconcileNodeState(final String networkElementFdn) {
+        final String networkElementName = networkElementNamePool.getNetworkElementName(networkElementFdn);
+        final NodeState cachedNodeState = nodeStateCache.get(networkElementName);
+        final NetworkElementProjection networkElement = dpsAccess.getNetworkElementProjection(networkElementFdn, ORADIO_NE_TYPE);
+        if (networkElement == null) {
+            if (cachedNodeState != null && nodeStateCache.remove(networkElementName, cachedNodeState)) {
+                eventNotificationTemplateCache.invalidate(networkElementName);
+                log.info("Removed node with fdn {} which no longer exists in DPS", networkElementFdn);
+                return true;
+            }
+            return false;
+        }
+        final NodeState nodeState = orUnknown(NodeStatePageLoader.createNodeState(networkElement));
+        if (nodeState.equals(cachedNodeState)) {
+            return false;
+        }
+        final boolean corrected = cachedNodeState == null
+                ? nodeStateCache.putIfAbsent(networkElementNamePool.intern(networkElementName), nodeState) == null
+                : nodeStateCache.replace(networkElementName, cachedNodeState, nodeState);
+        if (corrected) {
+            log.info("Corrected node with fdn {} from {} to {}", networkElementFdn, cachedNodeState, nodeState);
+        }
+        return corrected;
+    }
+
+    /**
+     * Releases the ids of the nodes removed from the cache once they are too many, called by the reconciliation when it completes a pass
+     */
+    public void compactNodeStates() {
+        final int idCount = nodeStateCache.idCount();
+        if (nodeStateCache.compactIfSparse()) {
+            log.info("Compacted node state cache of {} nodes from {} to {} ids", nodeStateCache.size(), idCount, nodeStateCache.idCount());
+        }
+    }
+
+    /**
+     * Checks if the warm-up has completed and the cache holds every node, until then a node missing from the cache may be unknown yet
+     * @return true if the cache is ready
+     */
+    public boolean isReady() {
+        return warmUpState == WarmUpState.READY;
+    }
+
+    /**
+     * @return the state of the warm-up
+     */
+    public WarmUpState getWarmUpState() {
+        return warmUpState;
+    }
+
+    /**
+     * Used to see the progress of the warm-up, so it is known when the instance can take load
+     * @return the state of the warm-up, the nodes and pages loaded so far, the time taken and the number of notifications held until
+     * the cache is ready
+     */
+    public Map<String, String> getWarmUpStatus() {
+        final Map<String, String> status = new LinkedHashMap<>();
+        status.put("state", warmUpState.toString());
+        status.put("nodes", String.valueOf(nodeStateCache.size()));
+        status.put("pagesLoaded", String.valueOf(pagesLoaded));
+        status.put("warmUpMillis", String.valueOf(getWarmUpMillis()));
+        status.put("heldNotifications", String.valueOf(earlyNotificationQueue.getSize()));
+        return status;
+    }
+
+    /**
+     * Number of nodes in the cache
+     * @return size of the cache
+     */
+    public int getSize() {
+        return nodeStateCache.size();
+    }
+
+    /**
+     * Reads a node missing from the cache from DPS. Only the first of concurrent lookups of the node reads DPS, the others wait for its
+     * result. A failed read is not remembered, so the next lookup reads DPS again.
+     */
+    private NodeState loadNodeState(final String networkElementName) {
+        final Long missingUntil = missingNodes.get(networkElementName);
+        if (missingUntil != null) {
+            if (missingUntil > System.currentTimeMillis()) {
+                serviceStatistics.addNodeStateMissHit();
+                return null;
+            }
+            missingNodes.remove(networkElementName, missingUntil);
+        }
+        final CompletableFuture<NodeState> load = new CompletableFuture<>();
+        final CompletableFuture<NodeState> loadInProgress = nodeStateLoads.putIfAbsent(networkElementName, load);
+        if (loadInProgress != null) {
+            return loadInProgress.join();
+        }
+        NodeState nodeState = null;
+        try {
+            nodeState = readNodeState(networkElementName);
+        } catch (final Exception e) {
+            log.warn("Failed to read node {} from DPS", networkElementName, e);
+        } finally {
+            nodeStateLoads.remove(networkElementName, load);
+            load.complete(nodeState);
+        }
+        return nodeState;
+    }
+
+    private NodeState readNodeState(final String networkElementName) {
+        // The node may have been added by a DPS notification since it was looked up
+        final NodeState cachedNodeState = nodeStateCache.get(networkElementName);
+        if (cachedNodeState != null) {
+            return cachedNodeState;
+        }
+        serviceStatistics.addNodeStateReadThroughLoad();
+        // The node may not exist so its name is only added to the NetworkElementNamePool once it is found in DPS
+        final String networkElementFdn = Fdns.toNetworkElementFdn(networkElementName);
+        final NetworkElementProjection networkElement = dpsAccess.getNetworkElementProjection(networkElementFdn, ORADIO_NE_TYPE);
+        if (networkElement == null) {
+            log.debug("Node with fdn {} does not exist in DPS", networkElementFdn);
+            rememberMissingNode(networkElementName);
+            return null;
+        }
+        log.info("Adding node with fdn {} read from DPS to the cache", networkElementFdn);
+        final NodeState nodeState = orUnknown(NodeStatePageLoader.createNodeState(networkElement));
+        final NodeState previousNodeState = nodeStateCache.putIfAbsent(networkElementNamePool.intern(networkElementName), nodeState);
+        return previousNodeState == null ? nodeState : previousNodeState;
+    }
+
+    /**
+     * The missing nodes are bounded, when it is full the node remembered longest ago is evicted to make room
+     */
+    private void rememberMissingNode(final String networkElementName) {
+        missingNodes.put(networkElementName, System.currentTimeMillis() + configurationBean.getNodeStateMissTtlMillis());
+    }
+
+    private long getWarmUpMillis() {
+        return System.currentTimeMillis() - warmUpStartTime;
+    }
+
+    private static NodeState orUnknown(final NodeState nodeState) {
+        return nodeState == null ? NodeState.unknown() : nodeState;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+/**
+ * The change to the state of one node made by one or more DPS events, as coalesced by the NodeStateEventCoalescer and applied to the
+ * NodeStateCache. Immutable, a later event for the same node is merged with then.
+ *
+ * A node which is deleted and then created again is replaced: its previous state is dropped before the changes of the later events are
+ * applied.
+ */
+public final class NodeStateChange {
+
+    private final String networkElementName;
+
+    private final boolean deleted;
+
+    private final boolean replaced;
+
+    private final boolean created;
+
+    private final String ossPrefix;
+
+    private final Boolean supervisionActive;
+
+    private NodeStateChange(final String networkElementName, final boolean deleted, final boolean replaced, final boolean created,
+                            final String ossPrefix, final Boolean supervisionActive) {
+        this.networkElementName = networkElementName;
+        this.deleted = deleted;
+        this.replaced = replaced;
+        this.created = created;
+        this.ossPrefix = ossPrefix;
+        this.supervisionActive = supervisionActive;
+    }
+
+    /**
+     * @param networkElementName - name of the deleted NetworkElement
+     * @return the change removing the node from the cache
+     */
+    public static NodeStateChange deleted(final String networkElementName) {
+        return new NodeStateChange(networkElementName, true, false, false, null, null);
+    }
+
+    /**
+     * @param networkElementName - name of the created NetworkElement
+     * @param ossPrefix - the ossPrefix of the NetworkElement, null if it has none
+     * @return the change adding the ossPrefix of the node to the cache
+     */
+    public static NodeStateChange created(final String networkElementName, final String ossPrefix) {
+        return new NodeStateChange(networkElementName, false, false, true, ossPrefix, null);
+    }
+
+    /**
+     * @param networkElementName - name of the NetworkElement of the FmAlarmSupervision
+     * @param active - the new value of the active attribute of the FmAlarmSupervision
+     * @return the change setting the supervision state of the node in the cache
+     */
+    public static NodeStateChange supervisionChanged(final String networkElementName, final boolean active) {
+        return new NodeStateChange(networkElementName, false, false, false, null, active);
+    }
+
+    /**
+     * Merges a later change of the same node into this one
+     * @param later - the change made after this one
+     * @return the change with the same effect as applying this change and then the later one
+     */
+    public NodeStateChange then(final NodeStateChange later) {
+        if (later.deleted) {
+            return later;
+        }
+        return new NodeStateChange(networkElementName, false, deleted || replaced, created || later.created,
+                later.ossPrefix != null ? later.ossPrefix : (deleted ? null : ossPrefix),
+                later.supervisionActive != null ? later.supervisionActive : (deleted ? null : supervisionActive));
+    }
+
+    /**
+     * @param current - the state of the node in the cache, null if it is not in the cache
+     * @return the state of the node after the change, null if the node is not in the cache after it
+     */
+    NodeState applyTo(final NodeState current) {
+        if (deleted) {
+            return null;
+        }
+        NodeState nodeState = replaced ? null : current;
+        if (ossPrefix != null) {
+            nodeState = (nodeState == null ? NodeState.unknown() : nodeState).withOssPrefix(ossPrefix);
+        }
+        if (supervisionActive != null) {
+            nodeState = (nodeState == null ? NodeState.unknown() : nodeState).withSupervisionActive(supervisionActive);
+        }
+        return nodeState;
+    }
+
+    public String getNetworkElementName() {
+        return networkElementName;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public boolean isCreated() {
+        return created;
+    }
+
+    @Override
+    public String toString() {
+        return "NodeStateChange{networkElementName='" + networkElementName + "', deleted=" + deleted + ", replaced=" + replaced + ", created="
+                + created + ", ossPrefix='" + ossPrefix + "', supervisionActive=" + supervisionActive + "}";
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PreDestroy;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.EJBException;
+import javax.ejb.Singleton;
+import javax.ejb.Timeout;
+import javax.ejb.Timer;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import com.ericsson.oss.itpf.datalayer.dps.notification.event.AttributeChangeData;
+import com.ericsson.oss.itpf.datalayer.dps.notification.event.DpsAttributeChangedEvent;
+import com.ericsson.oss.itpf.datalayer.dps.notification.event.DpsObjectCreatedEvent;
+import com.ericsson.oss.itpf.datalayer.dps.notification.event.DpsObjectDeletedEvent;
+import com.ericsson.oss.itpf.sdk.core.util.StringUtils;
+import com.ericsson.oss.itpf.sdk.eventbus.annotation.Consumes;
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean;
+import com.ericsson.oss.mediation.fm.impl.ServiceStatisticsBean;
+import com.ericsson.oss.mediation.fm.oradio.ejb.fdn.NetworkElementNamePool;
+
+import lombok.extern.slf4j.Slf4j;
+
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.ACTIVE_ATTR;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.DPS_NOTIFICATION_EVENT_ENDPOINT;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.FM_ALARM_SUPERVISION_EVENT_ENDPOINT;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.FM_ALARM_SUPERVISION_FILTER;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.NE_TYPE_ATTR;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.ORADIO_NE_TYPE;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.OSS_PREFIX_ATTR;
+
+/**
+ * The stage between the DPS events of the ORadio nodes and the NodeStateCache. Each event is turned into a NodeStateChange of its node and
+ * merged with the change of that node still pending, so a burst of events for the same node, e.g. a node deleted and created again by a
+ * bulk import or FmAlarmSupervision toggled, is applied to the cache once.
+ *
+ * The pending changes are applied to the NodeStateCache in a batch as soon as the configured maximum batch size of nodes have changed,
+ * otherwise a non persistent single action timer applies whatever is pending once the first change has waited for the configured maximum
+ * delay. At most one timer is pending at a time. Only one batch is applied at a time so the changes of a node are applied in order.
+ * Queueing is lock free so the container lock of the Singleton is not used.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@Slf4j
+public class NodeStateEventCoalescer {
+
+    @Inject
+    private NodeStateCache nodeStateCache;
+
+    @Inject
+    private ServiceStatisticsBean serviceStatistics;
+
+    @Inject
+    private ConfigurationBean configurationBean;
+
+    @Inject
+    private TimerService timerService;
+
+    @Inject
+    private NetworkElementNamePool networkElementNamePool;
+
+    // The change of each node not yet applied to the NodeStateCache, keyed by NetworkElement name
+    private final Map<String, NodeStateChange> pending = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean timerScheduled = new AtomicBoolean();
+
+    private final Lock applyLock = new ReentrantLock();
+
+    /**
+     * Used to catch DPS notifications and process them, specifically this will catch the DpsObjectDeletedEvent when a Network Element is deleted
+     * and remove the node from the cache
+     * @param event - Event received from the DPS_NOTIFICATION_EVENT_ENDPOINT
+     */
+    public void onNodeDeletedEvent(@Observes
+                                   @Consumes(endpoint = DPS_NOTIFICATION_EVENT_ENDPOINT, filter = "type = 'NetworkElement'")
+                                   final DpsObjectDeletedEvent event) {
+        log.debug("Received DpsObjectDeletedEvent {}", event);
+        submit(NodeStateChange.deleted(networkElementNamePool.getNetworkElementName(event.getFdn())));
+    }
+
+    /**
+     * Used to catch DPS notifications and process them, specifically this will catch the DpsObjectCreatedEvent when a Network Element is added
+     * and add the nodes ossPrefix to the cache
+     * @param event - Event received from the DPS_NOTIFICATION_EVENT_ENDPOINT
+     */
+    public void onNodeCreatedEvent(@Observes
+                                   @Consumes(endpoint = DPS_NOTIFICATION_EVENT_ENDPOINT, filter = "type = 'NetworkElement'")
+                                   final DpsObjectCreatedEvent event) {
+        log.debug("Received DpsObjectCreatedEvent {}", event);
+        final Map<String, Object> attributeValues = event.getAttributeValues();
+        if (attributeValues == null || !ORADIO_NE_TYPE.equals(String.valueOf(attributeValues.get(NE_TYPE_ATTR)))) {
+            return;
+        }
+        final Object ossPrefix = attributeValues.get(OSS_PREFIX_ATTR);
+        submit(NodeStateChange.created(networkElementNamePool.internFromFdn(event.getFdn()), ossPrefix == null ? null : ossPrefix.toString()));
+    }
+
+    /**
+     * Consumes events from dps-notification-event JMS topic. The purpose of this method is to keep a local cache update with the FmAlarmSupervision
+     * state for a managed node.
+     *
+     * @param dpsAttributeChangedEvent
+     *          attribute changed event triggered by DPS
+     */
+    public void onSupervisionStateChange(@Observes @Consumes(endpoint = FM_ALARM_SUPERVISION_EVENT_ENDPOINT, filter = FM_ALARM_SUPERVISION_FILTER)
+                                         final DpsAttributeChangedEvent dpsAttributeChangedEvent) {
+
+        if (dpsAttributeChangedEvent == null) {
+            log.debug("Invalid notification received by NodeStateEventCoalescer");
+            return;
+        }
+
+        log.debug("NodeStateEventCoalescer.onSupervisionStateChange() with event {}", dpsAttributeChangedEvent);
+
+        final String fmAlarmSupervisionFdn = dpsAttributeChangedEvent.getFdn();
+        final Set<AttributeChangeData> changedAttributes = dpsAttributeChangedEvent.getChangedAttributes();
+
+        if (StringUtils.isEmpty(fmAlarmSupervisionFdn) || changedAttributes == null || changedAttributes.isEmpty()) {
+            log.warn("Event {} missing FDN or changed attributes.", dpsAttributeChangedEvent);
+            return;
+        }
+
+        // The FmAlarmSupervision is a child of the NetworkElement, its name is read from the fdn without building the NetworkElement fdn
+        final String networkElementName = networkElementNamePool.internFromFdn(fmAlarmSupervisionFdn);
+
+        for (final AttributeChangeData changedAttribute : changedAttributes) {
+            if (ACTIVE_ATTR.equals(changedAttribute.getName())) {
+                submit(NodeStateChange.supervisionChanged(networkElementName,
+                        Boolean.TRUE.equals(changedAttribute.getNewValue())));
+            }
+        }
+    }
+
+    /**
+     * Gets the number of nodes whose changes are waiting to be applied
+     * @return number of nodes with a pending change
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * The maximum delay of the pending changes has elapsed, apply everything that is pending.
+     * The flag is cleared before the changes are applied so a change made while applying either goes in this batch or schedules a new timer.
+     * @param timer - the timer object that has elapsed.
+     */
+    @Timeout
+    public void maxDelayElapsed(final Timer timer) {
+        timerScheduled.set(false);
+        applyPending(1);
+    }
+
+    @PreDestroy
+    void onServiceStopping() {
+        log.info("Stopping NodeStateEventCoalescer, applying the changes of {} nodes", pending.size());
+        applyPending(1);
+    }
+
+    private void submit(final NodeStateChange change) {
+        final boolean[] coalesced = new boolean[1];
+        pending.compute(change.getNetworkElementName(), (networkElementName, pendingChange) -> {
+            coalesced[0] = pendingChange != null;
+            return pendingChange == null ? change : pendingChange.then(change);
+        });
+        serviceStatistics.addNodeStateEvent(coalesced[0]);
+        final int maxBatchSize = configurationBean.getNodeStateEventMaxBatchSize();
+        if (pending.size() >= maxBatchSize) {
+            applyPending(maxBatchSize);
+        } else if (timerScheduled.compareAndSet(false, true)) {
+            scheduleMaxDelayTimer();
+        }
+    }
+
+    private void scheduleMaxDelayTimer() {
+        try {
+            timerService.createSingleActionTimer(configurationBean.getNodeStateEventMaxDelayMillis(), new TimerConfig(null, false));
+        } catch (final EJBException | IllegalArgumentException | IllegalStateException e) {
+            log.error("Failed to schedule the NodeStateEventCoalescer timer, applying the pending changes now", e);
+            timerScheduled.set(false);
+            applyPending(1);
+        }
+    }
+
+    /**
+     * Applies full batches of the pending changes to the NodeStateCache, while the changes of at least minBatchSize nodes are pending. If
+     * another thread is applying a batch it takes the pending changes instead. A change made after the last batch was taken is left to
+     * the timer.
+     */
+    private void applyPending(final int minBatchSize) {
+        if (!applyLock.tryLock()) {
+            return;
+        }
+        try {
+            final int maxBatchSize = configurationBean.getNodeStateEventMaxBatchSize();
+            while (pending.size() >= minBatchSize) {
+                final List<NodeStateChange> batch = takeBatch(maxBatchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                final long startTime = System.currentTimeMillis();
+                nodeStateCache.applyNodeStateChanges(batch);
+                final long applyMillis = System.currentTimeMillis() - startTime;
+                serviceStatistics.addNodeStateEventBatch(batch.size(), applyMillis);
+                log.debug("Applied the changes of {} nodes to the NodeStateCache in {} ms", batch.size(), applyMillis);
+            }
+        } finally {
+            applyLock.unlock();
+        }
+        if (!pending.isEmpty() && timerScheduled.compareAndSet(false, true)) {
+            scheduleMaxDelayTimer();
+        }
+    }
+
+    private List<NodeStateChange> takeBatch(final int maxBatchSize) {
+        final List<NodeStateChange> batch = new ArrayList<>(Math.min(maxBatchSize, pending.size()));
+        final Iterator<String> networkElementNames = pending.keySet().iterator();
+        while (batch.size() < maxBatchSize && networkElementNames.hasNext()) {
+            final NodeStateChange change = pending.remove(networkElementNames.next());
+            if (change != null) {
+                batch.add(change);
+            }
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+import com.ericsson.oss.mediation.fm.oradio.ejb.dps.NetworkElementProjection;
+import com.ericsson.oss.mediation.fm.oradio.ejb.fdn.NetworkElementNamePool;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import javax.ejb.AsyncResult;
+import javax.ejb.Asynchronous;
+import javax.ejb.Stateless;
+import javax.inject.Inject;
+
+/**
+ * Builds the NodeStates of a page of NetworkElementProjections during the warm-up of the NodeStateCache. Each page is built in its own
+ * asynchronous call, so the pages are built in parallel while DPS is still being read.
+ */
+@Stateless
+@Slf4j
+public class NodeStatePageLoader {
+
+    @Inject
+    private NetworkElementNamePool networkElementNamePool;
+
+    /**
+     * Builds the NodeStates of a page of NetworkElements
+     * @param page - the NetworkElementProjections read from DPS
+     * @return the NodeStates keyed by NetworkElement name, a NetworkElement with neither an FmAlarmSupervision child nor an ossPrefix is left out
+     */
+    @Asynchronous
+    public Future<Map<String, NodeState>> loadPage(final List<NetworkElementProjection> page) {
+        final Map<String, NodeState> nodeStates = new HashMap<>(page.size() * 4 / 3 + 1);
+        for (final NetworkElementProjection networkElement : page) {
+            final NodeState nodeState = createNodeState(networkElement);
+            if (nodeState == null) {
+                log.debug("Node with fdn {} has neither an FmAlarmSupervision child nor an ossPrefix so not adding to cache.",
+                        networkElement.getFdn());
+                continue;
+            }
+            nodeStates.put(networkElementNamePool.internFromFdn(networkElement.getFdn()), nodeState);
+        }
+        return new AsyncResult<>(nodeStates);
+    }
+
+    /**
+     * Builds the NodeState of a NetworkElement, also used by the NodeStateCache when a single node is read from DPS
+     * @return the NodeState, null if the NetworkElement has neither an FmAlarmSupervision child nor an ossPrefix
+     */
+    static NodeState createNodeState(final NetworkElementProjection networkElement) {
+        NodeState nodeState = null;
+        if (networkElement.getFmAlarmSupervisionActive() != null) {
+            nodeState = NodeState.unknown().withSupervisionActive(networkElement.getFmAlarmSupervisionActive());
+        }
+        //Empty String is a valid ossPrefix e.g. ""
+        if (networkElement.getOssPrefix() != null) {
+            nodeState = (nodeState == null ? NodeState.unknown() : nodeState).withOssPrefix(networkElement.getOssPrefix());
+        }
+        return nodeState;
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeState.SupervisionState;
+
+/**
+ * Compact store of the NodeStates of the NodeStateCache, keyed by NetworkElement name. Each name is given a dense int id by a StringIdPool
+ * and the state of the node is packed into one int at that id: a bitset of flags for whether the node is present, whether its
+ * FmAlarmSupervision state is known and active, and whether its ossPrefix is known, with the id of the ossPrefix in a second StringIdPool
+ * in the remaining bits. The ossPrefixes are deduplicated by that pool.
+ *
+ * Compared with a ConcurrentHashMap of fdn to NodeState this saves the map node, the NodeState and the "NetworkElement=" part of the key
+ * of every node. As the whole state of a node is one int it is changed with a compare and set, so the updates are atomic without locking.
+ * A NodeState is created when a node is read.
+ *
+ * The pools never release an id, so the id of a deleted node, and the ossPrefixes no longer used, are kept until the table is compacted:
+ * compactIfSparse rebuilds the pools from the nodes in the table when too many of their ids are unused. The changes share the read lock,
+ * so they still run concurrently, and the compaction takes the write lock. Lookups are not locked, a lookup during a compaction may see
+ * the table as it was before it.
+ */
+final class NodeStateTable {
+
+    private static final int PRESENT = 1;
+    private static final int SUPERVISION_KNOWN = 1 << 1;
+    private static final int SUPERVISION_ACTIVE = 1 << 2;
+    private static final int OSS_PREFIX_KNOWN = 1 << 3;
+    private static final int OSS_PREFIX_SHIFT = 4;
+    private static final int ABSENT = 0;
+
+    private static final int SEGMENT_SHIFT = 12;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int MAX_SEGMENTS = 1 << 12;
+
+    private final ReadWriteLock compactionLock = new ReentrantReadWriteLock();
+
+    private final Lock changeLock = compactionLock.readLock();
+
+    private final int expectedSize;
+
+    // Replaced by a compaction, the changes are made to the current store under the changeLock
+    private volatile Store store;
+
+    NodeStateTable(final int expectedSize) {
+        this.expectedSize = expectedSize;
+        store = new Store(expectedSize);
+    }
+
+    /**
+     * @param networkElementName - name of the NetworkElement
+     * @return the NodeState of the node, null if it is not in the table
+     */
+    NodeState get(final String networkElementName) {
+        final Store current = store;
+        final int id = current.networkElementNames.getId(networkElementName);
+        return id == StringIdPool.NO_ID ? null : current.decode(current.getState(id));
+    }
+
+    /**
+     * @return the previous NodeState of the node, null if it was not in the table
+     */
+    NodeState put(final String networkElementName, final NodeState nodeState) {
+        changeLock.lock();
+        try {
+            final Store current = store;
+            final int id = current.networkElementNames.getOrCreateId(networkElementName);
+            final int state = current.encode(nodeState);
+            final int previousState = current.segment(id).getAndSet(id & SEGMENT_MASK, state);
+            current.countChange(previousState, state);
+            return current.decode(previousState);
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    /**
+     * @return the current NodeState of the node, null if it was not in the table and has been added
+     */
+    NodeState putIfAbsent(final String networkElementName, final NodeState nodeState) {
+        changeLock.lock();
+        try {
+            final Store current = store;
+            final int id = current.networkElementNames.getOrCreateId(networkElementName);
+            final AtomicIntegerArray segment = current.segment(id);
+            final int state = current.encode(nodeState);
+            while (true) {
+                final int currentState = segment.get(id & SEGMENT_MASK);
+                if (currentState != ABSENT) {
+                    return current.decode(currentState);
+                }
+                if (segment.compareAndSet(id & SEGMENT_MASK, ABSENT, state)) {
+                    current.size.incrementAndGet();
+                    return null;
+                }
+            }
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    /**
+     * @return true if the NodeState of the node was the expected state and has been replaced
+     */
+    boolean replace(final String networkElementName, final NodeState expectedNodeState, final NodeState nodeState) {
+        changeLock.lock();
+        try {
+            final Store current = store;
+            final int id = current.networkElementNames.getId(networkElementName);
+            if (id == StringIdPool.NO_ID) {
+                return false;
+            }
+            final AtomicIntegerArray segment = current.segment(id);
+            final int currentState = segment.get(id & SEGMENT_MASK);
+            if (currentState == ABSENT || !current.decode(currentState).equals(expectedNodeState)) {
+                return false;
+            }
+            return segment.compareAndSet(id & SEGMENT_MASK, currentState, current.encode(nodeState));
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    /**
+     * @return the removed NodeState of the node, null if it was not in the table
+     */
+    NodeState remove(final String networkElementName) {
+        changeLock.lock();
+        try {
+            final Store current = store;
+            final int id = current.networkElementNames.getId(networkElementName);
+            if (id == StringIdPool.NO_ID) {
+                return null;
+            }
+            final int previousState = current.segment(id).getAndSet(id & SEGMENT_MASK, ABSENT);
+            current.countChange(previousState, ABSENT);
+            return current.decode(previousState);
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    /**
+     * @return true if the NodeState of the node was the expected state and has been removed
+     */
+    boolean remove(final String networkElementName, final NodeState expectedNodeState) {
+        changeLock.lock();
+        try {
+            final Store current = store;
+            final int id = current.networkElementNames.getId(networkElementName);
+            if (id == StringIdPool.NO_ID) {
+                return false;
+            }
+            final AtomicIntegerArray segment = current.segment(id);
+            final int currentState = segment.get(id & SEGMENT_MASK);
+            if (currentState == ABSENT || !current.decode(currentState).equals(expectedNodeState)) {
+                return false;
+            }
+            if (segment.compareAndSet(id & SEGMENT_MASK, currentState, ABSENT)) {
+                current.size.decrementAndGet();
+                return true;
+            }
+            return false;
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    /**
+     * Changes the NodeState of a node atomically, the function may be called more than once if the node is changed at the same time
+     * @param remappingFunction - given the name and the current NodeState, null if the node is not in the table, returns the new NodeState
+     * @return the new NodeState
+     */
+    NodeState compute(final String networkElementName, final BiFunction<String, NodeState, NodeState> remappingFunction) {
+        changeLock.lock();
+        try {
+            final Store current = store;
+            return current.compute(current.networkElementNames.getOrCreateId(networkElementName), networkElementName, remappingFunction);
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    /**
+     * Changes the NodeState of a node in the table atomically, a node which is not in the table is not added and is given no id
+     * @param remappingFunction - given the name and the current NodeState returns the new NodeState, null to remove the node
+     * @return the new NodeState, null if the node is not in the table
+     */
+    NodeState computeIfPresent(final String networkElementName, final BiFunction<String, NodeState, NodeState> remappingFunction) {
+        changeLock.lock();
+        try {
+            final Store current = store;
+            final int id = current.networkElementNames.getId(networkElementName);
+            if (id == StringIdPool.NO_ID) {
+                return null;
+            }
+            return current.compute(id, networkElementName,
+                    (name, nodeState) -> nodeState == null ? null : remappingFunction.apply(name, nodeState));
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    /**
+     * Calls the action with the name and NodeState of every node in the table
+     */
+    void forEach(final BiConsumer<String, NodeState> action) {
+        forEach(networkElementName -> true, action);
+    }
+
+    /**
+     * Calls the action with the name and NodeState of the nodes whose name is accepted by the filter, the NodeState is only created for
+     * those nodes
+     */
+    void forEach(final Predicate<String> nameFilter, final BiConsumer<String, NodeState> action) {
+        final Store current = store;
+        final int count = current.networkElementNames.size();
+        for (int id = 0; id < count; id++) {
+            final int state = current.getState(id);
+            if (state != ABSENT) {
+                final String networkElementName = current.networkElementNames.get(id);
+                if (nameFilter.test(networkElementName)) {
+                    action.accept(networkElementName, current.decode(state));
+                }
+            }
+        }
+    }
+
+    int size() {
+        return store.size.get();
+    }
+
+    /**
+     * @return the number of NetworkElement names given an id, of the nodes in the table and of the nodes removed since the last compaction
+     */
+    int idCount() {
+        return store.networkElementNames.size();
+    }
+
+    /**
+     * Removes every node and releases the ids and ossPrefixes
+     */
+    void clear() {
+        compactionLock.writeLock().lock();
+        try {
+            store = new Store(expectedSize);
+        } finally {
+            compactionLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the pools from the nodes in the table when more than a quarter of the NetworkElement ids are unused, or there are more
+     * ossPrefixes than nodes, so the ids of the removed nodes and the unused ossPrefixes are released. The changes wait for the
+     * compaction, which takes a time proportional to the number of ids.
+     * @return true if the table has been compacted
+     */
+    boolean compactIfSparse() {
+        compactionLock.writeLock().lock();
+        try {
+            final Store current = store;
+            final int idCount = current.networkElementNames.size();
+            final int nodeCount = current.size.get();
+            if (idCount - nodeCount <= idCount / 4 && current.ossPrefixes.size() <= nodeCount) {
+                return false;
+            }
+            final Store compacted = new Store(Math.max(expectedSize, nodeCount));
+            for (int id = 0; id < idCount; id++) {
+                final int state = current.getState(id);
+                if (state != ABSENT) {
+                    final int compactedId = compacted.networkElementNames.getOrCreateId(current.networkElementNames.get(id));
+                    compacted.segment(compactedId).set(compactedId & SEGMENT_MASK, compacted.encode(current.decode(state)));
+                    compacted.size.incrementAndGet();
+                }
+            }
+            store = compacted;
+            return true;
+        } finally {
+            compactionLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The pools and states of the table, replaced as a whole by a compaction
+     */
+    private static final class Store {
+
+        private final StringIdPool networkElementNames;
+
+        private final StringIdPool ossPrefixes;
+
+        private final AtomicReferenceArray<AtomicIntegerArray> segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        Store(final int expectedSize) {
+            networkElementNames = new StringIdPool(expectedSize);
+            ossPrefixes = new StringIdPool(expectedSize);
+        }
+
+        private NodeState compute(final int id, final String networkElementName,
+                                  final BiFunction<String, NodeState, NodeState> remappingFunction) {
+            final AtomicIntegerArray segment = segment(id);
+            while (true) {
+                final int currentState = segment.get(id & SEGMENT_MASK);
+                final NodeState nodeState = remappingFunction.apply(networkElementName, decode(currentState));
+                final int state = nodeState == null ? ABSENT : encode(nodeState);
+                if (segment.compareAndSet(id & SEGMENT_MASK, currentState, state)) {
+                    countChange(currentState, state);
+                    return nodeState;
+                }
+            }
+        }
+
+        private int getState(final int id) {
+            final AtomicIntegerArray segment = segments.get(id >>> SEGMENT_SHIFT);
+            return segment == null ? ABSENT : segment.get(id & SEGMENT_MASK);
+        }
+
+        private AtomicIntegerArray segment(final int id) {
+            final int segmentIndex = id >>> SEGMENT_SHIFT;
+            final AtomicIntegerArray segment = segments.get(segmentIndex);
+            if (segment != null) {
+                return segment;
+            }
+            segments.compareAndSet(segmentIndex, null, new AtomicIntegerArray(SEGMENT_SIZE));
+            return segments.get(segmentIndex);
+        }
+
+        private void countChange(final int previousState, final int state) {
+            if (previousState == ABSENT && state != ABSENT) {
+                size.incrementAndGet();
+            } else if (previousState != ABSENT && state == ABSENT) {
+                size.decrementAndGet();
+            }
+        }
+
+        private int encode(final NodeState nodeState) {
+            int state = PRESENT;
+            if (nodeState.getSupervisionState() != null) {
+                state |= SUPERVISION_KNOWN;
+                if (nodeState.isSupervisionActive()) {
+                    state |= SUPERVISION_ACTIVE;
+                }
+            }
+            if (nodeState.getOssPrefix() != null) {
+                state |= OSS_PREFIX_KNOWN | ossPrefixes.getOrCreateId(nodeState.getOssPrefix()) << OSS_PREFIX_SHIFT;
+            }
+            return state;
+        }
+
+        private NodeState decode(final int state) {
+            if (state == ABSENT) {
+                return null;
+            }
+            final SupervisionState supervisionState = (state & SUPERVISION_KNOWN) == 0 ? null
+                    : SupervisionState.fromActiveAttrValue((state & SUPERVISION_ACTIVE) != 0);
+            final String ossPrefix = (state & OSS_PREFIX_KNOWN) == 0 ? null : ossPrefixes.get(state >>> OSS_PREFIX_SHIFT);
+            return NodeState.of(supervisionState, ossPrefix);
+        }
+    }
+}
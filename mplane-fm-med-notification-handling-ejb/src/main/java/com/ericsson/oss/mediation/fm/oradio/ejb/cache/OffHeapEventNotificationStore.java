@@ -0,0 +1,191 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+import com.ericsson.oss.mediation.fm.oradio.ejb.journal.EventNotificationInputStream;
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.EventNotificationMarker;
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the EventNotifications of one EventNotificationBufferShard serialized in direct memory, outside the Java heap. The memory is
+ * allocated in segments of a fixed size, which are written in turn: an EventNotification is appended to the current segment, and a segment
+ * whose EventNotifications have all been released is reused once it is no longer being written. As the EventNotifications of a shard
+ * are released in about the order they were buffered, the segments are reclaimed in the same order without compacting them.
+ *
+ * The direct memory is allocated when it is first needed, up to the maximum given when an EventNotification is written, and is kept for
+ * reuse rather than freed. Writes, reads and releases are serialised on the store, the EventNotifications are serialized and deserialized
+ * outside of the lock.
+ */
+@Slf4j
+final class OffHeapEventNotificationStore {
+
+    private final int segmentBytes;
+
+    private final List<ByteBuffer> segments = new ArrayList<>();
+
+    // EventNotifications held in each segment, by segment index
+    private int[] liveEntries = new int[16];
+
+    // Stack of the indexes of the segments which can be written again
+    private int[] freeSegments = new int[16];
+
+    private int freeSegmentCount;
+
+    private int writeSegment = -1;
+
+    private int writePosition;
+
+    OffHeapEventNotificationStore(final int segmentBytes) {
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Serializes the EventNotification into direct memory
+     * @param maxBytes - the maximum size in bytes of the direct memory of the store
+     * @return the entry of the EventNotification, null if it could not be held in direct memory
+     */
+    BufferedEventNotification write(final EventNotificationMarker marker, final EventNotification eventNotif, final long entryTime,
+                                    final long estimatedSize, final long maxBytes) {
+        final byte[] bytes;
+        try {
+            bytes = serialize(eventNotif);
+        } catch (final IOException e) {
+            log.warn("Failed to serialize EventNotification {}, it is held on the heap", marker, e);
+            return null;
+        }
+        final long handle = allocate(bytes, maxBytes);
+        return handle < 0 ? null : new BufferedEventNotification(marker, entryTime, estimatedSize, this, handle, bytes.length);
+    }
+
+    /**
+     * Reads the EventNotification of an entry back from direct memory
+     * @return the EventNotification, read from the entry itself if it has been released in the meantime
+     */
+    EventNotification read(final BufferedEventNotification entry) {
+        final byte[] bytes = copy(entry);
+        return bytes == null ? entry.getReleasedEventNotification() : deserialize(bytes);
+    }
+
+    /**
+     * Frees the memory of an entry, the EventNotification must have been read back into the entry first
+     */
+    synchronized void free(final long handle) {
+        final int segment = (int) (handle >>> 32);
+        if (--liveEntries[segment] == 0 && segment != writeSegment) {
+            pushFreeSegment(segment);
+        }
+    }
+
+    /**
+     * @return the size in bytes of the direct memory allocated by the store
+     */
+    synchronized long getAllocatedBytes() {
+        return (long) segments.size() * segmentBytes;
+    }
+
+    private synchronized byte[] copy(final BufferedEventNotification entry) {
+        if (entry.getReleasedEventNotification() != null) {
+            return null;
+        }
+        final long handle = entry.getOffHeapHandle();
+        final ByteBuffer segment = segments.get((int) (handle >>> 32));
+        final byte[] bytes = new byte[entry.getOffHeapLength()];
+        segment.position((int) handle);
+        segment.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * @return the handle of the bytes, the segment index in the high int and the offset in the low int, -1 if there is no room for them
+     */
+    private synchronized long allocate(final byte[] bytes, final long maxBytes) {
+        if (bytes.length > segmentBytes) {
+            return -1;
+        }
+        if (writeSegment < 0 || writePosition + bytes.length > segmentBytes) {
+            if (!nextWriteSegment(maxBytes)) {
+                return -1;
+            }
+        }
+        final ByteBuffer segment = segments.get(writeSegment);
+        segment.position(writePosition);
+        segment.put(bytes);
+        final long handle = (long) writeSegment << 32 | writePosition;
+        writePosition += bytes.length;
+        liveEntries[writeSegment]++;
+        return handle;
+    }
+
+    private boolean nextWriteSegment(final long maxBytes) {
+        // The segment written until now is written again from the start if all of its EventNotifications have already been released
+        if (writeSegment >= 0 && liveEntries[writeSegment] == 0) {
+            writePosition = 0;
+            return true;
+        }
+        final int nextSegment;
+        if (freeSegmentCount > 0) {
+            nextSegment = freeSegments[--freeSegmentCount];
+        } else if ((long) (segments.size() + 1) * segmentBytes <= maxBytes) {
+            nextSegment = segments.size();
+            segments.add(ByteBuffer.allocateDirect(segmentBytes));
+            if (nextSegment == liveEntries.length) {
+                final int[] grown = new int[nextSegment * 2];
+                System.arraycopy(liveEntries, 0, grown, 0, nextSegment);
+                liveEntries = grown;
+            }
+        } else {
+            return false;
+        }
+        writeSegment = nextSegment;
+        writePosition = 0;
+        return true;
+    }
+
+    private void pushFreeSegment(final int segment) {
+        if (freeSegmentCount == freeSegments.length) {
+            final int[] grown = new int[freeSegmentCount * 2];
+            System.arraycopy(freeSegments, 0, grown, 0, freeSegmentCount);
+            freeSegments = grown;
+        }
+        freeSegments[freeSegmentCount++] = segment;
+    }
+
+    private static byte[] serialize(final EventNotification eventNotif) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+            objectOut.writeObject(eventNotif);
+        }
+        return out.toByteArray();
+    }
+
+    private static EventNotification deserialize(final byte[] bytes) {
+        try (ObjectInputStream objectIn = new EventNotificationInputStream(new ByteArrayInputStream(bytes))) {
+            return (EventNotification) objectIn.readObject();
+        } catch (final IOException | ClassNotFoundException | ClassCastException e) {
+            // The bytes were written by this store from an EventNotification, so they can only fail to be read back if the memory is corrupt
+            throw new IllegalStateException("Failed to read an EventNotification back from direct memory", e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+/**
+ * The policies which can be applied when the EventNotificationBuffer has reached its configured number of entries or estimated bytes.
+ */
+public enum OverflowPolicy {
+    /**
+     * Buffer the new EventNotification and send the oldest buffered EventNotifications to APS early to make room for it.
+     */
+    SEND_OLDEST,
+    /**
+     * Do not buffer the new EventNotification, send it to APS straight away without waiting for a matching notification.
+     */
+    BYPASS,
+    /**
+     * Drop the new EventNotification if it is of low severity, otherwise send it to APS straight away as for BYPASS.
+     */
+    DROP_LOW_SEVERITY;
+
+    //values() returns a new copy of the array on every call, this is looked up for every EventNotification
+    private static final OverflowPolicy[] POLICIES = values();
+
+    /**
+     * Gets the policy from its configured name
+     * @param value - name of the policy, case insensitive
+     * @return OverflowPolicy matching the name, SEND_OLDEST if the name is not known
+     */
+    public static OverflowPolicy fromValue(final String value) {
+        for (final OverflowPolicy policy : POLICIES) {
+            if (policy.name().equalsIgnoreCase(value)) {
+                return policy;
+            }
+        }
+        return SEND_OLDEST;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cache;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Assigns dense int ids to strings, so a string held by many entries is stored once and an entry refers to it with an int. The ids are
+ * found with an open addressing table of ints rather than a map of boxed ids, and the strings are held in segments indexed by id.
+ * Lookups are lock free, new strings are added under a lock. Ids are never reused, a string stays in the pool once it has been added, so a
+ * pool whose strings are no longer used is replaced by a new one built from the strings still in use.
+ */
+final class StringIdPool {
+
+    static final int NO_ID = -1;
+
+    private static final int SEGMENT_SHIFT = 12;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int MAX_SEGMENTS = 1 << 12;
+    private static final int MIN_TABLE_SIZE = 16;
+
+    private final AtomicReferenceArray<AtomicReferenceArray<String>> segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+
+    private final Object lock = new Object();
+
+    // Slots hold the id + 1 of the string hashed to them, 0 is an empty slot. Replaced when it is resized.
+    private volatile AtomicIntegerArray table;
+
+    private volatile int size;
+
+    StringIdPool(final int expectedSize) {
+        table = new AtomicIntegerArray(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * @param value - the string to look up
+     * @return the id of the string, NO_ID if it is not in the pool
+     */
+    int getId(final String value) {
+        final AtomicIntegerArray slots = table;
+        final int mask = slots.length() - 1;
+        for (int slot = spread(value.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            final int entry = slots.get(slot);
+            if (entry == 0) {
+                return NO_ID;
+            }
+            if (value.equals(get(entry - 1))) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * @param value - the string to look up
+     * @return the id of the string, it is added to the pool if it is not there
+     */
+    int getOrCreateId(final String value) {
+        final int id = getId(value);
+        if (id != NO_ID) {
+            return id;
+        }
+        synchronized (lock) {
+            final int existingId = getId(value);
+            if (existingId != NO_ID) {
+                return existingId;
+            }
+            final int newId = size;
+            if (newId >= MAX_SEGMENTS * SEGMENT_SIZE) {
+                throw new IllegalStateException("StringIdPool is full with " + newId + " strings");
+            }
+            if ((newId + 1) * 4 > table.length() * 3) {
+                table = resize(table.length() * 2, newId);
+            }
+            AtomicReferenceArray<String> segment = segments.get(newId >>> SEGMENT_SHIFT);
+            if (segment == null) {
+                segment = new AtomicReferenceArray<>(SEGMENT_SIZE);
+                segments.set(newId >>> SEGMENT_SHIFT, segment);
+            }
+            // The string is set before the slot so a reader which finds the slot finds the string
+            segment.set(newId & SEGMENT_MASK, value);
+            insert(table, value, newId);
+            size = newId + 1;
+            return newId;
+        }
+    }
+
+    /**
+     * @param id - id of a string in the pool
+     * @return the string, null if there is no string with the id
+     */
+    String get(final int id) {
+        final AtomicReferenceArray<String> segment = segments.get(id >>> SEGMENT_SHIFT);
+        return segment == null ? null : segment.get(id & SEGMENT_MASK);
+    }
+
+    /**
+     * @return the number of strings in the pool, the ids are 0 to size - 1
+     */
+    int size() {
+        return size;
+    }
+
+    private AtomicIntegerArray resize(final int tableSize, final int count) {
+        final AtomicIntegerArray resized = new AtomicIntegerArray(tableSize);
+        for (int id = 0; id < count; id++) {
+            insert(resized, get(id), id);
+        }
+        return resized;
+    }
+
+    private static void insert(final AtomicIntegerArray slots, final String value, final int id) {
+        final int mask = slots.length() - 1;
+        int slot = spread(value.hashCode()) & mask;
+        while (slots.get(slot) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots.set(slot, id + 1);
+    }
+
+    private static int spread(final int hashCode) {
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    private static int tableSizeFor(final int expectedSize) {
+        int tableSize = MIN_TABLE_SIZE;
+        while (tableSize * 3 < expectedSize * 4) {
+            tableSize <<= 1;
+        }
+        return tableSize;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cluster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Holds the members of the service cluster as seen by this instance and decides which member owns a network element, using rendezvous
+ * (highest random weight) hashing of the networkElementName and member node id. When a member leaves only the network elements it owned
+ * move to another member, and every member comes to the same answer without talking to the others.
+ */
+public final class ClusterMembership {
+
+    private final String localNodeId;
+
+    private volatile List<String> members;
+
+    /**
+     * Constructor of the ClusterMembership, until the first membership change the local instance is the only member
+     * @param localNodeId - node id of this instance
+     */
+    public ClusterMembership(final String localNodeId) {
+        this.localNodeId = localNodeId;
+        this.members = Collections.singletonList(localNodeId);
+    }
+
+    /**
+     * Replaces the members of the cluster, the local instance is always a member
+     * @param nodeIds - node ids of the current members
+     * @return node ids of the members which have left
+     */
+    public List<String> updateMembers(final Collection<String> nodeIds) {
+        final List<String> updatedMembers = new ArrayList<>(nodeIds);
+        if (!updatedMembers.contains(localNodeId)) {
+            updatedMembers.add(localNodeId);
+        }
+        final List<String> departedMembers = new ArrayList<>(members);
+        departedMembers.removeAll(updatedMembers);
+        members = Collections.unmodifiableList(updatedMembers);
+        return departedMembers;
+    }
+
+    public String getLocalNodeId() {
+        return localNodeId;
+    }
+
+    public List<String> getMembers() {
+        return members;
+    }
+
+    public boolean isMember(final String nodeId) {
+        return members.contains(nodeId);
+    }
+
+    /**
+     * Gets the member which owns the network element
+     * @param networkElementName - name of the node
+     * @return node id of the owning member
+     */
+    public String ownerOf(final String networkElementName) {
+        final int networkElementHash = networkElementName == null ? 0 : networkElementName.hashCode();
+        String owner = null;
+        int ownerWeight = 0;
+        for (final String member : members) {
+            final int weight = weight(member, networkElementHash);
+            if (owner == null || weight > ownerWeight || (weight == ownerWeight && member.compareTo(owner) < 0)) {
+                owner = member;
+                ownerWeight = weight;
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * Checks if the local instance owns the network element
+     * @param networkElementName - name of the node
+     * @return true if this instance is the owning member
+     */
+    public boolean isLocalOwner(final String networkElementName) {
+        return localNodeId.equals(ownerOf(networkElementName));
+    }
+
+    private static int weight(final String member, final int networkElementHash) {
+        //murmur3 finaliser so the weights of the members are independent of each other
+        int hash = member.hashCode() * 31 + networkElementHash;
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.cluster;
+
+import com.ericsson.oss.itpf.sdk.cluster.MembershipChangeEvent;
+import com.ericsson.oss.itpf.sdk.cluster.annotation.ServiceCluster;
+import com.ericsson.oss.itpf.sdk.config.annotation.ConfigurationChangeNotification;
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean;
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.ClusteredEventNotificationStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.NODE_IDENTIFIER_PROPERTY;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.SERVICE_CLUSTER_NAME;
+
+/**
+ * Keeps track of the members of the service cluster from startup, whether clustered correlation is enabled or not, so the owners of the
+ * network elements are known as soon as it is. The ClusteredEventNotificationStore, and with it the clustered cache, is only looked up
+ * when clustered correlation is enabled: it is created at startup, or when clustered correlation is enabled, so the EventNotifications
+ * buffered by the other members are indexed whether this instance has buffered any or not, and adopted when their owner leaves.
+ */
+@Startup
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@Slf4j
+public class ServiceClusterMembership {
+
+    @Inject
+    private ConfigurationBean configurationBean;
+
+    @Inject
+    private Instance<ClusteredEventNotificationStore> clusteredStore;
+
+    private final ClusterMembership clusterMembership = new ClusterMembership(System.getProperty(NODE_IDENTIFIER_PROPERTY, "localhost"));
+
+    /**
+     * Creates the ClusteredEventNotificationStore at startup when clustered correlation is enabled
+     */
+    @PostConstruct
+    public void createClusteredStore() {
+        if (configurationBean.isClusteredCorrelationEnabled()) {
+            startClusteredStore();
+        }
+    }
+
+    /**
+     * Creates the ClusteredEventNotificationStore when clustered correlation is enabled at runtime
+     * @param value - the new value of clusteredCorrelationEnabled
+     */
+    public void listenForClusteredCorrelationEnabledChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "clusteredCorrelationEnabled") final Boolean value) {
+        if (Boolean.TRUE.equals(value)) {
+            startClusteredStore();
+        }
+    }
+
+    /**
+     * Gets the members of the service cluster as seen by this instance
+     * @return the ClusterMembership
+     */
+    public ClusterMembership getClusterMembership() {
+        return clusterMembership;
+    }
+
+    /**
+     * Updates the members of the service cluster and, when clustered correlation is enabled, adopts the EventNotifications owned by the
+     * members which have left.
+     * @param event - the membership change event of the service cluster
+     */
+    public void onMembershipChange(@Observes @ServiceCluster(SERVICE_CLUSTER_NAME) final MembershipChangeEvent event) {
+        final List<String> nodeIds = new ArrayList<>();
+        for (final MembershipChangeEvent.ClusterMemberInfo member : event.getAllClusterMembers()) {
+            nodeIds.add(member.getNodeId());
+        }
+        final List<String> departedNodeIds = clusterMembership.updateMembers(nodeIds);
+        log.info("Service cluster membership changed, members: {}, left: {}", nodeIds, departedNodeIds);
+        if (!departedNodeIds.isEmpty() && configurationBean.isClusteredCorrelationEnabled()) {
+            clusteredStore.get().adoptOrphans(departedNodeIds);
+        }
+    }
+
+    private void startClusteredStore() {
+        //The store is a lazily created singleton, calling it creates it and indexes the entries already in the clustered cache
+        log.info("Clustered correlation enabled, {} EventNotifications indexed", clusteredStore.get().getIndexedSize());
+    }
+}
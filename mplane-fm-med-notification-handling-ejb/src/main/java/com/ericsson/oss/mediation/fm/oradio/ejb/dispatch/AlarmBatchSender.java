@@ -0,0 +1,88 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.dispatch;
+
+import com.ericsson.oss.itpf.sdk.core.annotation.EServiceRef;
+import com.ericsson.oss.mediation.fm.impl.ServiceStatisticsBean;
+import com.ericsson.oss.mediation.fm.oradio.api.MPlaneAlarmService;
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import javax.ejb.Asynchronous;
+import javax.ejb.Stateless;
+import javax.inject.Inject;
+
+/**
+ * Sends a batch of EventNotifications to APS. It is called asynchronously by the AlarmDispatcher so the batches are sent on the container's
+ * asynchronous thread pool, and tells the AlarmDispatcher when a batch has been sent so it hands over the next one.
+ */
+@Stateless
+@Slf4j
+public class AlarmBatchSender {
+
+    @EServiceRef
+    private MPlaneAlarmService mplaneAlarmService;
+
+    @Inject
+    private ServiceStatisticsBean serviceStatistics;
+
+    @Inject
+    private AlarmDispatcher alarmDispatcher;
+
+    /**
+     * Sends the batch to APS, a batch of a single EventNotification is sent on its own. If APS rejects a batch its alarms are sent again
+     * one at a time, so only the alarms that can not be sent are lost. Those are counted as failed. The AlarmDispatcher is told once the
+     * batch has been sent, including the alarms sent again, so the next batch can not overtake them.
+     * @param batch - the EventNotifications to send
+     */
+    @Asynchronous
+    public void sendBatch(final List<EventNotification> batch) {
+        try {
+            send(batch);
+        } finally {
+            alarmDispatcher.batchSent();
+        }
+    }
+
+    private void send(final List<EventNotification> batch) {
+        log.debug("Sending batch of {} alarms to APS", batch.size());
+        if (batch.size() == 1) {
+            sendAlarm(batch.get(0));
+            return;
+        }
+        final long startTime = System.nanoTime();
+        try {
+            mplaneAlarmService.sendAlarms(batch);
+        } catch (final RuntimeException e) {
+            log.warn("Failed to send batch of {} alarms to APS, sending them one at a time", batch.size(), e);
+            batch.forEach(this::sendAlarm);
+            return;
+        }
+        serviceStatistics.addSentNotifications(batch.size(), false, System.nanoTime() - startTime);
+    }
+
+    private void sendAlarm(final EventNotification eventNotification) {
+        final long startTime = System.nanoTime();
+        boolean failed = false;
+        try {
+            mplaneAlarmService.sendAlarm(eventNotification);
+        } catch (final RuntimeException e) {
+            failed = true;
+            log.error("Failed to send alarm {} to APS", eventNotification.getExternalEventId(), e);
+        }
+        serviceStatistics.addSentNotifications(1, failed, System.nanoTime() - startTime);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.dispatch;
+
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean;
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.EJBException;
+import javax.ejb.Singleton;
+import javax.ejb.Timeout;
+import javax.ejb.Timer;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.inject.Inject;
+
+/**
+ * The send stage between the correlation of the EventNotifications and APS. EventNotifications to be sent are queued here and sent to APS
+ * in batches by the AlarmBatchSender, so the caller is not held up by the downstream latency.
+ *
+ * A batch is sent as soon as the configured maximum batch size is queued, otherwise a non persistent single action timer sends whatever is
+ * queued once the first EventNotification has waited for the configured maximum delay. At most one timer is pending at a time.
+ * Only one batch is in flight at a time: the next batch is handed to the AlarmBatchSender once it reports the previous one as sent, with
+ * whatever has been queued meanwhile, so the EventNotifications reach APS in the order they were queued and a clear is never sent before
+ * its alarm. Queueing is lock free so the container lock of the Singleton is not used.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@Slf4j
+public class AlarmDispatcher {
+
+    @Inject
+    private AlarmBatchSender alarmBatchSender;
+
+    @Inject
+    private ConfigurationBean configurationBean;
+
+    @Inject
+    private TimerService timerService;
+
+    private final Queue<EventNotification> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final AtomicBoolean timerScheduled = new AtomicBoolean();
+
+    private final AtomicBoolean batchInFlight = new AtomicBoolean();
+
+    /**
+     * Queues an EventNotification to be sent to APS.
+     * @param eventNotification - the EventNotification to send
+     */
+    public void dispatch(final EventNotification eventNotification) {
+        pending.add(eventNotification);
+        afterQueued(pendingCount.incrementAndGet());
+    }
+
+    /**
+     * Queues a number of EventNotifications to be sent to APS.
+     * @param eventNotifications - the EventNotifications to send
+     */
+    public void dispatchAll(final Collection<EventNotification> eventNotifications) {
+        if (eventNotifications.isEmpty()) {
+            return;
+        }
+        pending.addAll(eventNotifications);
+        afterQueued(pendingCount.addAndGet(eventNotifications.size()));
+    }
+
+    /**
+     * Gets the number of EventNotifications waiting to be sent
+     * @return number of queued EventNotifications
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * The maximum delay of the queued EventNotifications has elapsed, send what is queued unless a batch is in flight, in which case it
+     * is sent once that batch has been sent.
+     * The flag is cleared before the queue is drained so an EventNotification queued while draining either goes in this drain or
+     * schedules a new timer.
+     * @param timer - the timer object that has elapsed.
+     */
+    @Timeout
+    public void maxDelayElapsed(final Timer timer) {
+        timerScheduled.set(false);
+        sendPending(1);
+    }
+
+    /**
+     * The AlarmBatchSender has sent the batch in flight, send what has been queued meanwhile.
+     * The flag is cleared before the queue is checked so an EventNotification queued meanwhile is either sent now or by its own caller.
+     */
+    public void batchSent() {
+        batchInFlight.set(false);
+        sendPending(1);
+    }
+
+    @PreDestroy
+    private void onServiceStopping() {
+        log.info("Stopping AlarmDispatcher, sending {} queued alarms", pendingCount.get());
+        sendPending(1);
+    }
+
+    /**
+     * Sends a full batch straight away, whatever is left over is sent when the maximum delay elapses or, if a batch is in flight, once it
+     * has been sent.
+     */
+    private void afterQueued(final int queued) {
+        final int maxBatchSize = configurationBean.getAlarmDispatchMaxBatchSize();
+        if (queued >= maxBatchSize) {
+            sendPending(maxBatchSize);
+        }
+        if (pendingCount.get() > 0 && !batchInFlight.get() && timerScheduled.compareAndSet(false, true)) {
+            scheduleMaxDelayTimer();
+        }
+    }
+
+    private void scheduleMaxDelayTimer() {
+        try {
+            timerService.createSingleActionTimer(configurationBean.getAlarmDispatchMaxDelayMillis(), new TimerConfig(null, false));
+        } catch (final EJBException | IllegalArgumentException | IllegalStateException e) {
+            log.error("Failed to schedule the AlarmDispatcher timer, sending the queued alarms now", e);
+            timerScheduled.set(false);
+            sendPending(1);
+        }
+    }
+
+    /**
+     * Takes a batch from the queue and hands it to the AlarmBatchSender, if at least minBatchSize EventNotifications are queued and no
+     * batch is in flight. The next batch is taken when the AlarmBatchSender calls batchSent.
+     */
+    private void sendPending(final int minBatchSize) {
+        while (pendingCount.get() >= minBatchSize && batchInFlight.compareAndSet(false, true)) {
+            final List<EventNotification> batch = pollBatch(configurationBean.getAlarmDispatchMaxBatchSize());
+            if (!batch.isEmpty()) {
+                try {
+                    alarmBatchSender.sendBatch(batch);
+                } catch (final RuntimeException e) {
+                    batchInFlight.set(false);
+                    throw e;
+                }
+                return;
+            }
+            //What was counted has already been taken by another batch, check again for what was queued while the flag was set
+            batchInFlight.set(false);
+        }
+    }
+
+    private List<EventNotification> pollBatch(final int maxBatchSize) {
+        final List<EventNotification> batch = new ArrayList<>(Math.max(0, Math.min(maxBatchSize, pendingCount.get())));
+        EventNotification eventNotification;
+        while (batch.size() < maxBatchSize && (eventNotification = pending.poll()) != null) {
+            batch.add(eventNotification);
+        }
+        pendingCount.addAndGet(-batch.size());
+        return batch;
+    }
+}
@@ -18,13 +18,32 @@ import com.ericsson.oss.itpf.datalayer.dps.DataBucket;
 import com.ericsson.oss.itpf.datalayer.dps.DataPersistenceService;
 import com.ericsson.oss.itpf.datalayer.dps.persistence.ManagedObject;
 import com.ericsson.oss.itpf.datalayer.dps.query.*;
+import com.ericsson.oss.itpf.datalayer.dps.query.projection.ProjectionBuilder;
 import com.ericsson.oss.itpf.sdk.core.annotation.EServiceRef;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import javax.enterprise.context.ApplicationScoped;
 
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.ACTIVE_ATTR;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.DPS_IN_RESTRICTION_MAX_VALUES;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.FM_ALARM_SUPERVISION_RDN;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.FM_ALARM_SUPERVISION_TYPE;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.NETWORK_ELEMENT_TYPE;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.NE_TYPE_ATTR;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.OSS_NE_DEF_NS;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.OSS_NE_FM_DEF_NS;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.OSS_PREFIX_ATTR;
+
 /**
  * CdiDpsAccessBean is used as an implementation to DpsAccess interface, It is used for a dps query with a single restriction on nodeType.
+ * The NetworkElement projections are read page by page: the ids of the NetworkElements of the type are read first, then for each page a
+ * projection query reads their fdn and ossPrefix and another reads the FmAlarmSupervision MOs of just those NetworkElements, rather than
+ * loading every ManagedObject and then its FmAlarmSupervision child. The ids and fdns of a page are restricted in batches of at most
+ * DPS_IN_RESTRICTION_MAX_VALUES, so the size of a query does not grow with the page size. A single NetworkElement is read by its fdn.
  */
 
 @ApplicationScoped
@@ -52,4 +71,95 @@ public class CdiDpsAccessBean implements DpsAccess {
         final QueryExecutor queryExecutor = liveBucket.getQueryExecutor();
         return queryExecutor.getResultList(query);
     }
-}
\ No newline at end of file
+
+    @Override
+    public void getNetworkElementProjections(final String nodeType, final int pageSize,
+                                             final Consumer<List<NetworkElementProjection>> pageConsumer) {
+        final QueryBuilder queryBuilder = dps.getQueryBuilder();
+        final QueryExecutor queryExecutor = dps.getLiveBucket().getQueryExecutor();
+
+        // Only the ids of the NetworkElements are read up front, the attributes of each page are read by a query of their own
+        final Query<TypeRestrictionBuilder> idQuery = queryBuilder.createTypeQuery(OSS_NE_DEF_NS, NETWORK_ELEMENT_TYPE);
+        idQuery.setRestriction(idQuery.getRestrictionBuilder().equalTo(NE_TYPE_ATTR, nodeType));
+        // A projection of a single field returns the values themselves, not rows
+        final List<Object> ids = queryExecutor.executeProjection(idQuery, ProjectionBuilder.field(ObjectField.PO_ID));
+
+        for (int pageStart = 0; pageStart < ids.size(); pageStart += pageSize) {
+            final List<Object> pageIds = ids.subList(pageStart, Math.min(pageStart + pageSize, ids.size()));
+            pageConsumer.accept(getNetworkElementProjectionPage(queryBuilder, queryExecutor, pageIds));
+        }
+    }
+
+    @Override
+    public NetworkElementProjection getNetworkElementProjection(final String networkElementFdn, final String nodeType) {
+        final DataBucket liveBucket = dps.getLiveBucket();
+        final ManagedObject networkElement = liveBucket.findMoByFdn(networkElementFdn);
+        if (networkElement == null || !nodeType.equals(networkElement.getAttribute(NE_TYPE_ATTR))) {
+            return null;
+        }
+        final ManagedObject fmAlarmSupervision = liveBucket.findMoByFdn(networkElementFdn + "," + FM_ALARM_SUPERVISION_RDN);
+        final Boolean fmAlarmSupervisionActive = fmAlarmSupervision == null ? null
+                : Boolean.TRUE.equals(fmAlarmSupervision.getAttribute(ACTIVE_ATTR));
+        return new NetworkElementProjection(networkElementFdn, networkElement.getAttribute(OSS_PREFIX_ATTR), fmAlarmSupervisionActive);
+    }
+
+    /**
+     * Reads the fdn and ossPrefix of a page of NetworkElements by their ids, and the active attribute of the FmAlarmSupervision children of
+     * just these NetworkElements by their fdns
+     */
+    private static List<NetworkElementProjection> getNetworkElementProjectionPage(final QueryBuilder queryBuilder,
+                                                                                  final QueryExecutor queryExecutor, final List<Object> ids) {
+        final List<Object[]> rows = getFdnAndAttribute(queryBuilder, queryExecutor, OSS_NE_DEF_NS, NETWORK_ELEMENT_TYPE, ObjectField.PO_ID,
+                ids, OSS_PREFIX_ATTR);
+
+        final List<Object> fmAlarmSupervisionFdns = new ArrayList<>(rows.size());
+        for (final Object[] row : rows) {
+            fmAlarmSupervisionFdns.add(row[0] + "," + FM_ALARM_SUPERVISION_RDN);
+        }
+        final Map<String, Boolean> supervisionActiveByNetworkElement =
+                getSupervisionActiveByNetworkElement(queryBuilder, queryExecutor, fmAlarmSupervisionFdns);
+
+        final List<NetworkElementProjection> page = new ArrayList<>(rows.size());
+        for (final Object[] row : rows) {
+            final String networkElementFdn = (String) row[0];
+            page.add(new NetworkElementProjection(networkElementFdn, (String) row[1], supervisionActiveByNetworkElement.get(networkElementFdn)));
+        }
+        return page;
+    }
+
+    /**
+     * Reads the active attribute of the FmAlarmSupervision MOs with the given fdns, keyed by the fdn of their NetworkElement
+     */
+    private static Map<String, Boolean> getSupervisionActiveByNetworkElement(final QueryBuilder queryBuilder, final QueryExecutor queryExecutor,
+                                                                             final List<Object> fmAlarmSupervisionFdns) {
+        final List<Object[]> rows = getFdnAndAttribute(queryBuilder, queryExecutor, OSS_NE_FM_DEF_NS, FM_ALARM_SUPERVISION_TYPE,
+                ObjectField.MO_FDN, fmAlarmSupervisionFdns, ACTIVE_ATTR);
+        final Map<String, Boolean> supervisionActiveByNetworkElement = new HashMap<>(rows.size() * 4 / 3 + 1);
+        for (final Object[] row : rows) {
+            final String fmAlarmSupervisionFdn = (String) row[0];
+            final int parentEnd = fmAlarmSupervisionFdn.lastIndexOf(',');
+            if (parentEnd > 0) {
+                supervisionActiveByNetworkElement.put(fmAlarmSupervisionFdn.substring(0, parentEnd), Boolean.TRUE.equals(row[1]));
+            }
+        }
+        return supervisionActiveByNetworkElement;
+    }
+
+    /**
+     * Reads the fdn and an attribute of the MOs of a type whose field is one of the given values, restricting at most
+     * DPS_IN_RESTRICTION_MAX_VALUES values per query
+     */
+    private static List<Object[]> getFdnAndAttribute(final QueryBuilder queryBuilder, final QueryExecutor queryExecutor, final String namespace,
+                                                     final String type, final ObjectField field, final List<Object> values,
+                                                     final String attributeName) {
+        final List<Object[]> rows = new ArrayList<>(values.size());
+        for (int batchStart = 0; batchStart < values.size(); batchStart += DPS_IN_RESTRICTION_MAX_VALUES) {
+            final Object[] batch = values.subList(batchStart, Math.min(batchStart + DPS_IN_RESTRICTION_MAX_VALUES, values.size())).toArray();
+            final Query<TypeRestrictionBuilder> query = queryBuilder.createTypeQuery(namespace, type);
+            query.setRestriction(query.getRestrictionBuilder().in(field, batch));
+            rows.addAll(queryExecutor.executeProjection(query, ProjectionBuilder.field(ObjectField.MO_FDN),
+                    ProjectionBuilder.attribute(attributeName)));
+        }
+        return rows;
+    }
+}
@@ -17,6 +17,7 @@ package com.ericsson.oss.mediation.fm.oradio.ejb.dps;
 import com.ericsson.oss.itpf.datalayer.dps.persistence.ManagedObject;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Used to provide an override for DPS queries, CdiDpsAccessBean is the implementation class and provides a specific implementation
@@ -25,4 +26,21 @@ import java.util.List;
 public interface DpsAccess {
 
     List<ManagedObject> createRestrictionTypeQuery(final String namespace, final String type, final String restrictionType, final String nodeType);
+
+    /**
+     * Reads the FDN, ossPrefix and FmAlarmSupervision active attribute of every NetworkElement of a type, without loading the
+     * ManagedObjects or their children, and hands them to the consumer in pages so they can be processed while the rest are read.
+     * @param nodeType - neType of the NetworkElements to read
+     * @param pageSize - maximum number of NetworkElements in a page
+     * @param pageConsumer - called with each page, the pages are not reused
+     */
+    void getNetworkElementProjections(final String nodeType, final int pageSize, final Consumer<List<NetworkElementProjection>> pageConsumer);
+
+    /**
+     * Reads the FDN, ossPrefix and FmAlarmSupervision active attribute of a single NetworkElement
+     * @param networkElementFdn - fdn of the NetworkElement
+     * @param nodeType - neType the NetworkElement must have
+     * @return the projection of the NetworkElement, null if it does not exist or is of another type
+     */
+    NetworkElementProjection getNetworkElementProjection(final String networkElementFdn, final String nodeType);
 }
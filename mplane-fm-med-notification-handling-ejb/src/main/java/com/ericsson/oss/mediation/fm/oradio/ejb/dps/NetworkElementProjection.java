@@ -0,0 +1,56 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.dps;
+
+/**
+ * Projection of a NetworkElement holding only the attributes needed to build the state of the node, as read by
+ * DpsAccess.getNetworkElementProjections
+ */
+public final class NetworkElementProjection {
+
+    private final String fdn;
+
+    private final String ossPrefix;
+
+    private final Boolean fmAlarmSupervisionActive;
+
+    /**
+     * @param fdn - fdn of the NetworkElement
+     * @param ossPrefix - the ossPrefix attribute of the NetworkElement, may be null
+     * @param fmAlarmSupervisionActive - the active attribute of its FmAlarmSupervision child, null if it has no FmAlarmSupervision child
+     */
+    public NetworkElementProjection(final String fdn, final String ossPrefix, final Boolean fmAlarmSupervisionActive) {
+        this.fdn = fdn;
+        this.ossPrefix = ossPrefix;
+        this.fmAlarmSupervisionActive = fmAlarmSupervisionActive;
+    }
+
+    public String getFdn() {
+        return fdn;
+    }
+
+    public String getOssPrefix() {
+        return ossPrefix;
+    }
+
+    public Boolean getFmAlarmSupervisionActive() {
+        return fmAlarmSupervisionActive;
+    }
+
+    @Override
+    public String toString() {
+        return "NetworkElementProjection{fdn='" + fdn + "', ossPrefix='" + ossPrefix + "', fmAlarmSupervisionActive=" + fmAlarmSupervisionActive + "}";
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.exception;
+
+/**
+ * This class is thrown if a NETCONF notification received from a node cannot be parsed into an EventNotification,
+ * because it is not well-formed XML or is not an O-RAN alarm-notif holding the mandatory leaves.
+ */
+public class NetconfNotificationParseException extends Exception{
+
+    /**
+     * NetconfNotificationParseException Exception constructor
+     * @param message - message to add to the exception with details of the failure
+     */
+    public NetconfNotificationParseException(final String message){
+        super(message);
+    }
+
+    /**
+     * NetconfNotificationParseException Exception constructor
+     * @param message - message to add to the exception with details of the failure
+     * @param cause - the error raised by the XML parser
+     */
+    public NetconfNotificationParseException(final String message, final Throwable cause){
+        super(message, cause);
+    }
+}
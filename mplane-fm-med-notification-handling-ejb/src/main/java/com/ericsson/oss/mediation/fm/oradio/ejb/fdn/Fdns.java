@@ -0,0 +1,95 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.fdn;
+
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.NETWORK_ELEMENT_FDN;
+
+/**
+ * Parses the NetworkElement RDN out of an fdn, e.g. "NetworkElement=ORadio1,FmAlarmSupervision=1". The fdn is scanned in place, without a
+ * regex and without splitting it, so finding the name does not allocate. Only getNetworkElementName and toNetworkElementFdn build a new
+ * string, the NetworkElementNamePool gives the canonical instance of a name without building one once the name is known.
+ */
+public final class Fdns {
+
+    private static final char RDN_SEPARATOR = ',';
+
+    private Fdns() {
+
+    }
+
+    /**
+     * Finds the start of the NetworkElement name in an fdn, the NetworkElement RDN may be the first RDN or follow a ','
+     * @param fdn - the fdn to scan
+     * @return index of the first character of the name, -1 if the fdn has no NetworkElement RDN
+     */
+    public static int getNetworkElementNameStart(final String fdn) {
+        final int prefixLength = NETWORK_ELEMENT_FDN.length();
+        for (int rdnStart = 0; rdnStart + prefixLength <= fdn.length(); ) {
+            if (fdn.startsWith(NETWORK_ELEMENT_FDN, rdnStart)) {
+                return rdnStart + prefixLength;
+            }
+            final int separator = fdn.indexOf(RDN_SEPARATOR, rdnStart);
+            if (separator < 0) {
+                return -1;
+            }
+            rdnStart = separator + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the end of the NetworkElement name in an fdn
+     * @param fdn - the fdn to scan
+     * @param nameStart - the start of the name as found by getNetworkElementNameStart
+     * @return index after the last character of the name, the next ',' or the length of the fdn
+     */
+    public static int getNetworkElementNameEnd(final String fdn, final int nameStart) {
+        final int separator = fdn.indexOf(RDN_SEPARATOR, nameStart);
+        return separator < 0 ? fdn.length() : separator;
+    }
+
+    /**
+     * Gets the name of the NetworkElement of an fdn, the NetworkElement is the root MO of a node so its name is the value of its RDN
+     * @param fdn - an fdn holding a NetworkElement RDN, or a NetworkElement name
+     * @return the name of the NetworkElement, the fdn itself if it has no NetworkElement RDN
+     */
+    public static String getNetworkElementName(final String fdn) {
+        final int nameStart = getNetworkElementNameStart(fdn);
+        if (nameStart < 0) {
+            return fdn;
+        }
+        final int nameEnd = getNetworkElementNameEnd(fdn, nameStart);
+        return nameStart == 0 && nameEnd == fdn.length() ? fdn : fdn.substring(nameStart, nameEnd);
+    }
+
+    /**
+     * @param networkElementName - the name of a NetworkElement
+     * @return the fdn of the NetworkElement
+     */
+    public static String toNetworkElementFdn(final String networkElementName) {
+        return NETWORK_ELEMENT_FDN.concat(networkElementName);
+    }
+
+    /**
+     * Hashes a region of a string as String.hashCode would hash the substring, so a substring can be looked up without being built
+     */
+    static int hashRegion(final String source, final int start, final int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.fdn;
+
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.NETWORK_ELEMENT_NAME_POOL_MAX_SIZE;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.NODE_STATE_CACHE_INITIAL_CAPACITY;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Intern pool of NetworkElement names, so a node is represented by one canonical name instance in the NodeStateCache, the
+ * EventNotificationBuffer and its EventNotificationMarkers rather than by a copy per notification or per DPS event. A name is found in the
+ * pool straight from the region of an fdn holding it, so a known name is looked up without building a substring. The fdn of a name is
+ * built once, when it is first asked for on the notification path, paths which visit every node build a transient fdn with Fdns instead.
+ * The names are found with an open addressing table, lookups are lock free and new names are added under a lock. Names are not removed, the
+ * pool stops adding names once it holds NETWORK_ELEMENT_NAME_POOL_MAX_SIZE and then hands back names which are not canonical. One pool is
+ * injected into the caches, the buffer and the journal.
+ */
+@ApplicationScoped
+public class NetworkElementNamePool {
+
+    private static final int MIN_TABLE_SIZE = 16;
+
+    private final Object lock = new Object();
+
+    private final int maxSize;
+
+    // Replaced when it is resized
+    private volatile AtomicReferenceArray<Entry> table;
+
+    private volatile int size;
+
+    public NetworkElementNamePool() {
+        this(NODE_STATE_CACHE_INITIAL_CAPACITY, NETWORK_ELEMENT_NAME_POOL_MAX_SIZE);
+    }
+
+    NetworkElementNamePool(final int expectedSize, final int maxSize) {
+        this.maxSize = maxSize;
+        table = new AtomicReferenceArray<>(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * @param networkElementName - a NetworkElement name, may be null
+     * @return the canonical instance of the name
+     */
+    public String intern(final String networkElementName) {
+        if (networkElementName == null) {
+            return null;
+        }
+        return getOrCreate(networkElementName, 0, networkElementName.length()).name;
+    }
+
+    /**
+     * Gets the canonical name of the NetworkElement of an fdn, the name is only copied out of the fdn the first time it is seen
+     * @param fdn - an fdn holding a NetworkElement RDN, or a NetworkElement name
+     * @return the canonical name of the NetworkElement, the fdn is treated as a name if it has no NetworkElement RDN
+     */
+    public String internFromFdn(final String fdn) {
+        final int nameStart = Fdns.getNetworkElementNameStart(fdn);
+        if (nameStart < 0) {
+            return intern(fdn);
+        }
+        return getOrCreate(fdn, nameStart, Fdns.getNetworkElementNameEnd(fdn, nameStart)).name;
+    }
+
+    /**
+     * Gets the name of the NetworkElement of an fdn without adding it to the pool, for lookups of nodes which may not exist
+     * @param fdn - an fdn holding a NetworkElement RDN, or a NetworkElement name
+     * @return the canonical name of the NetworkElement if it is in the pool, otherwise a copy of the name
+     */
+    public String getNetworkElementName(final String fdn) {
+        final int nameStart = Fdns.getNetworkElementNameStart(fdn);
+        if (nameStart < 0) {
+            final Entry entry = find(table, fdn, 0, fdn.length(), fdn.hashCode());
+            return entry == null ? fdn : entry.name;
+        }
+        final int nameEnd = Fdns.getNetworkElementNameEnd(fdn, nameStart);
+        final Entry entry = find(table, fdn, nameStart, nameEnd, Fdns.hashRegion(fdn, nameStart, nameEnd));
+        return entry == null ? fdn.substring(nameStart, nameEnd) : entry.name;
+    }
+
+    /**
+     * @param networkElementName - a NetworkElement name
+     * @return the fdn of the NetworkElement, built once per name
+     */
+    public String getNetworkElementFdn(final String networkElementName) {
+        final Entry entry = getOrCreate(networkElementName, 0, networkElementName.length());
+        String fdn = entry.fdn;
+        if (fdn == null) {
+            // a race builds the same fdn twice, either copy is correct
+            fdn = Fdns.toNetworkElementFdn(entry.name);
+            entry.fdn = fdn;
+        }
+        return fdn;
+    }
+
+    /**
+     * @return the number of names in the pool
+     */
+    public int size() {
+        return size;
+    }
+
+    private Entry getOrCreate(final String source, final int start, final int end) {
+        final int hash = Fdns.hashRegion(source, start, end);
+        final Entry entry = find(table, source, start, end, hash);
+        if (entry != null) {
+            return entry;
+        }
+        final String name = start == 0 && end == source.length() ? source : source.substring(start, end);
+        synchronized (lock) {
+            final Entry existing = find(table, source, start, end, hash);
+            if (existing != null) {
+                return existing;
+            }
+            final Entry created = new Entry(name, hash);
+            if (size >= maxSize) {
+                return created;
+            }
+            if ((size + 1) * 4 > table.length() * 3) {
+                table = resize(table, table.length() * 2);
+            }
+            insert(table, created);
+            size++;
+            return created;
+        }
+    }
+
+    private static Entry find(final AtomicReferenceArray<Entry> slots, final String source, final int start, final int end, final int hash) {
+        final int length = end - start;
+        final int mask = slots.length() - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            final Entry entry = slots.get(slot);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.hash == hash && entry.name.length() == length && entry.name.regionMatches(0, source, start, length)) {
+                return entry;
+            }
+        }
+    }
+
+    private static AtomicReferenceArray<Entry> resize(final AtomicReferenceArray<Entry> slots, final int tableSize) {
+        final AtomicReferenceArray<Entry> resized = new AtomicReferenceArray<>(tableSize);
+        for (int slot = 0; slot < slots.length(); slot++) {
+            final Entry entry = slots.get(slot);
+            if (entry != null) {
+                insert(resized, entry);
+            }
+        }
+        return resized;
+    }
+
+    private static void insert(final AtomicReferenceArray<Entry> slots, final Entry entry) {
+        final int mask = slots.length() - 1;
+        int slot = spread(entry.hash) & mask;
+        while (slots.get(slot) != null) {
+            slot = (slot + 1) & mask;
+        }
+        slots.set(slot, entry);
+    }
+
+    private static int spread(final int hashCode) {
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    private static int tableSizeFor(final int expectedSize) {
+        int tableSize = MIN_TABLE_SIZE;
+        while (tableSize * 3 < expectedSize * 4) {
+            tableSize <<= 1;
+        }
+        return tableSize;
+    }
+
+    private static final class Entry {
+
+        private final String name;
+
+        private final int hash;
+
+        private volatile String fdn;
+
+        private Entry(final String name, final int hash) {
+            this.name = name;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.journal;
+
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Reads back an EventNotification serialized by the EventNotificationJournal or the OffHeapEventNotificationStore. The classes are resolved
+ * with the class loader of the module holding EventNotification rather than the caller's. Only the classes an EventNotification is made of
+ * are resolved: the classes of its package and the concrete JDK values and collections it holds, so bytes which have been tampered with
+ * can not instantiate anything else.
+ */
+public final class EventNotificationInputStream extends ObjectInputStream {
+
+    private static final String ALLOWED_PACKAGE_PREFIX = EventNotification.class.getPackage().getName() + ".";
+
+    //The superclasses of a serializable class are resolved too, so Number is needed by the boxed numbers and HashMap by LinkedHashMap
+    private static final Set<String> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(String.class.getName(), Boolean.class.getName(),
+            Character.class.getName(), Number.class.getName(), Byte.class.getName(), Short.class.getName(), Integer.class.getName(),
+            Long.class.getName(), Float.class.getName(), Double.class.getName(), Date.class.getName(), HashMap.class.getName(),
+            LinkedHashMap.class.getName(), ArrayList.class.getName(), HashSet.class.getName(), LinkedHashSet.class.getName()));
+
+    /**
+     * @param in - the stream holding a serialized EventNotification
+     * @throws IOException if the stream header can not be read
+     */
+    public EventNotificationInputStream(final InputStream in) throws IOException {
+        super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+        if (!isAllowed(desc.getName())) {
+            throw new InvalidClassException(desc.getName(), "Class is not part of an EventNotification");
+        }
+        try {
+            return Class.forName(desc.getName(), false, EventNotification.class.getClassLoader());
+        } catch (final ClassNotFoundException e) {
+            return super.resolveClass(desc);
+        }
+    }
+
+    @Override
+    protected Class<?> resolveProxyClass(final String[] interfaces) throws IOException {
+        throw new InvalidClassException("Proxy classes are not part of an EventNotification");
+    }
+
+    /**
+     * Arrays are checked by their component type, which is a single letter for a primitive and L[class name]; for a class
+     */
+    private static boolean isAllowed(final String className) {
+        if (className.startsWith("[")) {
+            final String componentName = className.substring(className.lastIndexOf('[') + 1);
+            return componentName.length() == 1 || isAllowed(componentName.substring(1, componentName.length() - 1));
+        }
+        return ALLOWED_CLASSES.contains(className) || className.startsWith(ALLOWED_PACKAGE_PREFIX);
+    }
+}
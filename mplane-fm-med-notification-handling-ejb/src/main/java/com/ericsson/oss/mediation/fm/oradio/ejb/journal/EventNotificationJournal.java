@@ -0,0 +1,405 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.journal;
+
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean;
+import com.ericsson.oss.mediation.fm.oradio.ejb.fdn.NetworkElementNamePool;
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.EventNotificationMarker;
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import javax.annotation.PreDestroy;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.inject.Inject;
+
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.EVENT_NOTIFICATION_JOURNAL_SEGMENT_BYTES;
+
+/**
+ * Append only journal of the EventNotificationBuffer, so the EventNotifications buffered when the JVM stops or crashes can be replayed into
+ * the buffer by the EventNotificationJournalReplayer on startup.
+ *
+ * Recording an insert or a removal only queues the record, the queued records are written by the EventNotificationBufferTimer as one batch
+ * and forced to disk on every timeout, so the journal adds no file I/O to processNotification. At most the records of one flush granularity
+ * can be lost on a crash.
+ *
+ * The journal is a sequence of segment files, each record is framed by its length and a CRC32 so a record torn by a crash is detected and
+ * the replay stops there. When a segment is full a new one is started with a checkpoint of the EventNotifications which are still buffered,
+ * after which the older segments are deleted, so the journal only ever holds a couple of segments. The checkpoint is written from the
+ * serialized records of the EventNotifications still buffered, the journal keeps no reference to the EventNotifications themselves once
+ * their records are written, so it does not hold on the heap what the buffer may hold off heap.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@Slf4j
+public class EventNotificationJournal {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+    @Inject
+    private ConfigurationBean configurationBean;
+
+    @Inject
+    private NetworkElementNamePool networkElementNamePool;
+
+    //Records queued until the next flush, the EventNotifications are only referenced until their records are written
+    private final Queue<JournalRecord> pending = new ConcurrentLinkedQueue<>();
+
+    //Framed records of the EventNotifications still buffered, written as the checkpoint of a new segment. Only used under the writeLock
+    private final Map<EventNotificationMarker, byte[]> live = new LinkedHashMap<>();
+
+    private final Lock writeLock = new ReentrantLock();
+
+    private volatile boolean active;
+
+    private long segmentMaxBytes = EVENT_NOTIFICATION_JOURNAL_SEGMENT_BYTES;
+
+    private Path directory;
+
+    private FileChannel segment;
+
+    private long segmentSequence;
+
+    private long checkpointBytes;
+
+    /**
+     * Checks if records are being journaled, only after the journal has been started
+     * @return true if the journal is active
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Queues the record of an EventNotification which has been buffered
+     * @param marker - key of the EventNotification in the buffer
+     * @param eventNotification - the buffered EventNotification
+     * @param entryTime - the time in milliseconds since epoch it was buffered
+     */
+    public void recordInsert(final EventNotificationMarker marker, final EventNotification eventNotification, final long entryTime) {
+        if (active) {
+            pending.add(JournalRecord.insert(marker, eventNotification, entryTime));
+        }
+    }
+
+    /**
+     * Queues the record of an EventNotification which has been removed from the buffer
+     * @param marker - key of the EventNotification in the buffer
+     */
+    public void recordRemove(final EventNotificationMarker marker) {
+        if (active) {
+            pending.add(JournalRecord.remove(marker));
+        }
+    }
+
+    /**
+     * Reads the segments in the configured directory and gets the EventNotifications which were still buffered when the journal was last
+     * written. A torn or corrupt record ends the replay of its segment. Only the EventNotifications still buffered are deserialized, an
+     * unreadable one is ignored.
+     * @return INSERT records of the EventNotifications still buffered, in the order they were buffered
+     * @throws IOException if the directory can not be read
+     */
+    public List<JournalRecord> recover() throws IOException {
+        directory = Paths.get(configurationBean.getEventNotificationJournalDirectory());
+        Files.createDirectories(directory);
+        final Map<EventNotificationMarker, byte[]> recovered = new LinkedHashMap<>();
+        for (final Map.Entry<Long, Path> segmentFile : listSegments().entrySet()) {
+            segmentSequence = segmentFile.getKey();
+            readSegment(segmentFile.getValue(), recovered);
+        }
+        final List<JournalRecord> records = new ArrayList<>(recovered.size());
+        for (final byte[] payload : recovered.values()) {
+            try {
+                records.add(readRecord(payload));
+            } catch (final IOException e) {
+                log.warn("Unreadable record in the journal in {}, it is ignored", directory, e);
+            }
+        }
+        log.info("Recovered {} EventNotifications from the journal in {}", records.size(), directory);
+        return records;
+    }
+
+    /**
+     * Starts journaling into a new segment, which begins with a checkpoint of the given records, and deletes the older segments.
+     * @param liveRecords - INSERT records of the EventNotifications which are in the buffer
+     * @throws IOException if the new segment can not be written
+     */
+    public void start(final Collection<JournalRecord> liveRecords) throws IOException {
+        writeLock.lock();
+        try {
+            live.clear();
+            for (final JournalRecord record : liveRecords) {
+                live.put(record.getMarker(), frame(record));
+            }
+            startSegment();
+            active = true;
+            log.info("Started the EventNotificationBuffer journal in {}", directory);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the queued records to the current segment as one batch and forces them to disk. If another thread is already flushing nothing
+     * is done, the other thread writes the records. If the journal can not be written journaling is stopped, the buffer is not affected.
+     */
+    public void flush() {
+        if (!active || pending.isEmpty() || !writeLock.tryLock()) {
+            return;
+        }
+        try {
+            final ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            JournalRecord record;
+            while ((record = pending.poll()) != null) {
+                final byte[] frame = frame(record);
+                if (record.getType() == JournalRecord.Type.INSERT) {
+                    live.put(record.getMarker(), frame);
+                } else {
+                    live.remove(record.getMarker());
+                }
+                batch.write(frame);
+            }
+            write(batch);
+            if (isSegmentFull()) {
+                startSegment();
+            }
+        } catch (final IOException e) {
+            log.error("Failed to write the EventNotificationBuffer journal, journaling is stopped", e);
+            stop();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    private void onServiceStopping() {
+        flush();
+        writeLock.lock();
+        try {
+            stop();
+        } finally {
+            writeLock.unlock();
+        }
+        log.info("Stopping EventNotificationJournal");
+    }
+
+    private void stop() {
+        active = false;
+        pending.clear();
+        closeSegment();
+    }
+
+    /**
+     * Starts the next segment with a checkpoint of the live records, once it is on disk the older segments are no longer needed
+     */
+    private void startSegment() throws IOException {
+        closeSegment();
+        segmentSequence++;
+        final Path segmentFile = directory.resolve(SEGMENT_PREFIX + segmentSequence + SEGMENT_SUFFIX);
+        segment = FileChannel.open(segmentFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        final ByteArrayOutputStream checkpoint = new ByteArrayOutputStream();
+        for (final byte[] frame : live.values()) {
+            checkpoint.write(frame);
+        }
+        write(checkpoint);
+        checkpointBytes = checkpoint.size();
+        for (final Map.Entry<Long, Path> segmentFileEntry : listSegments().entrySet()) {
+            if (segmentFileEntry.getKey() < segmentSequence) {
+                Files.deleteIfExists(segmentFileEntry.getValue());
+            }
+        }
+        log.debug("Started journal segment {} with a checkpoint of {} EventNotifications", segmentFile, live.size());
+    }
+
+    /**
+     * A segment is full when the records appended after its checkpoint reach the segment size, or the size of the checkpoint if it is
+     * bigger, so a large buffer is not checkpointed on every flush
+     */
+    private boolean isSegmentFull() throws IOException {
+        return segment.size() - checkpointBytes >= Math.max(segmentMaxBytes, checkpointBytes);
+    }
+
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.close();
+        } catch (final IOException e) {
+            log.warn("Failed to close journal segment", e);
+        }
+        segment = null;
+    }
+
+    private void write(final ByteArrayOutputStream batch) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+        while (buffer.hasRemaining()) {
+            segment.write(buffer);
+        }
+        segment.force(false);
+    }
+
+    private TreeMap<Long, Path> listSegments() throws IOException {
+        final TreeMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (final Path file : files) {
+                final String name = file.getFileName().toString();
+                try {
+                    segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+                } catch (final NumberFormatException e) {
+                    log.warn("Ignoring unexpected file {} in the journal directory", file);
+                }
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Frame of a record: length of the payload, CRC32 of the payload, payload
+     */
+    private static byte[] frame(final JournalRecord record) throws IOException {
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
+        final DataOutputStream payloadOut = new DataOutputStream(payload);
+        payloadOut.writeByte(record.getType().getCode());
+        writeNullableString(payloadOut, record.getMarker().getNetworkElementName());
+        writeNullableString(payloadOut, record.getMarker().getEventNotificationId());
+        if (record.getType() == JournalRecord.Type.INSERT) {
+            payloadOut.writeLong(record.getEntryTime());
+            final ObjectOutputStream objectOut = new ObjectOutputStream(payloadOut);
+            objectOut.writeObject(record.getEventNotification());
+            objectOut.flush();
+        }
+        payloadOut.flush();
+        final byte[] payloadBytes = payload.toByteArray();
+        final CRC32 crc = new CRC32();
+        crc.update(payloadBytes);
+        final ByteArrayOutputStream frame = new ByteArrayOutputStream(payloadBytes.length + 8);
+        final DataOutputStream frameOut = new DataOutputStream(frame);
+        frameOut.writeInt(payloadBytes.length);
+        frameOut.writeInt((int) crc.getValue());
+        frameOut.write(payloadBytes);
+        frameOut.flush();
+        return frame.toByteArray();
+    }
+
+    /**
+     * Reads the records of a segment into the payloads of the EventNotifications still buffered, only their type and marker are read
+     */
+    private void readSegment(final Path segmentFile, final Map<EventNotificationMarker, byte[]> recovered) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segmentFile)))) {
+            while (true) {
+                final int length;
+                try {
+                    length = in.readInt();
+                } catch (final EOFException e) {
+                    return;
+                }
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    log.warn("Invalid record length {} in journal segment {}, ignoring the rest of the segment", length, segmentFile);
+                    return;
+                }
+                final int expectedCrc = in.readInt();
+                final byte[] payload = new byte[length];
+                in.readFully(payload);
+                final CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != expectedCrc) {
+                    log.warn("Corrupt record in journal segment {}, ignoring the rest of the segment", segmentFile);
+                    return;
+                }
+                try {
+                    apply(recovered, payload);
+                } catch (final IOException e) {
+                    log.warn("Unreadable record in journal segment {}, it is ignored", segmentFile, e);
+                }
+            }
+        } catch (final EOFException e) {
+            log.warn("Torn record at the end of journal segment {}, it is ignored", segmentFile);
+        }
+    }
+
+    private static void apply(final Map<EventNotificationMarker, byte[]> recovered, final byte[] payload) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        final JournalRecord.Type type = JournalRecord.Type.fromCode(in.readByte());
+        final EventNotificationMarker marker = new EventNotificationMarker(readNullableString(in), readNullableString(in));
+        if (type == JournalRecord.Type.INSERT) {
+            recovered.put(marker, payload);
+        } else if (type == JournalRecord.Type.REMOVE) {
+            recovered.remove(marker);
+        } else {
+            throw new IOException("Unknown journal record type");
+        }
+    }
+
+    private JournalRecord readRecord(final byte[] payload) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        final JournalRecord.Type type = JournalRecord.Type.fromCode(in.readByte());
+        final EventNotificationMarker marker = new EventNotificationMarker(networkElementNamePool.intern(readNullableString(in)),
+                readNullableString(in));
+        if (type == JournalRecord.Type.REMOVE) {
+            return JournalRecord.remove(marker);
+        }
+        if (type != JournalRecord.Type.INSERT) {
+            throw new IOException("Unknown journal record type");
+        }
+        final long entryTime = in.readLong();
+        try (ObjectInputStream objectIn = new EventNotificationInputStream(in)) {
+            return JournalRecord.insert(marker, (EventNotification) objectIn.readObject(), entryTime);
+        } catch (final ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Journal record does not hold an EventNotification", e);
+        }
+    }
+
+    private static void writeNullableString(final DataOutputStream out, final String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.journal;
+
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean;
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EventNotificationBuffer;
+import com.ericsson.oss.mediation.fm.oradio.ejb.dispatch.AlarmDispatcher;
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.inject.Inject;
+
+/**
+ * This class is instantiated at SG startup and, when the journal is enabled, replays the EventNotificationJournal into the
+ * EventNotificationBuffer. EventNotifications whose correlation window has elapsed while the service was down are sent to APS straight away,
+ * the others are buffered again with their original entry time. The journal is then started with a checkpoint of the restored
+ * EventNotifications.
+ */
+@Startup
+@Singleton
+@Slf4j
+public class EventNotificationJournalReplayer {
+
+    @Inject
+    private EventNotificationJournal journal;
+
+    @Inject
+    private EventNotificationBuffer buffer;
+
+    @Inject
+    private AlarmDispatcher alarmDispatcher;
+
+    @Inject
+    private ConfigurationBean configurationBean;
+
+    @PostConstruct
+    private void replayJournal() {
+        if (!configurationBean.isEventNotificationJournalEnabled()) {
+            log.info("EventNotificationBuffer journal is disabled");
+            return;
+        }
+        try {
+            final List<JournalRecord> recovered = journal.recover();
+            final long currentTimeMillis = System.currentTimeMillis();
+            final long correlationWindowMillis = configurationBean.getEventNotificationCorrelationWindowMillis();
+            final List<EventNotification> expired = new ArrayList<>();
+            final List<JournalRecord> restored = new ArrayList<>();
+            for (final JournalRecord record : recovered) {
+                if (record.getEntryTime() + correlationWindowMillis <= currentTimeMillis) {
+                    expired.add(record.getEventNotification());
+                } else {
+                    buffer.restoreEventNotification(record.getMarker(), record.getEventNotification(), record.getEntryTime());
+                    restored.add(record);
+                }
+            }
+            journal.start(restored);
+            alarmDispatcher.dispatchAll(expired);
+            log.info("Replayed EventNotificationBuffer journal: {} EventNotifications sent, {} buffered again", expired.size(), restored.size());
+        } catch (final IOException e) {
+            log.error("Failed to replay the EventNotificationBuffer journal, journaling is disabled", e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.journal;
+
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.EventNotificationMarker;
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+
+/**
+ * A record of the EventNotificationBuffer journal, either an EventNotification which has been buffered or the removal of one.
+ */
+public final class JournalRecord {
+
+    private final Type type;
+
+    private final EventNotificationMarker marker;
+
+    private final EventNotification eventNotification;
+
+    private final long entryTime;
+
+    private JournalRecord(final Type type, final EventNotificationMarker marker, final EventNotification eventNotification, final long entryTime) {
+        this.type = type;
+        this.marker = marker;
+        this.eventNotification = eventNotification;
+        this.entryTime = entryTime;
+    }
+
+    /**
+     * Creates a record for an EventNotification which has been buffered
+     * @param marker - key of the EventNotification in the buffer
+     * @param eventNotification - the buffered EventNotification
+     * @param entryTime - the time in milliseconds since epoch it was buffered
+     * @return JournalRecord of type INSERT
+     */
+    public static JournalRecord insert(final EventNotificationMarker marker, final EventNotification eventNotification, final long entryTime) {
+        return new JournalRecord(Type.INSERT, marker, eventNotification, entryTime);
+    }
+
+    /**
+     * Creates a record for an EventNotification which has been removed from the buffer
+     * @param marker - key of the EventNotification in the buffer
+     * @return JournalRecord of type REMOVE
+     */
+    public static JournalRecord remove(final EventNotificationMarker marker) {
+        return new JournalRecord(Type.REMOVE, marker, null, 0L);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public EventNotificationMarker getMarker() {
+        return marker;
+    }
+
+    /**
+     * @return the buffered EventNotification, null for a REMOVE record
+     */
+    public EventNotification getEventNotification() {
+        return eventNotification;
+    }
+
+    public long getEntryTime() {
+        return entryTime;
+    }
+
+    @Override
+    public String toString() {
+        return "JournalRecord{" + "type=" + type + ", marker=" + marker + ", entryTime=" + entryTime + '}';
+    }
+
+    /**
+     * The types of journal record, the code is written to the journal so must not change
+     */
+    public enum Type {
+        INSERT((byte) 1),
+        REMOVE((byte) 2);
+
+        private final byte code;
+
+        Type(final byte code) {
+            this.code = code;
+        }
+
+        byte getCode() {
+            return code;
+        }
+
+        static Type fromCode(final byte code) {
+            for (final Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.merge;
+
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.TARGET_ATTRIBUTE_INFO;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.TARGET_ATTRIBUTE_INFO_MAX_LENGTH;
+
+/**
+ * Merges an EventNotification with the one it was correlated with in the EventNotificationBuffer. Rather than the raw NETCONF payload, the
+ * targetAttributeInfo of the merged EventNotification gets the fields which identify its partner: the externalEventId, perceivedSeverity,
+ * event time and specificProblem. The targetAttributeInfo is built in a StringBuilder sized for it and is bounded, so a merge copies the same
+ * few hundred characters at most whatever the size of the payloads. The attributes are merged into a new map sized for them, so the map of
+ * the buffered EventNotification is never changed. The newest EventNotification of the pair is the one sent: an O-RAN node updates an alarm
+ * by clearing it and raising it again with the updated values, so the raise received after a buffered clear is sent, and a clear received
+ * after a buffered alarm is sent.
+ */
+public final class EventNotificationMerger {
+
+    private static final String EVENT_TIME_ATTR = "eventTime";
+    private static final String EXTERNAL_EVENT_ID_FIELD = "externalEventId=";
+    private static final String PERCEIVED_SEVERITY_FIELD = "perceivedSeverity=";
+    private static final String EVENT_TIME_FIELD = "eventTime=";
+    private static final String SPECIFIC_PROBLEM_FIELD = "specificProblem=";
+    private static final char FIELD_SEPARATOR = ';';
+
+    private EventNotificationMerger() {
+
+    }
+
+    /**
+     * Merges the new EventNotification with the buffered one it was correlated with
+     * @param newEvent - the EventNotification which has just been received
+     * @param cachedEvent - the EventNotification which was buffered, it has been removed from the EventNotificationBuffer
+     * @return the new EventNotification, with the fields of the buffered one in its targetAttributeInfo
+     */
+    public static EventNotification merge(final EventNotification newEvent, final EventNotification cachedEvent) {
+        final Map<String, String> attributes = attributesOf(newEvent);
+        // sized so that adding the targetAttributeInfo does not resize it
+        final Map<String, String> merged = new HashMap<>((int) ((attributes.size() + 1) / 0.75f) + 1);
+        merged.putAll(attributes);
+        merged.put(TARGET_ATTRIBUTE_INFO, createTargetAttributeInfo(attributes.get(TARGET_ATTRIBUTE_INFO), cachedEvent));
+        newEvent.setAdditionalAttributes(merged);
+        return newEvent;
+    }
+
+    /**
+     * Describes the partner after the targetAttributeInfo the EventNotification already has, cut at TARGET_ATTRIBUTE_INFO_MAX_LENGTH
+     */
+    static String createTargetAttributeInfo(final String targetAttributeInfo, final EventNotification partner) {
+        final String externalEventId = partner.getExternalEventId();
+        final String perceivedSeverity = partner.getPerceivedSeverity();
+        final String eventTime = attributesOf(partner).get(EVENT_TIME_ATTR);
+        final String specificProblem = partner.getSpecificProblem();
+        final int length = (isEmpty(targetAttributeInfo) ? 0 : targetAttributeInfo.length() + 1)
+                + fieldLength(EXTERNAL_EVENT_ID_FIELD, externalEventId) + fieldLength(PERCEIVED_SEVERITY_FIELD, perceivedSeverity)
+                + fieldLength(EVENT_TIME_FIELD, eventTime) + fieldLength(SPECIFIC_PROBLEM_FIELD, specificProblem);
+        final StringBuilder info = new StringBuilder(Math.min(length, TARGET_ATTRIBUTE_INFO_MAX_LENGTH));
+        if (!isEmpty(targetAttributeInfo)) {
+            append(info, targetAttributeInfo);
+            append(info, FIELD_SEPARATOR);
+        }
+        appendField(info, EXTERNAL_EVENT_ID_FIELD, externalEventId);
+        appendField(info, PERCEIVED_SEVERITY_FIELD, perceivedSeverity);
+        appendField(info, EVENT_TIME_FIELD, eventTime);
+        appendField(info, SPECIFIC_PROBLEM_FIELD, specificProblem);
+        // the separator after the last field
+        if (info.length() > 0 && info.charAt(info.length() - 1) == FIELD_SEPARATOR) {
+            info.setLength(info.length() - 1);
+        }
+        return info.toString();
+    }
+
+    private static void appendField(final StringBuilder info, final String name, final String value) {
+        if (value != null) {
+            append(info, name);
+            append(info, value);
+            append(info, FIELD_SEPARATOR);
+        }
+    }
+
+    private static void append(final StringBuilder info, final String value) {
+        final int remaining = TARGET_ATTRIBUTE_INFO_MAX_LENGTH - info.length();
+        if (remaining > 0) {
+            info.append(value, 0, Math.min(value.length(), remaining));
+        }
+    }
+
+    private static void append(final StringBuilder info, final char value) {
+        if (info.length() < TARGET_ATTRIBUTE_INFO_MAX_LENGTH) {
+            info.append(value);
+        }
+    }
+
+    private static int fieldLength(final String name, final String value) {
+        return value == null ? 0 : name.length() + value.length() + 1;
+    }
+
+    private static Map<String, String> attributesOf(final EventNotification eventNotification) {
+        final Map<String, String> attributes = eventNotification.getAdditionalAttributes();
+        return attributes == null ? Collections.emptyMap() : attributes;
+    }
+
+    private static boolean isEmpty(final String value) {
+        return value == null || value.isEmpty();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.models;
+
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The CorrelationResult is returned by the EventNotificationBuffer when an EventNotification is offered to it. It either holds the buffered
+ * EventNotification which matched the offered one and has been removed from the buffer to be merged, or marks that the offered
+ * EventNotification has been stored in the buffer.
+ * When the buffer is full the offered EventNotification may instead be bypassed or dropped, or older EventNotifications may have been evicted
+ * from the buffer to make room for it, depending on the configured OverflowPolicy.
+ */
+public final class CorrelationResult {
+
+    private static final CorrelationResult BUFFERED = new CorrelationResult(Outcome.BUFFERED, null, Collections.emptyList());
+    private static final CorrelationResult BYPASSED = new CorrelationResult(Outcome.BYPASSED, null, Collections.emptyList());
+    private static final CorrelationResult DROPPED = new CorrelationResult(Outcome.DROPPED, null, Collections.emptyList());
+
+    private final Outcome outcome;
+
+    private final EventNotification partner;
+
+    private final List<EventNotification> evicted;
+
+    private CorrelationResult(final Outcome outcome, final EventNotification partner, final List<EventNotification> evicted) {
+        this.outcome = outcome;
+        this.partner = partner;
+        this.evicted = evicted;
+    }
+
+    /**
+     * Creates a result for an EventNotification which matched an EventNotification in the buffer
+     * @param partner - the EventNotification which was removed from the buffer and should be merged
+     * @return CorrelationResult with outcome CORRELATED
+     */
+    public static CorrelationResult correlated(final EventNotification partner) {
+        return new CorrelationResult(Outcome.CORRELATED, partner, Collections.emptyList());
+    }
+
+    /**
+     * Gets the result for an EventNotification which has been stored in the buffer
+     * @return CorrelationResult with outcome BUFFERED
+     */
+    public static CorrelationResult buffered() {
+        return BUFFERED;
+    }
+
+    /**
+     * Creates a result for an EventNotification which has been stored in the buffer after older EventNotifications were evicted to make room
+     * @param evicted - the EventNotifications removed from the buffer, to be sent to APS early
+     * @return CorrelationResult with outcome BUFFERED
+     */
+    public static CorrelationResult buffered(final List<EventNotification> evicted) {
+        return evicted.isEmpty() ? BUFFERED : new CorrelationResult(Outcome.BUFFERED, null, Collections.unmodifiableList(evicted));
+    }
+
+    /**
+     * Gets the result for an EventNotification which has not been stored in the buffer as it is full, it should be sent to APS straight away
+     * @return CorrelationResult with outcome BYPASSED
+     */
+    public static CorrelationResult bypassed() {
+        return BYPASSED;
+    }
+
+    /**
+     * Gets the result for an EventNotification which has been dropped as the buffer is full
+     * @return CorrelationResult with outcome DROPPED
+     */
+    public static CorrelationResult dropped() {
+        return DROPPED;
+    }
+
+    /**
+     * Gets the outcome of offering the EventNotification to the buffer
+     * @return outcome
+     */
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Checks to see if the offered EventNotification matched an EventNotification in the buffer
+     * @return boolean if there is a partner to merge
+     */
+    public boolean isCorrelated() {
+        return outcome == Outcome.CORRELATED;
+    }
+
+    /**
+     * Gets the EventNotification removed from the buffer which matched the offered EventNotification
+     * @return partner EventNotification, null if the offered EventNotification was buffered
+     */
+    public EventNotification getPartner() {
+        return partner;
+    }
+
+    /**
+     * Gets the EventNotifications which were evicted from the buffer to make room for the offered EventNotification
+     * @return evicted EventNotifications, empty if nothing was evicted
+     */
+    public List<EventNotification> getEvicted() {
+        return evicted;
+    }
+
+    /**
+     * provides a string representation of the CorrelationResult
+     * @return string representation of the CorrelationResult
+     */
+    @Override
+    public String toString() {
+        return "CorrelationResult{" + "outcome=" + outcome + ", partner=" + partner + ", evicted=" + evicted.size() + '}';
+    }
+
+    /**
+     * The possible outcomes of offering an EventNotification to the EventNotificationBuffer
+     */
+    public enum Outcome {
+        CORRELATED,
+        BUFFERED,
+        BYPASSED,
+        DROPPED
+    }
+}
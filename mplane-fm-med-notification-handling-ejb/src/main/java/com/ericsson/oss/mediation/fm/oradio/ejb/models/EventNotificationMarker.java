@@ -14,15 +14,25 @@
 
 package com.ericsson.oss.mediation.fm.oradio.ejb.models;
 
+import java.io.Serializable;
 import java.util.Objects;
 
 /**
- * The EventNotificationMarker is used as a Key for the EventNotificationBuffer, it is designed to hold all the information that may be needed to
- * determine if a notification is in the cache, along with the time it was entered.
- * the entryTime is not used to determine equality between EventNotificationMarkers, only networkElementName and eventNotificationId is
+ * The EventNotificationMarker is used as a Key for the EventNotificationBuffer, it holds the networkElementName and eventNotificationId which
+ * identify a notification in the cache.
+ * It is immutable and its hash is computed once when it is created, as it is hashed on every operation of the cache.
+ * It is Serializable as it is also the key of the clustered correlation cache.
  */
 
-public class EventNotificationMarker {
+public final class EventNotificationMarker implements Serializable {
+
+    private static final long serialVersionUID = 2L;
+
+    private final String networkElementName;
+
+    private final String eventNotificationId;
+
+    private final int hash;
 
     /**
      * Constructor of the EventNotificationMarker class, takes in networkElementName and eventNotificationId to uniquely identify the EventNotification
@@ -33,14 +43,9 @@ public class EventNotificationMarker {
     public EventNotificationMarker(final String networkElementName, final String eventNotificationId) {
         this.networkElementName = networkElementName;
         this.eventNotificationId = eventNotificationId;
+        this.hash = 31 * Objects.hashCode(networkElementName) + Objects.hashCode(eventNotificationId);
     }
 
-    private String networkElementName;
-
-    private String eventNotificationId;
-
-    private long entryTime;
-
     /**
      * Gets the networkElementName which is associated with the EventNotification going into the EventNotificationBufferCache
      * @return network element name
@@ -58,24 +63,7 @@ public class EventNotificationMarker {
     }
 
     /**
-     * Gets the Entry time in milliseconds since epoch that the EventNotification was added to the EventNotificationBufferCache
-     * @return long - entry time of the EventNotification into the cache in milliseconds
-     */
-    public long getEntryTime() {
-        return entryTime;
-    }
-
-    /**
-     * Sets the entry time into the cache
-     * @param entryTimeMilliseconds the time in milliseconds since epoch that the entry was entered into the EventNotificationBufferCache
-     */
-
-    public void setEntryTime(long entryTimeMilliseconds){
-        this.entryTime = entryTimeMilliseconds;
-    }
-
-    /**
-     * Overriden to ensure that equality is only on networkElementName and eventNotificationId, discards entryTime
+     * Equality is on networkElementName and eventNotificationId, the precomputed hash is compared first to rule out most other markers cheaply
      * @param o - object to compare for equality
      * @return boolean if the object tested is equal to this
      */
@@ -86,16 +74,17 @@ public class EventNotificationMarker {
         if (o == null || getClass() != o.getClass())
             return false;
         EventNotificationMarker that = (EventNotificationMarker) o;
-        return Objects.equals(networkElementName, that.networkElementName) && Objects.equals(eventNotificationId, that.eventNotificationId);
+        return hash == that.hash && Objects.equals(eventNotificationId, that.eventNotificationId)
+                && Objects.equals(networkElementName, that.networkElementName);
     }
 
     /**
-     * Overriden to ensure that equality is only on networkElementName and eventNotificationId, discards entryTime
-     * @return hashcode of the instance, discarding entryTime from the calculation.
+     * Gets the hash computed when the marker was created from networkElementName and eventNotificationId
+     * @return hashcode of the instance
      */
     @Override
     public int hashCode() {
-        return Objects.hash(networkElementName, eventNotificationId);
+        return hash;
     }
 
     /**
@@ -105,6 +94,6 @@ public class EventNotificationMarker {
     @Override
     public String toString() {
         return "EventNotificationMarker{" + "networkElementName='" + networkElementName + '\'' + ", eventNotificationId='" + eventNotificationId
-                + '\'' + ", entryTime=" + entryTime + '}';
+                + '\'' + '}';
     }
 }
@@ -0,0 +1,260 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.parser;
+
+import com.ericsson.oss.mediation.fm.oradio.ejb.exception.NetconfNotificationParseException;
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.function.Consumer;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import static com.ericsson.oss.mediation.fm.util.EventNotificationUtil.setEventTimeAndTimeZone;
+
+/**
+ * Splits a NETCONF notification or alarm-sync reply into its O-RAN alarm entries, the alarm-notif of a notification or each active-alarms entry
+ * of an active-alarm-list, and parses each into an EventNotification in a single pass with a StAX stream reader, without building a DOM.
+ * Each EventNotification is handed to the consumer as soon as its entry has been read, so the entries before it can be collected while the rest
+ * of the payload is still being parsed. The EventNotification of an entry is built from the EventNotificationTemplate of the node and fault-id,
+ * which holds its constant fields, and completed with the leaves of the entry; any other element is skipped. The externalEventId is made of
+ * the fault-id and fault-source, so that an alarm and its clear are correlated in the EventNotificationBuffer.
+ * The XMLInputFactory is created once as it is costly to look up; DTDs and external entities are disabled as the payload comes from the node.
+ */
+public final class AlarmNotificationParser {
+
+    private static final String ALARM_NOTIF = "alarm-notif";
+    private static final String ACTIVE_ALARMS = "active-alarms";
+    private static final String FAULT_ID = "fault-id";
+    private static final String FAULT_SOURCE = "fault-source";
+    private static final String AFFECTED_OBJECTS = "affected-objects";
+    private static final String NAME = "name";
+    private static final String FAULT_SEVERITY = "fault-severity";
+    private static final String IS_CLEARED = "is-cleared";
+    private static final String FAULT_TEXT = "fault-text";
+    private static final String EVENT_TIME = "event-time";
+
+    private static final String FAULT_SOURCE_ATTR = "faultSource";
+    private static final String AFFECTED_OBJECTS_ATTR = "affectedObjects";
+    private static final String EVENT_TIME_ATTR = "eventTime";
+    private static final String CLEARED_SEVERITY = "CLEARED";
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private AlarmNotificationParser() {
+
+    }
+
+    /**
+     * Parses each alarm entry of the NETCONF payload into an EventNotification, in the order they are found
+     * @param netconfPayload - the NETCONF notification or alarm-sync reply received from the node
+     * @param templates - the EventNotificationTemplates of the node
+     * @param consumer - called with the EventNotification of each entry as soon as it has been read
+     * @return the number of entries which were skipped as they miss a mandatory leaf
+     * @throws NetconfNotificationParseException if the payload is empty, is not well-formed XML or holds no entry which could be parsed,
+     *         the entries before an XML error have already been passed to the consumer
+     */
+    public static int parse(final String netconfPayload, final NodeEventNotificationTemplates templates,
+                            final Consumer<EventNotification> consumer) throws NetconfNotificationParseException {
+        if (netconfPayload == null || netconfPayload.isEmpty()) {
+            throw new NetconfNotificationParseException("The notification is empty");
+        }
+        return parse(new StringReader(netconfPayload), templates, consumer);
+    }
+
+    /**
+     * Parses each alarm entry of the NETCONF payload read from the reader into an EventNotification, in the order they are found.
+     * Only the entry being parsed is held, so the heap used does not depend on the number of entries.
+     * @param netconfPayload - the reader of the NETCONF notification or alarm-sync reply received from the node, it is owned by the caller
+     *        and is not closed
+     * @param templates - the EventNotificationTemplates of the node
+     * @param consumer - called with the EventNotification of each entry as soon as it has been read
+     * @return the number of entries which were skipped as they miss a mandatory leaf
+     * @throws NetconfNotificationParseException if the payload is not well-formed XML or holds no entry which could be parsed,
+     *         the entries before an XML error have already been passed to the consumer
+     */
+    public static int parse(final Reader netconfPayload, final NodeEventNotificationTemplates templates,
+                            final Consumer<EventNotification> consumer) throws NetconfNotificationParseException {
+        int parsed = 0;
+        int skipped = 0;
+        XMLStreamReader reader = null;
+        try {
+            reader = INPUT_FACTORY.createXMLStreamReader(netconfPayload);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && isAlarmEntry(reader.getLocalName())) {
+                    final EventNotification eventNotification;
+                    try {
+                        eventNotification = readAlarmEntry(reader, templates);
+                    } catch (final NetconfNotificationParseException e) {
+                        // the reader is on the end of the entry, so the entries after it can still be read
+                        skipped++;
+                        continue;
+                    }
+                    parsed++;
+                    consumer.accept(eventNotification);
+                }
+            }
+        } catch (final XMLStreamException e) {
+            throw new NetconfNotificationParseException("The notification is not well-formed XML: " + e.getMessage(), e);
+        } finally {
+            close(reader);
+        }
+        if (parsed == 0) {
+            throw new NetconfNotificationParseException(skipped == 0 ? "The notification does not hold an alarm-notif"
+                    : "None of the " + skipped + " alarm entries of the notification holds a fault-id, fault-source and fault-severity");
+        }
+        return skipped;
+    }
+
+    private static boolean isAlarmEntry(final String localName) {
+        return ALARM_NOTIF.equals(localName) || ACTIVE_ALARMS.equals(localName);
+    }
+
+    /**
+     * Reads the children of the alarm entry the reader is positioned on, leaving it on the end of the entry.
+     * Each child is consumed up to its own end element, so the first end element reached is the one of the entry.
+     */
+    private static EventNotification readAlarmEntry(final XMLStreamReader reader, final NodeEventNotificationTemplates templates)
+            throws XMLStreamException, NetconfNotificationParseException {
+        String faultId = null;
+        String faultSource = null;
+        String faultSeverity = null;
+        boolean cleared = false;
+        String faultText = null;
+        String eventTime = null;
+        String affectedObjects = null;
+        int event;
+        while ((event = reader.next()) != XMLStreamConstants.END_ELEMENT) {
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            switch (reader.getLocalName()) {
+                case FAULT_ID:
+                    faultId = readText(reader);
+                    break;
+                case FAULT_SOURCE:
+                    faultSource = readText(reader);
+                    break;
+                case AFFECTED_OBJECTS:
+                    final String affectedObject = readAffectedObjectName(reader);
+                    if (affectedObject != null) {
+                        affectedObjects = affectedObjects == null ? affectedObject : affectedObjects + ',' + affectedObject;
+                    }
+                    break;
+                case FAULT_SEVERITY:
+                    faultSeverity = readText(reader);
+                    break;
+                case IS_CLEARED:
+                    cleared = Boolean.parseBoolean(readText(reader));
+                    break;
+                case FAULT_TEXT:
+                    faultText = readText(reader);
+                    break;
+                case EVENT_TIME:
+                    eventTime = readText(reader);
+                    break;
+                default:
+                    skipElement(reader);
+                    break;
+            }
+        }
+        if (isEmpty(faultId) || isEmpty(faultSource)) {
+            throw new NetconfNotificationParseException("The alarm entry does not hold a fault-id and a fault-source");
+        }
+        if (!cleared && isEmpty(faultSeverity)) {
+            throw new NetconfNotificationParseException("The alarm entry of fault " + faultId + " does not hold a fault-severity");
+        }
+        // the leaves may come in any order, so the template of the fault-id is only known once the whole entry has been read
+        final EventNotificationTemplate template = templates.getTemplate(faultId);
+        final EventNotification eventNotification = template.newEventNotification();
+        eventNotification.setExternalEventId(template.getExternalEventId(faultSource));
+        eventNotification.setPerceivedSeverity(cleared ? CLEARED_SEVERITY : faultSeverity);
+        eventNotification.setSpecificProblem(faultText);
+        eventNotification.setProbableCause(faultText);
+        eventNotification.addAdditionalAttribute(FAULT_SOURCE_ATTR, faultSource);
+        if (affectedObjects != null) {
+            eventNotification.addAdditionalAttribute(AFFECTED_OBJECTS_ATTR, affectedObjects);
+        }
+        if (eventTime != null) {
+            eventNotification.addAdditionalAttribute(EVENT_TIME_ATTR, eventTime);
+        }
+        setEventTimeAndTimeZone(eventNotification);
+        return eventNotification;
+    }
+
+    /**
+     * Reads the name of an entry of the affected-objects list, leaving the reader on the end of the entry
+     */
+    private static String readAffectedObjectName(final XMLStreamReader reader) throws XMLStreamException {
+        String name = null;
+        int event;
+        while ((event = reader.next()) != XMLStreamConstants.END_ELEMENT) {
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (NAME.equals(reader.getLocalName())) {
+                    name = readText(reader);
+                } else {
+                    skipElement(reader);
+                }
+            }
+        }
+        return name;
+    }
+
+    private static String readText(final XMLStreamReader reader) throws XMLStreamException {
+        return reader.getElementText().trim();
+    }
+
+    private static void skipElement(final XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static boolean isEmpty(final String value) {
+        return value == null || value.isEmpty();
+    }
+
+    /**
+     * Releases the parser state of the XMLStreamReader. XMLStreamReader.close does not close the underlying Reader, which stays owned by
+     * the caller of parse.
+     */
+    private static void close(final XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (final XMLStreamException e) {
+                // nothing is left to release, the underlying Reader is closed by the caller which opened it
+            }
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return inputFactory;
+    }
+}
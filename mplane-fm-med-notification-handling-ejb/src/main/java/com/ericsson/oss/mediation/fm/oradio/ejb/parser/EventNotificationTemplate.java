@@ -0,0 +1,78 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.parser;
+
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.ORADIO_NE_TYPE;
+
+/**
+ * The prebuilt constant part of the EventNotifications of one alarm type of a node: the managedObjectInstance, sourceType, recordType and
+ * eventType, and the fdn, behalf and faultId additional attributes. It is immutable so it is shared by every notification of the alarm type,
+ * an EventNotification is built from it by copying these fields and then setting only the ones which vary.
+ */
+public final class EventNotificationTemplate {
+
+    private static final String FDN_ATTR = "fdn";
+    private static final String BEHALF_ATTR = "behalf";
+    private static final String BEHALF = "ManagementSystem=ENM";
+    private static final String FAULT_ID_ATTR = "faultId";
+    private static final String ALARM_RECORD_TYPE = "ALARM";
+    // O-RAN does not give an event type in the alarm-notif, the event type sent before the alarm-notif was parsed is kept
+    private static final String EVENT_TYPE = "Communications alarm";
+
+    private final String managedObjectInstance;
+    private final String externalEventIdPrefix;
+    private final String[] attributeNames;
+    private final String[] attributeValues;
+
+    EventNotificationTemplate(final String networkElementFdn, final String ossPrefix, final String faultId) {
+        this.managedObjectInstance = ossPrefix == null || ossPrefix.isEmpty() ? networkElementFdn : ossPrefix;
+        this.externalEventIdPrefix = faultId + ':';
+        this.attributeNames = new String[] {FDN_ATTR, BEHALF_ATTR, FAULT_ID_ATTR};
+        this.attributeValues = new String[] {networkElementFdn, BEHALF, faultId};
+    }
+
+    /**
+     * Creates an EventNotification holding the constant fields of the alarm type
+     * @return a new EventNotification, which the caller completes with the fields of the alarm
+     */
+    public EventNotification newEventNotification() {
+        final EventNotification eventNotification = new EventNotification();
+        eventNotification.setManagedObjectInstance(managedObjectInstance);
+        eventNotification.setSourceType(ORADIO_NE_TYPE);
+        eventNotification.setRecordType(ALARM_RECORD_TYPE);
+        eventNotification.setEventType(EVENT_TYPE);
+        for (int i = 0; i < attributeNames.length; i++) {
+            eventNotification.addAdditionalAttribute(attributeNames[i], attributeValues[i]);
+        }
+        return eventNotification;
+    }
+
+    /**
+     * @param faultSource - the fault-source of the alarm
+     * @return the externalEventId of the alarm raised by the fault-source, which its clear has too
+     */
+    public String getExternalEventId(final String faultSource) {
+        return externalEventIdPrefix.concat(faultSource);
+    }
+
+    /**
+     * @return the managedObjectInstance of the node, its ossPrefix or its fdn when it has none
+     */
+    public String getManagedObjectInstance() {
+        return managedObjectInstance;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.parser;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.enterprise.context.ApplicationScoped;
+
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.EVENT_NOTIFICATION_TEMPLATE_MAX_ENTRIES;
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.NODE_STATE_CACHE_INITIAL_CAPACITY;
+
+/**
+ * Holds the EventNotificationTemplates keyed by node and alarm type, so the constant part of an EventNotification is built once rather than
+ * for every notification. The templates of a node are looked up once per notification, or batch of notifications, with the ossPrefix the
+ * node has in the NodeStateCache; when it differs from the one they were built with they are dropped and rebuilt, and they are dropped when
+ * the node is deleted. The number of templates is bounded: the templates of a node count the room they reserved, and hand it back when they
+ * are dropped, after which they keep no new template.
+ */
+@ApplicationScoped
+public class EventNotificationTemplateCache {
+
+    private final ConcurrentMap<String, NodeEventNotificationTemplates> nodeTemplates =
+            new ConcurrentHashMap<>(NODE_STATE_CACHE_INITIAL_CAPACITY);
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxSize;
+
+    public EventNotificationTemplateCache() {
+        this(EVENT_NOTIFICATION_TEMPLATE_MAX_ENTRIES);
+    }
+
+    EventNotificationTemplateCache(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the templates of a node, replacing them if they were built for another ossPrefix
+     * @param networkElementName - the name of the NetworkElement
+     * @param networkElementFdn - the fdn of the NetworkElement
+     * @param ossPrefix - the current ossPrefix of the node
+     * @return the templates of the alarm types of the node
+     */
+    public NodeEventNotificationTemplates getNodeTemplates(final String networkElementName, final String networkElementFdn, final String ossPrefix) {
+        final NodeEventNotificationTemplates templates = nodeTemplates.get(networkElementName);
+        if (templates != null && Objects.equals(templates.getOssPrefix(), ossPrefix)) {
+            return templates;
+        }
+        return nodeTemplates.compute(networkElementName, (name, current) -> {
+            if (current != null) {
+                if (Objects.equals(current.getOssPrefix(), ossPrefix)) {
+                    return current;
+                }
+                release(current.drop());
+            }
+            return new NodeEventNotificationTemplates(this, networkElementFdn, ossPrefix);
+        });
+    }
+
+    /**
+     * Drops the templates of a node which no longer exists
+     * @param networkElementName - the name of the NetworkElement
+     */
+    public void invalidate(final String networkElementName) {
+        final NodeEventNotificationTemplates templates = nodeTemplates.remove(networkElementName);
+        if (templates != null) {
+            release(templates.drop());
+        }
+    }
+
+    /**
+     * @return the number of templates held for all nodes
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Reserves room for a template
+     * @return false if the cache is full and the template should not be kept
+     */
+    boolean reserve() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= maxSize) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void release(final int count) {
+        size.addAndGet(-count);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.parser;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The EventNotificationTemplates of the alarm types of one node keyed by fault-id, built for the fdn and ossPrefix the node had when they
+ * were looked up. The EventNotificationTemplateCache replaces them as a whole when the ossPrefix of the node changes. Once the cache is full,
+ * or the templates have been dropped, the templates of new alarm types are built for each notification and not kept. Templates are only
+ * added under the lock of the node, so the count handed back when they are dropped is the room they reserved.
+ */
+public final class NodeEventNotificationTemplates {
+
+    private final EventNotificationTemplateCache cache;
+    private final String networkElementFdn;
+    private final String ossPrefix;
+    private final ConcurrentMap<String, EventNotificationTemplate> templates = new ConcurrentHashMap<>();
+    private boolean dropped;
+
+    NodeEventNotificationTemplates(final EventNotificationTemplateCache cache, final String networkElementFdn, final String ossPrefix) {
+        this.cache = cache;
+        this.networkElementFdn = networkElementFdn;
+        this.ossPrefix = ossPrefix;
+    }
+
+    /**
+     * Gets the template of an alarm type of the node, building it the first time the alarm type is received
+     * @param faultId - the fault-id of the alarm type
+     * @return the template of the alarm type
+     */
+    public EventNotificationTemplate getTemplate(final String faultId) {
+        final EventNotificationTemplate template = templates.get(faultId);
+        if (template != null) {
+            return template;
+        }
+        synchronized (this) {
+            final EventNotificationTemplate existing = templates.get(faultId);
+            if (existing != null) {
+                return existing;
+            }
+            final EventNotificationTemplate created = new EventNotificationTemplate(networkElementFdn, ossPrefix, faultId);
+            if (!dropped && cache.reserve()) {
+                templates.put(faultId, created);
+            }
+            return created;
+        }
+    }
+
+    /**
+     * Stops keeping new templates, called by the EventNotificationTemplateCache when it no longer holds these templates
+     * @return the number of templates held, whose room is handed back to the cache
+     */
+    synchronized int drop() {
+        dropped = true;
+        return templates.size();
+    }
+
+    /**
+     * @return the ossPrefix the templates were built for
+     */
+    public String getOssPrefix() {
+        return ossPrefix;
+    }
+
+    /**
+     * @return the number of alarm types whose template is held
+     */
+    public int size() {
+        return templates.size();
+    }
+}
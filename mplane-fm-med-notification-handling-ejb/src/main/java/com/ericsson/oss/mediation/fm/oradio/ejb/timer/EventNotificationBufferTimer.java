@@ -14,29 +14,27 @@
 
 package com.ericsson.oss.mediation.fm.oradio.ejb.timer;
 
-import com.ericsson.oss.itpf.sdk.core.annotation.EServiceRef;
-import com.ericsson.oss.mediation.fm.oradio.api.MPlaneAlarmService;
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean;
+import com.ericsson.oss.mediation.fm.impl.ServiceStatisticsBean;
 import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EventNotificationBuffer;
-import com.ericsson.oss.mediation.fm.oradio.ejb.models.EventNotificationMarker;
-import com.ericsson.oss.mediation.translator.model.EventNotification;
 import com.ericsson.oss.mediation.fm.oradio.ejb.exception.CreateEventBufferTimerException;
+import com.ericsson.oss.mediation.fm.oradio.ejb.journal.EventNotificationJournal;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
-import java.util.Map;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.ejb.*;
 import javax.inject.Inject;
 
-import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.TIMEOUT_VALUE;
-
 /**
- * This class is instantiated at SG startup and starts a timer with the timeout value coming from TIMEOUT_VALUE / 2.
+ * This class is instantiated at SG startup and starts a non persistent timer with the interval coming from the configured flush granularity.
  * When the timer elapses it will call the timeout function and check the EventNotificationBuffer for any EventNotifications that
  * need to be sent to APS.
- * Currently the timeout is set to 2 seconds, however this may change depending on performance testing.
- * This means that the timer will fire every second to process the notifications.
+ * By default the correlation window is 2000 ms and the flush granularity 100 ms, so an EventNotification which is not merged is sent to APS
+ * between 2000 and 2100 ms after it was received. If the flush granularity is changed the timer is recreated on the next timeout.
+ * Each shard of the EventNotificationBuffer which holds expired EventNotifications is flushed in parallel by the EventNotificationShardFlusher,
+ * as are the expired EventNotifications this instance owns in the clustered correlation store. The records queued for the
+ * EventNotificationJournal are written as one batch on every timeout, and the size of the buffer is published to the ServiceStatisticsBean.
  */
 @Startup
 @Singleton
@@ -46,49 +44,81 @@ public class EventNotificationBufferTimer {
     @Inject
     private EventNotificationBuffer buffer;
 
-    @EServiceRef
-    private MPlaneAlarmService mplaneAlarmService;
+    @Inject
+    private EventNotificationShardFlusher shardFlusher;
+
+    @Inject
+    private EventNotificationJournal journal;
+
+    @Inject
+    private ConfigurationBean configurationBean;
+
+    @Inject
+    private ServiceStatisticsBean serviceStatistics;
 
     @Inject
     private TimerService timerService;
 
     private Timer timer;
-    private static final long TIMEOUT = (TIMEOUT_VALUE / 2) * 1000L;
+    private long flushGranularityMillis;
 
     @PostConstruct
     private void initialiseEventBufferTimer() throws CreateEventBufferTimerException {
         try {
             log.info("Initialising EventNotificationBufferTimer Service");
-            timer = timerService.createIntervalTimer(TIMEOUT,TIMEOUT, new TimerConfig());
-        } catch (final EJBException | IllegalStateException e) {
+            createTimer(configurationBean.getEventNotificationFlushGranularityMillis());
+        } catch (final EJBException | IllegalArgumentException | IllegalStateException e) {
             log.error("Failed to initialise EventNotificationBufferTimer", e);
             throw new CreateEventBufferTimerException("Failed to create EventNotificationBufferTimer for: "+ this.getClass().getSimpleName());
         }
     }
 
     /**
-     * Where the work is completed in this class, the timer will check the EventNotificationBuffer for any notifications that have elapsed the timeout
-     * value and send them to APS
+     * Where the work is started in this class, the timer will flush every shard of the EventNotificationBuffer in parallel, sending any
+     * notifications that have elapsed the timeout value to APS
      * @param timer - the timer object that has elapsed.
      */
     @Timeout
     public void timeout(final Timer timer) {
-        log.debug("EventNotificationBufferTimer has elapsed");
+        log.trace("EventNotificationBufferTimer has elapsed");
+        final long currentTimeMillis = System.currentTimeMillis();
+        for (int shardIndex = 0; shardIndex < buffer.getShardCount(); shardIndex++) {
+            if (buffer.hasExpiredEventNotifications(shardIndex, currentTimeMillis)) {
+                shardFlusher.flushShard(shardIndex);
+            }
+        }
+        if (buffer.hasExpiredClusteredEventNotifications(currentTimeMillis)) {
+            shardFlusher.flushClusteredStore();
+        }
+        serviceStatistics.setEventNotificationBuffer(buffer.getSize(), buffer.getEstimatedBytes());
+        journal.flush();
+        rescheduleIfGranularityChanged();
+    }
 
-        final Map<EventNotificationMarker, EventNotification> notifList = buffer.getEventNotificationsfromTime();
-        if(!notifList.isEmpty()) {
-            buffer.removeEventNotificationList(notifList.keySet());
-            log.info("Sending {} alarms", (long) notifList.values().size());
-            mplaneAlarmService.sendAlarms(new ArrayList<>(notifList.values()));
+    private void rescheduleIfGranularityChanged() {
+        final long configuredGranularityMillis = configurationBean.getEventNotificationFlushGranularityMillis();
+        if (configuredGranularityMillis > 0 && configuredGranularityMillis != flushGranularityMillis) {
+            log.info("Flush granularity changed from {} ms to {} ms, recreating EventNotificationBufferTimer", flushGranularityMillis,
+                    configuredGranularityMillis);
+            cancelTimer();
+            createTimer(configuredGranularityMillis);
+        }
+    }
+
+    private void createTimer(final long granularityMillis) {
+        flushGranularityMillis = granularityMillis;
+        timer = timerService.createIntervalTimer(granularityMillis, granularityMillis, new TimerConfig(null, false));
+    }
 
-            log.info("EventNotificationBufferTimer has finished processing");
+    private void cancelTimer() {
+        if (timer != null) {
+            timer.cancel();
         }
-        log.debug("Nothing to process from the EventNotificationBuffer");
     }
 
     @PreDestroy
     private void onServiceStopping() {
-        timer.cancel();
+        cancelTimer();
         log.info("Stopping EventNotificationBufferTimer");
     }
 }
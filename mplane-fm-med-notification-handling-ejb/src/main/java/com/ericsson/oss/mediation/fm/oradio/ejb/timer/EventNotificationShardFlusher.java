@@ -0,0 +1,77 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.timer;
+
+import com.ericsson.oss.mediation.fm.impl.ServiceStatisticsBean;
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EventNotificationBuffer;
+import com.ericsson.oss.mediation.fm.oradio.ejb.dispatch.AlarmDispatcher;
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.EventNotificationMarker;
+import com.ericsson.oss.mediation.translator.model.EventNotification;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import javax.ejb.Asynchronous;
+import javax.ejb.Stateless;
+import javax.inject.Inject;
+
+/**
+ * Flushes a single shard of the EventNotificationBuffer. It is called asynchronously by the EventNotificationBufferTimer for every shard
+ * so the shards are flushed in parallel on the container's asynchronous thread pool.
+ */
+@Stateless
+@Slf4j
+public class EventNotificationShardFlusher {
+
+    @Inject
+    private EventNotificationBuffer buffer;
+
+    @Inject
+    private AlarmDispatcher alarmDispatcher;
+
+    @Inject
+    private ServiceStatisticsBean serviceStatistics;
+
+    /**
+     * Removes the EventNotifications of the shard which have elapsed the correlation window and dispatches them to APS
+     * @param shardIndex - index of the EventNotificationBuffer shard to flush
+     */
+    @Asynchronous
+    public void flushShard(final int shardIndex) {
+        final long startTime = System.nanoTime();
+        final Map<EventNotificationMarker, EventNotification> notifList = buffer.removeExpiredEventNotifications(shardIndex, System.currentTimeMillis());
+        serviceStatistics.addTimedOutNotifications(notifList.size(), System.nanoTime() - startTime);
+        if (notifList.isEmpty()) {
+            return;
+        }
+        log.info("Sending {} alarms from EventNotificationBuffer shard {}", notifList.size(), shardIndex);
+        alarmDispatcher.dispatchAll(notifList.values());
+    }
+
+    /**
+     * Removes the EventNotifications owned by this instance from the clustered correlation store which have elapsed the correlation window
+     * and dispatches them to APS
+     */
+    @Asynchronous
+    public void flushClusteredStore() {
+        final long startTime = System.nanoTime();
+        final Map<EventNotificationMarker, EventNotification> notifList = buffer.removeExpiredClusteredEventNotifications(System.currentTimeMillis());
+        serviceStatistics.addTimedOutNotifications(notifList.size(), System.nanoTime() - startTime);
+        if (notifList.isEmpty()) {
+            return;
+        }
+        log.info("Sending {} alarms from the clustered correlation store", notifList.size());
+        alarmDispatcher.dispatchAll(notifList.values());
+    }
+}
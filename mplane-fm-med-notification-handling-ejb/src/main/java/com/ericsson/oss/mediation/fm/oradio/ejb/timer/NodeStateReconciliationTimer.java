@@ -0,0 +1,136 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.ejb.timer;
+
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean;
+import com.ericsson.oss.mediation.fm.impl.ServiceStatisticsBean;
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeStateCache;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ejb.*;
+import javax.inject.Inject;
+
+import static com.ericsson.oss.mediation.fm.oradio.ejb.Constants.NODE_STATE_RECONCILIATION_CHUNK_INTERVAL_MILLIS;
+
+/**
+ * This class is instantiated at SG startup and reconciles the NodeStateCache against DPS in the background, so a node whose DPS notification
+ * was missed is corrected without a restart. A pass is started at the configured reconciliation interval and checks the nodes in the
+ * cache a chunk at a time, with a delay between the chunks, so DPS is not loaded and the cache is never reloaded as a whole. Alarm
+ * processing carries on while the pass runs, a node changed by a DPS notification during the check is left as it is.
+ * Nodes missing from the cache are not checked, they are read from DPS when a notification is received from them. At the end of a pass
+ * the cache is compacted, releasing the ids of the nodes removed from it.
+ */
+@Startup
+@Singleton
+@Slf4j
+public class NodeStateReconciliationTimer {
+
+    @Inject
+    private NodeStateCache nodeStateCache;
+
+    @Inject
+    private ConfigurationBean configurationBean;
+
+    @Inject
+    private ServiceStatisticsBean serviceStatistics;
+
+    @Inject
+    private TimerService timerService;
+
+    private Timer timer;
+    private List<String> networkElementFdns = Collections.emptyList();
+    private int position;
+    private int corrections;
+    private long passStartTime;
+
+    @PostConstruct
+    private void initialiseReconciliationTimer() {
+        log.info("Initialising NodeStateReconciliationTimer Service");
+        scheduleTimeout(configurationBean.getNodeStateReconciliationIntervalMillis());
+    }
+
+    /**
+     * Checks the next chunk of nodes against DPS, a new pass is started if the last one has finished
+     * @param timer - the timer object that has elapsed.
+     */
+    @Timeout
+    public void timeout(final Timer timer) {
+        try {
+            if (!isPassInProgress()) {
+                startPass();
+            }
+            reconcileChunk();
+        } catch (final Exception e) {
+            log.warn("Failed to reconcile the NodeStateCache against DPS, continuing with the next chunk", e);
+        } finally {
+            scheduleTimeout(isPassInProgress() ? NODE_STATE_RECONCILIATION_CHUNK_INTERVAL_MILLIS
+                    : configurationBean.getNodeStateReconciliationIntervalMillis());
+        }
+    }
+
+    private void startPass() {
+        if (!nodeStateCache.isReady()) {
+            log.debug("NodeStateCache is not ready, not reconciling it");
+            return;
+        }
+        networkElementFdns = nodeStateCache.getNetworkElementFdns();
+        position = 0;
+        corrections = 0;
+        passStartTime = System.currentTimeMillis();
+        log.debug("Reconciling {} nodes of the NodeStateCache against DPS", networkElementFdns.size());
+    }
+
+    private void reconcileChunk() {
+        final int chunkEnd = Math.min(position + configurationBean.getNodeStateReconciliationChunkSize(), networkElementFdns.size());
+        final int chunkStart = position;
+        int chunkCorrections = 0;
+        try {
+            while (position < chunkEnd) {
+                // moved on first so a node which can not be read does not stop the pass
+                if (nodeStateCache.reconcileNodeState(networkElementFdns.get(position++))) {
+                    chunkCorrections++;
+                }
+            }
+        } finally {
+            corrections += chunkCorrections;
+            serviceStatistics.addNodeStateReconciliation(position - chunkStart, chunkCorrections);
+        }
+        if (chunkEnd > chunkStart && !isPassInProgress()) {
+            log.info("Reconciled {} nodes of the NodeStateCache against DPS in {} ms, {} corrected", networkElementFdns.size(),
+                    System.currentTimeMillis() - passStartTime, corrections);
+            nodeStateCache.compactNodeStates();
+        }
+    }
+
+    private boolean isPassInProgress() {
+        return position < networkElementFdns.size();
+    }
+
+    private void scheduleTimeout(final long delayMillis) {
+        timer = timerService.createSingleActionTimer(delayMillis, new TimerConfig(null, false));
+    }
+
+    @PreDestroy
+    private void onServiceStopping() {
+        if (timer != null) {
+            timer.cancel();
+        }
+        log.info("Stopping NodeStateReconciliationTimer");
+    }
+}
@@ -17,11 +17,18 @@ package com.ericsson.oss.mediation.fm.oradio
 import com.ericsson.cds.cdi.support.rule.MockedImplementation
 import com.ericsson.cds.cdi.support.rule.ObjectUnderTest
 import com.ericsson.cds.cdi.support.spock.SharedCdiSpecification
+import com.ericsson.oss.mediation.fm.impl.ServiceStatisticsBean
 import com.ericsson.oss.mediation.fm.oradio.api.MPlaneAlarmService
+import com.ericsson.oss.mediation.fm.oradio.api.models.InspectionPage
+import com.ericsson.oss.mediation.fm.oradio.api.models.InspectionQuery
+import com.ericsson.oss.mediation.fm.oradio.api.models.ORadioNotification
 import com.ericsson.oss.mediation.fm.oradio.ejb.ORadioAlarmManagementServiceImpl
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EarlyNotificationQueue
 import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EventNotificationBuffer
-import com.ericsson.oss.mediation.fm.oradio.ejb.cache.OssPrefixCache
-import com.ericsson.oss.mediation.fm.oradio.ejb.cache.SupervisionStateCache
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeState
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeStateCache
+import com.ericsson.oss.mediation.fm.oradio.ejb.dispatch.AlarmDispatcher
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.CorrelationResult
 import com.ericsson.oss.mediation.translator.model.EventNotification
 import org.slf4j.Logger
 import spock.lang.Shared
@@ -30,10 +37,10 @@ import spock.lang.Shared
 class ORadioAlarmManagementServiceImplSpec extends SharedCdiSpecification{
 
     private static final String TEST_NODE_NAME = "ORadio1"
-    private static final String TEST_NODE_NETWORK_ELEMENT_FDN = "NetworkElement=ORadio1"
     private static final String TEST_NODE_OSS_PREFIX = "SubNetwork=ENM,MeContext=ORadio1"
     private static final String TRUE = "True"
     private static final String FALSE = "False"
+    private static final String TEST_FAULT_SOURCE = "ru-port-0"
 
     @ObjectUnderTest
     @Shared
@@ -46,13 +53,19 @@ class ORadioAlarmManagementServiceImplSpec extends SharedCdiSpecification{
     private MPlaneAlarmService mplaneAlarmService;
 
     @MockedImplementation
-    private SupervisionStateCache supervisionStateCache;
+    private NodeStateCache nodeStateCache;
 
     @MockedImplementation
-    private OssPrefixCache ossPrefixCache;
+    private EventNotificationBuffer eventNotificationBuffer;
 
     @MockedImplementation
-    private EventNotificationBuffer eventNotificationBuffer;
+    private AlarmDispatcher alarmDispatcher;
+
+    @MockedImplementation
+    private ServiceStatisticsBean serviceStatistics;
+
+    @MockedImplementation
+    private EarlyNotificationQueue earlyNotificationQueue;
 
     def setup(){
 
@@ -60,122 +73,329 @@ class ORadioAlarmManagementServiceImplSpec extends SharedCdiSpecification{
 
     def "When process Notification is called without the node being DISABLED for FMAlarmSupervision, then Alarm is discarded"(){
         given: "Node is not in the FMSupervisionCache"
+        nodeStateCache.isReady() >> true
         when:"Oradio is called"
         oRadioAlarmManagementService.processNotification("1","ORadio1")
         then:"Nothing is run after and the alarm is not processed"
-        0 * ossPrefixCache.getOssPrefix(_)
-        0 * eventNotificationBuffer.eventNotificationExists(_,_)
+        0 * eventNotificationBuffer.correlateOrBuffer(_,_)
+        0 * earlyNotificationQueue.offer(_)
+        and:"the alarm is counted as received and dropped for supervision"
+        1 * serviceStatistics.addReceivedNotifications(1)
+        1 * serviceStatistics.addUnsupervisedNotifications(1)
+        0 * serviceStatistics.addTransformTime(_)
         noExceptionThrown()
     }
 
+    def "When processNotification is called for a node which is not in the NodeStateCache while it is warming up, then the Alarm is held"(){
+        given: "the NodeStateCache is not ready"
+        nodeStateCache.isReady() >> false
+        when:"Oradio is called"
+        def response = oRadioAlarmManagementService.processNotification("1", TEST_NODE_NAME)
+        then:"the notification is held until the NodeStateCache is ready and not processed"
+        1 * earlyNotificationQueue.offer({ it.getNetworkElementName() == TEST_NODE_NAME && it.getNetconfPayload() == "1" }) >> true
+        1 * serviceStatistics.addHeldEarlyNotifications(1)
+        0 * serviceStatistics.addDroppedEarlyNotifications(_)
+        0 * eventNotificationBuffer.correlateOrBuffer(_,_)
+        0 * earlyNotificationQueue.replay()
+        response.contains("Holding Alarm from ORadio1 until the NodeStateCache is ready")
+    }
+
+    def "When processNotifications is called while the NodeStateCache is warming up and the EarlyNotificationQueue is full, then the Alarms which do not fit are dropped"(){
+        given: "the NodeStateCache is not ready and the EarlyNotificationQueue has room for one more notification"
+        nodeStateCache.isReady() >> false
+        earlyNotificationQueue.offer(_) >>> [true, false]
+        when:"processNotifications is called with 2 notifications from a node which is not in the NodeStateCache"
+        def responses = oRadioAlarmManagementService.processNotifications([new ORadioNotification(TEST_NODE_NAME, "1"),
+                                                                           new ORadioNotification(TEST_NODE_NAME, "2")])
+        then:"one notification is held and the other is dropped"
+        1 * serviceStatistics.addHeldEarlyNotifications(1)
+        1 * serviceStatistics.addDroppedEarlyNotifications(1)
+        0 * eventNotificationBuffer.correlateOrBuffer(_,_)
+        responses.get(TEST_NODE_NAME).contains("Dropping Alarm from ORadio1 as the EarlyNotificationQueue is full")
+    }
+
+    def "When the NodeStateCache becomes ready while a notification is being held, then the held notifications are replayed"(){
+        given: "the NodeStateCache becomes ready after the node was looked up"
+        nodeStateCache.isReady() >>> [false, true]
+        earlyNotificationQueue.offer(_) >> true
+        when:"Oradio is called"
+        oRadioAlarmManagementService.processNotification("1", TEST_NODE_NAME)
+        then:"the held notifications are replayed"
+        1 * earlyNotificationQueue.replay()
+    }
+
     def "When process Notification is called with the node being ENABLED for FMAlarmSupervision, then Alarm is then added to the EventNotificationBuffer"(){
-        given: "Node is in the FMSupervisionCache and ENABLED"
-        supervisionStateCache.isSupervisionActive(TEST_NODE_NETWORK_ELEMENT_FDN) >> TRUE
         when:"Oradio is called"
-        oRadioAlarmManagementService.processNotification("1","ORadio1")
+        oRadioAlarmManagementService.processNotification(alarmNotif("1"),"ORadio1")
         then:"Nothing is run after and the alarm is not processed"
-        1 * ossPrefixCache.getOssPrefix(_)
-        1 * eventNotificationBuffer.eventNotificationExists(_,_)
-        1 * eventNotificationBuffer.addEventNotification(_,_)
+        1 * nodeStateCache.getNodeStateByName(TEST_NODE_NAME) >> activeNodeState()
+        1 * eventNotificationBuffer.correlateOrBuffer(_,_) >> CorrelationResult.buffered()
+        0 * alarmDispatcher.dispatch(_)
+        and:"the alarm is counted as received, buffered and missing an ossPrefix"
+        1 * serviceStatistics.addReceivedNotifications(1)
+        1 * serviceStatistics.addOssPrefixMisses(1)
+        1 * serviceStatistics.addBufferedNotification()
+        1 * serviceStatistics.addTransformTime(_ as Long)
+        1 * serviceStatistics.addCorrelationTime(_ as Long)
+        0 * serviceStatistics.addUnsupervisedNotifications(_)
         noExceptionThrown()
 
 
     }
 
     def "When process Notification is called with the node being ENABLED for FMAlarmSupervision and an ossPrefix set, then Alarm is then added to the EventNotificationBuffer"(){
-        given: "Node is in the FMSupervisionCache and ENABLED"
-        supervisionStateCache.isSupervisionActive(TEST_NODE_NETWORK_ELEMENT_FDN) >> TRUE
-        ossPrefixCache.getOssPrefix(TEST_NODE_NETWORK_ELEMENT_FDN) >> TEST_NODE_OSS_PREFIX
         when:"Oradio is called"
-        oRadioAlarmManagementService.processNotification("","ORadio1")
+        oRadioAlarmManagementService.processNotification(alarmNotif("1"),"ORadio1")
         then:"Nothing is run after and the alarm is added to the eventNotificationBuffer"
-        1 * ossPrefixCache.getOssPrefix(_)
-        1 * eventNotificationBuffer.eventNotificationExists(_,_)
-        1 * eventNotificationBuffer.addEventNotification(_,_)
+        1 * nodeStateCache.getNodeStateByName(TEST_NODE_NAME) >> activeNodeState(TEST_NODE_OSS_PREFIX)
+        1 * eventNotificationBuffer.correlateOrBuffer(_,_) >> CorrelationResult.buffered()
+        0 * alarmDispatcher.dispatch(_)
+        0 * serviceStatistics.addOssPrefixMisses(_)
         noExceptionThrown()
     }
 
     def "When process Notification is called with the node being ENABLED for FMAlarmSupervision and an ossPrefix set to an empty string, then Alarm is then added to the EventNotificationBuffer"(){
-        given: "Node is in the FMSupervisionCache and ENABLED"
-        supervisionStateCache.isSupervisionActive(TEST_NODE_NETWORK_ELEMENT_FDN) >> TRUE
-        ossPrefixCache.getOssPrefix(TEST_NODE_NETWORK_ELEMENT_FDN) >> ""
         when:"Oradio is called"
-        oRadioAlarmManagementService.processNotification("","ORadio1")
+        oRadioAlarmManagementService.processNotification(alarmNotif("1"),"ORadio1")
         then:"Nothing is run after and the alarm is added to the eventNotificationBuffer"
-        1 * ossPrefixCache.getOssPrefix(_)
-        1 * eventNotificationBuffer.eventNotificationExists(_,_)
-        1 * eventNotificationBuffer.addEventNotification(_,_)
+        1 * nodeStateCache.getNodeStateByName(TEST_NODE_NAME) >> activeNodeState("")
+        1 * eventNotificationBuffer.correlateOrBuffer(_,_) >> CorrelationResult.buffered()
+        0 * alarmDispatcher.dispatch(_)
         noExceptionThrown()
     }
 
-    def "When processNotification is called with a CLEARED notification in the cache, then the new Notification should be merged with the cached and sent to APS"(){
+    def "When process Notification is called with a notification which is not an alarm-notif, then Alarm is dropped"(){
         given: "Node is in the FMSupervisionCache and ENABLED"
-        supervisionStateCache.isSupervisionActive(TEST_NODE_NETWORK_ELEMENT_FDN) >> TRUE
-        ossPrefixCache.getOssPrefix(TEST_NODE_NETWORK_ELEMENT_FDN) >> ""
-        and: "EventNotification is already in the EventNotificationBuffer"
-        eventNotificationBuffer.eventNotificationExists(_,_) >> true
-        eventNotificationBuffer.getEventNotification(_,_) >> createTestEventNotification("1","ORadio1", "CLEARED")
+        nodeStateCache.getNodeStateByName(TEST_NODE_NAME) >> activeNodeState(TEST_NODE_OSS_PREFIX)
+        when:"Oradio is called with a payload which cannot be parsed"
+        def response = oRadioAlarmManagementService.processNotification(payload,"ORadio1")
+        then:"the alarm is not buffered and is counted as unparsable"
+        0 * eventNotificationBuffer.correlateOrBuffer(_,_)
+        0 * alarmDispatcher.dispatch(_)
+        1 * serviceStatistics.addUnparsableNotifications(1)
+        0 * serviceStatistics.addTransformTime(_)
+        response.contains("Dropping Alarm from ORadio1 as the notification could not be parsed")
+        where:
+        payload << ["", "1", "<notification><eventTime>2024-05-01T10:15:30Z</eventTime></notification>",
+                    "<notification><alarm-notif><fault-id>1</fault-id></alarm-notif></notification>"]
+    }
 
-        when:"Oradio is called"
-        oRadioAlarmManagementService.processNotification("1","ORadio1")
-        then:"Nothing is run after and the alarm is added to the eventNotificationBuffer"
-        1 * ossPrefixCache.getOssPrefix(_)
-        1 * eventNotificationBuffer.removeEventNotification(_,_)
-        1 * mplaneAlarmService.sendAlarm(_)
+    def "When process Notification is called with an alarm-notif, then the EventNotification holds its fields"(){
+        given: "Node is in the FMSupervisionCache and ENABLED"
+        nodeStateCache.getNodeStateByName(TEST_NODE_NAME) >> activeNodeState(TEST_NODE_OSS_PREFIX)
+        when:"Oradio is called with a cleared alarm-notif"
+        oRadioAlarmManagementService.processNotification(alarmNotif("7", "MINOR", true),"ORadio1")
+        then:"the EventNotification built from it is added to the eventNotificationBuffer"
+        1 * eventNotificationBuffer.correlateOrBuffer({ it.getExternalEventId() == "7:" + TEST_FAULT_SOURCE &&
+                it.getPerceivedSeverity() == "CLEARED" && it.getSpecificProblem() == "Unit Testing" &&
+                it.getManagedObjectInstance() == TEST_NODE_OSS_PREFIX }, TEST_NODE_NAME) >> CorrelationResult.buffered()
+    }
+
+    def "When process Notification is called with several alarm entries, then each is added to the EventNotificationBuffer on its own"(){
+        given: "Node is in the FMSupervisionCache and ENABLED"
+        nodeStateCache.getNodeStateByName(TEST_NODE_NAME) >> activeNodeState(TEST_NODE_OSS_PREFIX)
+        and: "an alarm-sync reply holding 3 alarms, the second of which has no fault-source"
+        def reply = "<active-alarm-list xmlns=\"urn:o-ran:fm:1.0\">" + activeAlarm("1") +
+                activeAlarm("2").replace("<fault-source>${TEST_FAULT_SOURCE}</fault-source>", "") + activeAlarm("3") + "</active-alarm-list>"
+        def correlated = []
+        when:"Oradio is called with the reply"
+        def response = oRadioAlarmManagementService.processNotification(reply,"ORadio1")
+        then:"the valid alarms are correlated one by one, the first is buffered and the buffer is full for the second"
+        2 * eventNotificationBuffer.correlateOrBuffer(_, TEST_NODE_NAME) >> { eventNotif, networkElementName ->
+            correlated << eventNotif.getExternalEventId()
+            correlated.size() == 1 ? CorrelationResult.buffered() : CorrelationResult.dropped()
+        }
+        correlated == ["1:" + TEST_FAULT_SOURCE, "3:" + TEST_FAULT_SOURCE]
+        and:"the alarm which could not be parsed is counted"
+        1 * serviceStatistics.addReceivedNotifications(1)
+        1 * serviceStatistics.addUnparsableNotifications(1)
+        1 * serviceStatistics.addBufferedNotification()
+        1 * serviceStatistics.addDroppedNotifications(1)
+        2 * serviceStatistics.addCorrelationTime(_ as Long)
+        1 * serviceStatistics.addTransformTime(_ as Long)
+        response.contains("Added 2 EventNotifications to Eventbuffer: " + TEST_NODE_OSS_PREFIX + " for node ORadio1")
+        response.contains("Dropping 1 Alarms from ORadio1 as they could not be parsed")
+        response.contains("Dropping 1 Alarms from ORadio1 as the EventNotificationBuffer is full")
+    }
+
+    def "When processNotification is called with the update of an alarm whose clear is in the cache, then the update should be merged with the cached clear and sent to APS"(){
+        given: "the clear of the alarm is already in the EventNotificationBuffer"
+        eventNotificationBuffer.correlateOrBuffer(_,_) >> CorrelationResult.correlated(createTestEventNotification("1","ORadio1", "CLEARED"))
+
+        when:"Oradio is called with the alarm raised again with its updated values"
+        oRadioAlarmManagementService.processNotification(alarmNotif("1", "CRITICAL"),"ORadio1")
+        then:"the update is sent, not the clear"
+        1 * nodeStateCache.getNodeStateByName(TEST_NODE_NAME) >> activeNodeState("")
+        1 * alarmDispatcher.dispatch({ it.getPerceivedSeverity() == "CRITICAL" })
+
+        noExceptionThrown()
+    }
+
+    def "When processNotification is called with a clear of an alarm in the cache, then the new Notification should be merged with the cached and sent to APS"(){
+        given: "EventNotification is already in the EventNotificationBuffer"
+        eventNotificationBuffer.correlateOrBuffer(_,_) >> CorrelationResult.correlated(createTestEventNotification("1","ORadio1", "MAJOR"))
+        when:"Oradio is called with the clear"
+        oRadioAlarmManagementService.processNotification(alarmNotif("1", "MAJOR", true),"ORadio1")
+        then:"the received clear is sent"
+        1 * nodeStateCache.getNodeStateByName(TEST_NODE_NAME) >> activeNodeState("")
+        1 * alarmDispatcher.dispatch({ it.getPerceivedSeverity() == "CLEARED" && it.getExternalEventId() != "1" })
+        1 * serviceStatistics.addCorrelatedNotification()
+        0 * serviceStatistics.addBufferedNotification()
 
         noExceptionThrown()
     }
 
-    def "When processNotification is called with an ALARM notification in the cache, then the cached Notification should be merged with the new and sent to APS"(){
+    def "When processNotification is called and the EventNotificationBuffer is full, then the oldest evicted notifications are sent to APS early"(){
         given: "Node is in the FMSupervisionCache and ENABLED"
-        supervisionStateCache.isSupervisionActive(TEST_NODE_NETWORK_ELEMENT_FDN) >> TRUE
-        ossPrefixCache.getOssPrefix(TEST_NODE_NETWORK_ELEMENT_FDN) >> ""
-        and: "EventNotification is already in the EventNotificationBuffer"
-        eventNotificationBuffer.eventNotificationExists(_,_) >> true
-        eventNotificationBuffer.getEventNotification(_,_) >> createTestEventNotification("1","ORadio1", "ALARM")
+        nodeStateCache.getNodeStateByName(TEST_NODE_NAME) >> activeNodeState()
+        and: "The EventNotificationBuffer evicts 2 notifications to buffer the new one"
+        def evicted = [createTestEventNotification("2","ORadio1", "MAJOR"), createTestEventNotification("3","ORadio1", "MAJOR")]
+        eventNotificationBuffer.correlateOrBuffer(_,_) >> CorrelationResult.buffered(evicted)
         when:"Oradio is called"
-        oRadioAlarmManagementService.processNotification("1","ORadio1")
-        then:"Nothing is run after and the alarm is added to the eventNotificationBuffer"
-        1 * ossPrefixCache.getOssPrefix(_)
-        1 * eventNotificationBuffer.removeEventNotification(_,_)
-        1 * mplaneAlarmService.sendAlarm(_)
+        oRadioAlarmManagementService.processNotification(alarmNotif("1"),"ORadio1")
+        then:"The evicted notifications are sent to APS and counted"
+        1 * alarmDispatcher.dispatchAll(evicted)
+        0 * alarmDispatcher.dispatch(_)
+        1 * serviceStatistics.addEvictedNotifications(2)
+        1 * serviceStatistics.addEarlySentNotifications(2)
+    }
 
-        noExceptionThrown()
+    def "When processNotification is called and the EventNotificationBuffer bypasses the notification, then it is sent to APS straight away"(){
+        given: "Node is in the FMSupervisionCache and ENABLED"
+        nodeStateCache.getNodeStateByName(TEST_NODE_NAME) >> activeNodeState()
+        and: "The EventNotificationBuffer is full"
+        eventNotificationBuffer.correlateOrBuffer(_,_) >> CorrelationResult.bypassed()
+        when:"Oradio is called"
+        oRadioAlarmManagementService.processNotification(alarmNotif("1"),"ORadio1")
+        then:"The notification is sent to APS and counted as sent early, it was never in the buffer so it is not counted as evicted"
+        1 * alarmDispatcher.dispatch(_)
+        1 * serviceStatistics.addEarlySentNotifications(1)
+        0 * serviceStatistics.addEvictedNotifications(_)
+    }
+
+    def "When processNotification is called and the EventNotificationBuffer drops the notification, then nothing is sent to APS"(){
+        given: "Node is in the FMSupervisionCache and ENABLED"
+        nodeStateCache.getNodeStateByName(TEST_NODE_NAME) >> activeNodeState()
+        and: "The EventNotificationBuffer is full"
+        eventNotificationBuffer.correlateOrBuffer(_,_) >> CorrelationResult.dropped()
+        when:"Oradio is called"
+        oRadioAlarmManagementService.processNotification(alarmNotif("1"),"ORadio1")
+        then:"Nothing is sent to APS and the drop is counted"
+        0 * alarmDispatcher.dispatch(_)
+        0 * alarmDispatcher.dispatchAll(_)
+        1 * serviceStatistics.addDroppedNotifications(1)
+        0 * serviceStatistics.addEvictedNotifications(_)
+    }
+
+    def "When processNotifications is called with a batch, then the supervision state and ossPrefix are resolved once per node"(){
+        given: "a batch holding 3 notifications from ORadio1 and 2 from ORadio2"
+        def notifications = [new ORadioNotification(TEST_NODE_NAME, alarmNotif("1")), new ORadioNotification("ORadio2", alarmNotif("1")),
+                             new ORadioNotification(TEST_NODE_NAME, alarmNotif("2")), new ORadioNotification("ORadio2", alarmNotif("2")),
+                             new ORadioNotification(TEST_NODE_NAME, alarmNotif("3"))]
+        when: "processNotifications is called"
+        def responses = oRadioAlarmManagementService.processNotifications(notifications)
+        then: "the state of each node is looked up once, ORadio1 is ENABLED for FMAlarmSupervision and ORadio2 is not"
+        1 * nodeStateCache.getNodeStateByName(TEST_NODE_NAME) >> activeNodeState(TEST_NODE_OSS_PREFIX)
+        1 * nodeStateCache.getNodeStateByName("ORadio2") >> NodeState.unknown().withSupervisionActive(false)
+        and: "the notifications of the supervised node are buffered in the order they were received"
+        1 * eventNotificationBuffer.correlateOrBuffer({ it.getExternalEventId() == "1:" + TEST_FAULT_SOURCE }, TEST_NODE_NAME) >> CorrelationResult.buffered()
+        then:
+        1 * eventNotificationBuffer.correlateOrBuffer({ it.getExternalEventId() == "2:" + TEST_FAULT_SOURCE }, TEST_NODE_NAME) >> CorrelationResult.buffered()
+        then:
+        1 * eventNotificationBuffer.correlateOrBuffer({ it.getExternalEventId() == "3:" + TEST_FAULT_SOURCE }, TEST_NODE_NAME) >> CorrelationResult.buffered()
+        0 * eventNotificationBuffer.correlateOrBuffer(_, _)
+        and: "there is a response for each node"
+        responses.keySet() as List == [TEST_NODE_NAME, "ORadio2"]
+        responses.get("ORadio2").contains("Dropping Alarm from ORadio2 as FMAlarmSupervision is not enabled")
+    }
+
+    def "When processNotifications is called with an empty batch, then nothing is processed"(){
+        when: "processNotifications is called"
+        def responses = oRadioAlarmManagementService.processNotifications([])
+        then: "no cache is used"
+        responses.isEmpty()
+        0 * nodeStateCache._
+        0 * eventNotificationBuffer._
     }
 
-    def "Should be able to get the EventNotificationBuffer cache"(){
-        given: "there is a cache to get"
-        eventNotificationBuffer.getEventNotificationBuffer() >> new HashMap<String, String>()
+    def "Should be able to get a page of the EventNotificationBuffer cache"(){
+        given: "there is a page of the cache to get"
+        def query = new InspectionQuery(TEST_NODE_NAME, null, 0, 10)
+        eventNotificationBuffer.getEventNotificationBuffer(query) >> new InspectionPage(0, 0, 10, new HashMap<String, String>())
         when: "getCurrentEventNotificationBuffer is called"
-        def cache = oRadioAlarmManagementService.getCurrentEventNotificationBuffer()
+        def page = oRadioAlarmManagementService.getCurrentEventNotificationBuffer(query)
         then:
-        cache != null
-        cache == new HashMap<String,String>()
+        page != null
+        page.getEntries() == new HashMap<String,String>()
         noExceptionThrown()
     }
 
-    def "Should be able to get the ossPrefixCache"(){
-        given: "there is a cache to get"
-        ossPrefixCache.getCache() >> new HashMap<String, String>()
+    def "Should be able to get a page of the ossPrefixCache"(){
+        given: "there is a page of the cache to get"
+        def query = new InspectionQuery(null, "ORadio", 0, 10)
+        nodeStateCache.getOssPrefixCache(query) >> new InspectionPage(1, 0, 10, ["NetworkElement=ORadio1": "SubNetwork=ENM"])
         when: "getOssPrefixCache is called"
-        def cache = oRadioAlarmManagementService.getOssPrefixCache()
+        def page = oRadioAlarmManagementService.getOssPrefixCache(query)
         then:
-        cache != null
-        cache == new HashMap<String,String>()
+        page.getTotal() == 1
+        page.getEntries() == ["NetworkElement=ORadio1": "SubNetwork=ENM"]
         noExceptionThrown()
     }
 
-    def "Should be able to get the SupervisionCache"(){
-        given: "there is a cache to get"
-        supervisionStateCache.getSupervisionStateCache() >> new HashMap<String, String>()
+    def "Should be able to get a page of the SupervisionCache"(){
+        given: "there is a page of the cache to get"
+        def query = new InspectionQuery(null, null, 0, 10)
+        nodeStateCache.getSupervisionStateCache(query) >> new InspectionPage(0, 0, 10, new HashMap<String, String>())
         when: "getSupervisionCache is called"
-        def cache = oRadioAlarmManagementService.getSupervisionCache()
+        def page = oRadioAlarmManagementService.getSupervisionCache(query)
         then:
-        cache != null
-        cache == new HashMap<String,String>()
+        page != null
+        page.getEntries() == new HashMap<String,String>()
         noExceptionThrown()
     }
 
+    def "Should be able to get the size of the caches without reading their entries"(){
+        given: "the caches hold entries"
+        nodeStateCache.getWarmUpState() >> NodeStateCache.WarmUpState.READY
+        nodeStateCache.getSize() >> 200000
+        eventNotificationBuffer.getSize() >> 12
+        eventNotificationBuffer.getEstimatedBytes() >> 4096L
+        when: "getInspectionSummary is called"
+        def summary = oRadioAlarmManagementService.getInspectionSummary()
+        then: "the sizes are returned"
+        summary == ["nodeStateCacheState": "READY", "nodeStateCacheNodes": "200000", "eventNotificationBufferEntries": "12",
+                    "eventNotificationBufferEstimatedBytes": "4096", "eventNotificationBufferOffHeapBytes": "0", "heldNotifications": "0"]
+        and: "no entry is read"
+        0 * nodeStateCache.getOssPrefixCache(_)
+        0 * nodeStateCache.getSupervisionStateCache(_)
+        0 * eventNotificationBuffer.getEventNotificationBuffer(_)
+    }
+
+    def "Should be able to get the status of the NodeStateCache"(){
+        given: "the NodeStateCache is warming up"
+        nodeStateCache.getWarmUpStatus() >> ["state": "WARMING_UP", "nodes": "5000"]
+        when: "getNodeStateCacheStatus is called"
+        def status = oRadioAlarmManagementService.getNodeStateCacheStatus()
+        then:
+        status == ["state": "WARMING_UP", "nodes": "5000"]
+    }
+
+    private static NodeState activeNodeState(final String ossPrefix = null) {
+        return NodeState.unknown().withSupervisionActive(true).withOssPrefix(ossPrefix)
+    }
+
+    private static String alarmNotif(final String faultId, final String faultSeverity = "MAJOR", final boolean cleared = false) {
+        return "<notification xmlns=\"urn:ietf:params:xml:ns:netconf:notification:1.0\"><eventTime>2024-05-01T10:15:30Z</eventTime>" +
+                "<alarm-notif xmlns=\"urn:o-ran:fm:1.0\"><fault-id>${faultId}</fault-id><fault-source>${TEST_FAULT_SOURCE}</fault-source>" +
+                "<affected-objects><name>${TEST_FAULT_SOURCE}</name></affected-objects><fault-severity>${faultSeverity}</fault-severity>" +
+                "<is-cleared>${cleared}</is-cleared><fault-text>Unit Testing</fault-text><event-time>2024-05-01T10:15:30Z</event-time>" +
+                "</alarm-notif></notification>"
+    }
+
+    private static String activeAlarm(final String faultId) {
+        return alarmNotif(faultId).replaceAll(".*<alarm-notif[^>]*>", "<active-alarms>").replace("</alarm-notif></notification>", "</active-alarms>")
+    }
+
     private static EventNotification createTestEventNotification(final String alarmId, final String networkElementName, final String perceivedSeverity) {
         EventNotification notif =  new EventNotification()
         notif.setExternalEventId(alarmId)
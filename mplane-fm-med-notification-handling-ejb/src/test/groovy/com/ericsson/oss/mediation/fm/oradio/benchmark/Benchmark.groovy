@@ -0,0 +1,140 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.benchmark
+
+import groovy.transform.CompileStatic
+
+import java.lang.management.GarbageCollectorMXBean
+import java.lang.management.ManagementFactory
+import java.util.function.Function
+
+/**
+ * Shared by the benchmark specifications, which are only run when the benchmark system property is set, e.g.
+ * mvn test -Dbenchmark -Dtest=FdnParsingBenchmarkSpec. Annotate a specification with @IgnoreIf({ Benchmark.isDisabled() }).
+ *
+ * The operations are measured on the current thread: the time taken, the bytes allocated by the thread and the garbage collections during the
+ * measurement. The operation is called through a Function from statically compiled code, so the loop itself does not allocate; its results
+ * are folded into a checksum so the JIT can not drop the calls.
+ */
+@CompileStatic
+final class Benchmark {
+
+    /**
+     * The number of times a measurement is repeated, only the last one is kept once the JIT has warmed up
+     */
+    static final int ROUNDS = 5
+
+    private static volatile int sink
+
+    private Benchmark() {
+    }
+
+    static boolean isDisabled() {
+        return System.getProperty("benchmark") == null
+    }
+
+    /**
+     * Runs the round ROUNDS times
+     * @return the result of the last round
+     */
+    static <T> T warmedUp(final Closure<T> round) {
+        T result = null
+        for (int i = 0; i < ROUNDS; i++) {
+            result = round.call()
+        }
+        return result
+    }
+
+    /**
+     * Applies the operation the given number of times, to the inputs in turn
+     */
+    static <T> Measurement measure(final int operations, final List<T> inputs, final Function<? super T, ?> operation) {
+        final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()
+        final long threadId = Thread.currentThread().getId()
+        final int size = inputs.size()
+        int checksum = 0
+
+        final long startGcMillis = gcMillis()
+        final long startGcCount = gcCount()
+        final long startBytes = threadMXBean.getThreadAllocatedBytes(threadId)
+        final long startTime = System.nanoTime()
+        for (int i = 0; i < operations; i++) {
+            checksum += System.identityHashCode(operation.apply(inputs.get(i % size)))
+        }
+        final long time = System.nanoTime() - startTime
+        final long bytes = threadMXBean.getThreadAllocatedBytes(threadId) - startBytes
+        sink = checksum
+        return new Measurement(time / (double) operations, bytes / (double) operations, gcMillis() - startGcMillis, gcCount() - startGcCount)
+    }
+
+    /**
+     * Gets the heap in use once the garbage has been collected, as far as System.gc() can be relied on
+     */
+    static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime()
+        for (int i = 0; i < 5; i++) {
+            System.gc()
+            Thread.sleep(50)
+        }
+        return runtime.totalMemory() - runtime.freeMemory()
+    }
+
+    static void report(final String result) {
+        println "[benchmark] " + result
+    }
+
+    private static long gcMillis() {
+        long millis = 0
+        for (final GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0L, gc.getCollectionTime())
+        }
+        return millis
+    }
+
+    private static long gcCount() {
+        long count = 0
+        for (final GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0L, gc.getCollectionCount())
+        }
+        return count
+    }
+
+    /**
+     * The time and bytes allocated per operation, and the garbage collections during the measurement
+     */
+    static final class Measurement {
+
+        final double nanosPerOperation
+        final double bytesPerOperation
+        final long gcMillis
+        final long gcCount
+
+        Measurement(final double nanosPerOperation, final double bytesPerOperation, final long gcMillis, final long gcCount) {
+            this.nanosPerOperation = nanosPerOperation
+            this.bytesPerOperation = bytesPerOperation
+            this.gcMillis = gcMillis
+            this.gcCount = gcCount
+        }
+
+        long getOperationsPerSecond() {
+            return (long) (1_000_000_000 / nanosPerOperation)
+        }
+
+        @Override
+        String toString() {
+            return "${nanosPerOperation} ns/op, ${bytesPerOperation} B/op, GC ${gcMillis} ms in ${gcCount} collections"
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.cache
+
+import com.ericsson.cds.cdi.support.spock.SharedCdiSpecification
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.ClusteredEventNotification
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.ClusteredEventNotificationStore
+import com.ericsson.oss.mediation.fm.oradio.ejb.cluster.ClusterMembership
+import com.ericsson.oss.mediation.fm.oradio.ejb.cluster.ServiceClusterMembership
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.CorrelationResult
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.EventNotificationMarker
+import com.ericsson.oss.mediation.translator.model.EventNotification
+
+import javax.cache.Cache
+import javax.cache.configuration.CacheEntryListenerConfiguration
+import javax.cache.event.CacheEntryCreatedListener
+import javax.cache.event.CacheEntryEvent
+import javax.cache.event.CacheEntryListener
+import javax.cache.event.CacheEntryRemovedListener
+import javax.cache.event.CacheEntryUpdatedListener
+import javax.cache.event.EventType
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Runs several instances of the ClusteredEventNotificationStore in one JVM, sharing one in-memory cache in place of the clustered cache.
+ * The cache tells the listeners of every instance of the entries created, replaced and removed, as the replicated cache does.
+ */
+class ClusteredEventNotificationStoreSpec extends SharedCdiSpecification{
+
+    private static final String NODE_NAME = "NetworkElement=ORadio1"
+    private static final long CORRELATION_WINDOW_MILLIS = 2000L
+
+    ConcurrentMap<EventNotificationMarker, ClusteredEventNotification> sharedCache = new ConcurrentHashMap<>()
+
+    List<CacheEntryListener> listeners = new CopyOnWriteArrayList<>()
+
+    def "An alarm and its clear received by different instances should be correlated"(){
+        given:"two instances sharing the clustered cache"
+        def node1 = createStore("node1")
+        def node2 = createStore("node2")
+        joinAll([node1, node2])
+        def alarm = createEventNotification("MAJOR", "1")
+        when:"the alarm is received by the first instance and the clear by the second"
+        def alarmResult = node1.correlateOrBuffer(marker("1"), alarm, System.currentTimeMillis())
+        def clearResult = node2.correlateOrBuffer(marker("1"), createEventNotification("CLEARED", "1"), System.currentTimeMillis())
+        then:"the clear is correlated with the alarm"
+        alarmResult.getOutcome() == CorrelationResult.Outcome.BUFFERED
+        clearResult.isCorrelated()
+        clearResult.getPartner().is(alarm)
+        and:"neither instance sends the alarm on its own"
+        node1.removeExpired(Long.MAX_VALUE).isEmpty()
+        node2.removeExpired(Long.MAX_VALUE).isEmpty()
+        sharedCache.isEmpty()
+    }
+
+    def "Every alarm and clear pair should be correlated exactly once when they are spread over the instances"(){
+        given:"three instances sharing the clustered cache"
+        def stores = ["node1", "node2", "node3"].collect { createStore(it) }
+        joinAll(stores)
+        and:"an alarm and a clear for each alarm id, each received by a random instance"
+        final int alarmCount = 3000
+        def random = new Random(7)
+        def offers = (0..<alarmCount).collectMany { id ->
+            [[stores[random.nextInt(3)], createEventNotification("MAJOR", id.toString())],
+             [stores[random.nextInt(3)], createEventNotification("CLEARED", id.toString())]]
+        }
+        Collections.shuffle(offers, random)
+        def correlated = new AtomicInteger()
+        def executor = Executors.newFixedThreadPool(4)
+        def start = new CountDownLatch(1)
+        when:"the notifications are offered from 4 threads"
+        def futures = offers.collate((alarmCount * 2).intdiv(4)).collect { part ->
+            executor.submit({
+                start.await()
+                part.each { store, notification ->
+                    def marker = marker(notification.getExternalEventId())
+                    if (store.correlateOrBuffer(marker, notification, System.currentTimeMillis()).isCorrelated()) {
+                        correlated.incrementAndGet()
+                    }
+                }
+            } as Runnable)
+        }
+        start.countDown()
+        futures*.get(30, TimeUnit.SECONDS)
+        executor.shutdown()
+        then:"every pair is correlated and nothing is left to send"
+        correlated.get() == alarmCount
+        sharedCache.isEmpty()
+        stores.every { it.removeExpired(Long.MAX_VALUE).isEmpty() }
+    }
+
+    def "An unmatched alarm should only be sent by the owner of its node, whichever instance buffered it"(){
+        given:"two instances sharing the clustered cache"
+        def stores = ["node1", "node2"].collect { createStore(it) }
+        joinAll(stores)
+        def owner = stores.find { it.@serviceClusterMembership.getClusterMembership().isLocalOwner(NODE_NAME) }
+        def other = stores.find { !it.is(owner) }
+        and:"an alarm is buffered by the instance which does not own its node"
+        def entryTime = System.currentTimeMillis()
+        other.correlateOrBuffer(marker("1"), createEventNotification("MAJOR", "1"), entryTime)
+        when:"both instances are flushed"
+        def beforeWindow = owner.hasExpired(entryTime + CORRELATION_WINDOW_MILLIS - 1)
+        def sentByOther = other.removeExpired(Long.MAX_VALUE)
+        def sentByOwner = owner.removeExpired(entryTime + CORRELATION_WINDOW_MILLIS)
+        then:"only the owner of the node sends it, once the correlation window has elapsed"
+        !beforeWindow
+        sentByOther.isEmpty()
+        sentByOwner.keySet() == [marker("1")] as Set
+    }
+
+    def "The alarms of a node should be owned by the instance owning the node"(){
+        given:"three instances sharing the clustered cache"
+        def stores = ["node1", "node2", "node3"].collect { createStore(it) }
+        joinAll(stores)
+        when:"the first instance buffers an alarm for each of 60 nodes"
+        def nodeNames = (0..<60).collect { "NetworkElement=ORadio" + it }
+        nodeNames.each { stores[0].correlateOrBuffer(new EventNotificationMarker(it, "1"), createEventNotification("MAJOR", "1"), 0L) }
+        then:"each alarm is owned by the owner of its node"
+        sharedCache.values().every { it.getOwnerNodeId() == ownerOf(stores[0], it.getMarker().getNetworkElementName()) }
+        and:"the ownership is spread over the instances"
+        stores.every { it.getLocalSize() > 0 }
+        stores.sum { it.getLocalSize() } == 60
+    }
+
+    def "When an instance leaves only the alarms it owned should be adopted, by the new owners of their nodes"(){
+        given:"three instances sharing the clustered cache"
+        def node1 = createStore("node1")
+        def node2 = createStore("node2")
+        def node3 = createStore("node3")
+        joinAll([node1, node2, node3])
+        and:"an alarm is buffered for each of 60 nodes"
+        def nodeNames = (0..<60).collect { "NetworkElement=ORadio" + it }
+        nodeNames.each { node2.correlateOrBuffer(new EventNotificationMarker(it, "1"), createEventNotification("MAJOR", "1"), 0L) }
+        def ownedByNode1 = sharedCache.values().findAll { it.getOwnerNodeId() == "node1" }*.getMarker()
+        def ownedByOthers = sharedCache.values().findAll { it.getOwnerNodeId() != "node1" }.collectEntries { [it.getMarker(), it] }
+        when:"the first instance leaves the cluster"
+        def adopted = [node2, node3].collect { it.adoptOrphans(it.@serviceClusterMembership.getClusterMembership().updateMembers(["node2", "node3"])) }
+        then:"only the alarms it owned are adopted, each once, by the instance now owning its node"
+        adopted.sum() == ownedByNode1.size()
+        ownedByNode1.every { sharedCache.get(it).getOwnerNodeId() == ownerOf(node2, it.getNetworkElementName()) }
+        ownedByOthers.every { marker, entry -> sharedCache.get(marker).is(entry) }
+        when:"a clear is received for one of the adopted alarms"
+        def clearResult = node3.correlateOrBuffer(ownedByNode1[0], createEventNotification("CLEARED", "1"), System.currentTimeMillis())
+        and:"all the instances are flushed"
+        def sentByNode1 = node1.removeExpired(Long.MAX_VALUE)
+        def sentByOthers = [node2, node3].collect { it.removeExpired(Long.MAX_VALUE) }
+        then:"the clear is correlated and the remaining alarms are sent by their owners only"
+        clearResult.isCorrelated()
+        sentByNode1.isEmpty()
+        sentByOthers.sum { it.size() } == 59
+        sentByOthers.collectMany { it.keySet()*.getNetworkElementName() }.toSet() == (nodeNames - ownedByNode1[0].getNetworkElementName()).toSet()
+    }
+
+    def "An instance created after the others have buffered alarms should send and adopt the alarms of the nodes it owns"(){
+        given:"two instances of a three member cluster, the third one has not created its store yet"
+        def node1 = createStore("node1")
+        def node2 = createStore("node2")
+        def memberIds = ["node1", "node2", "node3"]
+        [node1, node2].each { it.@serviceClusterMembership.getClusterMembership().updateMembers(memberIds) }
+        and:"an alarm is buffered for each of 60 nodes before the third instance buffers anything"
+        def nodeNames = (0..<60).collect { "NetworkElement=ORadio" + it }
+        nodeNames.each { node2.correlateOrBuffer(new EventNotificationMarker(it, "1"), createEventNotification("MAJOR", "1"), 0L) }
+        def ownedByNode3 = sharedCache.values().findAll { it.getOwnerNodeId() == "node3" }*.getMarker()
+        def ownedByNode1 = sharedCache.values().findAll { it.getOwnerNodeId() == "node1" }*.getMarker()
+        when:"the third instance creates its store"
+        def node3 = createStore("node3")
+        node3.@serviceClusterMembership.getClusterMembership().updateMembers(memberIds)
+        then:"it indexes the alarms already buffered and owns those of its nodes"
+        node3.getIndexedSize() == 60
+        node3.getLocalSize() == ownedByNode3.size()
+        when:"the first instance leaves the cluster"
+        def adopted = [node2, node3].collect { it.adoptOrphans(it.@serviceClusterMembership.getClusterMembership().updateMembers(["node2", "node3"])) }
+        then:"the third instance adopts the alarms of the first one whose node it now owns"
+        adopted.sum() == ownedByNode1.size()
+        adopted[1] == ownedByNode1.count { ownerOf(node3, it.getNetworkElementName()) == "node3" }
+        when:"the remaining instances are flushed"
+        def sentByNode3 = node3.removeExpired(Long.MAX_VALUE)
+        def sentByNode2 = node2.removeExpired(Long.MAX_VALUE)
+        then:"the third instance sends the alarms it owns, including those buffered before it created its store"
+        sentByNode3.keySet().containsAll(ownedByNode3)
+        sentByNode3.size() + sentByNode2.size() == 60
+        sharedCache.isEmpty()
+    }
+
+    private ClusteredEventNotificationStore createStore(final String nodeId) {
+        def store = new ClusteredEventNotificationStore()
+        def configurationBean = Stub(ConfigurationBean)
+        configurationBean.isClusteredCorrelationEnabled() >> true
+        configurationBean.getEventNotificationCorrelationWindowMillis() >> CORRELATION_WINDOW_MILLIS
+        def clusterMembership = new ClusterMembership(nodeId)
+        def serviceClusterMembership = Stub(ServiceClusterMembership)
+        serviceClusterMembership.getClusterMembership() >> clusterMembership
+        store.@configurationBean = configurationBean
+        store.@serviceClusterMembership = serviceClusterMembership
+        store.@correlationCache = createSharedCache()
+        store.registerCacheEntryListener()
+        return store
+    }
+
+    private static void joinAll(final List<ClusteredEventNotificationStore> stores) {
+        def memberships = stores.collect { it.@serviceClusterMembership.getClusterMembership() }
+        def nodeIds = memberships*.getLocalNodeId()
+        memberships.each { it.updateMembers(nodeIds) }
+    }
+
+    private static String ownerOf(final ClusteredEventNotificationStore store, final String networkElementName) {
+        return store.@serviceClusterMembership.getClusterMembership().ownerOf(networkElementName)
+    }
+
+    /**
+     * Only the operations the store is expected to use are implemented
+     */
+    private Cache<EventNotificationMarker, ClusteredEventNotification> createSharedCache() {
+        def cache
+        cache = [
+                get                       : { key -> sharedCache.get(key) },
+                iterator                  : {
+                    sharedCache.collect { key, value -> [getKey: { key }, getValue: { value }] as Cache.Entry }.iterator()
+                },
+                getAndRemove              : { key ->
+                    def removed = sharedCache.remove(key)
+                    if (removed != null) {
+                        fire(cache, EventType.REMOVED, key, null, removed)
+                    }
+                    return removed
+                },
+                putIfAbsent               : { key, value ->
+                    def stored = sharedCache.putIfAbsent(key, value) == null
+                    if (stored) {
+                        fire(cache, EventType.CREATED, key, value, null)
+                    }
+                    return stored
+                },
+                remove                    : { key, value ->
+                    def removed = sharedCache.remove(key, value)
+                    if (removed) {
+                        fire(cache, EventType.REMOVED, key, null, value)
+                    }
+                    return removed
+                },
+                replace                   : { key, oldValue, newValue ->
+                    def replaced = sharedCache.replace(key, oldValue, newValue)
+                    if (replaced) {
+                        fire(cache, EventType.UPDATED, key, newValue, oldValue)
+                    }
+                    return replaced
+                },
+                registerCacheEntryListener: { CacheEntryListenerConfiguration configuration ->
+                    listeners.add(configuration.getCacheEntryListenerFactory().create())
+                }
+        ] as Cache
+        return cache
+    }
+
+    private void fire(final Cache cache, final EventType eventType, final EventNotificationMarker key, final ClusteredEventNotification value,
+                      final ClusteredEventNotification oldValue) {
+        def events = [new SharedCacheEntryEvent(cache, eventType, key, value, oldValue)]
+        listeners.each { listener ->
+            if (eventType == EventType.CREATED && listener instanceof CacheEntryCreatedListener) {
+                listener.onCreated(events)
+            } else if (eventType == EventType.UPDATED && listener instanceof CacheEntryUpdatedListener) {
+                listener.onUpdated(events)
+            } else if (eventType == EventType.REMOVED && listener instanceof CacheEntryRemovedListener) {
+                listener.onRemoved(events)
+            }
+        }
+    }
+
+    private static EventNotificationMarker marker(final String alarmId) {
+        return new EventNotificationMarker(NODE_NAME, alarmId)
+    }
+
+    private static EventNotification createEventNotification(final String severity, final String alarmId){
+        EventNotification notif = new EventNotification()
+        notif.setManagedObjectInstance(NODE_NAME)
+        notif.setPerceivedSeverity(severity)
+        notif.setExternalEventId(alarmId)
+        return notif
+    }
+
+    private static class SharedCacheEntryEvent extends CacheEntryEvent<EventNotificationMarker, ClusteredEventNotification> {
+
+        private final EventNotificationMarker key
+        private final ClusteredEventNotification value
+        private final ClusteredEventNotification oldValue
+
+        SharedCacheEntryEvent(final Cache source, final EventType eventType, final EventNotificationMarker key,
+                              final ClusteredEventNotification value, final ClusteredEventNotification oldValue) {
+            super(source, eventType)
+            this.key = key
+            this.value = value
+            this.oldValue = oldValue
+        }
+
+        @Override
+        EventNotificationMarker getKey() {
+            return key
+        }
+
+        @Override
+        ClusteredEventNotification getValue() {
+            return value
+        }
+
+        @Override
+        ClusteredEventNotification getOldValue() {
+            return oldValue
+        }
+
+        @Override
+        boolean isOldValueAvailable() {
+            return oldValue != null
+        }
+
+        @Override
+        def <T> T unwrap(final Class<T> clazz) {
+            throw new IllegalArgumentException()
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.cache
+
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean
+import com.ericsson.oss.mediation.fm.oradio.api.models.ORadioNotification
+import com.ericsson.oss.mediation.fm.oradio.ejb.ORadioAlarmManagementServiceLocal
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EarlyNotificationQueue
+import spock.lang.Specification
+
+class EarlyNotificationQueueSpec extends Specification {
+
+    ConfigurationBean configurationBean = Stub()
+
+    ORadioAlarmManagementServiceLocal alarmManagementService = Mock()
+
+    EarlyNotificationQueue earlyNotificationQueue = new EarlyNotificationQueue()
+
+    def setup() {
+        configurationBean.getEarlyNotificationQueueCapacity() >> 2
+        earlyNotificationQueue.@configurationBean = configurationBean
+        earlyNotificationQueue.@alarmManagementService = alarmManagementService
+    }
+
+    def "Notifications should be held until the queue is full"() {
+        when: "3 notifications are offered to a queue with a capacity of 2"
+        def held = [earlyNotificationQueue.offer(new ORadioNotification("ORadio1", "1")),
+                    earlyNotificationQueue.offer(new ORadioNotification("ORadio1", "2")),
+                    earlyNotificationQueue.offer(new ORadioNotification("ORadio1", "3"))]
+        then: "the first 2 are held and the third is not"
+        held == [true, true, false]
+        earlyNotificationQueue.getSize() == 2
+    }
+
+    def "The held notifications should be processed in the order they were received when the queue is replayed"() {
+        given: "2 notifications are held"
+        earlyNotificationQueue.offer(new ORadioNotification("ORadio1", "1"))
+        earlyNotificationQueue.offer(new ORadioNotification("ORadio2", "2"))
+        when: "the queue is replayed"
+        earlyNotificationQueue.replay()
+        then: "the notifications are processed as one batch"
+        1 * alarmManagementService.processNotifications({ it*.netconfPayload == ["1", "2"] })
+        and: "the queue is empty and has room again"
+        earlyNotificationQueue.getSize() == 0
+        earlyNotificationQueue.offer(new ORadioNotification("ORadio1", "3"))
+    }
+
+    def "Replaying an empty queue should not process anything"() {
+        when: "the queue is replayed"
+        earlyNotificationQueue.replay()
+        then: "nothing is processed"
+        0 * alarmManagementService.processNotifications(_)
+    }
+
+    def "A notification held while the queue is being replayed should be processed by the same replay"() {
+        given: "a notification is held"
+        earlyNotificationQueue.offer(new ORadioNotification("ORadio1", "1"))
+        when: "the queue is replayed"
+        earlyNotificationQueue.replay()
+        then: "another notification is held while the first is processed"
+        1 * alarmManagementService.processNotifications({ it*.netconfPayload == ["1"] }) >> {
+            earlyNotificationQueue.offer(new ORadioNotification("ORadio1", "2"))
+            [:]
+        }
+        then: "it is processed once the first batch is done"
+        1 * alarmManagementService.processNotifications({ it*.netconfPayload == ["2"] })
+        earlyNotificationQueue.getSize() == 0
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.cache
+
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean
+import com.ericsson.oss.mediation.fm.oradio.benchmark.Benchmark
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EventNotificationBuffer
+import com.ericsson.oss.mediation.fm.oradio.ejb.journal.EventNotificationJournal
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.CorrelationResult
+import com.ericsson.oss.mediation.translator.model.EventNotification
+import groovy.transform.CompileStatic
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+
+import java.util.function.Function
+
+/**
+ * Measures the bytes allocated per EventNotification by the EventNotificationBuffer, using the allocation counter of the current thread.
+ * The figures are reported, not asserted: each call allocates its marker and a correlation its CorrelationResult, on top of whatever the
+ * map and the expiry queue of the shard allocate. Only run when the benchmark system property is set, e.g. mvn test -Dbenchmark -Dtest=EventNotificationBufferAllocationSpec
+ */
+@IgnoreIf({ Benchmark.isDisabled() })
+class EventNotificationBufferAllocationSpec extends Specification{
+
+    private static final int ALARM_COUNT = 200_000
+
+    def "The allocations of buffering and correlating an EventNotification should be measured"(){
+        given:"an alarm and a clear for each of 200000 alarms, over 40 nodes"
+        def alarms = createEventNotifications("MAJOR")
+        def clears = createEventNotifications("CLEARED")
+        when:"the alarms are buffered and then correlated with their clears, a few times to warm up"
+        def buffer
+        def bytesPerOperation = Benchmark.warmedUp {
+            buffer = createEventNotificationBuffer()
+            def correlateOrBuffer = new CorrelateOrBuffer(buffer)
+            [Benchmark.measure(ALARM_COUNT, alarms, correlateOrBuffer), Benchmark.measure(ALARM_COUNT, clears, correlateOrBuffer)]*.bytesPerOperation
+        }
+        Benchmark.report("EventNotificationBuffer allocation: buffer ${bytesPerOperation[0]} B/op, correlate ${bytesPerOperation[1]} B/op")
+        then:"every alarm has been correlated with its clear"
+        buffer.getSize() == 0
+    }
+
+    /**
+     * Correlates or buffers an EventNotification in the buffer, as processNotification does
+     */
+    @CompileStatic
+    private static class CorrelateOrBuffer implements Function<EventNotification, CorrelationResult> {
+
+        private final EventNotificationBuffer buffer
+
+        CorrelateOrBuffer(final EventNotificationBuffer buffer) {
+            this.buffer = buffer
+        }
+
+        @Override
+        CorrelationResult apply(final EventNotification eventNotification) {
+            return buffer.correlateOrBuffer(eventNotification, eventNotification.getManagedObjectInstance())
+        }
+    }
+
+    /**
+     * A real ConfigurationBean with the default limits and an inactive journal, the interactions of a Stub would be counted as allocations of the buffer
+     */
+    private static EventNotificationBuffer createEventNotificationBuffer() {
+        def buffer = new EventNotificationBuffer()
+        buffer.@configurationBean = new ConfigurationBean()
+        buffer.@journal = new EventNotificationJournal()
+        return buffer
+    }
+
+    private static List<EventNotification> createEventNotifications(final String severity) {
+        return (0..<ALARM_COUNT).collect {
+            EventNotification notif = new EventNotification()
+            notif.setManagedObjectInstance("NetworkElement=ORadio" + it.intdiv(5000))
+            notif.setPerceivedSeverity(severity)
+            notif.setExternalEventId((it % 5000).toString())
+            return notif
+        }
+    }
+}
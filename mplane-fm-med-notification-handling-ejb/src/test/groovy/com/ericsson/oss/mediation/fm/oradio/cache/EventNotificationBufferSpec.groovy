@@ -16,10 +16,23 @@ package com.ericsson.oss.mediation.fm.oradio.cache
 
 import com.ericsson.cds.cdi.support.rule.ObjectUnderTest
 import com.ericsson.cds.cdi.support.spock.SharedCdiSpecification
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean
+import com.ericsson.oss.mediation.fm.oradio.api.models.InspectionQuery
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.ClusteredEventNotificationStore
 import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EventNotificationBuffer
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EventNotificationSizeEstimator
+import com.ericsson.oss.mediation.fm.oradio.ejb.journal.EventNotificationJournal
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.CorrelationResult
 import com.ericsson.oss.mediation.fm.oradio.ejb.models.EventNotificationMarker
 import com.ericsson.oss.mediation.translator.model.EventNotification
 
+import javax.enterprise.inject.Instance
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
 class EventNotificationBufferSpec extends SharedCdiSpecification{
 
     private static final def NODE_NAME = "ORadioTest1"
@@ -27,13 +40,14 @@ class EventNotificationBufferSpec extends SharedCdiSpecification{
     private static final def ORADIO_TEST_1_FDN = NETWORK_ELEMENT_TYPE + "=" + NODE_NAME
     private static final def CRITICAL_PERCEIVED_SEVERITY = "CRITICAL"
     private static final def MAJOR_PERCEIVED_SEVERITY = "MAJOR"
+    private static final long DEFAULT_CORRELATION_WINDOW_MILLIS = 2000L
 
     @ObjectUnderTest
     EventNotificationBuffer eventNotificationBuffer;
 
     def "Should be able to add to the EventNotificationBuffer"() {
         given: "that the EventBuffer is created"
-        eventNotificationBuffer = new EventNotificationBuffer()
+        eventNotificationBuffer = createEventNotificationBuffer()
         when:"a user tries to add an EventNotification to the buffer"
         final String alarmId = 1
         EventNotification notification = createEventNotification(ORADIO_TEST_1_FDN, CRITICAL_PERCEIVED_SEVERITY,alarmId)
@@ -45,7 +59,7 @@ class EventNotificationBufferSpec extends SharedCdiSpecification{
 
     def "Should be able to remove from the EventNotificationBuffer"(){
         given:"the Eventbuffer is created"
-        eventNotificationBuffer = new EventNotificationBuffer()
+        eventNotificationBuffer = createEventNotificationBuffer()
         and:"There is an eventNotification in the buffer"
         final String alarmId = 1
         eventNotificationBuffer.addEventNotification(createEventNotification(ORADIO_TEST_1_FDN,CRITICAL_PERCEIVED_SEVERITY,alarmId), ORADIO_TEST_1_FDN)
@@ -59,7 +73,7 @@ class EventNotificationBufferSpec extends SharedCdiSpecification{
 
     def "Should be able to remove a List of items from the EventNotificationBuffer"(){
         given:"the Eventbuffer is created"
-        eventNotificationBuffer = new EventNotificationBuffer()
+        eventNotificationBuffer = createEventNotificationBuffer()
         and:"there is 5 Notifications in the buffer"
         addToEventNotificationBuffer(5,ORADIO_TEST_1_FDN,MAJOR_PERCEIVED_SEVERITY)
         def markerList = createEventNotificationMarkerList(ORADIO_TEST_1_FDN,3)
@@ -73,19 +87,406 @@ class EventNotificationBufferSpec extends SharedCdiSpecification{
 
     def "Should return a list of applicable EventNotifications that have elapsed from the timeout"(){
         given:"the Eventbuffer is created"
-        eventNotificationBuffer = new EventNotificationBuffer()
+        eventNotificationBuffer = createEventNotificationBuffer()
         and:"there is 5 Notifications in the buffer"
         addToEventNotificationBuffer(5,ORADIO_TEST_1_FDN,MAJOR_PERCEIVED_SEVERITY)
-        when:"getEventNotificationsfromTime is called"
-        def currentEventNotificationsBeforeTimeout = eventNotificationBuffer.getEventNotificationsfromTime()
+        when:"removeExpiredEventNotifications is called"
+        def currentEventNotificationsBeforeTimeout = eventNotificationBuffer.removeExpiredEventNotifications()
         assert currentEventNotificationsBeforeTimeout == null || currentEventNotificationsBeforeTimeout.size() == 0
         and: "wait for 2 seconds to elapse"
-        sleep(2000)
-        then:"Notification should now be available"
-        def currentEventNotificationsAfterTimeout = eventNotificationBuffer.getEventNotificationsfromTime()
+        sleep(2100)
+        then:"Notification should now be available and removed from the buffer"
+        def currentEventNotificationsAfterTimeout = eventNotificationBuffer.removeExpiredEventNotifications()
         assert currentEventNotificationsAfterTimeout.size() == 5
+        assert eventNotificationBuffer.getEventNotificationBuffer().size() == 0
+    }
+
+    def "Should only return the EventNotifications which have elapsed from the timeout"(){
+        given:"the Eventbuffer is created"
+        eventNotificationBuffer = createEventNotificationBuffer()
+        and:"there is 1 old Notification and 1 new Notification in the buffer"
+        eventNotificationBuffer.addEventNotification(createEventNotification(ORADIO_TEST_1_FDN,MAJOR_PERCEIVED_SEVERITY,"1"), ORADIO_TEST_1_FDN)
+        def entryTime = System.currentTimeMillis()
+        sleep(50)
+        eventNotificationBuffer.addEventNotification(createEventNotification(ORADIO_TEST_1_FDN,MAJOR_PERCEIVED_SEVERITY,"2"), ORADIO_TEST_1_FDN)
+        when:"removeExpiredEventNotifications is called once only the first has elapsed"
+        def expired = eventNotificationBuffer.removeExpiredEventNotifications(entryTime + 2025)
+        then:"only the first Notification is returned"
+        expired.size() == 1
+        expired.keySet().first().getEventNotificationId() == "1"
+        eventNotificationBuffer.eventNotificationExists("2", ORADIO_TEST_1_FDN)
+    }
+
+    def "Should expire the EventNotifications at the end of a sub-second correlation window"(){
+        given:"the Eventbuffer is created with a 250 ms correlation window"
+        eventNotificationBuffer = createEventNotificationBuffer(Integer.MAX_VALUE, Long.MAX_VALUE, "SEND_OLDEST", 250L)
+        and:"there is 1 Notification in the buffer"
+        def entryTime = System.currentTimeMillis()
+        eventNotificationBuffer.addEventNotification(createEventNotification(ORADIO_TEST_1_FDN,MAJOR_PERCEIVED_SEVERITY,"1"), ORADIO_TEST_1_FDN)
+        def shardIndex = (0..<eventNotificationBuffer.getShardCount()).find { eventNotificationBuffer.hasExpiredEventNotifications(it, Long.MAX_VALUE) }
+        when:"the buffer is checked before and after the end of the window"
+        def expiredBefore = eventNotificationBuffer.hasExpiredEventNotifications(shardIndex, entryTime + 100)
+        def removedBefore = eventNotificationBuffer.removeExpiredEventNotifications(entryTime + 100)
+        def expiredAfter = eventNotificationBuffer.hasExpiredEventNotifications(shardIndex, System.currentTimeMillis() + 250)
+        def removedAfter = eventNotificationBuffer.removeExpiredEventNotifications(System.currentTimeMillis() + 250)
+        then:"the Notification is only returned once the window has elapsed"
+        !expiredBefore
+        removedBefore.isEmpty()
+        expiredAfter
+        removedAfter.size() == 1
+    }
+
+    def "Should not return EventNotifications that were removed before the timeout elapsed"(){
+        given:"the Eventbuffer is created"
+        eventNotificationBuffer = createEventNotificationBuffer()
+        and:"there is 5 Notifications in the buffer"
+        addToEventNotificationBuffer(5,ORADIO_TEST_1_FDN,MAJOR_PERCEIVED_SEVERITY)
+        and:"2 of them are removed"
+        eventNotificationBuffer.removeEventNotificationList(createEventNotificationMarkerList(ORADIO_TEST_1_FDN,2) as Set)
+        when:"removeExpiredEventNotifications is called after the timeout"
+        def expired = eventNotificationBuffer.removeExpiredEventNotifications(System.currentTimeMillis() + 2001)
+        then:"only the remaining Notifications are returned"
+        expired.size() == 3
+        !expired.containsKey(new EventNotificationMarker(ORADIO_TEST_1_FDN, "0"))
+    }
+
+
+    def "correlateOrBuffer should buffer an EventNotification when there is no match in the EventNotificationBuffer"(){
+        given:"the Eventbuffer is created"
+        eventNotificationBuffer = createEventNotificationBuffer()
+        def notification = createEventNotification(ORADIO_TEST_1_FDN, CRITICAL_PERCEIVED_SEVERITY, "1")
+        when:"correlateOrBuffer is called"
+        def result = eventNotificationBuffer.correlateOrBuffer(notification, ORADIO_TEST_1_FDN)
+        then:"the notification is buffered"
+        !result.isCorrelated()
+        result.getPartner() == null
+        eventNotificationBuffer.getEventNotification("1", ORADIO_TEST_1_FDN) == notification
+    }
+
+    def "correlateOrBuffer should return and remove the matching EventNotification from the EventNotificationBuffer"(){
+        given:"the Eventbuffer is created"
+        eventNotificationBuffer = createEventNotificationBuffer()
+        and:"there is an EventNotification in the buffer"
+        def buffered = createEventNotification(ORADIO_TEST_1_FDN, CRITICAL_PERCEIVED_SEVERITY, "1")
+        eventNotificationBuffer.correlateOrBuffer(buffered, ORADIO_TEST_1_FDN)
+        when:"correlateOrBuffer is called with a matching notification"
+        def result = eventNotificationBuffer.correlateOrBuffer(createEventNotification(ORADIO_TEST_1_FDN, MAJOR_PERCEIVED_SEVERITY, "1"), ORADIO_TEST_1_FDN)
+        then:"the buffered notification is returned and is no longer in the buffer"
+        result.isCorrelated()
+        result.getPartner().is(buffered)
+        !eventNotificationBuffer.eventNotificationExists("1", ORADIO_TEST_1_FDN)
+        eventNotificationBuffer.removeExpiredEventNotifications(Long.MAX_VALUE).isEmpty()
+    }
+
+    def "correlateOrBuffer should hand every EventNotification out exactly once while the timer is removing expired notifications"(){
+        given:"the Eventbuffer is created"
+        eventNotificationBuffer = createEventNotificationBuffer()
+        and:"an alarm and a clear for each alarm id, offered from different threads"
+        final int alarmCount = 5000
+        def alarms = (0..<alarmCount).collect { createEventNotification(ORADIO_TEST_1_FDN, MAJOR_PERCEIVED_SEVERITY, it.toString()) }
+        def clears = (0..<alarmCount).collect { createEventNotification(ORADIO_TEST_1_FDN, "CLEARED", it.toString()) }
+        def handedOut = new ConcurrentLinkedQueue<EventNotification>()
+        def executor = Executors.newFixedThreadPool(3)
+        def start = new CountDownLatch(1)
+        def offering = new AtomicBoolean(true)
+
+        when:"the notifications are offered while the timer flushes everything in the buffer"
+        def offer = { List<EventNotification> notifications ->
+            start.await()
+            notifications.each { notification ->
+                def result = eventNotificationBuffer.correlateOrBuffer(notification, ORADIO_TEST_1_FDN)
+                if (result.isCorrelated()) {
+                    handedOut.add(notification)
+                    handedOut.add(result.getPartner())
+                }
+            }
+        }
+        def alarmsDone = executor.submit(offer.curry(alarms) as Runnable)
+        def clearsDone = executor.submit(offer.curry(clears) as Runnable)
+        def timerDone = executor.submit({
+            start.await()
+            while (offering.get()) {
+                handedOut.addAll(eventNotificationBuffer.removeExpiredEventNotifications(Long.MAX_VALUE).values())
+            }
+        } as Runnable)
+        start.countDown()
+        alarmsDone.get(30, TimeUnit.SECONDS)
+        clearsDone.get(30, TimeUnit.SECONDS)
+        offering.set(false)
+        timerDone.get(30, TimeUnit.SECONDS)
+        executor.shutdown()
+        handedOut.addAll(eventNotificationBuffer.removeExpiredEventNotifications(Long.MAX_VALUE).values())
+        def distinct = new IdentityHashMap<EventNotification, Boolean>()
+        handedOut.each { distinct.put(it, Boolean.TRUE) }
+
+        then:"every notification is either merged or sent by the timer, and none of them twice"
+        handedOut.size() == alarmCount * 2
+        distinct.size() == alarmCount * 2
+        eventNotificationBuffer.getEventNotificationBuffer().isEmpty()
+    }
+
+    def "Each shard should only return the expired EventNotifications of its own nodes"(){
+        given:"the Eventbuffer is created"
+        eventNotificationBuffer = createEventNotificationBuffer()
+        and:"there are notifications from 50 nodes in the buffer"
+        def nodeNames = (0..<50).collect { NETWORK_ELEMENT_TYPE + "=ORadio" + it }
+        nodeNames.each { eventNotificationBuffer.addEventNotification(createEventNotification(it, MAJOR_PERCEIVED_SEVERITY, "1"), it) }
+        when:"each shard is flushed after the timeout"
+        def expiredPerShard = (0..<eventNotificationBuffer.getShardCount()).collect {
+            eventNotificationBuffer.removeExpiredEventNotifications(it, Long.MAX_VALUE)
+        }
+        then:"every notification is returned by exactly one shard and each node is only in one shard"
+        expiredPerShard.sum { it.size() } == 50
+        expiredPerShard.collectMany { it.keySet()*.getNetworkElementName() }.toSet() == nodeNames.toSet()
+        eventNotificationBuffer.getEventNotificationBuffer().isEmpty()
+    }
+
+    def "When the buffer is full with the SEND_OLDEST policy the oldest EventNotifications are evicted to make room"(){
+        given:"the Eventbuffer is limited to 3 entries"
+        eventNotificationBuffer = createEventNotificationBuffer(3, Long.MAX_VALUE, "SEND_OLDEST")
+        and:"the buffer is full"
+        addToEventNotificationBuffer(3,ORADIO_TEST_1_FDN,MAJOR_PERCEIVED_SEVERITY)
+        when:"a new notification is offered"
+        def result = eventNotificationBuffer.correlateOrBuffer(createEventNotification(ORADIO_TEST_1_FDN, MAJOR_PERCEIVED_SEVERITY, "3"), ORADIO_TEST_1_FDN)
+        then:"the new notification is buffered and the oldest notification is evicted"
+        result.getOutcome() == CorrelationResult.Outcome.BUFFERED
+        result.getEvicted()*.getExternalEventId() == ["0"]
+        eventNotificationBuffer.getSize() == 3
+        !eventNotificationBuffer.eventNotificationExists("0", ORADIO_TEST_1_FDN)
+        eventNotificationBuffer.eventNotificationExists("3", ORADIO_TEST_1_FDN)
+    }
+
+    def "When the buffer is full with the BYPASS policy the new EventNotification is not buffered"(){
+        given:"the Eventbuffer is limited to 3 entries"
+        eventNotificationBuffer = createEventNotificationBuffer(3, Long.MAX_VALUE, "BYPASS")
+        and:"the buffer is full"
+        addToEventNotificationBuffer(3,ORADIO_TEST_1_FDN,MAJOR_PERCEIVED_SEVERITY)
+        when:"a new notification is offered"
+        def result = eventNotificationBuffer.correlateOrBuffer(createEventNotification(ORADIO_TEST_1_FDN, MAJOR_PERCEIVED_SEVERITY, "3"), ORADIO_TEST_1_FDN)
+        then:"the new notification is bypassed"
+        result.getOutcome() == CorrelationResult.Outcome.BYPASSED
+        eventNotificationBuffer.getSize() == 3
+        !eventNotificationBuffer.eventNotificationExists("3", ORADIO_TEST_1_FDN)
     }
 
+    def "When the buffer is full a matching EventNotification is still correlated"(){
+        given:"the Eventbuffer is limited to 3 entries"
+        eventNotificationBuffer = createEventNotificationBuffer(3, Long.MAX_VALUE, "BYPASS")
+        and:"the buffer is full"
+        addToEventNotificationBuffer(3,ORADIO_TEST_1_FDN,MAJOR_PERCEIVED_SEVERITY)
+        when:"a matching notification is offered"
+        def result = eventNotificationBuffer.correlateOrBuffer(createEventNotification(ORADIO_TEST_1_FDN, "CLEARED", "1"), ORADIO_TEST_1_FDN)
+        then:"the notifications are correlated"
+        result.isCorrelated()
+        eventNotificationBuffer.getSize() == 2
+    }
+
+    def "When the buffer is full with the DROP_LOW_SEVERITY policy only low severity EventNotifications are dropped"(){
+        given:"the Eventbuffer is limited to 3 entries"
+        eventNotificationBuffer = createEventNotificationBuffer(3, Long.MAX_VALUE, "DROP_LOW_SEVERITY")
+        and:"the buffer is full"
+        addToEventNotificationBuffer(3,ORADIO_TEST_1_FDN,MAJOR_PERCEIVED_SEVERITY)
+        when:"a new notification is offered"
+        def result = eventNotificationBuffer.correlateOrBuffer(createEventNotification(ORADIO_TEST_1_FDN, severity, "3"), ORADIO_TEST_1_FDN)
+        then:"the new notification is dropped or bypassed depending on its severity"
+        result.getOutcome() == outcome
+        eventNotificationBuffer.getSize() == 3
+        where:
+        severity        | outcome
+        "WARNING"       | CorrelationResult.Outcome.DROPPED
+        "INDETERMINATE" | CorrelationResult.Outcome.DROPPED
+        "CRITICAL"      | CorrelationResult.Outcome.BYPASSED
+        "CLEARED"       | CorrelationResult.Outcome.BYPASSED
+    }
+
+    def "The estimated bytes of the buffer should be limited as well as the number of entries"(){
+        given:"the Eventbuffer is limited to roughly 2 notifications worth of bytes"
+        def notification = createEventNotification(ORADIO_TEST_1_FDN, MAJOR_PERCEIVED_SEVERITY, "0")
+        def maxBytes = EventNotificationSizeEstimator.estimate(notification) * 2
+        eventNotificationBuffer = createEventNotificationBuffer(Integer.MAX_VALUE, maxBytes, "BYPASS")
+        when:"3 notifications are offered"
+        def outcomes = (0..<3).collect {
+            eventNotificationBuffer.correlateOrBuffer(createEventNotification(ORADIO_TEST_1_FDN, MAJOR_PERCEIVED_SEVERITY, it.toString()), ORADIO_TEST_1_FDN).getOutcome()
+        }
+        then:"only the first 2 are buffered"
+        outcomes == [CorrelationResult.Outcome.BUFFERED, CorrelationResult.Outcome.BUFFERED, CorrelationResult.Outcome.BYPASSED]
+        eventNotificationBuffer.getEstimatedBytes() <= maxBytes
+    }
+
+    def "The size of the buffer should be released when EventNotifications are removed"(){
+        given:"the Eventbuffer is created"
+        eventNotificationBuffer = createEventNotificationBuffer()
+        and:"there is 5 Notifications in the buffer"
+        addToEventNotificationBuffer(5,ORADIO_TEST_1_FDN,MAJOR_PERCEIVED_SEVERITY)
+        assert eventNotificationBuffer.getSize() == 5
+        assert eventNotificationBuffer.getEstimatedBytes() > 0
+        when:"the notifications are removed, correlated and expired"
+        eventNotificationBuffer.removeEventNotification("0", ORADIO_TEST_1_FDN)
+        eventNotificationBuffer.correlateOrBuffer(createEventNotification(ORADIO_TEST_1_FDN, "CLEARED", "1"), ORADIO_TEST_1_FDN)
+        eventNotificationBuffer.removeExpiredEventNotifications(Long.MAX_VALUE)
+        then:"the buffer is empty"
+        eventNotificationBuffer.getSize() == 0
+        eventNotificationBuffer.getEstimatedBytes() == 0
+    }
+
+    def "Only the page of the buffer selected by the query should be returned"(){
+        given:"the Eventbuffer holds 5 Notifications of one node and 3 of another"
+        eventNotificationBuffer = createEventNotificationBuffer()
+        addToEventNotificationBuffer(5, ORADIO_TEST_1_FDN, MAJOR_PERCEIVED_SEVERITY)
+        (0..<3).each { eventNotificationBuffer.addEventNotification(createEventNotification("ORadioOther", MAJOR_PERCEIVED_SEVERITY, it.toString()), "ORadioOther") }
+        when:"the Notifications of the first node are read 2 at a time"
+        def pages = (0..2).collect { eventNotificationBuffer.getEventNotificationBuffer(new InspectionQuery(ORADIO_TEST_1_FDN, null, it * 2, 2)) }
+        then:"every Notification of the node is in exactly one page"
+        pages*.getTotal() == [5, 5, 5]
+        pages*.getEntries()*.size() == [2, 2, 1]
+        pages.collectMany { it.getEntries().keySet() }.toSet().size() == 5
+        pages.every { page -> page.getEntries().keySet().every { it.contains(ORADIO_TEST_1_FDN) } }
+        and:"the nodes can be selected by the start of their name"
+        eventNotificationBuffer.getEventNotificationBuffer(new InspectionQuery(null, "ORadioO", 0, 10)).getTotal() == 3
+        eventNotificationBuffer.getEventNotificationBuffer(new InspectionQuery(null, null, 0, 10)).getEntries().size() == 8
+    }
+
+    def "When the EventNotifications are held off heap they should be read back when they are correlated or expired"(){
+        given:"the Eventbuffer holds the EventNotifications off heap"
+        eventNotificationBuffer = createOffHeapEventNotificationBuffer(64L * 1024 * 1024)
+        when:"5 notifications are buffered and one of them is correlated"
+        (0..<5).each { eventNotificationBuffer.correlateOrBuffer(createEventNotification(ORADIO_TEST_1_FDN, MAJOR_PERCEIVED_SEVERITY, it.toString()), ORADIO_TEST_1_FDN) }
+        def result = eventNotificationBuffer.correlateOrBuffer(createEventNotification(ORADIO_TEST_1_FDN, "CLEARED", "2"), ORADIO_TEST_1_FDN)
+        then:"the notifications are held in one segment of direct memory"
+        eventNotificationBuffer.getOffHeapBytes() == 1024 * 1024
+        and:"the matching notification is read back"
+        result.getOutcome() == CorrelationResult.Outcome.CORRELATED
+        result.getEventNotification().getExternalEventId() == "2"
+        result.getEventNotification().getPerceivedSeverity() == MAJOR_PERCEIVED_SEVERITY
+        and:"the others are read back when they expire"
+        def expired = eventNotificationBuffer.removeExpiredEventNotifications(Long.MAX_VALUE)
+        expired.values()*.getExternalEventId().toSet() == ["0", "1", "3", "4"] as Set
+        expired.values().every { it.getManagedObjectInstance() == ORADIO_TEST_1_FDN }
+        eventNotificationBuffer.getSize() == 0
+    }
+
+    def "When the direct memory is full the EventNotifications should be held on the heap and the memory reused once they are released"(){
+        given:"the Eventbuffer holds the EventNotifications off heap with one segment for each shard"
+        eventNotificationBuffer = createOffHeapEventNotificationBuffer(16L * 1024 * 1024)
+        when:"more notifications of one node are buffered than fit in the segment of its shard"
+        (0..<3000).each { eventNotificationBuffer.addEventNotification(createEventNotification(ORADIO_TEST_1_FDN, MAJOR_PERCEIVED_SEVERITY, it.toString()), ORADIO_TEST_1_FDN) }
+        then:"every notification is buffered and only the one segment is allocated"
+        eventNotificationBuffer.getSize() == 3000
+        eventNotificationBuffer.getOffHeapBytes() == 1024 * 1024
+        eventNotificationBuffer.getEventNotification("2999", ORADIO_TEST_1_FDN).getExternalEventId() == "2999"
+        when:"they expire and as many notifications are buffered again"
+        def expired = eventNotificationBuffer.removeExpiredEventNotifications(Long.MAX_VALUE)
+        (0..<3000).each { eventNotificationBuffer.addEventNotification(createEventNotification(ORADIO_TEST_1_FDN, MAJOR_PERCEIVED_SEVERITY, it.toString()), ORADIO_TEST_1_FDN) }
+        then:"every expired notification is read back and the segment is reused"
+        expired.size() == 3000
+        expired.values()*.getExternalEventId().toSet().size() == 3000
+        eventNotificationBuffer.getOffHeapBytes() == 1024 * 1024
+    }
+
+    def "When clustered correlation is enabled the EventNotification should be correlated in the clustered correlation store"(){
+        given:"the Eventbuffer is created with clustered correlation enabled"
+        eventNotificationBuffer = createEventNotificationBuffer()
+        eventNotificationBuffer.@configurationBean.isClusteredCorrelationEnabled() >> true
+        def clusteredStore = Mock(ClusteredEventNotificationStore)
+        eventNotificationBuffer.@clusteredStores = Stub(Instance) { get() >> clusteredStore }
+        def notification = createEventNotification(ORADIO_TEST_1_FDN, CRITICAL_PERCEIVED_SEVERITY, "1")
+        when:"correlateOrBuffer is called"
+        def result = eventNotificationBuffer.correlateOrBuffer(notification, ORADIO_TEST_1_FDN)
+        then:"the clustered correlation store is used instead of the local shards"
+        1 * clusteredStore.correlateOrBuffer(new EventNotificationMarker(ORADIO_TEST_1_FDN, "1"), notification, _) >> CorrelationResult.buffered()
+        result.getOutcome() == CorrelationResult.Outcome.BUFFERED
+        eventNotificationBuffer.getSize() == 0
+        when:"the clustered correlation store is flushed"
+        eventNotificationBuffer.removeExpiredClusteredEventNotifications(Long.MAX_VALUE)
+        then:"the store which was looked up is flushed"
+        1 * clusteredStore.removeExpired(Long.MAX_VALUE) >> [:]
+    }
+
+    def "When clustered correlation is disabled the clustered correlation store should not be looked up"(){
+        given:"the Eventbuffer is created with clustered correlation disabled"
+        eventNotificationBuffer = createEventNotificationBuffer()
+        def clusteredStores = Mock(Instance)
+        eventNotificationBuffer.@clusteredStores = clusteredStores
+        when:"an EventNotification is correlated and the clustered correlation store is flushed"
+        eventNotificationBuffer.correlateOrBuffer(createEventNotification(ORADIO_TEST_1_FDN, CRITICAL_PERCEIVED_SEVERITY, "1"), ORADIO_TEST_1_FDN)
+        def hasExpired = eventNotificationBuffer.hasExpiredClusteredEventNotifications(Long.MAX_VALUE)
+        def expired = eventNotificationBuffer.removeExpiredClusteredEventNotifications(Long.MAX_VALUE)
+        then:"the EventNotification is buffered locally and the store is never looked up"
+        eventNotificationBuffer.getSize() == 1
+        !hasExpired
+        expired.isEmpty()
+        0 * clusteredStores._
+    }
+
+    def "Every EventNotification buffered or removed from the shards should be recorded in the journal"(){
+        given:"the Eventbuffer is created with a journal"
+        eventNotificationBuffer = createEventNotificationBuffer()
+        def journal = Mock(EventNotificationJournal)
+        eventNotificationBuffer.@journal = journal
+        def alarm = createEventNotification(ORADIO_TEST_1_FDN, CRITICAL_PERCEIVED_SEVERITY, "1")
+        def marker = new EventNotificationMarker(ORADIO_TEST_1_FDN, "1")
+        when:"an EventNotification is buffered"
+        eventNotificationBuffer.correlateOrBuffer(alarm, ORADIO_TEST_1_FDN)
+        then:"its insertion is recorded"
+        1 * journal.recordInsert(marker, alarm, _)
+        0 * journal.recordRemove(_)
+        when:"the matching EventNotification is received"
+        eventNotificationBuffer.correlateOrBuffer(createEventNotification(ORADIO_TEST_1_FDN, "CLEARED", "1"), ORADIO_TEST_1_FDN)
+        then:"the removal of the buffered EventNotification is recorded"
+        1 * journal.recordRemove(marker)
+        0 * journal.recordInsert(_, _, _)
+        when:"an EventNotification is buffered and then expires"
+        eventNotificationBuffer.addEventNotification(createEventNotification(ORADIO_TEST_1_FDN, CRITICAL_PERCEIVED_SEVERITY, "2"), ORADIO_TEST_1_FDN)
+        eventNotificationBuffer.removeExpiredEventNotifications(Long.MAX_VALUE)
+        then:"both its insertion and its removal are recorded"
+        1 * journal.recordInsert(new EventNotificationMarker(ORADIO_TEST_1_FDN, "2"), _, _)
+        1 * journal.recordRemove(new EventNotificationMarker(ORADIO_TEST_1_FDN, "2"))
+    }
+
+    def "An EventNotification restored from the journal should keep its entry time and not be journaled again"(){
+        given:"the Eventbuffer is created with a journal"
+        eventNotificationBuffer = createEventNotificationBuffer()
+        def journal = Mock(EventNotificationJournal)
+        eventNotificationBuffer.@journal = journal
+        def marker = new EventNotificationMarker(ORADIO_TEST_1_FDN, "1")
+        when:"an EventNotification buffered 1 second ago is restored"
+        final long now = System.currentTimeMillis()
+        eventNotificationBuffer.restoreEventNotification(marker, createEventNotification(ORADIO_TEST_1_FDN, CRITICAL_PERCEIVED_SEVERITY, "1"), now - 1000)
+        then:"it is buffered without being journaled"
+        eventNotificationBuffer.eventNotificationExists("1", ORADIO_TEST_1_FDN)
+        0 * journal._
+        and:"it expires when its original correlation window has elapsed"
+        eventNotificationBuffer.removeExpiredEventNotifications(now + 999).isEmpty()
+        eventNotificationBuffer.removeExpiredEventNotifications(now + 1000).size() == 1
+    }
+
+    private EventNotificationBuffer createEventNotificationBuffer() {
+        return createEventNotificationBuffer(Integer.MAX_VALUE, Long.MAX_VALUE, "SEND_OLDEST")
+    }
+
+    private EventNotificationBuffer createEventNotificationBuffer(final int maxEntries, final long maxBytes, final String overflowPolicy) {
+        return createEventNotificationBuffer(maxEntries, maxBytes, overflowPolicy, DEFAULT_CORRELATION_WINDOW_MILLIS)
+    }
+
+    private EventNotificationBuffer createOffHeapEventNotificationBuffer(final long offHeapMaxBytes) {
+        def buffer = createEventNotificationBuffer()
+        buffer.@configurationBean.getEventNotificationBufferStorage() >> "OFF_HEAP"
+        buffer.@configurationBean.getEventNotificationBufferOffHeapMaxBytes() >> offHeapMaxBytes
+        return buffer
+    }
+
+    private EventNotificationBuffer createEventNotificationBuffer(final int maxEntries, final long maxBytes, final String overflowPolicy,
+                                                                  final long correlationWindowMillis) {
+        def buffer = new EventNotificationBuffer()
+        def configurationBean = Stub(ConfigurationBean)
+        configurationBean.getEventNotificationBufferMaxEntries() >> maxEntries
+        configurationBean.getEventNotificationBufferMaxBytes() >> maxBytes
+        configurationBean.getEventNotificationBufferOverflowPolicy() >> overflowPolicy
+        configurationBean.getEventNotificationCorrelationWindowMillis() >> correlationWindowMillis
+        buffer.@configurationBean = configurationBean
+        buffer.@journal = Stub(EventNotificationJournal)
+        return buffer
+    }
 
     private static EventNotification createEventNotification(final String fdn, final String severity, final String alarmId){
         EventNotification notif = new EventNotification()
@@ -0,0 +1,106 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.cache
+
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean
+import com.ericsson.oss.mediation.fm.oradio.benchmark.Benchmark
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EventNotificationBuffer
+import com.ericsson.oss.mediation.fm.oradio.ejb.journal.EventNotificationJournal
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.CorrelationResult
+import com.ericsson.oss.mediation.translator.model.EventNotification
+import groovy.transform.CompileStatic
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.function.Function
+
+/**
+ * Compares the HEAP and OFF_HEAP storage of the EventNotificationBuffer: the heap held by the buffered EventNotifications, the time to
+ * correlate an EventNotification with its buffered partner, and the time spent in garbage collection while the buffer is full and
+ * churning. Only run when the benchmark system property is set, e.g. mvn test -Dbenchmark -Dtest=EventNotificationBufferStorageBenchmarkSpec
+ */
+@IgnoreIf({ Benchmark.isDisabled() })
+class EventNotificationBufferStorageBenchmarkSpec extends Specification{
+
+    private static final int ALARM_COUNT = 200_000
+    private static final long OFF_HEAP_MAX_BYTES = 1024L * 1024 * 1024
+
+    @Unroll
+    def "Measure the EventNotificationBuffer with #storage storage"(){
+        given:"an alarm and a clear for each of 200000 alarms, over 40 nodes"
+        def alarms = createEventNotifications("MAJOR")
+        def clears = createEventNotifications("CLEARED")
+        def buffer = createEventNotificationBuffer(storage)
+        def correlateOrBuffer = new CorrelateOrBuffer(buffer)
+
+        when:"the alarms are buffered"
+        def baseline = Benchmark.usedHeap()
+        alarms.each { buffer.correlateOrBuffer(it, it.getManagedObjectInstance()) }
+        def heapBytesPerAlarm = (Benchmark.usedHeap() - baseline) / ALARM_COUNT
+        buffer.removeExpiredEventNotifications(Long.MAX_VALUE)
+
+        and:"the alarms are buffered and correlated with their clears a few times, to warm up"
+        def result = Benchmark.warmedUp { [Benchmark.measure(ALARM_COUNT, alarms, correlateOrBuffer), Benchmark.measure(ALARM_COUNT, clears, correlateOrBuffer)] }
+        Benchmark.report("EventNotificationBuffer ${storage}: heap ${heapBytesPerAlarm} B/alarm, off heap ${buffer.getOffHeapBytes()} B, " +
+                "buffer ${result[0]}, correlate ${result[1]}")
+
+        then:"every alarm is correlated"
+        buffer.getSize() == 0
+
+        where:
+        storage << ["HEAP", "OFF_HEAP"]
+    }
+
+    private static EventNotificationBuffer createEventNotificationBuffer(final String storage) {
+        def configurationBean = new ConfigurationBean()
+        configurationBean.@eventNotificationBufferStorage = storage
+        configurationBean.@eventNotificationBufferOffHeapMaxBytes = OFF_HEAP_MAX_BYTES
+        def buffer = new EventNotificationBuffer()
+        buffer.@configurationBean = configurationBean
+        buffer.@journal = new EventNotificationJournal()
+        return buffer
+    }
+
+    private static List<EventNotification> createEventNotifications(final String severity) {
+        return (0..<ALARM_COUNT).collect {
+            EventNotification notif = new EventNotification()
+            notif.setManagedObjectInstance("NetworkElement=ORadio" + it.intdiv(5000))
+            notif.setPerceivedSeverity(severity)
+            notif.setExternalEventId((it % 5000).toString())
+            notif.setSpecificProblem("Specific problem of alarm " + it)
+            notif.setEventType("Communications alarm")
+            return notif
+        }
+    }
+
+    /**
+     * Correlates or buffers an EventNotification in the buffer, as processNotification does
+     */
+    @CompileStatic
+    private static class CorrelateOrBuffer implements Function<EventNotification, CorrelationResult> {
+
+        private final EventNotificationBuffer buffer
+
+        CorrelateOrBuffer(final EventNotificationBuffer buffer) {
+            this.buffer = buffer
+        }
+
+        @Override
+        CorrelationResult apply(final EventNotification eventNotification) {
+            return buffer.correlateOrBuffer(eventNotification, eventNotification.getManagedObjectInstance())
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.cache
+
+import com.ericsson.oss.itpf.datalayer.dps.persistence.ManagedObject
+import com.ericsson.oss.mediation.fm.impl.ServiceStatisticsBean
+import com.ericsson.oss.mediation.fm.oradio.benchmark.Benchmark
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EarlyNotificationQueue
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeState
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeStateCache
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeStatePageLoader
+import com.ericsson.oss.mediation.fm.oradio.ejb.dps.DpsAccess
+import com.ericsson.oss.mediation.fm.oradio.ejb.dps.NetworkElementProjection
+import com.ericsson.oss.mediation.fm.oradio.ejb.fdn.NetworkElementNamePool
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+
+import javax.ejb.TimerService
+import java.util.concurrent.ConcurrentHashMap
+import java.util.function.Consumer
+
+/**
+ * Measures the heap held per node by the NodeStateCache for a large synthetic network, compared with a ConcurrentHashMap of fdn to
+ * NodeState as the cache was held before. Only run when the benchmark system property is set,
+ * e.g. mvn test -Dbenchmark -Dtest=NodeStateCacheMemorySpec
+ */
+@IgnoreIf({ Benchmark.isDisabled() })
+class NodeStateCacheMemorySpec extends Specification {
+
+    private static final int NODE_COUNT = 200_000
+    private static final int PAGE_SIZE = 5000
+
+    def "The NodeStateCache should hold less heap per node than a map of fdn to NodeState"() {
+        given: "a network of 200000 ORadio nodes"
+        def topology = new SyntheticTopology(NODE_COUNT)
+
+        when: "the nodes are held in a map of fdn to NodeState"
+        def baseline = Benchmark.usedHeap()
+        def map = new ConcurrentHashMap<String, NodeState>()
+        topology.getNetworkElementProjections("ORadio", PAGE_SIZE, { page ->
+            page.each { map.put(it.getFdn(), NodeState.unknown().withSupervisionActive(it.getFmAlarmSupervisionActive()).withOssPrefix(it.getOssPrefix())) }
+        } as Consumer)
+        def mapBytesPerNode = (Benchmark.usedHeap() - baseline) / NODE_COUNT
+        assert map.size() == NODE_COUNT
+        map = null
+
+        and: "the nodes are held in the NodeStateCache"
+        baseline = Benchmark.usedHeap()
+        def nodeStateCache = createNodeStateCache(topology)
+        nodeStateCache.warmUp(null)
+        def cacheBytesPerNode = (Benchmark.usedHeap() - baseline) / NODE_COUNT
+        Benchmark.report("NodeStateCache memory: map of fdn to NodeState ${mapBytesPerNode} B/node, NodeStateCache ${cacheBytesPerNode} B/node")
+
+        then: "every node is in the cache and it holds less heap per node"
+        nodeStateCache.getSize() == NODE_COUNT
+        cacheBytesPerNode < mapBytesPerNode
+    }
+
+    private NodeStateCache createNodeStateCache(final DpsAccess dpsAccess) {
+        def networkElementNamePool = new NetworkElementNamePool()
+        def nodeStatePageLoader = new NodeStatePageLoader()
+        nodeStatePageLoader.@networkElementNamePool = networkElementNamePool
+        def nodeStateCache = new NodeStateCache()
+        nodeStateCache.@dpsAccess = dpsAccess
+        nodeStateCache.@nodeStatePageLoader = nodeStatePageLoader
+        nodeStateCache.@networkElementNamePool = networkElementNamePool
+        nodeStateCache.@serviceStatistics = new ServiceStatisticsBean()
+        nodeStateCache.@timerService = Mock(TimerService)
+        nodeStateCache.@earlyNotificationQueue = Mock(EarlyNotificationQueue)
+        return nodeStateCache
+    }
+
+    /**
+     * Generates the NetworkElementProjections page by page with new strings, as DPS would hand them over
+     */
+    private static class SyntheticTopology implements DpsAccess {
+
+        private final int nodeCount
+
+        SyntheticTopology(final int nodeCount) {
+            this.nodeCount = nodeCount
+        }
+
+        @Override
+        List<ManagedObject> createRestrictionTypeQuery(String namespace, String type, String restrictionType, String nodeType) {
+            throw new UnsupportedOperationException("The NodeStateCache should not load the ManagedObjects")
+        }
+
+        @Override
+        void getNetworkElementProjections(String nodeType, int pageSize, Consumer<List<NetworkElementProjection>> pageConsumer) {
+            List<NetworkElementProjection> page = new ArrayList<>(pageSize)
+            for (int i = 0; i < nodeCount; i++) {
+                page.add(new NetworkElementProjection("NetworkElement=ORadio" + i, "SubNetwork=ENM,SubNetwork=Region" + (i % 50) + ",MeContext=ORadio" + i,
+                        i % 10 != 0))
+                if (page.size() == pageSize) {
+                    pageConsumer.accept(page)
+                    page = new ArrayList<>(pageSize)
+                }
+            }
+            if (!page.isEmpty()) {
+                pageConsumer.accept(page)
+            }
+        }
+
+        @Override
+        NetworkElementProjection getNetworkElementProjection(String networkElementFdn, String nodeType) {
+            throw new UnsupportedOperationException("The warm-up should not read single nodes")
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.cache
+
+import com.ericsson.oss.itpf.datalayer.dps.notification.event.DpsObjectCreatedEvent
+import com.ericsson.oss.itpf.datalayer.dps.persistence.ManagedObject
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean
+import com.ericsson.oss.mediation.fm.impl.ServiceStatisticsBean
+import com.ericsson.oss.mediation.fm.oradio.ejb.Constants
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EarlyNotificationQueue
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeState
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeStateCache
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeStateEventCoalescer
+import com.ericsson.oss.mediation.fm.oradio.ejb.dps.DpsAccess
+import com.ericsson.oss.mediation.fm.oradio.ejb.dps.NetworkElementProjection
+import com.ericsson.oss.mediation.fm.oradio.ejb.fdn.NetworkElementNamePool
+import spock.lang.Specification
+
+import javax.ejb.TimerService
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Consumer
+
+/**
+ * Read-through of the nodes missing from a ready NodeStateCache
+ */
+class NodeStateCacheReadThroughSpec extends Specification {
+
+    private static final String LOST_NETWORK_ELEMENT_FDN = "NetworkElement=ORadioLost"
+    private static final String LOST_OSS_PREFIX = "SubNetwork=ENM,MeContext=ORadioLost"
+    private static final String UNKNOWN_NETWORK_ELEMENT_FDN = "NetworkElement=ORadioUnknown"
+    private static final int THREADS = 8
+
+    FakeDpsAccess dpsAccess = new FakeDpsAccess()
+
+    ServiceStatisticsBean serviceStatistics = new ServiceStatisticsBean()
+
+    ConfigurationBean configurationBean = Stub()
+
+    NetworkElementNamePool networkElementNamePool = new NetworkElementNamePool()
+
+    NodeStateCache nodeStateCache = new NodeStateCache()
+
+    def setup() {
+        dpsAccess.networkElements.put(LOST_NETWORK_ELEMENT_FDN, new NetworkElementProjection(LOST_NETWORK_ELEMENT_FDN, LOST_OSS_PREFIX, true))
+        configurationBean.getNodeStateMissTtlMillis() >> 60_000L
+        nodeStateCache.@dpsAccess = dpsAccess
+        nodeStateCache.@networkElementNamePool = networkElementNamePool
+        nodeStateCache.@serviceStatistics = serviceStatistics
+        nodeStateCache.@configurationBean = configurationBean
+        nodeStateCache.@timerService = Mock(TimerService)
+        nodeStateCache.@earlyNotificationQueue = Mock(EarlyNotificationQueue)
+        nodeStateCache.warmUp(null)
+    }
+
+    def "A node missing from the cache should be read from DPS once and then be served from the cache"() {
+        when: "the node whose DPS create notification was lost is looked up twice"
+        def first = nodeStateCache.getNodeState(LOST_NETWORK_ELEMENT_FDN)
+        def second = nodeStateCache.getNodeState(LOST_NETWORK_ELEMENT_FDN)
+
+        then: "its state is read from DPS once"
+        first == NodeState.unknown().withSupervisionActive(true).withOssPrefix(LOST_OSS_PREFIX)
+        second == first
+        dpsAccess.reads.get() == 1
+        serviceStatistics.getNodeStateReadThroughLoads() == 1
+        and: "the supervision state and ossPrefix lookups use it"
+        nodeStateCache.isSupervisionActive(LOST_NETWORK_ELEMENT_FDN)
+        nodeStateCache.getOssPrefix(LOST_NETWORK_ELEMENT_FDN) == LOST_OSS_PREFIX
+        dpsAccess.reads.get() == 1
+    }
+
+    def "A node which does not exist in DPS should be remembered as missing"() {
+        when: "the unknown node is looked up many times"
+        def nodeStates = (1..100).collect { nodeStateCache.getNodeState(UNKNOWN_NETWORK_ELEMENT_FDN) }
+
+        then: "DPS is read once"
+        nodeStates.every { it == null }
+        dpsAccess.reads.get() == 1
+        serviceStatistics.getNodeStateMissHits() == 99
+    }
+
+    def "A node remembered as missing should be read from DPS again once the time to live has passed"() {
+        given: "missing nodes are remembered for no time"
+        def configurationBean = Stub(ConfigurationBean) {
+            getNodeStateMissTtlMillis() >> 0L
+        }
+        nodeStateCache.@configurationBean = configurationBean
+
+        when: "the unknown node is looked up twice"
+        nodeStateCache.getNodeState(UNKNOWN_NETWORK_ELEMENT_FDN)
+        Thread.sleep(5)
+        nodeStateCache.getNodeState(UNKNOWN_NETWORK_ELEMENT_FDN)
+
+        then: "DPS is read each time"
+        dpsAccess.reads.get() == 2
+    }
+
+    def "Once the most missing nodes are remembered, the node remembered longest ago should be evicted for a new one"() {
+        given: "as many unknown nodes as can be remembered have been looked up"
+        (0..<Constants.NODE_STATE_MISS_MAX_ENTRIES).each { nodeStateCache.getNodeState("NetworkElement=ORadioMissing" + it) }
+
+        when: "a new unknown node is looked up, then it and the first unknown node are looked up again"
+        nodeStateCache.getNodeState(UNKNOWN_NETWORK_ELEMENT_FDN)
+        nodeStateCache.getNodeState(UNKNOWN_NETWORK_ELEMENT_FDN)
+        nodeStateCache.getNodeState("NetworkElement=ORadioMissing0")
+
+        then: "the new node is remembered and the first one was evicted, so only it is read from DPS again"
+        dpsAccess.reads.get() == Constants.NODE_STATE_MISS_MAX_ENTRIES + 2
+    }
+
+    def "A node remembered as missing should be added when its DPS create notification is received"() {
+        given: "the node was looked up before it existed"
+        assert nodeStateCache.getNodeState(UNKNOWN_NETWORK_ELEMENT_FDN) == null
+
+        when: "the node is added to DPS and looked up again"
+        dpsAccess.networkElements.put(UNKNOWN_NETWORK_ELEMENT_FDN, new NetworkElementProjection(UNKNOWN_NETWORK_ELEMENT_FDN, "", false))
+        def nodeState = nodeStateCache.getNodeState(UNKNOWN_NETWORK_ELEMENT_FDN)
+
+        then: "it is still missing as DPS is not read again"
+        nodeState == null
+        dpsAccess.reads.get() == 1
+
+        when: "the DPS create notification of the node is received"
+        createNodeStateEventCoalescer().onNodeCreatedEvent(createDpsObjectCreatedEvent(UNKNOWN_NETWORK_ELEMENT_FDN, "SubNetwork=ENM,MeContext=ORadioUnknown"))
+
+        then: "the node is found"
+        nodeStateCache.getOssPrefix(UNKNOWN_NETWORK_ELEMENT_FDN) == "SubNetwork=ENM,MeContext=ORadioUnknown"
+        dpsAccess.reads.get() == 1
+    }
+
+    def "A node which is missing should not be read from DPS while the cache is warming up"() {
+        given: "the cache is warming up"
+        def warmingUpCache = new NodeStateCache()
+        warmingUpCache.@dpsAccess = dpsAccess
+        warmingUpCache.@networkElementNamePool = networkElementNamePool
+
+        when: "the node is looked up"
+        def nodeState = warmingUpCache.getNodeState(LOST_NETWORK_ELEMENT_FDN)
+
+        then: "DPS is not read"
+        nodeState == null
+        dpsAccess.reads.get() == 0
+    }
+
+    def "A failure to read DPS should not be remembered"() {
+        given: "DPS fails the first read"
+        dpsAccess.failures.set(1)
+
+        when: "the node is looked up twice"
+        def first = nodeStateCache.getNodeState(LOST_NETWORK_ELEMENT_FDN)
+        def second = nodeStateCache.getNodeState(LOST_NETWORK_ELEMENT_FDN)
+
+        then: "the first lookup finds nothing and the second reads DPS again"
+        first == null
+        second != null
+        dpsAccess.reads.get() == 2
+    }
+
+    def "Concurrent lookups of the same missing node should share one DPS read"() {
+        given: "DPS is slow to answer"
+        dpsAccess.latency = new CountDownLatch(1)
+        def executor = Executors.newFixedThreadPool(THREADS * 2)
+        def start = new CountDownLatch(1)
+
+        when: "the missing nodes are looked up by many threads at the same time"
+        def lost = (1..THREADS).collect {
+            executor.submit({ start.await(); nodeStateCache.getNodeState(LOST_NETWORK_ELEMENT_FDN) } as Callable<NodeState>)
+        }
+        def unknown = (1..THREADS).collect {
+            executor.submit({ start.await(); nodeStateCache.getNodeState(UNKNOWN_NETWORK_ELEMENT_FDN) } as Callable<NodeState>)
+        }
+        start.countDown()
+        Thread.sleep(200)
+        dpsAccess.latency.countDown()
+
+        then: "every thread gets the same answer"
+        lost.every { it.get(5, TimeUnit.SECONDS).getOssPrefix() == LOST_OSS_PREFIX }
+        unknown.every { it.get(5, TimeUnit.SECONDS) == null }
+        and: "DPS is read once for each node"
+        dpsAccess.reads.get() == 2
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    private static DpsObjectCreatedEvent createDpsObjectCreatedEvent(final String fdn, final String ossPrefix) {
+        final Map<String, Object> createdData = ["ossPrefix": ossPrefix, "neType": "ORadio"]
+        return new DpsObjectCreatedEvent("OSS_NE_DEF", "NetworkElement", "1.0.0", 1L, fdn, "Live", true, new HashMap<>(createdData))
+    }
+
+    /**
+     * The DPS events are passed through a NodeStateEventCoalescer with a batch size of 1, so each event is applied as it is received
+     */
+    private NodeStateEventCoalescer createNodeStateEventCoalescer() {
+        def nodeStateEventCoalescer = new NodeStateEventCoalescer()
+        nodeStateEventCoalescer.@nodeStateCache = nodeStateCache
+        nodeStateEventCoalescer.@networkElementNamePool = networkElementNamePool
+        nodeStateEventCoalescer.@serviceStatistics = new ServiceStatisticsBean()
+        nodeStateEventCoalescer.@configurationBean = Stub(ConfigurationBean) {
+            getNodeStateEventMaxBatchSize() >> 1
+        }
+        nodeStateEventCoalescer.@timerService = Mock(TimerService)
+        return nodeStateEventCoalescer
+    }
+
+    /**
+     * Holds the NetworkElements of DPS and counts the reads of single nodes
+     */
+    private static class FakeDpsAccess implements DpsAccess {
+
+        final Map<String, NetworkElementProjection> networkElements = new HashMap<>()
+        final AtomicInteger reads = new AtomicInteger()
+        final AtomicInteger failures = new AtomicInteger()
+        CountDownLatch latency = new CountDownLatch(0)
+
+        @Override
+        List<ManagedObject> createRestrictionTypeQuery(String namespace, String type, String restrictionType, String nodeType) {
+            throw new UnsupportedOperationException("The NodeStateCache should not load the ManagedObjects")
+        }
+
+        @Override
+        void getNetworkElementProjections(String nodeType, int pageSize, Consumer<List<NetworkElementProjection>> pageConsumer) {
+            // The cache is warmed up empty
+        }
+
+        @Override
+        NetworkElementProjection getNetworkElementProjection(String networkElementFdn, String nodeType) {
+            reads.incrementAndGet()
+            latency.await()
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("DPS unavailable")
+            }
+            return networkElements.get(networkElementFdn)
+        }
+    }
+}
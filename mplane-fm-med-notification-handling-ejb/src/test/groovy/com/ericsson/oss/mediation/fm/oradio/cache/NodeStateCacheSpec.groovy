@@ -0,0 +1,333 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.cache
+
+import com.ericsson.cds.cdi.support.rule.ImplementationInstance
+import com.ericsson.cds.cdi.support.rule.MockedImplementation
+import com.ericsson.cds.cdi.support.rule.ObjectUnderTest
+import com.ericsson.cds.cdi.support.spock.SharedCdiSpecification
+import com.ericsson.oss.itpf.datalayer.dps.notification.event.AttributeChangeData
+import com.ericsson.oss.itpf.datalayer.dps.notification.event.DpsAttributeChangedEvent
+import com.ericsson.oss.itpf.datalayer.dps.notification.event.DpsObjectCreatedEvent
+import com.ericsson.oss.itpf.datalayer.dps.notification.event.DpsObjectDeletedEvent
+import com.ericsson.oss.itpf.datalayer.dps.persistence.ManagedObject
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean
+import com.ericsson.oss.mediation.fm.impl.ServiceStatisticsBean
+import com.ericsson.oss.mediation.fm.oradio.api.models.InspectionQuery
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EarlyNotificationQueue
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeState
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeStateCache
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeStateEventCoalescer
+import com.ericsson.oss.mediation.fm.oradio.ejb.dps.DpsAccess
+import com.ericsson.oss.mediation.fm.oradio.ejb.dps.NetworkElementProjection
+import spock.lang.Shared
+
+import javax.ejb.TimerService
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Consumer
+
+class NodeStateCacheSpec extends SharedCdiSpecification {
+
+    private static final def NETWORK_ELEMENT_ID = "TestORadio"
+    private static final def NETWORK_ELEMENT_TYPE = "NetworkElement"
+    private static final def NETWORK_ELEMENT_FDN = NETWORK_ELEMENT_TYPE + "=" + NETWORK_ELEMENT_ID
+    private static final def FM_ALARM_SUPERVISION_FDN = NETWORK_ELEMENT_FDN + ",FmAlarmSupervision=1"
+    private static final def OSS_PREFIX = "SubNetwork=ENM,MeContext=TestORadio"
+
+    private static final def UNSUPERVISED_NETWORK_ELEMENT_FDN = NETWORK_ELEMENT_FDN + "Unsupervised"
+    private static final def UNSUPERVISED_OSS_PREFIX = "SubNetwork=ENM,MeContext=TestORadioUnsupervised"
+
+    private static final def TEST_ORADIO_2_NETWORK_ELEMENT_FDN = NETWORK_ELEMENT_FDN + "2"
+    private static final def TEST_ORADIO_2_OSS_PREFIX = "SubNetwork=ENM,SubNetwork=Athlone,MeContext=ORadioTest2"
+
+    private static final def INVALID_NETWORK_ELEMENT_FDN = "NetworkElement=SomeInvalidFdn"
+
+    private static final def ALL_NODES = new InspectionQuery(null, null, 0, 1000)
+
+    private static final def NS_OSS_NE_FM_DEF = "OSS_NE_FM_DEF"
+    private static final def TYPE_FMALARMSUPERVISION = "FmAlarmSupervision"
+    private static final def VERSION_1_0_0 = "1.0.0"
+
+    private static final def TRUE = true
+    private static final def FALSE = false
+
+    @Shared
+    private AtomicInteger dpsQueries = new AtomicInteger()
+
+    // Create a stub for DpsAccess - this is because you can't use a mock for a class if there is a @PostConstruct method
+    @ImplementationInstance
+    @Shared
+    private DpsAccess dpsAccess = new DpsAccess() {
+        @Override
+        List<ManagedObject> createRestrictionTypeQuery(String namespace, String type, String restrictionType, String nodeType) {
+            throw new UnsupportedOperationException("The NodeStateCache should not load the ManagedObjects")
+        }
+
+        @Override
+        void getNetworkElementProjections(String nodeType, int pageSize, Consumer<List<NetworkElementProjection>> pageConsumer) {
+            dpsQueries.incrementAndGet()
+            // The second NetworkElement has no FmAlarmSupervision child
+            pageConsumer.accept([new NetworkElementProjection(NETWORK_ELEMENT_FDN, OSS_PREFIX, TRUE),
+                                 new NetworkElementProjection(UNSUPERVISED_NETWORK_ELEMENT_FDN, UNSUPERVISED_OSS_PREFIX, null)])
+        }
+
+        @Override
+        NetworkElementProjection getNetworkElementProjection(String networkElementFdn, String nodeType) {
+            // Only the nodes created by the tests exist, they are added to the cache by the DPS notifications
+            return null
+        }
+    }
+
+    @MockedImplementation
+    private TimerService timerService
+
+    @MockedImplementation
+    private EarlyNotificationQueue earlyNotificationQueue
+
+    @MockedImplementation
+    private ConfigurationBean configurationBean
+
+    @ObjectUnderTest
+    @Shared
+    private NodeStateCache nodeStateCache
+
+    void setup() {
+        configurationBean.getNodeStateMissTtlMillis() >> 60_000L
+        // The @PostConstruct only schedules the warm-up, the timer is mocked so it is run here once
+        if (!nodeStateCache.isReady()) {
+            nodeStateCache.warmUp(null)
+        }
+    }
+
+    def "initialiseCache should populate the cache with the supervision state and ossPrefix of every node from a single DPS read"() {
+        expect: "DPS is read once and the cache is ready"
+            dpsQueries.get() == 1
+            nodeStateCache.isReady()
+            nodeStateCache.getWarmUpState() == NodeStateCache.WarmUpState.READY
+        and: "the state of the node is read with a single lookup"
+            nodeStateCache.getNodeState(NETWORK_ELEMENT_FDN) == NodeState.unknown().withSupervisionActive(TRUE).withOssPrefix(OSS_PREFIX)
+            nodeStateCache.isSupervisionActive(NETWORK_ELEMENT_FDN)
+            nodeStateCache.getOssPrefix(NETWORK_ELEMENT_FDN) == OSS_PREFIX
+    }
+
+    def "A node should be found by the name its notifications are received with, and the debug views should be keyed by fdn"() {
+        expect: "the same state is found by name and by fdn"
+            nodeStateCache.getNodeStateByName(NETWORK_ELEMENT_ID) == nodeStateCache.getNodeState(NETWORK_ELEMENT_FDN)
+            nodeStateCache.getNodeStateByName(NETWORK_ELEMENT_ID) != null
+        and: "the debug views hold the fdn of the node"
+            nodeStateCache.getSupervisionStateCache(ALL_NODES).getEntries() == [(NETWORK_ELEMENT_FDN): "ACTIVE"]
+            nodeStateCache.getOssPrefixCache(ALL_NODES).getEntries().get(NETWORK_ELEMENT_FDN) == OSS_PREFIX
+            nodeStateCache.getNetworkElementFdns().toSet() == [NETWORK_ELEMENT_FDN, UNSUPERVISED_NETWORK_ELEMENT_FDN].toSet()
+    }
+
+    def "A node without an FmAlarmSupervision child should have its ossPrefix cached but not be supervised"() {
+        expect: "the ossPrefix is available and supervision is not active"
+            nodeStateCache.getOssPrefix(UNSUPERVISED_NETWORK_ELEMENT_FDN) == UNSUPERVISED_OSS_PREFIX
+            !nodeStateCache.isSupervisionActive(UNSUPERVISED_NETWORK_ELEMENT_FDN)
+            !nodeStateCache.getSupervisionStateCache(ALL_NODES).getEntries().containsKey(UNSUPERVISED_NETWORK_ELEMENT_FDN)
+    }
+
+    def "The debug views should only copy the page of the nodes selected by the query"() {
+        when: "the ossPrefix view is read one node at a time"
+            def firstPage = nodeStateCache.getOssPrefixCache(new InspectionQuery(null, null, 0, 1))
+            def secondPage = nodeStateCache.getOssPrefixCache(new InspectionQuery(null, null, 1, 1))
+
+        then: "each page holds one node and the total of every node"
+            firstPage.getTotal() == 2
+            firstPage.getEntries().size() == 1
+            secondPage.getEntries().size() == 1
+            (firstPage.getEntries().keySet() + secondPage.getEntries().keySet()) == [NETWORK_ELEMENT_FDN, UNSUPERVISED_NETWORK_ELEMENT_FDN] as Set
+
+        and: "the nodes are filtered by name and by the start of the name"
+            nodeStateCache.getOssPrefixCache(new InspectionQuery(NETWORK_ELEMENT_ID, null, 0, 10)).getEntries() == [(NETWORK_ELEMENT_FDN): OSS_PREFIX]
+            nodeStateCache.getOssPrefixCache(new InspectionQuery(null, NETWORK_ELEMENT_ID + "U", 0, 10)).getEntries() ==
+                    [(UNSUPERVISED_NETWORK_ELEMENT_FDN): UNSUPERVISED_OSS_PREFIX]
+            nodeStateCache.getSupervisionStateCache(new InspectionQuery(null, "ORadioOther", 0, 10)).getTotal() == 0
+
+        and: "a page past the last node is empty"
+            nodeStateCache.getOssPrefixCache(new InspectionQuery(null, null, 2, 10)).getEntries().isEmpty()
+    }
+
+    def "Update cache with INACTIVE when a FmAlarmSupervision active=false notification received"() {
+
+        given: "Supervision state is active"
+            def startingSupervisionState = nodeStateCache.isSupervisionActive(NETWORK_ELEMENT_FDN)
+            assert startingSupervisionState
+
+        and: "DpsAttributeChangedEvent where FmAlarmSupervision.active=false"
+            def attrChangeEvent = createDpsAttributeChangedEvent(TRUE, FALSE, FM_ALARM_SUPERVISION_FDN)
+
+        when: "onSupervisionStateChange is called with DISCONNECT event"
+            createNodeStateEventCoalescer().onSupervisionStateChange(attrChangeEvent)
+
+        then: "Supervision should be inactive after update and the ossPrefix kept"
+            !nodeStateCache.isSupervisionActive(NETWORK_ELEMENT_FDN)
+            nodeStateCache.getOssPrefix(NETWORK_ELEMENT_FDN) == OSS_PREFIX
+    }
+
+    def "Update cache with ACTIVE when a FmAlarmSupervision active=true notification received"() {
+
+        given: "Supervision state is inactive"
+            def startingSupervisionState = nodeStateCache.isSupervisionActive(NETWORK_ELEMENT_FDN)
+            assert !startingSupervisionState
+
+        and: "DpsAttributeChangedEvent where FmAlarmSupervision.active=true"
+            def attrChangeEvent = createDpsAttributeChangedEvent(FALSE, TRUE, FM_ALARM_SUPERVISION_FDN)
+
+        when: "onSupervisionStateChange is called with DISCONNECT event"
+            createNodeStateEventCoalescer().onSupervisionStateChange(attrChangeEvent)
+
+        then: "Supervision should be active after update"
+            nodeStateCache.isSupervisionActive(NETWORK_ELEMENT_FDN)
+            nodeStateCache.getOssPrefix(NETWORK_ELEMENT_FDN) == OSS_PREFIX
+    }
+
+    def "Cache not updated when a NULL notification is received"() {
+
+        given: "Supervision state is active"
+            assert nodeStateCache.isSupervisionActive(NETWORK_ELEMENT_FDN)
+
+        when: "onSupervisionStateChange is called with a NULL event"
+            createNodeStateEventCoalescer().onSupervisionStateChange(null)
+
+        then: "Supervision should still be active after update"
+            nodeStateCache.isSupervisionActive(NETWORK_ELEMENT_FDN)
+    }
+
+    def "Cache not updated when notification contains no FDN value"() {
+
+        given: "Supervision state is active"
+            assert nodeStateCache.isSupervisionActive(NETWORK_ELEMENT_FDN)
+
+        and: "DpsAttributeChangedEvent where event fdn is NULL"
+            def attrChangeEvent = createDpsAttributeChangedEvent(TRUE, FALSE, null)
+
+        when: "onSupervisionStateChange is called"
+            createNodeStateEventCoalescer().onSupervisionStateChange(attrChangeEvent)
+
+        then: "Supervision should still be active after update"
+            nodeStateCache.isSupervisionActive(NETWORK_ELEMENT_FDN)
+    }
+
+    def "isSupervisionActive returns false and getOssPrefix returns null when fdn does not exist"() {
+        expect: "the node is not known"
+            nodeStateCache.getNodeState(INVALID_NETWORK_ELEMENT_FDN) == null
+            !nodeStateCache.isSupervisionActive(INVALID_NETWORK_ELEMENT_FDN)
+            nodeStateCache.getOssPrefix(INVALID_NETWORK_ELEMENT_FDN) == null
+    }
+
+    def "Update cache when a new Node is added to ENM"() {
+        given: "Node is not present in the cache"
+            assert nodeStateCache.getOssPrefix(TEST_ORADIO_2_NETWORK_ELEMENT_FDN) == null
+
+        when: "onNodeCreatedEvent is called"
+            createNodeStateEventCoalescer().onNodeCreatedEvent(createDpsObjectCreatedEvent(TEST_ORADIO_2_NETWORK_ELEMENT_FDN, "ORadio"))
+
+        then: "the ossPrefix should be found in the cache now, supervision is not active until FmAlarmSupervision is activated"
+            nodeStateCache.getOssPrefix(TEST_ORADIO_2_NETWORK_ELEMENT_FDN) == TEST_ORADIO_2_OSS_PREFIX
+            !nodeStateCache.isSupervisionActive(TEST_ORADIO_2_NETWORK_ELEMENT_FDN)
+            nodeStateCache.getOssPrefixCache(ALL_NODES).getEntries().size() == 3
+    }
+
+    def "A created node which is not an ORadio node should not be added to the cache"() {
+        when: "onNodeCreatedEvent is called for another type of node"
+            createNodeStateEventCoalescer().onNodeCreatedEvent(createDpsObjectCreatedEvent(INVALID_NETWORK_ELEMENT_FDN, "RadioNode"))
+
+        then: "the node is not in the cache"
+            nodeStateCache.getNodeState(INVALID_NETWORK_ELEMENT_FDN) == null
+    }
+
+    def "A FmAlarmSupervision change of a node which is not in the ready cache should not give the node an id"() {
+        given: "the number of ids in the cache"
+            def idCount = nodeStateCache.@nodeStateCache.idCount()
+
+        when: "a FmAlarmSupervision of a node which is not an ORadio node is changed"
+            createNodeStateEventCoalescer().onSupervisionStateChange(
+                    createDpsAttributeChangedEvent(FALSE, TRUE, INVALID_NETWORK_ELEMENT_FDN + ",FmAlarmSupervision=1"))
+
+        then: "the node is not in the cache and has not been given an id"
+            nodeStateCache.getNodeState(INVALID_NETWORK_ELEMENT_FDN) == null
+            nodeStateCache.@nodeStateCache.idCount() == idCount
+    }
+
+    def "when DpsObjectDeletedEvent is received, the node is removed"() {
+        given: "Node is present in the cache"
+            assert nodeStateCache.getNodeState(NETWORK_ELEMENT_FDN) != null
+
+        when: "onNodeDeletedEvent is called"
+            createNodeStateEventCoalescer().onNodeDeletedEvent(createDpsObjectDeletedEvent(NETWORK_ELEMENT_FDN))
+
+        then: "both the supervision state and the ossPrefix are removed"
+            !nodeStateCache.getSupervisionStateCache(ALL_NODES).getEntries().containsKey(NETWORK_ELEMENT_FDN)
+            !nodeStateCache.getOssPrefixCache(ALL_NODES).getEntries().containsKey(NETWORK_ELEMENT_FDN)
+            !nodeStateCache.isSupervisionActive(NETWORK_ELEMENT_FDN)
+            nodeStateCache.getOssPrefix(NETWORK_ELEMENT_FDN) == null
+    }
+
+    def "Compacting the cache should release the ids of the removed nodes and keep the state of the others"() {
+        given: "the id of the removed node is still held"
+            assert nodeStateCache.@nodeStateCache.idCount() > nodeStateCache.getSize()
+
+        when: "the cache is compacted"
+            nodeStateCache.compactNodeStates()
+
+        then: "only the nodes in the cache hold an id"
+            nodeStateCache.@nodeStateCache.idCount() == nodeStateCache.getSize()
+            nodeStateCache.getNodeState(NETWORK_ELEMENT_FDN) == null
+
+        and: "the state of the other nodes is kept"
+            nodeStateCache.getOssPrefix(UNSUPERVISED_NETWORK_ELEMENT_FDN) == UNSUPERVISED_OSS_PREFIX
+            nodeStateCache.getOssPrefix(TEST_ORADIO_2_NETWORK_ELEMENT_FDN) == TEST_ORADIO_2_OSS_PREFIX
+            !nodeStateCache.isSupervisionActive(TEST_ORADIO_2_NETWORK_ELEMENT_FDN)
+    }
+
+    def "The debug views of the cache should be copies"() {
+        when: "the ossPrefix view is changed"
+            nodeStateCache.getOssPrefixCache(ALL_NODES).getEntries().clear()
+
+        then: "the cache is not changed"
+            nodeStateCache.getOssPrefix(UNSUPERVISED_NETWORK_ELEMENT_FDN) == UNSUPERVISED_OSS_PREFIX
+    }
+
+    def createDpsAttributeChangedEvent(def oldValue, def newValue, def fdn) {
+        def changeData = new AttributeChangeData("active", oldValue, newValue, null, null)
+        return new DpsAttributeChangedEvent(NS_OSS_NE_FM_DEF, TYPE_FMALARMSUPERVISION, VERSION_1_0_0, 1L, fdn, "Live", [changeData])
+    }
+
+    def createDpsObjectCreatedEvent(def fdn, def neType) {
+        def createdData = ["ossPrefix": TEST_ORADIO_2_OSS_PREFIX, "neType": neType]
+        return new DpsObjectCreatedEvent(NS_OSS_NE_FM_DEF, NETWORK_ELEMENT_TYPE, VERSION_1_0_0, 1L, fdn, "Live", true, [createdData] as HashMap<String, Object>)
+    }
+
+    def createDpsObjectDeletedEvent(def fdn) {
+        def deletedData = ["ossPrefix": OSS_PREFIX]
+        return new DpsObjectDeletedEvent(NS_OSS_NE_FM_DEF, NETWORK_ELEMENT_TYPE, VERSION_1_0_0, 1L, fdn, "Live", true, [deletedData] as HashMap<String, Object>)
+    }
+
+    /**
+     * The DPS events are passed through a NodeStateEventCoalescer with a batch size of 1, so each event is applied as it is received
+     */
+    private NodeStateEventCoalescer createNodeStateEventCoalescer() {
+        def nodeStateEventCoalescer = new NodeStateEventCoalescer()
+        nodeStateEventCoalescer.@nodeStateCache = nodeStateCache
+        nodeStateEventCoalescer.@networkElementNamePool = nodeStateCache.@networkElementNamePool
+        nodeStateEventCoalescer.@serviceStatistics = new ServiceStatisticsBean()
+        nodeStateEventCoalescer.@configurationBean = Stub(ConfigurationBean) {
+            getNodeStateEventMaxBatchSize() >> 1
+        }
+        nodeStateEventCoalescer.@timerService = Mock(TimerService)
+        return nodeStateEventCoalescer
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.cache
+
+import com.ericsson.oss.itpf.datalayer.dps.persistence.ManagedObject
+import com.ericsson.oss.mediation.fm.impl.ServiceStatisticsBean
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EarlyNotificationQueue
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeState
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeStateCache
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeStatePageLoader
+import com.ericsson.oss.mediation.fm.oradio.ejb.dps.DpsAccess
+import com.ericsson.oss.mediation.fm.oradio.ejb.dps.NetworkElementProjection
+import com.ericsson.oss.mediation.fm.oradio.ejb.fdn.NetworkElementNamePool
+import spock.lang.Specification
+
+import javax.ejb.TimerService
+import java.util.function.Consumer
+
+/**
+ * Warm-up of the NodeStateCache from a fake DpsAccess holding a large synthetic topology
+ */
+class NodeStateCacheWarmUpSpec extends Specification {
+
+    private static final int NODE_COUNT = 60_000
+    private static final int PAGE_SIZE = 5000
+
+    TimerService timerService = Mock()
+
+    EarlyNotificationQueue earlyNotificationQueue = Mock()
+
+    def "The warm-up should be scheduled in the background at startup"() {
+        given: "the NodeStateCache"
+        def dpsAccess = new SyntheticTopology(NODE_COUNT)
+        def nodeStateCache = createNodeStateCache(dpsAccess, new ServiceStatisticsBean())
+
+        when: "the bean is started"
+        nodeStateCache.initialiseNodeStateCache()
+
+        then: "a non persistent timer is scheduled to run straight away and DPS is not read yet"
+        1 * timerService.createSingleActionTimer(0L, { !it.isPersistent() })
+        dpsAccess.reads == 0
+        and: "the cache is not ready"
+        !nodeStateCache.isReady()
+        nodeStateCache.getWarmUpState() == NodeStateCache.WarmUpState.WARMING_UP
+    }
+
+    def "The NodeStateCache should be warmed up from every page of a large topology"() {
+        given: "a topology of 60000 ORadio nodes, every third without an FmAlarmSupervision child and every tenth inactive"
+        def dpsAccess = new SyntheticTopology(NODE_COUNT)
+        def serviceStatistics = new ServiceStatisticsBean()
+        def nodeStateCache = createNodeStateCache(dpsAccess, serviceStatistics)
+
+        when: "the cache is warmed up"
+        nodeStateCache.warmUp(null)
+
+        then: "DPS is read once, in pages"
+        dpsAccess.reads == 1
+        dpsAccess.pages == NODE_COUNT.intdiv(PAGE_SIZE)
+        and: "every node is in the cache"
+        nodeStateCache.getSize() == NODE_COUNT
+        nodeStateCache.getOssPrefix("NetworkElement=ORadio0") == "SubNetwork=ENM,MeContext=ORadio0"
+        nodeStateCache.getOssPrefix("NetworkElement=ORadio59999") == "SubNetwork=ENM,MeContext=ORadio59999"
+        and: "the supervision state is taken from the projection"
+        nodeStateCache.isSupervisionActive("NetworkElement=ORadio1")
+        !nodeStateCache.isSupervisionActive("NetworkElement=ORadio10")
+        !nodeStateCache.isSupervisionActive("NetworkElement=ORadio3")
+        nodeStateCache.getNodeState("NetworkElement=ORadio3").getSupervisionState() == null
+        and: "the node count and warm-up time are reported"
+        serviceStatistics.getNodeStateCacheWarmUpNodes() == NODE_COUNT
+        serviceStatistics.getNodeStateCacheWarmUpMillis() >= 0
+        and: "the cache is ready and the held notifications are processed"
+        nodeStateCache.isReady()
+        serviceStatistics.getNodeStateCacheReady() == 1
+        1 * earlyNotificationQueue.replay()
+        and: "the progress of the warm-up is reported"
+        nodeStateCache.getWarmUpStatus().get("state") == "READY"
+        nodeStateCache.getWarmUpStatus().get("nodes") == String.valueOf(NODE_COUNT)
+        nodeStateCache.getWarmUpStatus().get("pagesLoaded") == String.valueOf(NODE_COUNT.intdiv(PAGE_SIZE))
+    }
+
+    def "A node changed by a DPS notification during the warm-up should not be overwritten by the state read from DPS"() {
+        given: "the node has been deactivated by a DPS notification before its page is merged"
+        def dpsAccess = new SyntheticTopology(NODE_COUNT)
+        def nodeStateCache = createNodeStateCache(dpsAccess, new ServiceStatisticsBean())
+        nodeStateCache.@nodeStateCache.put("ORadio1", NodeState.unknown().withSupervisionActive(false))
+
+        when: "the cache is warmed up"
+        nodeStateCache.warmUp(null)
+
+        then: "the state from the notification is kept"
+        !nodeStateCache.isSupervisionActive("NetworkElement=ORadio1")
+        nodeStateCache.isSupervisionActive("NetworkElement=ORadio2")
+    }
+
+    def "A failure to read DPS should leave the NodeStateCache empty and not ready, and the warm-up should be retried"() {
+        given: "DPS can not be read"
+        def dpsAccess = Stub(DpsAccess) {
+            getNetworkElementProjections(_, _, _) >> { throw new IllegalStateException("DPS unavailable") }
+        }
+        def serviceStatistics = new ServiceStatisticsBean()
+        def nodeStateCache = createNodeStateCache(dpsAccess, serviceStatistics)
+
+        when: "the cache is warmed up"
+        nodeStateCache.warmUp(null)
+
+        then: "no exception is thrown and the cache is empty"
+        noExceptionThrown()
+        nodeStateCache.getSize() == 0
+        and: "the cache is not ready and the held notifications are not processed"
+        nodeStateCache.getWarmUpState() == NodeStateCache.WarmUpState.FAILED
+        serviceStatistics.getNodeStateCacheReady() == 0
+        0 * earlyNotificationQueue.replay()
+        and: "the warm-up is retried later"
+        1 * timerService.createSingleActionTimer(30_000L, { !it.isPersistent() })
+    }
+
+    def "An interrupted warm-up should keep the interrupt status of the thread and be retried"() {
+        given: "the read of DPS is interrupted"
+        def dpsAccess = Stub(DpsAccess) {
+            getNetworkElementProjections(_, _, _) >> { throw new InterruptedException("interrupted") }
+        }
+        def nodeStateCache = createNodeStateCache(dpsAccess, new ServiceStatisticsBean())
+
+        when: "the cache is warmed up"
+        nodeStateCache.warmUp(null)
+
+        then: "the interrupt status of the thread is restored"
+        Thread.interrupted()
+        and: "the cache is not ready and the held notifications are not processed"
+        nodeStateCache.getWarmUpState() == NodeStateCache.WarmUpState.FAILED
+        0 * earlyNotificationQueue.replay()
+        and: "the warm-up is retried later"
+        1 * timerService.createSingleActionTimer(30_000L, { !it.isPersistent() })
+    }
+
+    private NodeStateCache createNodeStateCache(final DpsAccess dpsAccess, final ServiceStatisticsBean serviceStatistics) {
+        def networkElementNamePool = new NetworkElementNamePool()
+        def nodeStatePageLoader = new NodeStatePageLoader()
+        nodeStatePageLoader.@networkElementNamePool = networkElementNamePool
+        def nodeStateCache = new NodeStateCache()
+        nodeStateCache.@dpsAccess = dpsAccess
+        nodeStateCache.@nodeStatePageLoader = nodeStatePageLoader
+        nodeStateCache.@networkElementNamePool = networkElementNamePool
+        nodeStateCache.@serviceStatistics = serviceStatistics
+        nodeStateCache.@timerService = timerService
+        nodeStateCache.@earlyNotificationQueue = earlyNotificationQueue
+        return nodeStateCache
+    }
+
+    /**
+     * Generates the NetworkElementProjections page by page, as DPS would hand them over
+     */
+    private static class SyntheticTopology implements DpsAccess {
+
+        private final int nodeCount
+        int reads
+        int pages
+
+        SyntheticTopology(final int nodeCount) {
+            this.nodeCount = nodeCount
+        }
+
+        @Override
+        List<ManagedObject> createRestrictionTypeQuery(String namespace, String type, String restrictionType, String nodeType) {
+            throw new UnsupportedOperationException("The NodeStateCache should not load the ManagedObjects")
+        }
+
+        @Override
+        void getNetworkElementProjections(String nodeType, int pageSize, Consumer<List<NetworkElementProjection>> pageConsumer) {
+            reads++
+            List<NetworkElementProjection> page = new ArrayList<>(pageSize)
+            for (int i = 0; i < nodeCount; i++) {
+                final Boolean active = i % 3 == 0 ? null : i % 10 != 0
+                page.add(new NetworkElementProjection("NetworkElement=ORadio" + i, "SubNetwork=ENM,MeContext=ORadio" + i, active))
+                if (page.size() == pageSize) {
+                    pages++
+                    pageConsumer.accept(page)
+                    page = new ArrayList<>(pageSize)
+                }
+            }
+            if (!page.isEmpty()) {
+                pages++
+                pageConsumer.accept(page)
+            }
+        }
+
+        @Override
+        NetworkElementProjection getNetworkElementProjection(String networkElementFdn, String nodeType) {
+            throw new UnsupportedOperationException("The warm-up should not read single nodes")
+        }
+    }
+}
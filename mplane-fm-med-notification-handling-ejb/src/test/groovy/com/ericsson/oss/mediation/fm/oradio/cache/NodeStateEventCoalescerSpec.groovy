@@ -0,0 +1,168 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.cache
+
+import com.ericsson.oss.itpf.datalayer.dps.notification.event.AttributeChangeData
+import com.ericsson.oss.itpf.datalayer.dps.notification.event.DpsAttributeChangedEvent
+import com.ericsson.oss.itpf.datalayer.dps.notification.event.DpsObjectCreatedEvent
+import com.ericsson.oss.itpf.datalayer.dps.notification.event.DpsObjectDeletedEvent
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean
+import com.ericsson.oss.mediation.fm.impl.ServiceStatisticsBean
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeState
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeStateCache
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeStateChange
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeStateEventCoalescer
+import com.ericsson.oss.mediation.fm.oradio.ejb.fdn.NetworkElementNamePool
+import spock.lang.Specification
+
+import javax.ejb.TimerConfig
+import javax.ejb.TimerService
+
+class NodeStateEventCoalescerSpec extends Specification {
+
+    private static final String OSS_PREFIX = "SubNetwork=ENM,MeContext=ORadio1"
+    private static final String NEW_OSS_PREFIX = "SubNetwork=ENM,SubNetwork=Athlone,MeContext=ORadio1"
+
+    NodeStateCache nodeStateCache = Mock()
+
+    TimerService timerService = Mock()
+
+    ServiceStatisticsBean serviceStatistics = new ServiceStatisticsBean()
+
+    List<List<NodeStateChange>> batches = []
+
+    NodeStateEventCoalescer nodeStateEventCoalescer = new NodeStateEventCoalescer()
+
+    def setup() {
+        nodeStateCache.applyNodeStateChanges(_) >> { batches << new ArrayList<>(it[0]) }
+        nodeStateEventCoalescer.@nodeStateCache = nodeStateCache
+        nodeStateEventCoalescer.@networkElementNamePool = new NetworkElementNamePool()
+        nodeStateEventCoalescer.@serviceStatistics = serviceStatistics
+        nodeStateEventCoalescer.@configurationBean = Stub(ConfigurationBean) {
+            getNodeStateEventMaxBatchSize() >> 3
+            getNodeStateEventMaxDelayMillis() >> 100L
+        }
+        nodeStateEventCoalescer.@timerService = timerService
+    }
+
+    def "A burst of DPS events for the same node should be applied to the NodeStateCache once"() {
+        when: "supervision of the node is toggled 10 times"
+        (1..10).each { nodeStateEventCoalescer.onSupervisionStateChange(createSupervisionEvent("ORadio1", it % 2 == 0)) }
+
+        then: "a single timer is scheduled and nothing is applied yet"
+        1 * timerService.createSingleActionTimer(100L, { !((TimerConfig) it).isPersistent() })
+        batches.isEmpty()
+        nodeStateEventCoalescer.getPendingCount() == 1
+
+        when: "the maximum delay elapses"
+        nodeStateEventCoalescer.maxDelayElapsed(null)
+
+        then: "the last supervision state is applied in one batch"
+        batches.size() == 1
+        batches[0].size() == 1
+        batches[0][0].applyTo(null) == NodeState.unknown().withSupervisionActive(true)
+        nodeStateEventCoalescer.getPendingCount() == 0
+        and: "the events are counted"
+        serviceStatistics.getNodeStateEvents() == 10
+        serviceStatistics.getCoalescedNodeStateEvents() == 9
+        serviceStatistics.getNodeStateEventBatches() == 1
+        serviceStatistics.getNodeStateEventBatchNodes() == 1
+    }
+
+    def "A node deleted and created again should be replaced"() {
+        given: "the node is in the NodeStateCache"
+        def current = NodeState.unknown().withSupervisionActive(true).withOssPrefix(OSS_PREFIX)
+
+        when: "the node is deleted and created again with a new ossPrefix"
+        nodeStateEventCoalescer.onNodeDeletedEvent(createDeletedEvent("ORadio1"))
+        nodeStateEventCoalescer.onNodeCreatedEvent(createCreatedEvent("ORadio1", "ORadio", NEW_OSS_PREFIX))
+        nodeStateEventCoalescer.maxDelayElapsed(null)
+
+        then: "the previous supervision state is dropped and the new ossPrefix is set"
+        batches.size() == 1
+        batches[0][0].isCreated()
+        !batches[0][0].isDeleted()
+        batches[0][0].applyTo(current) == NodeState.unknown().withOssPrefix(NEW_OSS_PREFIX)
+    }
+
+    def "A node created and then deleted should only be deleted"() {
+        when: "the node is created, supervised and deleted"
+        nodeStateEventCoalescer.onNodeCreatedEvent(createCreatedEvent("ORadio1", "ORadio", OSS_PREFIX))
+        nodeStateEventCoalescer.onSupervisionStateChange(createSupervisionEvent("ORadio1", true))
+        nodeStateEventCoalescer.onNodeDeletedEvent(createDeletedEvent("ORadio1"))
+        nodeStateEventCoalescer.maxDelayElapsed(null)
+
+        then: "only the delete is applied"
+        batches.size() == 1
+        batches[0][0].isDeleted()
+        batches[0][0].applyTo(NodeState.unknown().withOssPrefix(OSS_PREFIX)) == null
+    }
+
+    def "A created node which is not an ORadio node should be ignored"() {
+        when: "a RadioNode is created"
+        nodeStateEventCoalescer.onNodeCreatedEvent(createCreatedEvent("RadioNode1", "RadioNode", OSS_PREFIX))
+
+        then: "nothing is pending"
+        nodeStateEventCoalescer.getPendingCount() == 0
+        0 * timerService._
+        serviceStatistics.getNodeStateEvents() == 0
+    }
+
+    def "The pending changes should be applied in batches as soon as the maximum batch size of nodes have changed"() {
+        when: "7 nodes are created"
+        (1..7).each { nodeStateEventCoalescer.onNodeCreatedEvent(createCreatedEvent("ORadio" + it, "ORadio", OSS_PREFIX)) }
+
+        then: "2 full batches are applied and the last node waits for the timer"
+        batches*.size() == [3, 3]
+        nodeStateEventCoalescer.getPendingCount() == 1
+        (1.._) * timerService.createSingleActionTimer(100L, _)
+
+        when: "the maximum delay elapses"
+        nodeStateEventCoalescer.maxDelayElapsed(null)
+
+        then: "every node has been applied once"
+        batches*.size() == [3, 3, 1]
+        batches.flatten()*.getNetworkElementName().toSet().size() == 7
+    }
+
+    def "When the timer can not be scheduled the pending changes should be applied straight away"() {
+        given: "the timer service fails"
+        timerService.createSingleActionTimer(_, _) >> { throw new IllegalStateException("no timer") }
+
+        when: "a node is deleted"
+        nodeStateEventCoalescer.onNodeDeletedEvent(createDeletedEvent("ORadio1"))
+
+        then: "the delete is applied"
+        batches.size() == 1
+        nodeStateEventCoalescer.getPendingCount() == 0
+    }
+
+    private static DpsAttributeChangedEvent createSupervisionEvent(final String networkElementName, final boolean active) {
+        def changeData = new AttributeChangeData("active", !active, active, null, null)
+        return new DpsAttributeChangedEvent("OSS_NE_FM_DEF", "FmAlarmSupervision", "1.0.0", 1L,
+                "NetworkElement=" + networkElementName + ",FmAlarmSupervision=1", "Live", [changeData])
+    }
+
+    private static DpsObjectCreatedEvent createCreatedEvent(final String networkElementName, final String neType, final String ossPrefix) {
+        final Map<String, Object> createdData = ["ossPrefix": ossPrefix, "neType": neType]
+        return new DpsObjectCreatedEvent("OSS_NE_DEF", "NetworkElement", "1.0.0", 1L, "NetworkElement=" + networkElementName, "Live", true,
+                new HashMap<>(createdData))
+    }
+
+    private static DpsObjectDeletedEvent createDeletedEvent(final String networkElementName) {
+        return new DpsObjectDeletedEvent("OSS_NE_DEF", "NetworkElement", "1.0.0", 1L, "NetworkElement=" + networkElementName, "Live", true,
+                new HashMap<String, Object>())
+    }
+}
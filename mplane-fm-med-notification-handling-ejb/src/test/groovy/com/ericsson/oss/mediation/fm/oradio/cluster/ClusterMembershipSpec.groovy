@@ -0,0 +1,65 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.cluster
+
+import com.ericsson.oss.mediation.fm.oradio.ejb.cluster.ClusterMembership
+import spock.lang.Specification
+
+class ClusterMembershipSpec extends Specification{
+
+    private static final def NODE_NAMES = (0..<1000).collect { "NetworkElement=ORadio" + it }
+
+    def "Until the first membership change the local instance should own every node"(){
+        given:"a new membership"
+        def membership = new ClusterMembership("node1")
+        expect:"the local instance is the only member and owns every node"
+        membership.getMembers() == ["node1"]
+        NODE_NAMES.every { membership.isLocalOwner(it) }
+    }
+
+    def "Every member should agree on the owner of a node whatever order the members are in"(){
+        given:"two members seeing the members in a different order"
+        def membership1 = new ClusterMembership("node1")
+        def membership2 = new ClusterMembership("node2")
+        membership1.updateMembers(["node1", "node2", "node3"])
+        membership2.updateMembers(["node3", "node2", "node1"])
+        expect:"they agree on every owner"
+        NODE_NAMES.every { membership1.ownerOf(it) == membership2.ownerOf(it) }
+        and:"every member owns a share of the nodes"
+        NODE_NAMES.countBy { membership1.ownerOf(it) }.values().every { it > 200 }
+    }
+
+    def "When a member leaves only the nodes it owned should move"(){
+        given:"three members"
+        def membership = new ClusterMembership("node1")
+        membership.updateMembers(["node1", "node2", "node3"])
+        def ownersBefore = NODE_NAMES.collectEntries { [(it): membership.ownerOf(it)] }
+        when:"the third member leaves"
+        membership.updateMembers(["node1", "node2"])
+        then:"the nodes of the other members keep their owner"
+        NODE_NAMES.findAll { ownersBefore[it] != "node3" }.every { membership.ownerOf(it) == ownersBefore[it] }
+        !membership.isMember("node3")
+    }
+
+    def "The local instance should always be a member"(){
+        given:"a membership"
+        def membership = new ClusterMembership("node1")
+        when:"the members are updated without the local instance"
+        membership.updateMembers(["node2"])
+        then:"the local instance is still a member"
+        membership.isMember("node1")
+        membership.isMember("node2")
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.dispatch
+
+import com.ericsson.cds.cdi.support.rule.MockedImplementation
+import com.ericsson.cds.cdi.support.rule.ObjectUnderTest
+import com.ericsson.cds.cdi.support.spock.SharedCdiSpecification
+import com.ericsson.oss.mediation.fm.impl.ServiceStatisticsBean
+import com.ericsson.oss.mediation.fm.oradio.api.MPlaneAlarmService
+import com.ericsson.oss.mediation.fm.oradio.ejb.dispatch.AlarmBatchSender
+import com.ericsson.oss.mediation.fm.oradio.ejb.dispatch.AlarmDispatcher
+import com.ericsson.oss.mediation.translator.model.EventNotification
+import org.slf4j.Logger
+import spock.lang.Shared
+
+class AlarmBatchSenderSpec extends SharedCdiSpecification{
+
+    @ObjectUnderTest
+    @Shared
+    AlarmBatchSender alarmBatchSender
+
+    @MockedImplementation
+    MPlaneAlarmService mplaneAlarmService
+
+    @MockedImplementation
+    ServiceStatisticsBean serviceStatistics
+
+    @MockedImplementation
+    AlarmDispatcher alarmDispatcher
+
+    @MockedImplementation
+    Logger log;
+
+    def "When a batch of one alarm is sent then it is sent on its own"(){
+        given: "a batch of one alarm"
+        def notification = new EventNotification()
+        when: "the batch is sent"
+        alarmBatchSender.sendBatch([notification])
+        then: "the alarm is sent to APS on its own"
+        1 * mplaneAlarmService.sendAlarm(notification)
+        0 * mplaneAlarmService.sendAlarms(_)
+    }
+
+    def "When a batch of alarms is sent then they are sent in one call"(){
+        given: "a batch of 3 alarms"
+        def batch = (1..3).collect { new EventNotification() }
+        when: "the batch is sent"
+        alarmBatchSender.sendBatch(batch)
+        then: "the alarms are sent to APS in one call"
+        1 * mplaneAlarmService.sendAlarms(batch)
+        0 * mplaneAlarmService.sendAlarm(_)
+        and: "the alarms are counted as sent"
+        1 * serviceStatistics.addSentNotifications(3, false, _ as Long)
+    }
+
+    def "When APS fails then the exception is not thrown to the container"(){
+        given: "APS is failing"
+        mplaneAlarmService.sendAlarms(_) >> { throw new IllegalStateException("APS down") }
+        mplaneAlarmService.sendAlarm(_) >> { throw new IllegalStateException("APS down") }
+        when: "a batch is sent"
+        alarmBatchSender.sendBatch([new EventNotification(), new EventNotification()])
+        then: "the failure is logged"
+        noExceptionThrown()
+        and: "each alarm is counted as failed"
+        2 * serviceStatistics.addSentNotifications(1, true, _ as Long)
+        0 * serviceStatistics.addSentNotifications(_, false, _)
+    }
+
+    def "When APS rejects a batch then its alarms are sent one at a time"(){
+        given: "APS rejects the batch and one of its alarms"
+        def good = new EventNotification()
+        def bad = new EventNotification()
+        mplaneAlarmService.sendAlarms(_) >> { throw new IllegalStateException("rejected") }
+        when: "the batch is sent"
+        alarmBatchSender.sendBatch([good, bad, good])
+        then: "each alarm is sent on its own"
+        2 * mplaneAlarmService.sendAlarm(good)
+        1 * mplaneAlarmService.sendAlarm(bad) >> { throw new IllegalStateException("rejected") }
+        and: "only the rejected alarm is counted as failed"
+        2 * serviceStatistics.addSentNotifications(1, false, _ as Long)
+        1 * serviceStatistics.addSentNotifications(1, true, _ as Long)
+    }
+
+    def "The AlarmDispatcher should only be told a batch has been sent once its alarms have been sent again"(){
+        given: "APS rejects the batch"
+        mplaneAlarmService.sendAlarms(_) >> { throw new IllegalStateException("rejected") }
+        when: "a batch is sent"
+        alarmBatchSender.sendBatch([new EventNotification(), new EventNotification()])
+        then: "the alarms are sent again one at a time"
+        2 * mplaneAlarmService.sendAlarm(_)
+        then: "the AlarmDispatcher is told the batch has been sent"
+        1 * alarmDispatcher.batchSent()
+    }
+}
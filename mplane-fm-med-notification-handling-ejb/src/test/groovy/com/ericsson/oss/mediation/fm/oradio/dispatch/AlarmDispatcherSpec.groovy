@@ -0,0 +1,166 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.dispatch
+
+import com.ericsson.cds.cdi.support.rule.MockedImplementation
+import com.ericsson.cds.cdi.support.rule.ObjectUnderTest
+import com.ericsson.cds.cdi.support.spock.SharedCdiSpecification
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean
+import com.ericsson.oss.mediation.fm.oradio.ejb.dispatch.AlarmBatchSender
+import com.ericsson.oss.mediation.fm.oradio.ejb.dispatch.AlarmDispatcher
+import com.ericsson.oss.mediation.translator.model.EventNotification
+import org.slf4j.Logger
+
+import javax.ejb.TimerService
+
+class AlarmDispatcherSpec extends SharedCdiSpecification{
+
+    private static final int MAX_BATCH_SIZE = 3
+    private static final long MAX_DELAY_MILLIS = 20L
+
+    @ObjectUnderTest
+    AlarmDispatcher alarmDispatcher
+
+    @MockedImplementation
+    AlarmBatchSender alarmBatchSender
+
+    @MockedImplementation
+    ConfigurationBean configurationBean
+
+    @MockedImplementation
+    TimerService timerService
+
+    @MockedImplementation
+    Logger log;
+
+    def setup(){
+        configurationBean.getAlarmDispatchMaxBatchSize() >> MAX_BATCH_SIZE
+        configurationBean.getAlarmDispatchMaxDelayMillis() >> MAX_DELAY_MILLIS
+    }
+
+    def "When less than a batch is dispatched then a single timer is scheduled and nothing is sent yet"(){
+        when: "2 alarms are dispatched"
+        alarmDispatcher.dispatch(createEventNotification("1"))
+        alarmDispatcher.dispatch(createEventNotification("2"))
+        then: "one non persistent timer is scheduled for the maximum delay"
+        1 * timerService.createSingleActionTimer(MAX_DELAY_MILLIS, { !it.isPersistent() })
+        0 * alarmBatchSender.sendBatch(_)
+        alarmDispatcher.getPendingCount() == 2
+    }
+
+    def "When the maximum delay elapses then the queued alarms are sent as one batch"(){
+        given: "2 alarms are queued"
+        alarmDispatcher.dispatch(createEventNotification("1"))
+        alarmDispatcher.dispatch(createEventNotification("2"))
+        when: "the timer elapses"
+        alarmDispatcher.maxDelayElapsed(null)
+        then: "the alarms are sent in the order they were dispatched"
+        1 * alarmBatchSender.sendBatch({ it*.getExternalEventId() == ["1", "2"] })
+        alarmDispatcher.getPendingCount() == 0
+        when: "the batch has been sent and another alarm is dispatched"
+        alarmDispatcher.batchSent()
+        alarmDispatcher.dispatch(createEventNotification("3"))
+        then: "a new timer is scheduled"
+        1 * timerService.createSingleActionTimer(MAX_DELAY_MILLIS, _)
+    }
+
+    def "When a full batch is dispatched then it is sent straight away and the rest once it has been sent"(){
+        when: "7 alarms are dispatched at once"
+        alarmDispatcher.dispatchAll((1..7).collect { createEventNotification(it.toString()) })
+        then: "the first full batch is sent"
+        1 * alarmBatchSender.sendBatch({ it*.getExternalEventId() == ["1", "2", "3"] })
+        and: "no timer is scheduled while a batch is in flight"
+        0 * timerService.createSingleActionTimer(_, _)
+        alarmDispatcher.getPendingCount() == 4
+        when: "the first batch has been sent"
+        alarmDispatcher.batchSent()
+        then: "the next full batch is sent"
+        1 * alarmBatchSender.sendBatch({ it*.getExternalEventId() == ["4", "5", "6"] })
+        when: "the second batch has been sent"
+        alarmDispatcher.batchSent()
+        then: "the remaining alarm is sent without waiting for the timer"
+        1 * alarmBatchSender.sendBatch({ it*.getExternalEventId() == ["7"] })
+        alarmDispatcher.getPendingCount() == 0
+        when: "the last batch has been sent"
+        alarmDispatcher.batchSent()
+        then: "nothing is left to send"
+        0 * alarmBatchSender.sendBatch(_)
+    }
+
+    def "When only full batches are dispatched then no timer is scheduled"(){
+        when: "2 full batches of alarms are dispatched at once and the first one is sent"
+        alarmDispatcher.dispatchAll((1..2 * MAX_BATCH_SIZE).collect { createEventNotification(it.toString()) })
+        alarmDispatcher.batchSent()
+        then: "the batches are sent one after the other"
+        2 * alarmBatchSender.sendBatch({ it.size() == MAX_BATCH_SIZE })
+        and: "nothing is left for a timer"
+        0 * timerService.createSingleActionTimer(_, _)
+        alarmDispatcher.getPendingCount() == 0
+    }
+
+    def "A batch should not be sent while the previous one is in flight so an alarm and its clear are sent in order"(){
+        given: "a batch holding an alarm is in flight"
+        alarmDispatcher.dispatchAll([createEventNotification("1"), createEventNotification("2"), createEventNotification("3")])
+        when: "a full batch holding the clear of the alarm is dispatched"
+        alarmDispatcher.dispatchAll([createEventNotification("1"), createEventNotification("4"), createEventNotification("5")])
+        and: "the timer elapses while the first batch is still in flight"
+        alarmDispatcher.maxDelayElapsed(null)
+        then: "the batch of the clear is not sent"
+        0 * alarmBatchSender.sendBatch(_)
+        alarmDispatcher.getPendingCount() == 3
+        when: "the first batch has been sent"
+        alarmDispatcher.batchSent()
+        then: "the batch of the clear is sent"
+        1 * alarmBatchSender.sendBatch({ it*.getExternalEventId() == ["1", "4", "5"] })
+        alarmDispatcher.getPendingCount() == 0
+    }
+
+    def "When the AlarmBatchSender can not be called then the next batch is not held up"(){
+        given: "the first call to the AlarmBatchSender fails"
+        alarmBatchSender.sendBatch(_) >> { throw new IllegalStateException("not available") } >> null
+        when: "a full batch is dispatched"
+        alarmDispatcher.dispatchAll((1..MAX_BATCH_SIZE).collect { createEventNotification(it.toString()) })
+        then: "the failure is thrown to the caller"
+        thrown(IllegalStateException)
+        when: "another full batch is dispatched"
+        alarmDispatcher.dispatchAll((1..MAX_BATCH_SIZE).collect { createEventNotification(it.toString()) })
+        then: "it is sent"
+        alarmDispatcher.getPendingCount() == 0
+    }
+
+    def "When the timer can not be created then the queued alarms are sent straight away"(){
+        given: "the timer service is not available"
+        timerService.createSingleActionTimer(_, _) >> { throw new IllegalStateException("not available") }
+        when: "an alarm is dispatched"
+        alarmDispatcher.dispatch(createEventNotification("1"))
+        then: "it is sent without waiting"
+        1 * alarmBatchSender.sendBatch({ it.size() == 1 })
+        alarmDispatcher.getPendingCount() == 0
+    }
+
+    def "When an empty list is dispatched then nothing happens"(){
+        when: "an empty list is dispatched"
+        alarmDispatcher.dispatchAll([])
+        then: "no timer is scheduled"
+        0 * timerService.createSingleActionTimer(_, _)
+        0 * alarmBatchSender.sendBatch(_)
+    }
+
+    private static EventNotification createEventNotification(final String alarmId) {
+        EventNotification notif = new EventNotification()
+        notif.setExternalEventId(alarmId)
+        return notif
+    }
+}
@@ -16,6 +16,15 @@ package com.ericsson.oss.mediation.fm.oradio.dps
 
 import com.ericsson.cds.cdi.support.rule.ObjectUnderTest
 import com.ericsson.cds.cdi.support.spock.SharedCdiSpecification
+import com.ericsson.oss.itpf.datalayer.dps.DataBucket
+import com.ericsson.oss.itpf.datalayer.dps.DataPersistenceService
+import com.ericsson.oss.itpf.datalayer.dps.query.ObjectField
+import com.ericsson.oss.itpf.datalayer.dps.query.Query
+import com.ericsson.oss.itpf.datalayer.dps.query.QueryBuilder
+import com.ericsson.oss.itpf.datalayer.dps.query.QueryExecutor
+import com.ericsson.oss.itpf.datalayer.dps.query.Restriction
+import com.ericsson.oss.itpf.datalayer.dps.query.TypeRestrictionBuilder
+import com.ericsson.oss.itpf.datalayer.dps.query.projection.Projection
 import com.ericsson.oss.itpf.datalayer.dps.stub.RuntimeConfigurableDps
 import com.ericsson.oss.mediation.fm.oradio.ejb.dps.CdiDpsAccessBean
 import spock.lang.Shared
@@ -30,6 +39,7 @@ class CdiDpsAccessBeanSpec extends SharedCdiSpecification {
     private static final def DPS = "dps"
     private static final def TARGET = "target"
     private static final def NAME = "name"
+    private static final def OSS_PREFIX = "SubNetwork=ENM,MeContext=TestORadio"
 
     @Shared
     private RuntimeConfigurableDps configurableDps
@@ -58,6 +68,125 @@ class CdiDpsAccessBeanSpec extends SharedCdiSpecification {
             result[0].getAttribute("neType") == ORADIO_NE_TYPE
     }
 
+    def "getNetworkElementProjections returns the fdn, ossPrefix and FmAlarmSupervision active attribute of each NetworkElement in pages"() {
+        given:
+            def pages = []
+
+        when: "getNetworkElementProjections is called"
+            cdiDpsAccessBean.getNetworkElementProjections(ORADIO_NE_TYPE, 100, { page -> pages.add(page) })
+
+        then: "the NetworkElement is in a single page"
+            pages.size() == 1
+            pages[0].size() == 1
+        and: "the projection holds the attributes of the NetworkElement and its FmAlarmSupervision child"
+            pages[0][0].getFdn() == "NetworkElement=TestORadio"
+            pages[0][0].getOssPrefix() == OSS_PREFIX
+            pages[0][0].getFmAlarmSupervisionActive() == true
+    }
+
+    def "getNetworkElementProjections reads each page of NetworkElements and only the FmAlarmSupervision MOs of the page"() {
+        given: "3 NetworkElements of another type, one of which has no FmAlarmSupervision child"
+            def pages = []
+            (1..3).each {
+                configurableDps.addManagedObject()
+                        .withFdn("NetworkElement=Paged" + it)
+                        .namespace("OSS_NE_DEF")
+                        .type("NetworkElement")
+                        .addAttribute("neType", "PagedType")
+                        .build()
+            }
+            [1, 2].each {
+                configurableDps.addManagedObject()
+                        .withFdn("NetworkElement=Paged" + it + ",FmAlarmSupervision=1")
+                        .namespace("OSS_NE_FM_DEF")
+                        .type("FmAlarmSupervision")
+                        .addAttribute("active", it == 1)
+                        .build()
+            }
+
+        when: "getNetworkElementProjections is called with pages of 2"
+            cdiDpsAccessBean.getNetworkElementProjections("PagedType", 2, { page -> pages.add(page) })
+
+        then: "the NetworkElements are in 2 pages"
+            pages*.size() == [2, 1]
+        and: "each holds the active attribute of its own FmAlarmSupervision child"
+            pages.flatten().collectEntries { [(it.getFdn()): it.getFmAlarmSupervisionActive()] } ==
+                    ["NetworkElement=Paged1": true, "NetworkElement=Paged2": false, "NetworkElement=Paged3": null]
+    }
+
+    def "getNetworkElementProjections does not call the consumer when there are no NetworkElements of the type"() {
+        given:
+            def pages = []
+
+        when: "getNetworkElementProjections is called for a type without NetworkElements"
+            cdiDpsAccessBean.getNetworkElementProjections("RadioNode", 100, { page -> pages.add(page) })
+
+        then: "there are no pages"
+            pages.isEmpty()
+    }
+
+    def "getNetworkElementProjections reads the ids as single values and restricts at most 1000 ids and fdns per query"() {
+        given: "a dps holding 2500 NetworkElements, the projection of the ids returns the ids themselves as the dps does"
+            def pages = []
+            def restrictedValues = []
+            def restrictedField
+            def restricted
+            def restrictionBuilder = Mock(TypeRestrictionBuilder)
+            restrictionBuilder.equalTo(_, _) >> Stub(Restriction)
+            restrictionBuilder.'in'(_ as ObjectField, _ as Object[]) >> { ObjectField field, Object[] values ->
+                restrictedField = field
+                restricted = values
+                restrictedValues.add(values.length)
+                return Stub(Restriction)
+            }
+            def queryBuilder = Stub(QueryBuilder)
+            queryBuilder.createTypeQuery(_, _) >> { Stub(Query) { getRestrictionBuilder() >> restrictionBuilder } }
+            def ids = (1L..2500L).toList()
+            def queryExecutor = Stub(QueryExecutor)
+            queryExecutor.executeProjection(_ as Query, _ as Projection) >> ids
+            queryExecutor.executeProjection(_ as Query, _ as Projection, _ as Projection) >> {
+                return restrictedField == ObjectField.PO_ID ? restricted.collect { ["NetworkElement=" + it, OSS_PREFIX] as Object[] }
+                        : restricted.collect { [it, true] as Object[] }
+            }
+            def dataBucket = Stub(DataBucket)
+            dataBucket.getQueryExecutor() >> queryExecutor
+            def dps = Stub(DataPersistenceService)
+            dps.getQueryBuilder() >> queryBuilder
+            dps.getLiveBucket() >> dataBucket
+            def dpsAccessBean = new CdiDpsAccessBean()
+            dpsAccessBean.@dps = dps
+
+        when: "getNetworkElementProjections is called with a page of 5000"
+            dpsAccessBean.getNetworkElementProjections(ORADIO_NE_TYPE, 5000, { page -> pages.add(page) })
+
+        then: "the ids and the fdns of the page are each restricted in batches of at most 1000"
+            restrictedValues == [1000, 1000, 500, 1000, 1000, 500]
+        and: "every NetworkElement of the page is read with its FmAlarmSupervision"
+            pages*.size() == [2500]
+            pages[0]*.getFdn() == ids.collect { "NetworkElement=" + it }
+            pages[0].every { it.getOssPrefix() == OSS_PREFIX && it.getFmAlarmSupervisionActive() }
+    }
+
+    def "getNetworkElementProjection returns the fdn, ossPrefix and FmAlarmSupervision active attribute of a single NetworkElement"() {
+        when: "getNetworkElementProjection is called for the NetworkElement"
+            def projection = cdiDpsAccessBean.getNetworkElementProjection("NetworkElement=TestORadio", ORADIO_NE_TYPE)
+
+        then: "the projection holds the attributes of the NetworkElement and its FmAlarmSupervision child"
+            projection.getFdn() == "NetworkElement=TestORadio"
+            projection.getOssPrefix() == OSS_PREFIX
+            projection.getFmAlarmSupervisionActive() == true
+    }
+
+    def "getNetworkElementProjection returns null when the NetworkElement does not exist or is of another type"() {
+        expect:
+            cdiDpsAccessBean.getNetworkElementProjection(fdn, neType) == null
+
+        where:
+            fdn                          | neType
+            "NetworkElement=UnknownNode" | ORADIO_NE_TYPE
+            "NetworkElement=TestORadio"  | "RadioNode"
+    }
+
     def createExistingMosInDb() {
         // Add the CI tree for an existing node
         def existingNetworkElement = configurableDps.addManagedObject()
@@ -65,6 +194,13 @@ class CdiDpsAccessBeanSpec extends SharedCdiSpecification {
                 .namespace("OSS_NE_DEF")
                 .type("NetworkElement")
                 .addAttribute("neType","ORadio")
+                .addAttribute("ossPrefix", OSS_PREFIX)
+                .build()
+        configurableDps.addManagedObject()
+                .withFdn("NetworkElement=TestORadio,FmAlarmSupervision=1")
+                .namespace("OSS_NE_FM_DEF")
+                .type("FmAlarmSupervision")
+                .addAttribute("active", true)
                 .build()
     }
 
@@ -0,0 +1,96 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.fdn
+
+import com.ericsson.oss.mediation.fm.oradio.benchmark.Benchmark
+import com.ericsson.oss.mediation.fm.oradio.ejb.fdn.NetworkElementNamePool
+import groovy.transform.CompileStatic
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+
+import java.util.function.Function
+import java.util.regex.Matcher
+import java.util.regex.Pattern
+
+/**
+ * Compares the time and the bytes allocated to find the NetworkElement name of an FmAlarmSupervision fdn with the NetworkElementNamePool,
+ * with the substring and regex parsing it replaced. Only run when the benchmark system property is set,
+ * e.g. mvn test -Dbenchmark -Dtest=FdnParsingBenchmarkSpec
+ */
+@IgnoreIf({ Benchmark.isDisabled() })
+class FdnParsingBenchmarkSpec extends Specification{
+
+    private static final int NODE_COUNT = 10_000
+    private static final int OPERATIONS = 1_000_000
+    private static final String NETWORK_ELEMENT_FDN = "NetworkElement="
+    // The pattern the fdns were parsed with before the Fdns utility
+    private static final Pattern NEID_PATTERN = Pattern.compile(".*?(NetworkElement)=([A-Za-z0-9-._:/?%&!\\s]*)")
+
+    def "Finding the NetworkElement name with the NetworkElementNamePool should not allocate"(){
+        given:"the FmAlarmSupervision fdns of 10000 nodes, whose names are in the pool"
+        def fdns = (0..<NODE_COUNT).collect { "NetworkElement=ORadio" + it + ",FmAlarmSupervision=1" }
+        def pool = new NetworkElementNamePool(NODE_COUNT, NODE_COUNT)
+        fdns.each { pool.internFromFdn(it) }
+        Map<String, Function<String, String>> parsers = [substring: new SubstringParser(), regex: new RegexParser(), pool: new PoolParser(pool)]
+
+        when:"the names are found with each parser, a few times to warm up"
+        def results = parsers.collectEntries { name, parser -> [(name): Benchmark.warmedUp { Benchmark.measure(OPERATIONS, fdns, parser) }] }
+        results.each { name, result -> Benchmark.report("FDN parsing ${name}: ${result}") }
+
+        then:"every parser finds the same name and the pool does not allocate"
+        parsers.values().every { it.apply(fdns[42]) == "ORadio42" }
+        results.pool.bytesPerOperation < 1
+        results.pool.bytesPerOperation < results.substring.bytesPerOperation
+        results.pool.bytesPerOperation < results.regex.bytesPerOperation
+    }
+
+    /**
+     * As the NetworkElement name of an FmAlarmSupervision fdn was found before the Fdns utility
+     */
+    @CompileStatic
+    private static class SubstringParser implements Function<String, String> {
+
+        @Override
+        String apply(final String fdn) {
+            final String networkElementFdn = fdn.substring(0, fdn.indexOf(','))
+            return networkElementFdn.startsWith(NETWORK_ELEMENT_FDN) ? networkElementFdn.substring(NETWORK_ELEMENT_FDN.length()) : networkElementFdn
+        }
+    }
+
+    @CompileStatic
+    private static class RegexParser implements Function<String, String> {
+
+        @Override
+        String apply(final String fdn) {
+            final Matcher matcher = NEID_PATTERN.matcher(fdn)
+            return matcher.lookingAt() ? matcher.group(2) : fdn
+        }
+    }
+
+    @CompileStatic
+    private static class PoolParser implements Function<String, String> {
+
+        private final NetworkElementNamePool pool
+
+        PoolParser(final NetworkElementNamePool pool) {
+            this.pool = pool
+        }
+
+        @Override
+        String apply(final String fdn) {
+            return pool.internFromFdn(fdn)
+        }
+    }
+}
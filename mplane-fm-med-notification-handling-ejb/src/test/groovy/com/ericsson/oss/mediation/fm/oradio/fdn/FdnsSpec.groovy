@@ -0,0 +1,80 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.fdn
+
+import com.ericsson.oss.mediation.fm.oradio.ejb.fdn.Fdns
+import com.ericsson.oss.mediation.fm.oradio.ejb.fdn.NetworkElementNamePool
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class FdnsSpec extends Specification{
+
+    @Unroll
+    def "The NetworkElement name of #fdn should be #networkElementName"(){
+        expect:
+        Fdns.getNetworkElementName(fdn) == networkElementName
+        where:
+        fdn                                                    || networkElementName
+        "NetworkElement=ORadio1"                               || "ORadio1"
+        "NetworkElement=ORadio1,FmAlarmSupervision=1"          || "ORadio1"
+        "SubNetwork=ENM,NetworkElement=ORadio1"                || "ORadio1"
+        "SubNetwork=NetworkElement,NetworkElement=ORadio1,A=1" || "ORadio1"
+        "MeContext=ORadio1"                                    || "MeContext=ORadio1"
+        "ORadio1"                                              || "ORadio1"
+    }
+
+    def "The fdn of a NetworkElement should be built from its name"(){
+        expect:
+        Fdns.toNetworkElementFdn("ORadio1") == "NetworkElement=ORadio1"
+    }
+
+    def "The same NetworkElement should be represented by one canonical name"(){
+        given: "a new pool"
+        def pool = new NetworkElementNamePool(16, 100)
+        when: "the name is interned from an fdn"
+        def name = pool.internFromFdn("NetworkElement=ORadio1,FmAlarmSupervision=1")
+        then: "every copy of the name and every fdn holding it resolve to the same instance"
+        name == "ORadio1"
+        pool.intern(new String("ORadio1")).is(name)
+        pool.internFromFdn("NetworkElement=ORadio1").is(name)
+        pool.getNetworkElementName("SubNetwork=ENM,NetworkElement=ORadio1").is(name)
+        pool.size() == 1
+        and: "the fdn of the name is built once"
+        pool.getNetworkElementFdn(name) == "NetworkElement=ORadio1"
+        pool.getNetworkElementFdn(new String("ORadio1")).is(pool.getNetworkElementFdn(name))
+    }
+
+    def "Looking up a NetworkElement which is not in the pool should not add it"(){
+        given: "a new pool"
+        def pool = new NetworkElementNamePool(16, 100)
+        expect: "the name is returned but not added"
+        pool.getNetworkElementName("NetworkElement=ORadioUnknown") == "ORadioUnknown"
+        pool.size() == 0
+        pool.intern(null) == null
+    }
+
+    def "The pool should grow past its expected size and stop adding names at its maximum size"(){
+        given: "a pool sized for 16 names which holds at most 1000"
+        def pool = new NetworkElementNamePool(16, 1000)
+        when: "2000 names are interned"
+        def names = (0..<2000).collect { pool.intern("ORadio" + it) }
+        then: "the first 1000 names are canonical"
+        pool.size() == 1000
+        pool.intern(new String("ORadio999")).is(names[999])
+        and: "the names past the maximum are still returned"
+        pool.intern("ORadio1999") == "ORadio1999"
+        !pool.intern(new String("ORadio1999")).is(names[1999])
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.journal
+
+import com.ericsson.oss.mediation.fm.oradio.ejb.journal.EventNotificationInputStream
+import com.ericsson.oss.mediation.translator.model.EventNotification
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class EventNotificationInputStreamSpec extends Specification {
+
+    def "An EventNotification should be read back"() {
+        given: "a serialized EventNotification"
+        def eventNotification = new EventNotification()
+        eventNotification.setExternalEventId("1")
+        eventNotification.setPerceivedSeverity("CRITICAL")
+        eventNotification.addAdditionalAttribute("fdn", "NetworkElement=ORadio1")
+        when: "it is read back"
+        def readBack = read(serialize(eventNotification)) as EventNotification
+        then: "it holds the same values"
+        readBack.getExternalEventId() == "1"
+        readBack.getPerceivedSeverity() == "CRITICAL"
+        readBack.getAdditionalAttributes().get("fdn") == "NetworkElement=ORadio1"
+    }
+
+    @Unroll
+    def "Arrays of allowed classes should be read back: #value.getClass().getName()"() {
+        expect:
+        read(serialize(value)) == value
+        where:
+        value << [[1, 2] as int[], [["a"]] as String[][]]
+    }
+
+    @Unroll
+    def "The collections an EventNotification holds should be read back: #value.getClass().getName()"() {
+        expect:
+        read(serialize(value)) == value
+        where:
+        value << [new HashMap([fdn: "NetworkElement=ORadio1"]), new LinkedHashMap([count: 1L]), new ArrayList(["a", "b"]), new HashSet([1])]
+    }
+
+    @Unroll
+    def "A class which is not part of an EventNotification should be rejected: #value.getClass().getName()"() {
+        when: "it is read back"
+        read(serialize(value))
+        then: "it is not deserialized"
+        thrown(InvalidClassException)
+        where:
+        value << [new URL("http://localhost"), [new URL("http://localhost")] as URL[], new HashMap([url: new URL("http://localhost")]),
+                  new PriorityQueue([1]), new TreeMap([a: "b"]), new java.util.concurrent.ConcurrentHashMap([a: "b"]), new StringBuilder("a")]
+    }
+
+    private static byte[] serialize(final Object value) {
+        def bytes = new ByteArrayOutputStream()
+        new ObjectOutputStream(bytes).withCloseable { it.writeObject(value) }
+        return bytes.toByteArray()
+    }
+
+    private static Object read(final byte[] bytes) {
+        return new EventNotificationInputStream(new ByteArrayInputStream(bytes)).withCloseable { it.readObject() }
+    }
+}
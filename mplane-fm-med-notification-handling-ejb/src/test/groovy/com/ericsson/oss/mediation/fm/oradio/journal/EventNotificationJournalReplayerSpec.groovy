@@ -0,0 +1,96 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.journal
+
+import com.ericsson.cds.cdi.support.rule.MockedImplementation
+import com.ericsson.cds.cdi.support.rule.ObjectUnderTest
+import com.ericsson.cds.cdi.support.spock.SharedCdiSpecification
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EventNotificationBuffer
+import com.ericsson.oss.mediation.fm.oradio.ejb.dispatch.AlarmDispatcher
+import com.ericsson.oss.mediation.fm.oradio.ejb.journal.EventNotificationJournal
+import com.ericsson.oss.mediation.fm.oradio.ejb.journal.EventNotificationJournalReplayer
+import com.ericsson.oss.mediation.fm.oradio.ejb.journal.JournalRecord
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.EventNotificationMarker
+import com.ericsson.oss.mediation.translator.model.EventNotification
+
+class EventNotificationJournalReplayerSpec extends SharedCdiSpecification {
+
+    private static final def NODE_NAME = "NetworkElement=ORadioTest1"
+
+    @ObjectUnderTest
+    EventNotificationJournalReplayer replayer
+
+    @MockedImplementation
+    EventNotificationJournal journal
+
+    @MockedImplementation
+    EventNotificationBuffer buffer
+
+    @MockedImplementation
+    AlarmDispatcher alarmDispatcher
+
+    @MockedImplementation
+    ConfigurationBean configurationBean
+
+    def "EventNotifications whose correlation window has elapsed should be sent and the others buffered again"() {
+        given: "the journal is enabled with a correlation window of 2 seconds"
+        configurationBean.isEventNotificationJournalEnabled() >> true
+        configurationBean.getEventNotificationCorrelationWindowMillis() >> 2000L
+        and: "the journal holds an EventNotification buffered an hour ago and one buffered now"
+        final long now = System.currentTimeMillis()
+        def expired = JournalRecord.insert(new EventNotificationMarker(NODE_NAME, "1"), createEventNotification("1"), now - 3600000L)
+        def pending = JournalRecord.insert(new EventNotificationMarker(NODE_NAME, "2"), createEventNotification("2"), now + 60000L)
+        journal.recover() >> [expired, pending]
+        when: "the journal is replayed"
+        replayer.replayJournal()
+        then: "the recent EventNotification is buffered again with its entry time"
+        1 * buffer.restoreEventNotification(pending.getMarker(), pending.getEventNotification(), pending.getEntryTime())
+        0 * buffer.restoreEventNotification(*_)
+        and: "the journal is started with a checkpoint of the buffered EventNotification"
+        1 * journal.start([pending])
+        and: "the expired EventNotification is sent"
+        1 * alarmDispatcher.dispatchAll([expired.getEventNotification()])
+    }
+
+    def "When the journal is disabled nothing should be replayed"() {
+        given: "the journal is disabled"
+        configurationBean.isEventNotificationJournalEnabled() >> false
+        when: "the replayer is started"
+        replayer.replayJournal()
+        then: "the journal is neither read nor started"
+        0 * journal._
+        0 * buffer._
+        0 * alarmDispatcher._
+    }
+
+    def "When the journal can not be read it should not be started"() {
+        given: "the journal directory can not be read"
+        configurationBean.isEventNotificationJournalEnabled() >> true
+        journal.recover() >> { throw new IOException("unreadable") }
+        when: "the journal is replayed"
+        replayer.replayJournal()
+        then: "no exception is thrown and journaling stays off"
+        noExceptionThrown()
+        0 * journal.start(_)
+    }
+
+    private static EventNotification createEventNotification(final String alarmId) {
+        EventNotification notif = new EventNotification()
+        notif.setManagedObjectInstance(NODE_NAME)
+        notif.setExternalEventId(alarmId)
+        return notif
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.journal
+
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean
+import com.ericsson.oss.mediation.fm.oradio.ejb.fdn.NetworkElementNamePool
+import com.ericsson.oss.mediation.fm.oradio.ejb.journal.EventNotificationJournal
+import com.ericsson.oss.mediation.fm.oradio.ejb.journal.JournalRecord
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.EventNotificationMarker
+import com.ericsson.oss.mediation.translator.model.EventNotification
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+class EventNotificationJournalSpec extends Specification {
+
+    private static final def NODE_NAME = "NetworkElement=ORadioTest1"
+
+    Path directory
+
+    def setup() {
+        directory = Files.createTempDirectory("journal")
+    }
+
+    def cleanup() {
+        directory.toFile().deleteDir()
+    }
+
+    def "The EventNotifications still buffered when the journal was last written should be recovered"() {
+        given: "a started journal"
+        def journal = startJournal()
+        when: "three EventNotifications are buffered, one is removed and the journal is flushed"
+        journal.recordInsert(marker("1"), createEventNotification("1"), 1000L)
+        journal.recordInsert(marker("2"), createEventNotification("2"), 2000L)
+        journal.recordInsert(marker("3"), createEventNotification("3"), 3000L)
+        journal.recordRemove(marker("2"))
+        journal.flush()
+        and: "the journal is recovered after a restart"
+        def recovered = createJournal().recover()
+        then: "the two EventNotifications still buffered are recovered in the order they were buffered"
+        recovered*.getMarker() == [marker("1"), marker("3")]
+        recovered*.getEntryTime() == [1000L, 3000L]
+        recovered*.getEventNotification()*.getExternalEventId() == ["1", "3"]
+    }
+
+    def "Records which have not been flushed should not be recovered"() {
+        given: "a started journal"
+        def journal = startJournal()
+        when: "an EventNotification is flushed and another one is only queued"
+        journal.recordInsert(marker("1"), createEventNotification("1"), 1000L)
+        journal.flush()
+        journal.recordInsert(marker("2"), createEventNotification("2"), 2000L)
+        then: "only the flushed EventNotification is recovered"
+        createJournal().recover()*.getMarker() == [marker("1")]
+    }
+
+    def "A record torn by a crash should be ignored and the records before it recovered"() {
+        given: "a journal holding two EventNotifications"
+        def journal = startJournal()
+        journal.recordInsert(marker("1"), createEventNotification("1"), 1000L)
+        journal.recordInsert(marker("2"), createEventNotification("2"), 2000L)
+        journal.flush()
+        when: "the last record is torn"
+        def segment = segments().last()
+        def bytes = Files.readAllBytes(segment)
+        Files.write(segment, Arrays.copyOf(bytes, bytes.length - 10), StandardOpenOption.TRUNCATE_EXISTING)
+        then: "the first EventNotification is recovered"
+        createJournal().recover()*.getMarker() == [marker("1")]
+    }
+
+    def "A corrupt record should end the replay of its segment"() {
+        given: "a journal holding two EventNotifications flushed separately"
+        def journal = startJournal()
+        journal.recordInsert(marker("1"), createEventNotification("1"), 1000L)
+        journal.flush()
+        final long firstRecordEnd = Files.size(segments().last())
+        journal.recordInsert(marker("2"), createEventNotification("2"), 2000L)
+        journal.flush()
+        when: "a byte of the payload of the second record is changed"
+        def segment = segments().last()
+        def bytes = Files.readAllBytes(segment)
+        bytes[(int) firstRecordEnd + 12] ^= 0xFF
+        Files.write(segment, bytes, StandardOpenOption.TRUNCATE_EXISTING)
+        then: "only the first EventNotification is recovered"
+        createJournal().recover()*.getMarker() == [marker("1")]
+    }
+
+    def "A record holding a class which is not part of an EventNotification should be ignored"() {
+        given: "a started journal"
+        def journal = startJournal()
+        when: "an EventNotification carrying a foreign class is journaled between two others"
+        def foreign = createEventNotification("2")
+        foreign.setAdditionalAttributes([url: new URL("http://localhost")] as Map)
+        journal.recordInsert(marker("1"), createEventNotification("1"), 1000L)
+        journal.recordInsert(marker("2"), foreign, 2000L)
+        journal.recordInsert(marker("3"), createEventNotification("3"), 3000L)
+        journal.flush()
+        then: "its record is not deserialized and the other EventNotifications are recovered"
+        createJournal().recover()*.getMarker() == [marker("1"), marker("3")]
+    }
+
+    def "Starting the journal should checkpoint the given records and delete the older segments"() {
+        given: "a journal holding an EventNotification"
+        def journal = startJournal()
+        journal.recordInsert(marker("1"), createEventNotification("1"), 1000L)
+        journal.flush()
+        def oldSegments = segments()
+        when: "the journal is recovered and started again with the recovered records"
+        def restarted = createJournal()
+        restarted.start(restarted.recover())
+        then: "a new segment holds the checkpoint and the older segments are deleted"
+        segments().size() == 1
+        !oldSegments.contains(segments().first())
+        createJournal().recover()*.getMarker() == [marker("1")]
+    }
+
+    def "When a segment is full a new segment should be started with a checkpoint of the live records"() {
+        given: "a journal with small segments"
+        def journal = startJournal()
+        journal.@segmentMaxBytes = 1024L
+        when: "many EventNotifications are buffered and removed again"
+        (0..<50).each {
+            journal.recordInsert(marker(it.toString()), createEventNotification(it.toString()), it)
+            if (it % 2 == 0) {
+                journal.recordRemove(marker(it.toString()))
+            }
+            journal.flush()
+        }
+        then: "the older segments are deleted"
+        segments().size() == 1
+        and: "the EventNotifications which were not removed are recovered"
+        createJournal().recover()*.getMarker() == (0..<50).findAll { it % 2 == 1 }.collect { marker(it.toString()) }
+    }
+
+    def "The checkpoint should be written from the serialized records, not from the buffered EventNotifications"() {
+        given: "a journal which starts a new segment on every flush"
+        def journal = startJournal()
+        journal.@segmentMaxBytes = 1L
+        and: "an EventNotification which is journaled then changed by the buffer"
+        def eventNotification = createEventNotification("1")
+        journal.recordInsert(marker("1"), eventNotification, 1000L)
+        journal.flush()
+        eventNotification.setPerceivedSeverity("CLEARED")
+        when: "another EventNotification is journaled, starting a new segment with a checkpoint"
+        journal.recordInsert(marker("2"), createEventNotification("2"), 2000L)
+        journal.flush()
+        then: "the journal holds no reference to the EventNotifications"
+        journal.@live.values().every { it instanceof byte[] }
+        and: "the checkpoint holds the EventNotification as it was journaled"
+        def recovered = createJournal().recover()
+        recovered*.getMarker() == [marker("1"), marker("2")]
+        recovered[0].getEventNotification().getPerceivedSeverity() == "CRITICAL"
+    }
+
+    def "Records should be ignored while the journal is not started"() {
+        given: "a journal which has not been started"
+        def journal = createJournal()
+        when: "an EventNotification is recorded and the journal flushed"
+        journal.recordInsert(marker("1"), createEventNotification("1"), 1000L)
+        journal.flush()
+        then: "nothing is written"
+        !journal.isActive()
+        segments().isEmpty()
+    }
+
+    private EventNotificationJournal startJournal() {
+        def journal = createJournal()
+        journal.start(journal.recover())
+        return journal
+    }
+
+    private EventNotificationJournal createJournal() {
+        def journal = new EventNotificationJournal()
+        def configurationBean = Stub(ConfigurationBean)
+        configurationBean.getEventNotificationJournalDirectory() >> directory.toString()
+        journal.@configurationBean = configurationBean
+        journal.@networkElementNamePool = new NetworkElementNamePool()
+        return journal
+    }
+
+    private List<Path> segments() {
+        return Files.list(directory).withCloseable { it.sorted().collect() } as List<Path>
+    }
+
+    private static EventNotificationMarker marker(final String alarmId) {
+        return new EventNotificationMarker(NODE_NAME, alarmId)
+    }
+
+    private static EventNotification createEventNotification(final String alarmId) {
+        EventNotification notif = new EventNotification()
+        notif.setManagedObjectInstance(NODE_NAME)
+        notif.setPerceivedSeverity("CRITICAL")
+        notif.setExternalEventId(alarmId)
+        return notif
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.merge
+
+import com.ericsson.oss.mediation.fm.oradio.benchmark.Benchmark
+import com.ericsson.oss.mediation.fm.oradio.ejb.merge.EventNotificationMerger
+import com.ericsson.oss.mediation.translator.model.EventNotification
+import groovy.transform.CompileStatic
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.function.Function
+
+/**
+ * Compares the bytes allocated to merge a clear with its buffered alarm with the EventNotificationMerger, with appending the raw NETCONF
+ * payload to the targetAttributeInfo as the merge did before, for payloads of different sizes. Only run when the benchmark system property
+ * is set, e.g. mvn test -Dbenchmark -Dtest=EventNotificationMergerBenchmarkSpec
+ */
+@IgnoreIf({ Benchmark.isDisabled() })
+class EventNotificationMergerBenchmarkSpec extends Specification{
+
+    private static final int OPERATIONS = 2_000
+    private static final String TARGET_ATTRIBUTE_INFO = "targetAttributeInfo"
+
+    @Unroll
+    def "Merging with the EventNotificationMerger should allocate the same whatever the size of a #payloadBytes byte payload"(){
+        given:"the merges with each strategy"
+        Map<String, Function<EventNotification[], EventNotification>> mergers =
+                [payload: new PayloadMerger(payload(payloadBytes)), merger: new BoundedMerger()]
+
+        when:"alarms and their clears are merged with each strategy, a few times to warm up"
+        def results = mergers.collectEntries { name, merger ->
+            [(name): Benchmark.warmedUp { Benchmark.measure(OPERATIONS, createClearsAndAlarms(), merger) }.bytesPerOperation]
+        }
+        results.each { name, bytes -> Benchmark.report("Merge ${name} with a ${payloadBytes} byte payload: ${bytes} B/merge") }
+
+        then:"the bounded merge allocates less than a small fixed amount, which the payload merge exceeds"
+        results.merger < 2048
+        results.merger < results.payload
+
+        where:
+        payloadBytes << [1024, 16 * 1024]
+    }
+
+    private static String payload(final int bytes) {
+        final StringBuilder payload = new StringBuilder("<notification><alarm-notif xmlns=\"urn:o-ran:fm:1.0\">")
+        while (payload.length() < bytes - 30) {
+            payload.append("<vendor-info>padding</vendor-info>")
+        }
+        return payload.append("</alarm-notif></notification>").toString()
+    }
+
+    /**
+     * Each alarm and clear is merged once, as in the EventNotificationBuffer, so they are built for every measurement
+     */
+    private static List<EventNotification[]> createClearsAndAlarms() {
+        return (0..<OPERATIONS).collect { [createEventNotification("CLEARED"), createEventNotification("MAJOR")] as EventNotification[] }
+    }
+
+    private static EventNotification createEventNotification(final String perceivedSeverity) {
+        final EventNotification notif = new EventNotification()
+        notif.setExternalEventId("28:ru-port-0")
+        notif.setPerceivedSeverity(perceivedSeverity)
+        notif.setSpecificProblem("Unit temperature is high")
+        notif.addAdditionalAttribute("fdn", "NetworkElement=ORadio1")
+        notif.addAdditionalAttribute("behalf", "ManagementSystem=ENM")
+        notif.addAdditionalAttribute("faultId", "28")
+        notif.addAdditionalAttribute("faultSource", "ru-port-0")
+        notif.addAdditionalAttribute("eventTime", "2024-05-01T10:15:29Z")
+        notif.addAdditionalAttribute(TARGET_ATTRIBUTE_INFO, "")
+        return notif
+    }
+
+    /**
+     * As the EventNotifications were merged before the EventNotificationMerger
+     */
+    @CompileStatic
+    private static class PayloadMerger implements Function<EventNotification[], EventNotification> {
+
+        private final String netconfPayload
+
+        PayloadMerger(final String netconfPayload) {
+            this.netconfPayload = netconfPayload
+        }
+
+        @Override
+        EventNotification apply(final EventNotification[] clearAndAlarm) {
+            final EventNotification newEvent = clearAndAlarm[0]
+            final Map<String, String> additionalAttr = clearAndAlarm[1].getAdditionalAttributes()
+            final String targetAdditionalInfo = additionalAttr.get(TARGET_ATTRIBUTE_INFO)
+            additionalAttr.replace(TARGET_ATTRIBUTE_INFO, targetAdditionalInfo + netconfPayload)
+            newEvent.setAdditionalAttributes(additionalAttr)
+            return newEvent
+        }
+    }
+
+    @CompileStatic
+    private static class BoundedMerger implements Function<EventNotification[], EventNotification> {
+
+        @Override
+        EventNotification apply(final EventNotification[] clearAndAlarm) {
+            return EventNotificationMerger.merge(clearAndAlarm[0], clearAndAlarm[1])
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.merge
+
+import com.ericsson.oss.mediation.fm.oradio.ejb.merge.EventNotificationMerger
+import com.ericsson.oss.mediation.translator.model.EventNotification
+import spock.lang.Specification
+
+class EventNotificationMergerSpec extends Specification{
+
+    def "When a clear is merged with the buffered alarm, then the clear should be sent with the fields of the alarm"(){
+        given: "an alarm in the buffer and its clear"
+        def alarm = createEventNotification("MAJOR", "Unit temperature is high")
+        def alarmAttributes = new HashMap<>(alarm.getAdditionalAttributes())
+        def clear = createEventNotification("CLEARED", "Unit temperature is high")
+        clear.addAdditionalAttribute("eventTime", "2024-05-01T10:20:00Z")
+        when: "they are merged"
+        def merged = EventNotificationMerger.merge(clear, alarm)
+        then: "the clear keeps its own attributes and describes the alarm in its targetAttributeInfo"
+        merged.is(clear)
+        merged.getAdditionalAttributes().get("eventTime") == "2024-05-01T10:20:00Z"
+        merged.getAdditionalAttributes().get("targetAttributeInfo") ==
+                "externalEventId=28:ru-port-0;perceivedSeverity=MAJOR;eventTime=2024-05-01T10:15:29Z;specificProblem=Unit temperature is high"
+        and: "the attributes of the buffered alarm are not changed"
+        alarm.getAdditionalAttributes() == alarmAttributes
+    }
+
+    def "When an alarm is updated, then the raise with the updated values received after the buffered clear should be sent"(){
+        given: "the clear of an alarm in the buffer"
+        def clear = createEventNotification("CLEARED", "Unit temperature is high")
+        def clearAttributes = new HashMap<>(clear.getAdditionalAttributes())
+        and: "the raise of the alarm with its updated values"
+        def update = createEventNotification("CRITICAL", "Unit temperature is very high")
+        when: "the update is merged with the buffered clear"
+        def merged = EventNotificationMerger.merge(update, clear)
+        then: "the update is sent with its own values and describes the clear in its targetAttributeInfo"
+        merged.is(update)
+        merged.getPerceivedSeverity() == "CRITICAL"
+        merged.getSpecificProblem() == "Unit temperature is very high"
+        merged.getAdditionalAttributes().get("targetAttributeInfo").startsWith("externalEventId=28:ru-port-0;perceivedSeverity=CLEARED")
+        and: "the buffered clear is not changed"
+        clear.getAdditionalAttributes() == clearAttributes
+    }
+
+    def "The targetAttributeInfo the notification already has should be kept before the fields of the other"(){
+        given: "a buffered alarm whose clear already has a targetAttributeInfo"
+        def alarm = createEventNotification("MAJOR", null)
+        def clear = createEventNotification("CLEARED", null)
+        clear.addAdditionalAttribute("targetAttributeInfo", "rebuilt")
+        when: "they are merged"
+        def merged = EventNotificationMerger.merge(clear, alarm)
+        then:
+        merged.getAdditionalAttributes().get("targetAttributeInfo") ==
+                "rebuilt;externalEventId=28:ru-port-0;perceivedSeverity=MAJOR;eventTime=2024-05-01T10:15:29Z"
+    }
+
+    def "The targetAttributeInfo should be bounded whatever the size of the fields"(){
+        given: "a buffered alarm with a very long specificProblem"
+        def alarm = createEventNotification("MAJOR", "x" * 100_000)
+        def clear = createEventNotification("CLEARED", "x" * 100_000)
+        clear.addAdditionalAttribute("targetAttributeInfo", "y" * 100_000)
+        when: "they are merged"
+        def merged = EventNotificationMerger.merge(clear, alarm)
+        then: "the targetAttributeInfo is cut at its maximum length"
+        merged.getAdditionalAttributes().get("targetAttributeInfo").length() == 512
+    }
+
+    private static EventNotification createEventNotification(final String perceivedSeverity, final String specificProblem) {
+        EventNotification notif = new EventNotification()
+        notif.setExternalEventId("28:ru-port-0")
+        notif.setPerceivedSeverity(perceivedSeverity)
+        notif.setSpecificProblem(specificProblem)
+        notif.addAdditionalAttribute("fdn", "NetworkElement=ORadio1")
+        notif.addAdditionalAttribute("eventTime", "2024-05-01T10:15:29Z")
+        return notif
+    }
+}
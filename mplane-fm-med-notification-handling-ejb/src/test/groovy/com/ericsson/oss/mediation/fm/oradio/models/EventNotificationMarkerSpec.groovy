@@ -60,4 +60,21 @@ class EventNotificationMarkerSpec extends Specification {
         assert !marker.equals(new EventNotificationMarker(NETWORK_ELEMENT_NAME + "1", ALARM_ID))
     }
 
+    def "When hashCode is called on markers with the same networkElementName and EventNotificationId then they should match" (){
+        expect: "the hash codes to be equal"
+        marker.hashCode() == new EventNotificationMarker(NETWORK_ELEMENT_NAME, ALARM_ID).hashCode()
+    }
+
+    def "When the networkElementName and EventNotificationId are swapped then the markers should NOT match" (){
+        expect: "Marker to not be equal to the swapped instance"
+        !marker.equals(new EventNotificationMarker(ALARM_ID, NETWORK_ELEMENT_NAME))
+    }
+
+    def "Markers with null fields should be equal to each other and not to other markers" (){
+        expect: "null fields to be handled"
+        new EventNotificationMarker(null, null) == new EventNotificationMarker(null, null)
+        new EventNotificationMarker(null, null).hashCode() == new EventNotificationMarker(null, null).hashCode()
+        new EventNotificationMarker(NETWORK_ELEMENT_NAME, null) != marker
+    }
+
 }
@@ -0,0 +1,172 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.parser
+
+import com.ericsson.oss.mediation.fm.oradio.benchmark.Benchmark
+import com.ericsson.oss.mediation.fm.oradio.ejb.parser.AlarmNotificationParser
+import com.ericsson.oss.mediation.fm.oradio.ejb.parser.EventNotificationTemplateCache
+import com.ericsson.oss.mediation.fm.oradio.ejb.parser.NodeEventNotificationTemplates
+import com.ericsson.oss.mediation.translator.model.EventNotification
+import groovy.transform.CompileStatic
+import org.w3c.dom.Document
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+
+import java.util.function.Consumer
+import java.util.function.Function
+import javax.xml.parsers.DocumentBuilderFactory
+
+/**
+ * Measures the throughput and the bytes allocated to parse representative O-RAN alarm-notif notifications with the StAX AlarmNotificationParser,
+ * against reading the same leaves from a DOM, and that the bytes allocated per entry of an alarm-sync reply do not depend on its size. Only run when the benchmark system property is set,
+ * e.g. mvn test -Dbenchmark -Dtest=AlarmNotificationParserBenchmarkSpec
+ */
+@IgnoreIf({ Benchmark.isDisabled() })
+class AlarmNotificationParserBenchmarkSpec extends Specification{
+
+    private static final int OPERATIONS = 200_000
+    private static final String TEST_NODE_FDN = "NetworkElement=ORadio1"
+    private static final String TEST_NODE_OSS_PREFIX = "SubNetwork=ENM,MeContext=ORadio1"
+    private static final NodeEventNotificationTemplates TEMPLATES =
+            new EventNotificationTemplateCache(100_000).getNodeTemplates("ORadio1", TEST_NODE_FDN, TEST_NODE_OSS_PREFIX)
+
+    def "The StAX parser should parse tens of thousands of alarm-notifs a second and allocate less than a DOM"(){
+        given:"raised and cleared alarm-notifs of different faults, some holding several affected objects"
+        def payloads = (0..<100).collect { alarmNotif(it, it % 3 == 0, 1 + it % 4) }
+        Map<String, Function<String, EventNotification>> parsers = [stax: new StaxParser(), dom: new DomParser()]
+
+        when:"the payloads are parsed with each parser, a few times to warm up"
+        def results = parsers.collectEntries { name, parser -> [(name): Benchmark.warmedUp { Benchmark.measure(OPERATIONS, payloads, parser) }] }
+        results.each { name, result -> Benchmark.report("alarm-notif parsing ${name}: ${result}, ${result.operationsPerSecond} payloads/s") }
+
+        then:"both parsers read the same fields"
+        parsers.values().every { it.apply(payloads[3]).getExternalEventId() == "3:ru-port-3" }
+        parsers.values().every { it.apply(payloads[3]).getPerceivedSeverity() == "CLEARED" }
+        and:"the StAX parser keeps up with tens of thousands of payloads a second on one core and allocates less"
+        results.stax.operationsPerSecond > 10_000
+        results.stax.bytesPerOperation < results.dom.bytesPerOperation
+    }
+
+    def "The bytes allocated per entry of an alarm-sync reply should not grow with the number of entries"(){
+        given:"active-alarm-list replies of 100 and 10000 entries"
+        def replies = [100, 10_000].collectEntries { entries -> [(entries): activeAlarmList(entries)] }
+        def parser = new CountingParser()
+
+        when:"each reply is parsed a few times to warm up"
+        def bytesPerEntry = replies.collect { entries, reply ->
+            Benchmark.warmedUp { Benchmark.measure(1, [reply], parser) }.bytesPerOperation / entries
+        }
+        Benchmark.report("alarm-sync parsing: ${bytesPerEntry[0]} B/entry for 100 entries, ${bytesPerEntry[1]} B/entry for 10000 entries")
+
+        then:"every entry is passed on and the 100 times larger reply allocates about the same per entry"
+        parser.count == Benchmark.ROUNDS * 10_100
+        bytesPerEntry[1] < bytesPerEntry[0] * 1.5
+    }
+
+    private static String activeAlarmList(final int entries) {
+        final StringBuilder reply = new StringBuilder("<rpc-reply xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\" message-id=\"1\"><data>")
+                .append("<active-alarm-list xmlns=\"urn:o-ran:fm:1.0\">")
+        (0..<entries).each {
+            final String entry = alarmNotif(it, it % 3 == 0, 1 + it % 4)
+            reply.append(entry.substring(entry.indexOf("<alarm-notif"), entry.indexOf("</notification>"))
+                    .replace("<alarm-notif xmlns=\"urn:o-ran:fm:1.0\">", "<active-alarms>").replace("</alarm-notif>", "</active-alarms>"))
+        }
+        return reply.append("</active-alarm-list></data></rpc-reply>").toString()
+    }
+
+    private static String alarmNotif(final int faultId, final boolean cleared, final int affectedObjects) {
+        final StringBuilder payload = new StringBuilder("""<?xml version="1.0" encoding="UTF-8"?>
+<notification xmlns="urn:ietf:params:xml:ns:netconf:notification:1.0">
+  <eventTime>2024-05-01T10:15:30.123Z</eventTime>
+  <alarm-notif xmlns="urn:o-ran:fm:1.0">
+    <fault-id>${faultId}</fault-id>
+    <fault-source>ru-port-${faultId}</fault-source>""")
+        (0..<affectedObjects).each { payload.append("\n    <affected-objects>\n      <name>ru-port-${faultId}/tx-array-${it}</name>\n    </affected-objects>") }
+        payload.append("""
+    <fault-severity>${cleared ? "WARNING" : "MAJOR"}</fault-severity>
+    <is-cleared>${cleared}</is-cleared>
+    <fault-text>Transmission quality deteriorated on port ${faultId}</fault-text>
+    <event-time>2024-05-01T10:15:29.987Z</event-time>
+  </alarm-notif>
+</notification>""")
+        return payload.toString()
+    }
+
+    @CompileStatic
+    private static class StaxParser implements Function<String, EventNotification>, Consumer<EventNotification> {
+
+        private EventNotification parsed
+
+        @Override
+        EventNotification apply(final String payload) {
+            AlarmNotificationParser.parse(payload, TEMPLATES, this)
+            return parsed
+        }
+
+        @Override
+        void accept(final EventNotification eventNotification) {
+            parsed = eventNotification
+        }
+    }
+
+    /**
+     * Reads the same leaves from a DOM of the notification, setting only the fields the comparison needs
+     */
+    @CompileStatic
+    private static class DomParser implements Function<String, EventNotification> {
+
+        private final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance()
+
+        DomParser() {
+            documentBuilderFactory.setNamespaceAware(true)
+        }
+
+        @Override
+        EventNotification apply(final String payload) {
+            final Document document = documentBuilderFactory.newDocumentBuilder().parse(new ByteArrayInputStream(payload.getBytes("UTF-8")))
+            final EventNotification eventNotification = new EventNotification()
+            final String faultId = leaf(document, "fault-id")
+            eventNotification.setExternalEventId(faultId + ':' + leaf(document, "fault-source"))
+            eventNotification.setPerceivedSeverity(Boolean.parseBoolean(leaf(document, "is-cleared")) ? "CLEARED" : leaf(document, "fault-severity"))
+            eventNotification.setSpecificProblem(leaf(document, "fault-text"))
+            eventNotification.addAdditionalAttribute("eventTime", leaf(document, "event-time"))
+            return eventNotification
+        }
+
+        private static String leaf(final Document document, final String name) {
+            return document.getElementsByTagNameNS("*", name).item(0).getTextContent().trim()
+        }
+    }
+
+    /**
+     * Parses an alarm-sync reply, counting the entries passed on
+     */
+    @CompileStatic
+    private static class CountingParser implements Function<String, CountingParser>, Consumer<EventNotification> {
+
+        int count
+
+        @Override
+        CountingParser apply(final String reply) {
+            AlarmNotificationParser.parse(reply, TEMPLATES, this)
+            return this
+        }
+
+        @Override
+        void accept(final EventNotification eventNotification) {
+            count++
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.parser
+
+import com.ericsson.oss.mediation.fm.oradio.ejb.exception.NetconfNotificationParseException
+import com.ericsson.oss.mediation.fm.oradio.ejb.parser.AlarmNotificationParser
+import com.ericsson.oss.mediation.fm.oradio.ejb.parser.EventNotificationTemplateCache
+import com.ericsson.oss.mediation.fm.oradio.ejb.parser.NodeEventNotificationTemplates
+import com.ericsson.oss.mediation.translator.model.EventNotification
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class AlarmNotificationParserSpec extends Specification{
+
+    private static final String TEST_NODE_FDN = "NetworkElement=ORadio1"
+    private static final String TEST_NODE_OSS_PREFIX = "SubNetwork=ENM,MeContext=ORadio1"
+
+    private static final String ALARM_NOTIF = """<?xml version="1.0" encoding="UTF-8"?>
+<notification xmlns="urn:ietf:params:xml:ns:netconf:notification:1.0">
+  <eventTime>2024-05-01T10:15:30Z</eventTime>
+  <alarm-notif xmlns="urn:o-ran:fm:1.0">
+    <fault-id>28</fault-id>
+    <fault-source>ru-port-0</fault-source>
+    <affected-objects>
+      <name>ru-port-0</name>
+    </affected-objects>
+    <affected-objects>
+      <name>tx-array-0</name>
+    </affected-objects>
+    <fault-severity>MAJOR</fault-severity>
+    <is-cleared>false</is-cleared>
+    <fault-text>Unit temperature is high</fault-text>
+    <event-time>2024-05-01T10:15:29Z</event-time>
+  </alarm-notif>
+</notification>"""
+
+    def "An alarm-notif should be parsed into an EventNotification"(){
+        when: "the alarm-notif is parsed"
+        def eventNotification = parseFirst(ALARM_NOTIF)
+        then: "the EventNotification holds its leaves"
+        eventNotification.getExternalEventId() == "28:ru-port-0"
+        eventNotification.getPerceivedSeverity() == "MAJOR"
+        eventNotification.getSpecificProblem() == "Unit temperature is high"
+        eventNotification.getProbableCause() == "Unit temperature is high"
+        eventNotification.getAdditionalAttributes().get("faultId") == "28"
+        eventNotification.getAdditionalAttributes().get("faultSource") == "ru-port-0"
+        eventNotification.getAdditionalAttributes().get("affectedObjects") == "ru-port-0,tx-array-0"
+        eventNotification.getAdditionalAttributes().get("eventTime") == "2024-05-01T10:15:29Z"
+        and: "the fields of the node"
+        eventNotification.getManagedObjectInstance() == TEST_NODE_OSS_PREFIX
+        eventNotification.getSourceType() == "ORadio"
+        eventNotification.getRecordType() == "ALARM"
+        eventNotification.getEventType() == "Communications alarm"
+        eventNotification.getAdditionalAttributes().get("fdn") == TEST_NODE_FDN
+        eventNotification.getAdditionalAttributes().get("behalf") == "ManagementSystem=ENM"
+    }
+
+    def "A cleared alarm-notif should be parsed into a CLEARED EventNotification with the same externalEventId"(){
+        given: "the clear of the alarm, without a fault-severity"
+        def clear = ALARM_NOTIF.replace("<is-cleared>false</is-cleared>", "<is-cleared>true</is-cleared>")
+                .replace("<fault-severity>MAJOR</fault-severity>", "")
+        when: "the alarm-notif and its clear are parsed"
+        def alarm = parseFirst(ALARM_NOTIF)
+        def cleared = parseFirst(clear)
+        then: "they can be correlated"
+        cleared.getPerceivedSeverity() == "CLEARED"
+        cleared.getExternalEventId() == alarm.getExternalEventId()
+    }
+
+    def "The fdn should be the managedObjectInstance of a node without an ossPrefix"(){
+        expect:
+        parseFirst(ALARM_NOTIF, ossPrefix).getManagedObjectInstance() == TEST_NODE_FDN
+        where:
+        ossPrefix << [null, ""]
+    }
+
+    def "Elements which are not mapped should be skipped"(){
+        given: "an alarm-notif holding an element of another module"
+        def payload = ALARM_NOTIF.replace("<fault-text>", "<vendor-info xmlns=\"urn:vendor\"><code><value>7</value></code></vendor-info><fault-text>")
+        when: "the alarm-notif is parsed"
+        def eventNotification = parseFirst(payload)
+        then: "the leaves after it are still read"
+        eventNotification.getSpecificProblem() == "Unit temperature is high"
+        eventNotification.getAdditionalAttributes().get("eventTime") == "2024-05-01T10:15:29Z"
+    }
+
+    def "Each entry of an alarm-sync reply should be parsed into its own EventNotification as soon as it is read"(){
+        given: "an active-alarm-list holding 1000 alarms, the second of which is cleared"
+        def reply = "<rpc-reply xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\" message-id=\"1\"><data>" +
+                "<active-alarm-list xmlns=\"urn:o-ran:fm:1.0\">" + (1..1000).collect { activeAlarm(it, it == 2) }.join() +
+                "</active-alarm-list></data></rpc-reply>"
+        def reader = new CountingReader(new StringReader(reply))
+        def consumed = []
+        when: "the reply is parsed"
+        def skipped = AlarmNotificationParser.parse(reader, templates(), { consumed << [it, reader.count] })
+        then: "an EventNotification is passed for each entry, in order"
+        skipped == 0
+        consumed.size() == 1000
+        consumed.take(3).collect { it[0].getExternalEventId() } == ["1:ru-port-1", "2:ru-port-2", "3:ru-port-3"]
+        consumed.take(3).collect { it[0].getPerceivedSeverity() } == ["MAJOR", "CLEARED", "MAJOR"]
+        and: "the first entry is passed before the whole reply has been read"
+        consumed[0][1] < reply.length()
+    }
+
+    def "An entry missing a mandatory leaf should be skipped without losing the entries after it"(){
+        given: "an active-alarm-list whose second entry has no fault-source"
+        def reply = "<active-alarm-list xmlns=\"urn:o-ran:fm:1.0\">" + activeAlarm(1, false) +
+                activeAlarm(2, false).replace("<fault-source>ru-port-2</fault-source>", "") + activeAlarm(3, false) + "</active-alarm-list>"
+        def consumed = []
+        when: "the list is parsed"
+        def skipped = AlarmNotificationParser.parse(reply, templates(), { consumed << it })
+        then: "the entry is skipped and counted"
+        skipped == 1
+        consumed.collect { it.getExternalEventId() } == ["1:ru-port-1", "3:ru-port-3"]
+    }
+
+    def "The entries before an XML error should already have been passed on"(){
+        given: "an active-alarm-list which is cut off in its third entry"
+        def reply = "<active-alarm-list xmlns=\"urn:o-ran:fm:1.0\">" + activeAlarm(1, false) + activeAlarm(2, false) + "<active-alarms><fault-id>3"
+        def consumed = []
+        when: "the list is parsed"
+        AlarmNotificationParser.parse(reply, templates(), { consumed << it })
+        then:
+        thrown(NetconfNotificationParseException)
+        consumed.size() == 2
+    }
+
+    @Unroll
+    def "A notification should not be parsed when #reason"(){
+        when: "the notification is parsed"
+        AlarmNotificationParser.parse(payload, templates(), {})
+        then:
+        thrown(NetconfNotificationParseException)
+        where:
+        reason                            | payload
+        "it is empty"                     | ""
+        "it is not XML"                   | "1"
+        "it is not well-formed"           | ALARM_NOTIF.replace("</alarm-notif>", "")
+        "it does not hold an alarm-notif" | "<notification><eventTime>2024-05-01T10:15:30Z</eventTime></notification>"
+        "it has no alarm entries"         | "<active-alarm-list xmlns=\"urn:o-ran:fm:1.0\"/>"
+        "it has no fault-source"          | ALARM_NOTIF.replace("<fault-source>ru-port-0</fault-source>", "")
+        "it has no fault-severity"        | ALARM_NOTIF.replace("<fault-severity>MAJOR</fault-severity>", "")
+        "it uses an external entity"      | "<!DOCTYPE notification [<!ENTITY xxe SYSTEM \"file:///etc/passwd\">]>" +
+                                            ALARM_NOTIF.substring(ALARM_NOTIF.indexOf("<notification")).replace("<fault-text>Unit temperature is high", "<fault-text>&xxe;")
+    }
+
+    private static EventNotification parseFirst(final String payload, final String ossPrefix = TEST_NODE_OSS_PREFIX) {
+        def eventNotifications = []
+        AlarmNotificationParser.parse(payload, templates(ossPrefix), { eventNotifications << it })
+        return eventNotifications.first()
+    }
+
+    private static NodeEventNotificationTemplates templates(final String ossPrefix = TEST_NODE_OSS_PREFIX) {
+        return new EventNotificationTemplateCache(100).getNodeTemplates("ORadio1", TEST_NODE_FDN, ossPrefix)
+    }
+
+    private static String activeAlarm(final int faultId, final boolean cleared) {
+        return "<active-alarms><fault-id>${faultId}</fault-id><fault-source>ru-port-${faultId}</fault-source>" +
+                "<affected-objects><name>ru-port-${faultId}</name></affected-objects><fault-severity>MAJOR</fault-severity>" +
+                "<is-cleared>${cleared}</is-cleared><fault-text>Unit Testing</fault-text><event-time>2024-05-01T10:15:29Z</event-time>" +
+                "</active-alarms>"
+    }
+
+    /**
+     * Counts the characters handed to the parser, to show how far into the payload it has read
+     */
+    private static class CountingReader extends FilterReader {
+
+        int count
+
+        CountingReader(final Reader reader) {
+            super(reader)
+        }
+
+        @Override
+        int read(final char[] buffer, final int offset, final int length) {
+            final int read = super.read(buffer, offset, length)
+            count += Math.max(read, 0)
+            return read
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.parser
+
+import com.ericsson.oss.mediation.fm.oradio.ejb.parser.EventNotificationTemplateCache
+import spock.lang.Specification
+
+class EventNotificationTemplateCacheSpec extends Specification{
+
+    private static final String TEST_NODE_NAME = "ORadio1"
+    private static final String TEST_NODE_FDN = "NetworkElement=ORadio1"
+    private static final String TEST_NODE_OSS_PREFIX = "SubNetwork=ENM,MeContext=ORadio1"
+
+    def "The template of an alarm type of a node should be built once"(){
+        given: "a new cache"
+        def cache = new EventNotificationTemplateCache(100)
+        when: "the template of an alarm type is looked up twice"
+        def template = cache.getNodeTemplates(TEST_NODE_NAME, TEST_NODE_FDN, TEST_NODE_OSS_PREFIX).getTemplate("28")
+        def again = cache.getNodeTemplates(TEST_NODE_NAME, TEST_NODE_FDN, TEST_NODE_OSS_PREFIX).getTemplate(new String("28"))
+        then: "the same template is returned"
+        again.is(template)
+        cache.size() == 1
+    }
+
+    def "An EventNotification built from a template should hold the constant fields of the node and alarm type"(){
+        given: "the template of an alarm type"
+        def template = new EventNotificationTemplateCache(100).getNodeTemplates(TEST_NODE_NAME, TEST_NODE_FDN, TEST_NODE_OSS_PREFIX).getTemplate("28")
+        when: "two EventNotifications are built from it"
+        def eventNotification = template.newEventNotification()
+        def other = template.newEventNotification()
+        other.addAdditionalAttribute("faultSource", "ru-port-0")
+        then: "they hold the constant fields"
+        eventNotification.getManagedObjectInstance() == TEST_NODE_OSS_PREFIX
+        eventNotification.getSourceType() == "ORadio"
+        eventNotification.getRecordType() == "ALARM"
+        eventNotification.getAdditionalAttributes() == [fdn: TEST_NODE_FDN, behalf: "ManagementSystem=ENM", faultId: "28"]
+        template.getExternalEventId("ru-port-0") == "28:ru-port-0"
+        and: "changing one does not change the other"
+        !eventNotification.getAdditionalAttributes().containsKey("faultSource")
+    }
+
+    def "The templates of a node should be rebuilt when its ossPrefix changes"(){
+        given: "the template of an alarm type of a node without an ossPrefix"
+        def cache = new EventNotificationTemplateCache(100)
+        def template = cache.getNodeTemplates(TEST_NODE_NAME, TEST_NODE_FDN, null).getTemplate("28")
+        cache.getNodeTemplates(TEST_NODE_NAME, TEST_NODE_FDN, null).getTemplate("29")
+        when: "the ossPrefix of the node is set"
+        def rebuilt = cache.getNodeTemplates(TEST_NODE_NAME, TEST_NODE_FDN, TEST_NODE_OSS_PREFIX).getTemplate("28")
+        then: "a new template is built with the ossPrefix and the old ones are dropped"
+        template.getManagedObjectInstance() == TEST_NODE_FDN
+        rebuilt.getManagedObjectInstance() == TEST_NODE_OSS_PREFIX
+        cache.size() == 1
+    }
+
+    def "The templates of a node should be dropped when it is invalidated"(){
+        given: "the templates of 2 alarm types of a node"
+        def cache = new EventNotificationTemplateCache(100)
+        def templates = cache.getNodeTemplates(TEST_NODE_NAME, TEST_NODE_FDN, TEST_NODE_OSS_PREFIX)
+        templates.getTemplate("28")
+        templates.getTemplate("29")
+        when: "the node is invalidated"
+        cache.invalidate(TEST_NODE_NAME)
+        then: "its templates are dropped"
+        cache.size() == 0
+        !cache.getNodeTemplates(TEST_NODE_NAME, TEST_NODE_FDN, TEST_NODE_OSS_PREFIX).is(templates)
+    }
+
+    def "Templates added to the templates of a node after they were replaced should not be counted"(){
+        given: "the templates of a node without an ossPrefix, still held by a notification being parsed"
+        def cache = new EventNotificationTemplateCache(100)
+        def replaced = cache.getNodeTemplates(TEST_NODE_NAME, TEST_NODE_FDN, null)
+        replaced.getTemplate("28")
+        when: "the ossPrefix of the node is set and the notification looks up new alarm types in the replaced templates"
+        cache.getNodeTemplates(TEST_NODE_NAME, TEST_NODE_FDN, TEST_NODE_OSS_PREFIX).getTemplate("28")
+        def template = replaced.getTemplate("29")
+        then: "the template is built but not kept, and only the templates of the current ossPrefix are counted"
+        template.getManagedObjectInstance() == TEST_NODE_FDN
+        !replaced.getTemplate("29").is(template)
+        cache.size() == 1
+        when: "the node is invalidated"
+        cache.invalidate(TEST_NODE_NAME)
+        then: "no template is counted"
+        cache.size() == 0
+    }
+
+    def "Templates should not be kept once the cache is full"(){
+        given: "a cache which holds 2 templates"
+        def cache = new EventNotificationTemplateCache(2)
+        def templates = cache.getNodeTemplates(TEST_NODE_NAME, TEST_NODE_FDN, TEST_NODE_OSS_PREFIX)
+        when: "the templates of 3 alarm types are looked up"
+        (1..3).each { templates.getTemplate(String.valueOf(it)) }
+        then: "the third is built every time it is looked up"
+        cache.size() == 2
+        templates.getTemplate("3").getExternalEventId("a") == "3:a"
+        !templates.getTemplate("3").is(templates.getTemplate("3"))
+        templates.getTemplate("1").is(templates.getTemplate("1"))
+    }
+}
@@ -17,11 +17,12 @@ package com.ericsson.oss.mediation.fm.oradio.timer
 import com.ericsson.cds.cdi.support.rule.MockedImplementation
 import com.ericsson.cds.cdi.support.rule.ObjectUnderTest
 import com.ericsson.cds.cdi.support.spock.SharedCdiSpecification
-import com.ericsson.oss.mediation.fm.oradio.api.MPlaneAlarmService
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean
+import com.ericsson.oss.mediation.fm.impl.ServiceStatisticsBean
 import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EventNotificationBuffer
-import com.ericsson.oss.mediation.fm.oradio.ejb.models.EventNotificationMarker
+import com.ericsson.oss.mediation.fm.oradio.ejb.journal.EventNotificationJournal
 import com.ericsson.oss.mediation.fm.oradio.ejb.timer.EventNotificationBufferTimer
-import com.ericsson.oss.mediation.translator.model.EventNotification
+import com.ericsson.oss.mediation.fm.oradio.ejb.timer.EventNotificationShardFlusher
 import org.slf4j.Logger
 import spock.lang.Shared
 
@@ -30,9 +31,6 @@ import javax.ejb.TimerService
 
 class EventNotificationBufferTimeSpec extends SharedCdiSpecification{
 
-    private static final String NODE_NAME = "TestORadio1"
-    private static final String ALARM_ID = "1"
-
     @ObjectUnderTest
     @Shared
     EventNotificationBufferTimer eventNotificationBufferTimer
@@ -44,7 +42,16 @@ class EventNotificationBufferTimeSpec extends SharedCdiSpecification{
     EventNotificationBuffer eventNotificationBuffer;
 
     @MockedImplementation
-    MPlaneAlarmService mPlaneAlarmService
+    EventNotificationShardFlusher shardFlusher
+
+    @MockedImplementation
+    EventNotificationJournal journal
+
+    @MockedImplementation
+    ConfigurationBean configurationBean
+
+    @MockedImplementation
+    ServiceStatisticsBean serviceStatistics
 
     @MockedImplementation
     Logger log;
@@ -53,42 +60,71 @@ class EventNotificationBufferTimeSpec extends SharedCdiSpecification{
     }
 
 
-    def "When the timeout occurs and the is no list of Events to send then the function should exit"(){
-        given: "the buffer has no notifications to process"
-        eventNotificationBuffer.getEventNotificationsfromTime() >> createEmptyEventNotificationBufferMap()
+    def "When the timeout occurs then every shard of the EventNotificationBuffer should be flushed"(){
+        given: "the buffer is partitioned into 4 shards"
+        eventNotificationBuffer.getShardCount() >> 4
+        and: "every shard holds expired notifications"
+        eventNotificationBuffer.hasExpiredEventNotifications(_, _) >> true
         when: "the timeout occurs"
         eventNotificationBufferTimer.timeout(timerService.createIntervalTimer(1000,1000,new TimerConfig()))
-        then: "Nothing to process so nothing should be removed from the buffer"
+        then: "each shard is flushed once"
         noExceptionThrown()
-        0 * eventNotificationBuffer.removeEventNotificationList(_)
-        0 * mPlaneAlarmService.sendAlarms(_)
+        1 * shardFlusher.flushShard(0)
+        1 * shardFlusher.flushShard(1)
+        1 * shardFlusher.flushShard(2)
+        1 * shardFlusher.flushShard(3)
+        0 * shardFlusher.flushShard(_)
     }
 
-    def "When the timeout occurs and the is a list of Events to send then the function process and send the events"(){
-        given: "the buffer has no notifications to process"
-        eventNotificationBuffer.getEventNotificationsfromTime() >> createEventNotificationBufferMap(NODE_NAME,ALARM_ID)
+    def "When the timeout occurs then only the shards holding expired EventNotifications should be flushed"(){
+        given: "the buffer is partitioned into 4 shards"
+        eventNotificationBuffer.getShardCount() >> 4
+        and: "only shard 2 holds expired notifications"
+        eventNotificationBuffer.hasExpiredEventNotifications(2, _) >> true
         when: "the timeout occurs"
-        eventNotificationBufferTimer.timeout(timerService.createIntervalTimer(1000,1000,new TimerConfig()))
-        then: "Nothing to process so nothing should be removed from the buffer"
-        noExceptionThrown()
-        1 * eventNotificationBuffer.removeEventNotificationList(_)
-        1 * mPlaneAlarmService.sendAlarms(_)
+        eventNotificationBufferTimer.timeout(null)
+        then: "only shard 2 is flushed"
+        1 * shardFlusher.flushShard(2)
+        0 * shardFlusher.flushShard(_)
     }
 
-    private static Map<EventNotificationMarker, EventNotification> createEmptyEventNotificationBufferMap() {
-        return new HashMap<EventNotificationMarker, EventNotification>();
+    def "When the timeout occurs and this instance owns expired EventNotifications in the clustered correlation store then it should be flushed"(){
+        given: "the clustered correlation store holds expired notifications"
+        eventNotificationBuffer.hasExpiredClusteredEventNotifications(_) >> true
+        when: "the timeout occurs"
+        eventNotificationBufferTimer.timeout(null)
+        then: "the clustered correlation store is flushed"
+        1 * shardFlusher.flushClusteredStore()
+        0 * shardFlusher.flushShard(_)
     }
 
-    private static Map<EventNotificationMarker,EventNotification> createEventNotificationBufferMap(final String networkElementName, final String alarmId) {
-        Map<EventNotificationMarker, EventNotification> map = new HashMap<>()
-        map.put(new EventNotificationMarker(networkElementName, alarmId),createDummyEventNotification(networkElementName,alarmId))
-        return map
+    def "When the timeout occurs then the records queued for the journal should be written"(){
+        when: "the timeout occurs"
+        eventNotificationBufferTimer.timeout(null)
+        then: "the journal is flushed once"
+        1 * journal.flush()
     }
 
-    private static EventNotification createDummyEventNotification(final String networkElementName, final String alarmId) {
-        EventNotification notif =  new EventNotification()
-        notif.setExternalEventId(alarmId)
-        notif.setManagedObjectInstance("NetworkElement=" + networkElementName)
-        return notif
+    def "When the timeout occurs then the size of the EventNotificationBuffer should be published"(){
+        given: "the buffer holds 12 notifications"
+        eventNotificationBuffer.getSize() >> 12
+        eventNotificationBuffer.getEstimatedBytes() >> 24576L
+        when: "the timeout occurs"
+        eventNotificationBufferTimer.timeout(null)
+        then: "the buffer gauges are updated"
+        1 * serviceStatistics.setEventNotificationBuffer(12, 24576L)
+    }
+
+    def "When the flush granularity is changed then the timer should be recreated with the new interval"(){
+        given: "the flush granularity is changed to 50 ms"
+        configurationBean.getEventNotificationFlushGranularityMillis() >> 50L
+        when: "the timeout occurs"
+        eventNotificationBufferTimer.timeout(null)
+        then: "a non persistent timer is created with the new interval"
+        1 * timerService.createIntervalTimer(50L, 50L, { !it.isPersistent() })
+        when: "the timeout occurs again"
+        eventNotificationBufferTimer.timeout(null)
+        then: "the timer is not recreated"
+        0 * timerService.createIntervalTimer(_, _, _)
     }
 }
@@ -0,0 +1,95 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.timer
+
+import com.ericsson.cds.cdi.support.rule.MockedImplementation
+import com.ericsson.cds.cdi.support.rule.ObjectUnderTest
+import com.ericsson.cds.cdi.support.spock.SharedCdiSpecification
+import com.ericsson.oss.mediation.fm.impl.ServiceStatisticsBean
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EventNotificationBuffer
+import com.ericsson.oss.mediation.fm.oradio.ejb.dispatch.AlarmDispatcher
+import com.ericsson.oss.mediation.fm.oradio.ejb.models.EventNotificationMarker
+import com.ericsson.oss.mediation.fm.oradio.ejb.timer.EventNotificationShardFlusher
+import com.ericsson.oss.mediation.translator.model.EventNotification
+import org.slf4j.Logger
+import spock.lang.Shared
+
+class EventNotificationShardFlusherSpec extends SharedCdiSpecification{
+
+    private static final String NODE_NAME = "TestORadio1"
+    private static final String ALARM_ID = "1"
+
+    @ObjectUnderTest
+    @Shared
+    EventNotificationShardFlusher eventNotificationShardFlusher
+
+    @MockedImplementation
+    EventNotificationBuffer eventNotificationBuffer;
+
+    @MockedImplementation
+    AlarmDispatcher alarmDispatcher
+
+    @MockedImplementation
+    ServiceStatisticsBean serviceStatistics
+
+    @MockedImplementation
+    Logger log;
+
+    def "When the shard is flushed and there is no list of Events to send then the function should exit"(){
+        given: "the shard has no notifications to process"
+        eventNotificationBuffer.removeExpiredEventNotifications(2, _ as Long) >> new HashMap<EventNotificationMarker, EventNotification>()
+        when: "the shard is flushed"
+        eventNotificationShardFlusher.flushShard(2)
+        then: "Nothing to process so nothing should be sent"
+        noExceptionThrown()
+        0 * alarmDispatcher.dispatchAll(_)
+    }
+
+    def "When the shard is flushed and there is a list of Events to send then the function process and send the events"(){
+        given: "the shard has notifications to process"
+        eventNotificationBuffer.removeExpiredEventNotifications(2, _ as Long) >> createEventNotificationBufferMap(NODE_NAME,ALARM_ID)
+        when: "the shard is flushed"
+        eventNotificationShardFlusher.flushShard(2)
+        then: "The expired notifications should be dispatched"
+        noExceptionThrown()
+        1 * alarmDispatcher.dispatchAll({ it.size() == 1 })
+        and: "they are counted as timed out"
+        1 * serviceStatistics.addTimedOutNotifications(1, _ as Long)
+    }
+
+    def "When the clustered correlation store is flushed then the expired events owned by this instance should be dispatched"(){
+        given: "the clustered correlation store has notifications to process"
+        eventNotificationBuffer.removeExpiredClusteredEventNotifications(_ as Long) >> createEventNotificationBufferMap(NODE_NAME,ALARM_ID)
+        when: "the clustered correlation store is flushed"
+        eventNotificationShardFlusher.flushClusteredStore()
+        then: "The expired notifications should be dispatched"
+        1 * alarmDispatcher.dispatchAll({ it.size() == 1 })
+        and: "they are counted as timed out"
+        1 * serviceStatistics.addTimedOutNotifications(1, _ as Long)
+    }
+
+    private static Map<EventNotificationMarker,EventNotification> createEventNotificationBufferMap(final String networkElementName, final String alarmId) {
+        Map<EventNotificationMarker, EventNotification> map = new HashMap<>()
+        map.put(new EventNotificationMarker(networkElementName, alarmId),createDummyEventNotification(networkElementName,alarmId))
+        return map
+    }
+
+    private static EventNotification createDummyEventNotification(final String networkElementName, final String alarmId) {
+        EventNotification notif =  new EventNotification()
+        notif.setExternalEventId(alarmId)
+        notif.setManagedObjectInstance("NetworkElement=" + networkElementName)
+        return notif
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * ------------------------------------------------------------------------------
+ * ******************************************************************************
+ * COPYRIGHT Ericsson 2024
+ *
+ * The copyright to the computer program(s) herein is the property of
+ * Ericsson Inc. The programs may be used and/or copied only with written
+ * permission from Ericsson Inc. or in accordance with the terms and
+ * conditions stipulated in the agreement/contract under which the
+ * program(s) have been supplied.
+ * *******************************************************************************
+ * -------------------------------------------------------------------------------
+ */
+
+package com.ericsson.oss.mediation.fm.oradio.timer
+
+import com.ericsson.oss.itpf.datalayer.dps.persistence.ManagedObject
+import com.ericsson.oss.mediation.fm.impl.ConfigurationBean
+import com.ericsson.oss.mediation.fm.impl.ServiceStatisticsBean
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.EarlyNotificationQueue
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeState
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeStateCache
+import com.ericsson.oss.mediation.fm.oradio.ejb.cache.NodeStatePageLoader
+import com.ericsson.oss.mediation.fm.oradio.ejb.dps.DpsAccess
+import com.ericsson.oss.mediation.fm.oradio.ejb.dps.NetworkElementProjection
+import com.ericsson.oss.mediation.fm.oradio.ejb.fdn.NetworkElementNamePool
+import com.ericsson.oss.mediation.fm.oradio.ejb.parser.EventNotificationTemplateCache
+import com.ericsson.oss.mediation.fm.oradio.ejb.timer.NodeStateReconciliationTimer
+import spock.lang.Specification
+
+import javax.ejb.TimerService
+import java.util.concurrent.ConcurrentHashMap
+import java.util.function.Consumer
+
+class NodeStateReconciliationTimerSpec extends Specification {
+
+    private static final int NODE_COUNT = 10
+    private static final int CHUNK_SIZE = 4
+    private static final long INTERVAL_MILLIS = 3_600_000L
+
+    FakeDpsAccess dpsAccess = new FakeDpsAccess()
+
+    ServiceStatisticsBean serviceStatistics = new ServiceStatisticsBean()
+
+    ConfigurationBean configurationBean = Stub()
+
+    TimerService timerService = Mock()
+
+    NetworkElementNamePool networkElementNamePool = new NetworkElementNamePool()
+
+    NodeStateCache nodeStateCache = new NodeStateCache()
+
+    NodeStateReconciliationTimer reconciliationTimer = new NodeStateReconciliationTimer()
+
+    def setup() {
+        (0..<NODE_COUNT).each { dpsAccess.put("ORadio" + it, "SubNetwork=ENM,MeContext=ORadio" + it, true) }
+        configurationBean.getNodeStateReconciliationIntervalMillis() >> INTERVAL_MILLIS
+        configurationBean.getNodeStateReconciliationChunkSize() >> CHUNK_SIZE
+        configurationBean.getNodeStateMissTtlMillis() >> 60_000L
+
+        def nodeStatePageLoader = new NodeStatePageLoader()
+        nodeStatePageLoader.@networkElementNamePool = networkElementNamePool
+        nodeStateCache.@dpsAccess = dpsAccess
+        nodeStateCache.@nodeStatePageLoader = nodeStatePageLoader
+        nodeStateCache.@networkElementNamePool = networkElementNamePool
+        nodeStateCache.@eventNotificationTemplateCache = new EventNotificationTemplateCache()
+        nodeStateCache.@serviceStatistics = serviceStatistics
+        nodeStateCache.@configurationBean = configurationBean
+        nodeStateCache.@timerService = Mock(TimerService)
+        nodeStateCache.@earlyNotificationQueue = Mock(EarlyNotificationQueue)
+        nodeStateCache.warmUp(null)
+
+        reconciliationTimer.@nodeStateCache = nodeStateCache
+        reconciliationTimer.@configurationBean = configurationBean
+        reconciliationTimer.@serviceStatistics = serviceStatistics
+        reconciliationTimer.@timerService = timerService
+    }
+
+    def "The first pass should be scheduled at the reconciliation interval"() {
+        when: "the timer is started"
+        reconciliationTimer.initialiseReconciliationTimer()
+
+        then: "a non persistent timer is scheduled at the interval"
+        1 * timerService.createSingleActionTimer(INTERVAL_MILLIS, { !it.isPersistent() })
+    }
+
+    def "A pass should check the nodes a chunk at a time and correct the nodes whose DPS notifications were missed"() {
+        given: "the notifications of a deleted node, a supervision change and an ossPrefix change were missed"
+        dpsAccess.networkElements.remove("NetworkElement=ORadio1")
+        dpsAccess.put("ORadio5", "SubNetwork=ENM,MeContext=ORadio5", false)
+        dpsAccess.put("ORadio9", "SubNetwork=ENM,SubNetwork=Athlone,MeContext=ORadio9", true)
+
+        when: "the first chunk is checked"
+        reconciliationTimer.timeout(null)
+
+        then: "only the first chunk of nodes is read from DPS and the next chunk is scheduled after a short delay"
+        dpsAccess.reads == CHUNK_SIZE
+        1 * timerService.createSingleActionTimer(1000L, _)
+        serviceStatistics.getNodeStateReconciledNodes() == CHUNK_SIZE
+
+        when: "the rest of the pass is run"
+        reconciliationTimer.timeout(null)
+        reconciliationTimer.timeout(null)
+
+        then: "every node has been read once and the next pass is scheduled at the interval"
+        dpsAccess.reads == NODE_COUNT
+        1 * timerService.createSingleActionTimer(1000L, _)
+        1 * timerService.createSingleActionTimer(INTERVAL_MILLIS, _)
+        and: "the drift is corrected"
+        nodeStateCache.getNodeState("NetworkElement=ORadio1") == null
+        !nodeStateCache.isSupervisionActive("NetworkElement=ORadio5")
+        nodeStateCache.getOssPrefix("NetworkElement=ORadio9") == "SubNetwork=ENM,SubNetwork=Athlone,MeContext=ORadio9"
+        nodeStateCache.isSupervisionActive("NetworkElement=ORadio0")
+        and: "the corrections are reported"
+        serviceStatistics.getNodeStateReconciledNodes() == NODE_COUNT
+        serviceStatistics.getNodeStateReconciliationCorrections() == 3
+    }
+
+    def "A node changed by a DPS notification while DPS is read should not be corrected"() {
+        given: "the first node checked is deactivated by a DPS notification just after DPS was read"
+        String changedFdn = null
+        dpsAccess.afterRead = { fdn ->
+            if (changedFdn == null) {
+                changedFdn = fdn
+                def networkElementName = fdn.substring("NetworkElement=".length())
+                nodeStateCache.@nodeStateCache.put(networkElementName, NodeState.unknown().withSupervisionActive(false))
+            }
+        }
+
+        when: "the first chunk is checked"
+        reconciliationTimer.timeout(null)
+
+        then: "the state from the notification is kept"
+        changedFdn != null
+        !nodeStateCache.isSupervisionActive(changedFdn)
+        serviceStatistics.getNodeStateReconciliationCorrections() == 0
+    }
+
+    def "A node which can not be read from DPS should not stop the pass"() {
+        given: "DPS fails to read the second node checked"
+        dpsAccess.afterRead = { fdn ->
+            if (dpsAccess.reads == 2) {
+                throw new IllegalStateException("DPS unavailable")
+            }
+        }
+
+        when: "the first chunk is checked"
+        reconciliationTimer.timeout(null)
+
+        then: "the next chunk is still scheduled"
+        1 * timerService.createSingleActionTimer(1000L, _)
+
+        when: "the next chunk is checked"
+        reconciliationTimer.timeout(null)
+
+        then: "it carries on after the node which failed"
+        dpsAccess.reads == 2 + CHUNK_SIZE
+    }
+
+    def "The NodeStateCache should not be reconciled while it is warming up"() {
+        given: "the NodeStateCache is warming up"
+        def warmingUpCache = new NodeStateCache()
+        warmingUpCache.@networkElementNamePool = networkElementNamePool
+        reconciliationTimer.@nodeStateCache = warmingUpCache
+
+        when: "the timeout occurs"
+        reconciliationTimer.timeout(null)
+
+        then: "DPS is not read and the next pass is scheduled at the interval"
+        dpsAccess.reads == 0
+        1 * timerService.createSingleActionTimer(INTERVAL_MILLIS, _)
+    }
+
+    /**
+     * Holds the NetworkElements of DPS
+     */
+    private static class FakeDpsAccess implements DpsAccess {
+
+        final Map<String, NetworkElementProjection> networkElements = new ConcurrentHashMap<>()
+        int reads
+        Closure afterRead = {}
+
+        void put(final String name, final String ossPrefix, final boolean active) {
+            networkElements.put("NetworkElement=" + name, new NetworkElementProjection("NetworkElement=" + name, ossPrefix, active))
+        }
+
+        @Override
+        List<ManagedObject> createRestrictionTypeQuery(String namespace, String type, String restrictionType, String nodeType) {
+            throw new UnsupportedOperationException("The NodeStateCache should not load the ManagedObjects")
+        }
+
+        @Override
+        void getNetworkElementProjections(String nodeType, int pageSize, Consumer<List<NetworkElementProjection>> pageConsumer) {
+            pageConsumer.accept(new ArrayList<>(networkElements.values()))
+        }
+
+        @Override
+        NetworkElementProjection getNetworkElementProjection(String networkElementFdn, String nodeType) {
+            reads++
+            final NetworkElementProjection networkElement = networkElements.get(networkElementFdn)
+            afterRead.call(networkElementFdn)
+            return networkElement
+        }
+    }
+}
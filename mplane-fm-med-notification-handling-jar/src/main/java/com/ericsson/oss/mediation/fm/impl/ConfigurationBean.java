@@ -39,13 +39,402 @@ public class ConfigurationBean {
     @Configured(propertyName = "testNumber")
     private Integer integerValue;
 
+    /*
+     * Limits of the EventNotificationBuffer. The defaults are used if the properties are not modeled.
+     */
+    public static final int DEFAULT_EVENT_NOTIFICATION_BUFFER_MAX_ENTRIES = 200_000;
+    public static final long DEFAULT_EVENT_NOTIFICATION_BUFFER_MAX_BYTES = 256L * 1024 * 1024;
+    public static final String DEFAULT_EVENT_NOTIFICATION_BUFFER_OVERFLOW_POLICY = "SEND_OLDEST";
+
+    /*
+     * Where the EventNotificationBuffer holds the EventNotifications, HEAP or OFF_HEAP, and the maximum size in bytes of the direct memory
+     * used when they are held off heap. Only EventNotifications buffered after a change are held in the new storage.
+     */
+    public static final String DEFAULT_EVENT_NOTIFICATION_BUFFER_STORAGE = "HEAP";
+    public static final long DEFAULT_EVENT_NOTIFICATION_BUFFER_OFF_HEAP_MAX_BYTES = 256L * 1024 * 1024;
+
+    /*
+     * Timing of the EventNotificationBuffer in milliseconds: how long an EventNotification waits for its matching notification, and how often
+     * the buffer is checked for EventNotifications which have waited for longer.
+     */
+    public static final long DEFAULT_EVENT_NOTIFICATION_CORRELATION_WINDOW_MILLIS = 2000L;
+    public static final long DEFAULT_EVENT_NOTIFICATION_FLUSH_GRANULARITY_MILLIS = 100L;
+
+    /*
+     * Batching of the alarms sent to APS: a batch is sent once it holds the maximum number of alarms or its first alarm has waited for the
+     * maximum delay in milliseconds, whichever comes first.
+     */
+    public static final int DEFAULT_ALARM_DISPATCH_MAX_BATCH_SIZE = 100;
+    public static final long DEFAULT_ALARM_DISPATCH_MAX_DELAY_MILLIS = 20L;
+
+    /*
+     * When enabled the correlation state is held in a clustered cache shared by all instances instead of the local EventNotificationBuffer.
+     */
+    public static final boolean DEFAULT_CLUSTERED_CORRELATION_ENABLED = false;
+
+    /*
+     * Journal of the EventNotificationBuffer, replayed on startup so buffered EventNotifications are not lost on a restart. Only read at
+     * startup. The default directory is under the data directory of the server.
+     */
+    public static final boolean DEFAULT_EVENT_NOTIFICATION_JOURNAL_ENABLED = false;
+    public static final String DEFAULT_EVENT_NOTIFICATION_JOURNAL_DIRECTORY =
+            System.getProperty("jboss.server.data.dir", System.getProperty("java.io.tmpdir")) + "/mplane-fm-med-notification-journal";
+
+    /*
+     * Notifications received before the NodeStateCache is warmed up are held in a queue of this capacity and processed once it is ready.
+     */
+    public static final int DEFAULT_EARLY_NOTIFICATION_QUEUE_CAPACITY = 10_000;
+
+    /*
+     * A node which is not in the NodeStateCache is read from DPS, if it does not exist there it is not read again for this time.
+     */
+    public static final long DEFAULT_NODE_STATE_MISS_TTL_MILLIS = 60_000L;
+
+    /*
+     * The NodeStateCache is reconciled against DPS in the background, a pass is started at this interval and checks this many nodes at a
+     * time so DPS is not loaded.
+     */
+    public static final long DEFAULT_NODE_STATE_RECONCILIATION_INTERVAL_MILLIS = 3_600_000L;
+    public static final int DEFAULT_NODE_STATE_RECONCILIATION_CHUNK_SIZE = 50;
+
+    /*
+     * DPS events of the nodes are coalesced by node and applied to the NodeStateCache in batches: a batch is applied once this many nodes
+     * have changed or the first change has waited for the maximum delay in milliseconds, whichever comes first.
+     */
+    public static final int DEFAULT_NODE_STATE_EVENT_MAX_BATCH_SIZE = 500;
+    public static final long DEFAULT_NODE_STATE_EVENT_MAX_DELAY_MILLIS = 100L;
+
+    @Inject
+    @Configured(propertyName = "eventNotificationBufferMaxEntries")
+    private Integer eventNotificationBufferMaxEntries;
+
+    @Inject
+    @Configured(propertyName = "eventNotificationBufferMaxBytes")
+    private Long eventNotificationBufferMaxBytes;
+
+    @Inject
+    @Configured(propertyName = "eventNotificationBufferOverflowPolicy")
+    private String eventNotificationBufferOverflowPolicy;
+
+    @Inject
+    @Configured(propertyName = "eventNotificationBufferStorage")
+    private String eventNotificationBufferStorage;
+
+    @Inject
+    @Configured(propertyName = "eventNotificationBufferOffHeapMaxBytes")
+    private Long eventNotificationBufferOffHeapMaxBytes;
+
+    @Inject
+    @Configured(propertyName = "eventNotificationCorrelationWindowMillis")
+    private Long eventNotificationCorrelationWindowMillis;
+
+    @Inject
+    @Configured(propertyName = "eventNotificationFlushGranularityMillis")
+    private Long eventNotificationFlushGranularityMillis;
+
+    @Inject
+    @Configured(propertyName = "alarmDispatchMaxBatchSize")
+    private Integer alarmDispatchMaxBatchSize;
+
+    @Inject
+    @Configured(propertyName = "alarmDispatchMaxDelayMillis")
+    private Long alarmDispatchMaxDelayMillis;
+
+    @Inject
+    @Configured(propertyName = "clusteredCorrelationEnabled")
+    private Boolean clusteredCorrelationEnabled;
+
+    @Inject
+    @Configured(propertyName = "eventNotificationJournalEnabled")
+    private Boolean eventNotificationJournalEnabled;
+
+    @Inject
+    @Configured(propertyName = "eventNotificationJournalDirectory")
+    private String eventNotificationJournalDirectory;
+
+    @Inject
+    @Configured(propertyName = "earlyNotificationQueueCapacity")
+    private Integer earlyNotificationQueueCapacity;
+
+    @Inject
+    @Configured(propertyName = "nodeStateMissTtlMillis")
+    private Long nodeStateMissTtlMillis;
+
+    @Inject
+    @Configured(propertyName = "nodeStateReconciliationIntervalMillis")
+    private Long nodeStateReconciliationIntervalMillis;
+
+    @Inject
+    @Configured(propertyName = "nodeStateReconciliationChunkSize")
+    private Integer nodeStateReconciliationChunkSize;
+
+    @Inject
+    @Configured(propertyName = "nodeStateEventMaxBatchSize")
+    private Integer nodeStateEventMaxBatchSize;
+
+    @Inject
+    @Configured(propertyName = "nodeStateEventMaxDelayMillis")
+    private Long nodeStateEventMaxDelayMillis;
+
     void listenForChanges(@Observes @ConfigurationChangeNotification(propertyName = "testNumber") final Integer value) {
         logger.info("Received notification that value changed to {}", value);
         integerValue = value;
     }
 
+    void listenForEventNotificationBufferMaxEntriesChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "eventNotificationBufferMaxEntries") final Integer value) {
+        logger.info("Received notification that eventNotificationBufferMaxEntries changed to {}", value);
+        eventNotificationBufferMaxEntries = value;
+    }
+
+    void listenForEventNotificationBufferMaxBytesChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "eventNotificationBufferMaxBytes") final Long value) {
+        logger.info("Received notification that eventNotificationBufferMaxBytes changed to {}", value);
+        eventNotificationBufferMaxBytes = value;
+    }
+
+    void listenForEventNotificationBufferOverflowPolicyChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "eventNotificationBufferOverflowPolicy") final String value) {
+        logger.info("Received notification that eventNotificationBufferOverflowPolicy changed to {}", value);
+        eventNotificationBufferOverflowPolicy = value;
+    }
+
+    void listenForEventNotificationBufferStorageChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "eventNotificationBufferStorage") final String value) {
+        logger.info("Received notification that eventNotificationBufferStorage changed to {}", value);
+        eventNotificationBufferStorage = value;
+    }
+
+    void listenForEventNotificationBufferOffHeapMaxBytesChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "eventNotificationBufferOffHeapMaxBytes") final Long value) {
+        logger.info("Received notification that eventNotificationBufferOffHeapMaxBytes changed to {}", value);
+        eventNotificationBufferOffHeapMaxBytes = value;
+    }
+
+    void listenForEventNotificationCorrelationWindowMillisChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "eventNotificationCorrelationWindowMillis") final Long value) {
+        logger.info("Received notification that eventNotificationCorrelationWindowMillis changed to {}", value);
+        eventNotificationCorrelationWindowMillis = value;
+    }
+
+    void listenForEventNotificationFlushGranularityMillisChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "eventNotificationFlushGranularityMillis") final Long value) {
+        logger.info("Received notification that eventNotificationFlushGranularityMillis changed to {}", value);
+        eventNotificationFlushGranularityMillis = value;
+    }
+
+    void listenForAlarmDispatchMaxBatchSizeChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "alarmDispatchMaxBatchSize") final Integer value) {
+        logger.info("Received notification that alarmDispatchMaxBatchSize changed to {}", value);
+        alarmDispatchMaxBatchSize = value;
+    }
+
+    void listenForAlarmDispatchMaxDelayMillisChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "alarmDispatchMaxDelayMillis") final Long value) {
+        logger.info("Received notification that alarmDispatchMaxDelayMillis changed to {}", value);
+        alarmDispatchMaxDelayMillis = value;
+    }
+
+    void listenForClusteredCorrelationEnabledChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "clusteredCorrelationEnabled") final Boolean value) {
+        logger.info("Received notification that clusteredCorrelationEnabled changed to {}", value);
+        clusteredCorrelationEnabled = value;
+    }
+
+    void listenForEventNotificationJournalEnabledChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "eventNotificationJournalEnabled") final Boolean value) {
+        logger.info("Received notification that eventNotificationJournalEnabled changed to {}, it is applied on the next restart", value);
+        eventNotificationJournalEnabled = value;
+    }
+
+    void listenForEventNotificationJournalDirectoryChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "eventNotificationJournalDirectory") final String value) {
+        logger.info("Received notification that eventNotificationJournalDirectory changed to {}, it is applied on the next restart", value);
+        eventNotificationJournalDirectory = value;
+    }
+
+    void listenForEarlyNotificationQueueCapacityChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "earlyNotificationQueueCapacity") final Integer value) {
+        logger.info("Received notification that earlyNotificationQueueCapacity changed to {}", value);
+        earlyNotificationQueueCapacity = value;
+    }
+
+    void listenForNodeStateMissTtlMillisChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "nodeStateMissTtlMillis") final Long value) {
+        logger.info("Received notification that nodeStateMissTtlMillis changed to {}", value);
+        nodeStateMissTtlMillis = value;
+    }
+
+    void listenForNodeStateReconciliationIntervalMillisChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "nodeStateReconciliationIntervalMillis") final Long value) {
+        logger.info("Received notification that nodeStateReconciliationIntervalMillis changed to {}", value);
+        nodeStateReconciliationIntervalMillis = value;
+    }
+
+    void listenForNodeStateReconciliationChunkSizeChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "nodeStateReconciliationChunkSize") final Integer value) {
+        logger.info("Received notification that nodeStateReconciliationChunkSize changed to {}", value);
+        nodeStateReconciliationChunkSize = value;
+    }
+
+    void listenForNodeStateEventMaxBatchSizeChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "nodeStateEventMaxBatchSize") final Integer value) {
+        logger.info("Received notification that nodeStateEventMaxBatchSize changed to {}", value);
+        nodeStateEventMaxBatchSize = value;
+    }
+
+    void listenForNodeStateEventMaxDelayMillisChanges(
+            @Observes @ConfigurationChangeNotification(propertyName = "nodeStateEventMaxDelayMillis") final Long value) {
+        logger.info("Received notification that nodeStateEventMaxDelayMillis changed to {}", value);
+        nodeStateEventMaxDelayMillis = value;
+    }
+
     public Integer getIntegerValue() {
         return integerValue;
     }
 
+    /**
+     * @return the maximum number of EventNotifications held in the EventNotificationBuffer
+     */
+    public int getEventNotificationBufferMaxEntries() {
+        final Integer value = eventNotificationBufferMaxEntries;
+        return value == null ? DEFAULT_EVENT_NOTIFICATION_BUFFER_MAX_ENTRIES : value;
+    }
+
+    /**
+     * @return the maximum estimated size in bytes of the EventNotifications held in the EventNotificationBuffer
+     */
+    public long getEventNotificationBufferMaxBytes() {
+        final Long value = eventNotificationBufferMaxBytes;
+        return value == null ? DEFAULT_EVENT_NOTIFICATION_BUFFER_MAX_BYTES : value;
+    }
+
+    /**
+     * @return the name of the policy applied when the EventNotificationBuffer is full
+     */
+    public String getEventNotificationBufferOverflowPolicy() {
+        final String value = eventNotificationBufferOverflowPolicy;
+        return value == null ? DEFAULT_EVENT_NOTIFICATION_BUFFER_OVERFLOW_POLICY : value;
+    }
+
+    /**
+     * @return the name of the storage the EventNotificationBuffer holds new EventNotifications in
+     */
+    public String getEventNotificationBufferStorage() {
+        final String value = eventNotificationBufferStorage;
+        return value == null ? DEFAULT_EVENT_NOTIFICATION_BUFFER_STORAGE : value;
+    }
+
+    /**
+     * @return the maximum size in bytes of the direct memory holding the EventNotifications of the EventNotificationBuffer off heap
+     */
+    public long getEventNotificationBufferOffHeapMaxBytes() {
+        final Long value = eventNotificationBufferOffHeapMaxBytes;
+        return value == null || value < 0 ? DEFAULT_EVENT_NOTIFICATION_BUFFER_OFF_HEAP_MAX_BYTES : value;
+    }
+
+    /**
+     * @return the time in milliseconds an EventNotification is held in the EventNotificationBuffer waiting for its matching notification
+     */
+    public long getEventNotificationCorrelationWindowMillis() {
+        final Long value = eventNotificationCorrelationWindowMillis;
+        return value == null || value < 0 ? DEFAULT_EVENT_NOTIFICATION_CORRELATION_WINDOW_MILLIS : value;
+    }
+
+    /**
+     * @return the interval in milliseconds at which the EventNotificationBuffer is checked for expired EventNotifications
+     */
+    public long getEventNotificationFlushGranularityMillis() {
+        final Long value = eventNotificationFlushGranularityMillis;
+        return value == null || value <= 0 ? DEFAULT_EVENT_NOTIFICATION_FLUSH_GRANULARITY_MILLIS : value;
+    }
+
+    /**
+     * @return the maximum number of alarms sent to APS in one batch
+     */
+    public int getAlarmDispatchMaxBatchSize() {
+        final Integer value = alarmDispatchMaxBatchSize;
+        return value == null || value <= 0 ? DEFAULT_ALARM_DISPATCH_MAX_BATCH_SIZE : value;
+    }
+
+    /**
+     * @return the maximum time in milliseconds an alarm waits for its batch to be sent to APS
+     */
+    public long getAlarmDispatchMaxDelayMillis() {
+        final Long value = alarmDispatchMaxDelayMillis;
+        return value == null || value <= 0 ? DEFAULT_ALARM_DISPATCH_MAX_DELAY_MILLIS : value;
+    }
+
+    /**
+     * @return true if the correlation state is shared by all instances of the cluster
+     */
+    public boolean isClusteredCorrelationEnabled() {
+        final Boolean value = clusteredCorrelationEnabled;
+        return value == null ? DEFAULT_CLUSTERED_CORRELATION_ENABLED : value;
+    }
+
+    /**
+     * @return true if the EventNotificationBuffer is journaled to disk
+     */
+    public boolean isEventNotificationJournalEnabled() {
+        final Boolean value = eventNotificationJournalEnabled;
+        return value == null ? DEFAULT_EVENT_NOTIFICATION_JOURNAL_ENABLED : value;
+    }
+
+    /**
+     * @return the directory holding the segments of the EventNotificationBuffer journal
+     */
+    public String getEventNotificationJournalDirectory() {
+        final String value = eventNotificationJournalDirectory;
+        return value == null || value.isEmpty() ? DEFAULT_EVENT_NOTIFICATION_JOURNAL_DIRECTORY : value;
+    }
+
+    /**
+     * @return the maximum number of notifications held while the NodeStateCache is warming up
+     */
+    public int getEarlyNotificationQueueCapacity() {
+        final Integer value = earlyNotificationQueueCapacity;
+        return value == null || value < 0 ? DEFAULT_EARLY_NOTIFICATION_QUEUE_CAPACITY : value;
+    }
+
+    /**
+     * @return the time in milliseconds a node which does not exist in DPS is remembered as missing
+     */
+    public long getNodeStateMissTtlMillis() {
+        final Long value = nodeStateMissTtlMillis;
+        return value == null || value < 0 ? DEFAULT_NODE_STATE_MISS_TTL_MILLIS : value;
+    }
+
+    /**
+     * @return the time in milliseconds between passes reconciling the NodeStateCache against DPS
+     */
+    public long getNodeStateReconciliationIntervalMillis() {
+        final Long value = nodeStateReconciliationIntervalMillis;
+        return value == null || value <= 0 ? DEFAULT_NODE_STATE_RECONCILIATION_INTERVAL_MILLIS : value;
+    }
+
+    /**
+     * @return the number of nodes read from DPS at a time when the NodeStateCache is reconciled
+     */
+    public int getNodeStateReconciliationChunkSize() {
+        final Integer value = nodeStateReconciliationChunkSize;
+        return value == null || value <= 0 ? DEFAULT_NODE_STATE_RECONCILIATION_CHUNK_SIZE : value;
+    }
+
+    /**
+     * @return the number of changed nodes after which the coalesced DPS events are applied to the NodeStateCache
+     */
+    public int getNodeStateEventMaxBatchSize() {
+        final Integer value = nodeStateEventMaxBatchSize;
+        return value == null || value <= 0 ? DEFAULT_NODE_STATE_EVENT_MAX_BATCH_SIZE : value;
+    }
+
+    /**
+     * @return the maximum time in milliseconds a DPS event waits before it is applied to the NodeStateCache
+     */
+    public long getNodeStateEventMaxDelayMillis() {
+        final Long value = nodeStateEventMaxDelayMillis;
+        return value == null || value <= 0 ? DEFAULT_NODE_STATE_EVENT_MAX_DELAY_MILLIS : value;
+    }
+
 }
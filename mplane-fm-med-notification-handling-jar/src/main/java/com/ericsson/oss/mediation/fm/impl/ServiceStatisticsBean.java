@@ -11,29 +11,584 @@
  *----------------------------------------------------------------------------*/
 package com.ericsson.oss.mediation.fm.impl;
 
+import java.util.concurrent.atomic.LongAdder;
 import javax.enterprise.context.ApplicationScoped;
 
 import com.ericsson.oss.itpf.sdk.instrument.annotation.InstrumentedBean;
+import com.ericsson.oss.itpf.sdk.instrument.annotation.MonitoredAttribute;
+import com.ericsson.oss.itpf.sdk.instrument.annotation.MonitoredAttribute.Category;
+import com.ericsson.oss.itpf.sdk.instrument.annotation.MonitoredAttribute.CollectionType;
+import com.ericsson.oss.itpf.sdk.instrument.annotation.MonitoredAttribute.Interval;
+import com.ericsson.oss.itpf.sdk.instrument.annotation.MonitoredAttribute.Units;
+import com.ericsson.oss.itpf.sdk.instrument.annotation.MonitoredAttribute.Visibility;
 
 @ApplicationScoped
 @InstrumentedBean
 public class ServiceStatisticsBean {
 
-    private int numberOfRequests;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final LongAdder receivedNotifications = new LongAdder();
+
+    private final LongAdder unsupervisedNotifications = new LongAdder();
+
+    private final LongAdder ossPrefixMisses = new LongAdder();
+
+    private final LongAdder unparsableNotifications = new LongAdder();
+
+    private final LongAdder bufferedNotifications = new LongAdder();
+
+    private final LongAdder correlatedNotifications = new LongAdder();
+
+    private final LongAdder timedOutNotifications = new LongAdder();
+
+    private final LongAdder sentNotifications = new LongAdder();
+
+    private final LongAdder failedSentNotifications = new LongAdder();
+
+    private final LongAdder transformNanos = new LongAdder();
+
+    private final LongAdder correlationNanos = new LongAdder();
+
+    private final LongAdder flushNanos = new LongAdder();
+
+    private final LongAdder sendNanos = new LongAdder();
+
+    private volatile int eventNotificationBufferSize;
+
+    private volatile long eventNotificationBufferEstimatedBytes;
+
+    private final LongAdder evictedNotifications = new LongAdder();
+
+    private final LongAdder earlySentNotifications = new LongAdder();
+
+    private final LongAdder droppedNotifications = new LongAdder();
+
+    private final LongAdder heldEarlyNotifications = new LongAdder();
+
+    private final LongAdder droppedEarlyNotifications = new LongAdder();
+
+    private final LongAdder nodeStateReadThroughLoads = new LongAdder();
+
+    private final LongAdder nodeStateMissHits = new LongAdder();
+
+    private final LongAdder nodeStateReconciledNodes = new LongAdder();
+
+    private final LongAdder nodeStateReconciliationCorrections = new LongAdder();
+
+    private final LongAdder nodeStateEvents = new LongAdder();
+
+    private final LongAdder coalescedNodeStateEvents = new LongAdder();
+
+    private final LongAdder nodeStateEventBatches = new LongAdder();
+
+    private final LongAdder nodeStateEventBatchNodes = new LongAdder();
+
+    private final LongAdder nodeStateEventBatchMillis = new LongAdder();
+
+    private volatile boolean nodeStateCacheReady;
+
+    private volatile int nodeStateCacheWarmUpNodes;
+
+    private volatile long nodeStateCacheWarmUpMillis;
+
+    /**
+     * @return the number of notifications received from the nodes and processed, a notification held until the NodeStateCache was ready
+     * is counted when it is processed
+     */
+    @MonitoredAttribute(displayName = "Notifications received", visibility = Visibility.ALL, units = Units.NONE,
+            category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getReceivedNotifications() {
+        return receivedNotifications.sum();
+    }
+
+    /**
+     * @return the number of notifications dropped because FMAlarmSupervision is not enabled on the node
+     */
+    @MonitoredAttribute(displayName = "Notifications dropped as FMAlarmSupervision is not enabled", visibility = Visibility.ALL,
+            units = Units.NONE, category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getUnsupervisedNotifications() {
+        return unsupervisedNotifications.sum();
+    }
+
+    /**
+     * @return the number of notifications of nodes whose ossPrefix is not known, they are sent with the fdn of the node instead
+     */
+    @MonitoredAttribute(displayName = "Notifications of nodes without a known ossPrefix", visibility = Visibility.ALL, units = Units.NONE,
+            category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getOssPrefixMisses() {
+        return ossPrefixMisses.sum();
+    }
+
+    /**
+     * @return the number of notifications dropped as they are not a valid O-RAN alarm-notif
+     */
+    @MonitoredAttribute(displayName = "Notifications dropped as they could not be parsed", visibility = Visibility.ALL,
+            units = Units.NONE, category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getUnparsableNotifications() {
+        return unparsableNotifications.sum();
+    }
+
+    /**
+     * @return the number of notifications buffered to wait for a matching notification
+     */
+    @MonitoredAttribute(displayName = "Notifications buffered in the EventNotificationBuffer", visibility = Visibility.ALL,
+            units = Units.NONE, category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getBufferedNotifications() {
+        return bufferedNotifications.sum();
+    }
+
+    /**
+     * @return the number of notifications merged with a matching notification from the EventNotificationBuffer
+     */
+    @MonitoredAttribute(displayName = "Notifications correlated with a buffered notification", visibility = Visibility.ALL,
+            units = Units.NONE, category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getCorrelatedNotifications() {
+        return correlatedNotifications.sum();
+    }
+
+    /**
+     * @return the number of buffered notifications sent at the end of the correlation window without a matching notification
+     */
+    @MonitoredAttribute(displayName = "Notifications flushed from the EventNotificationBuffer by timeout", visibility = Visibility.ALL,
+            units = Units.NONE, category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getTimedOutNotifications() {
+        return timedOutNotifications.sum();
+    }
+
+    /**
+     * @return the number of alarms sent to APS
+     */
+    @MonitoredAttribute(displayName = "Alarms sent to APS", visibility = Visibility.ALL, units = Units.NONE,
+            category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getSentNotifications() {
+        return sentNotifications.sum();
+    }
+
+    /**
+     * @return the number of alarms which failed to be sent to APS
+     */
+    @MonitoredAttribute(displayName = "Alarms which failed to be sent to APS", visibility = Visibility.ALL, units = Units.NONE,
+            category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getFailedSentNotifications() {
+        return failedSentNotifications.sum();
+    }
+
+    /**
+     * @return the time in milliseconds spent turning the received notifications into EventNotifications
+     */
+    @MonitoredAttribute(displayName = "Time transforming notifications", visibility = Visibility.ALL, units = Units.MILLISECONDS,
+            category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getTransformMillis() {
+        return transformNanos.sum() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @return the time in milliseconds spent correlating or buffering the EventNotifications in the EventNotificationBuffer
+     */
+    @MonitoredAttribute(displayName = "Time correlating notifications", visibility = Visibility.ALL, units = Units.MILLISECONDS,
+            category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getCorrelationMillis() {
+        return correlationNanos.sum() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @return the time in milliseconds spent removing the expired EventNotifications from the EventNotificationBuffer
+     */
+    @MonitoredAttribute(displayName = "Time flushing the EventNotificationBuffer", visibility = Visibility.ALL, units = Units.MILLISECONDS,
+            category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getFlushMillis() {
+        return flushNanos.sum() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @return the time in milliseconds spent sending alarms to APS
+     */
+    @MonitoredAttribute(displayName = "Time sending alarms to APS", visibility = Visibility.ALL, units = Units.MILLISECONDS,
+            category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getSendMillis() {
+        return sendNanos.sum() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * @return the number of EventNotifications held in the EventNotificationBuffer when it was last checked for expired EventNotifications
+     */
+    @MonitoredAttribute(displayName = "EventNotificationBuffer size", visibility = Visibility.ALL, units = Units.NONE,
+            category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.DYNAMIC)
+    public int getEventNotificationBufferSize() {
+        return eventNotificationBufferSize;
+    }
+
+    /**
+     * @return the estimated size in bytes of the EventNotificationBuffer when it was last checked for expired EventNotifications
+     */
+    @MonitoredAttribute(displayName = "EventNotificationBuffer estimated bytes", visibility = Visibility.ALL, units = Units.NONE,
+            category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.DYNAMIC)
+    public long getEventNotificationBufferEstimatedBytes() {
+        return eventNotificationBufferEstimatedBytes;
+    }
+
+    /**
+     * @param count
+     *            the number of notifications received and processed
+     */
+    public void addReceivedNotifications(final int count) {
+        receivedNotifications.add(count);
+    }
+
+    /**
+     * @param count
+     *            the number of notifications dropped as FMAlarmSupervision is not enabled
+     */
+    public void addUnsupervisedNotifications(final int count) {
+        unsupervisedNotifications.add(count);
+    }
+
+    /**
+     * @param count
+     *            the number of notifications of a node without a known ossPrefix
+     */
+    public void addOssPrefixMisses(final int count) {
+        ossPrefixMisses.add(count);
+    }
+
+    /**
+     * @param count
+     *            the number of notifications dropped as they could not be parsed
+     */
+    public void addUnparsableNotifications(final int count) {
+        unparsableNotifications.add(count);
+    }
+
+    /**
+     * Counts a notification buffered in the EventNotificationBuffer
+     */
+    public void addBufferedNotification() {
+        bufferedNotifications.increment();
+    }
+
+    /**
+     * Counts a notification correlated with a buffered notification
+     */
+    public void addCorrelatedNotification() {
+        correlatedNotifications.increment();
+    }
+
+    /**
+     * @param count
+     *            the number of notifications flushed from the EventNotificationBuffer at the end of the correlation window
+     * @param nanos
+     *            the time in nanoseconds taken to remove them
+     */
+    public void addTimedOutNotifications(final int count, final long nanos) {
+        timedOutNotifications.add(count);
+        flushNanos.add(nanos);
+    }
+
+    /**
+     * @param count
+     *            the number of alarms in the batch sent to APS
+     * @param failed
+     *            true if the batch failed to be sent
+     * @param nanos
+     *            the time in nanoseconds taken to send the batch
+     */
+    public void addSentNotifications(final int count, final boolean failed, final long nanos) {
+        if (failed) {
+            failedSentNotifications.add(count);
+        } else {
+            sentNotifications.add(count);
+        }
+        sendNanos.add(nanos);
+    }
+
+    /**
+     * @param nanos
+     *            the time in nanoseconds taken to transform a notification
+     */
+    public void addTransformTime(final long nanos) {
+        transformNanos.add(nanos);
+    }
+
+    /**
+     * @param nanos
+     *            the time in nanoseconds taken to correlate or buffer a notification
+     */
+    public void addCorrelationTime(final long nanos) {
+        correlationNanos.add(nanos);
+    }
+
+    /**
+     * @param size
+     *            the number of EventNotifications held in the EventNotificationBuffer
+     * @param estimatedBytes
+     *            the estimated size in bytes of the EventNotificationBuffer
+     */
+    public void setEventNotificationBuffer(final int size, final long estimatedBytes) {
+        this.eventNotificationBufferSize = size;
+        this.eventNotificationBufferEstimatedBytes = estimatedBytes;
+    }
+
+    /**
+     * @return the number of notifications removed from, or refused by, the EventNotificationBuffer because it was full
+     */
+    @MonitoredAttribute(displayName = "Notifications evicted from the EventNotificationBuffer", visibility = Visibility.ALL, units = Units.NONE,
+            category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getEvictedNotifications() {
+        return evictedNotifications.sum();
+    }
+
+    /**
+     * @return the number of notifications sent before the end of the correlation window because the EventNotificationBuffer was full
+     */
+    @MonitoredAttribute(displayName = "Notifications sent early as the EventNotificationBuffer was full", visibility = Visibility.ALL,
+            units = Units.NONE, category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getEarlySentNotifications() {
+        return earlySentNotifications.sum();
+    }
+
+    /**
+     * @return the number of notifications dropped because the EventNotificationBuffer was full
+     */
+    @MonitoredAttribute(displayName = "Notifications dropped as the EventNotificationBuffer was full", visibility = Visibility.ALL,
+            units = Units.NONE, category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getDroppedNotifications() {
+        return droppedNotifications.sum();
+    }
+
+    /**
+     * @return 1 once the NodeStateCache is warmed up and the instance can take load, 0 before
+     */
+    @MonitoredAttribute(displayName = "NodeStateCache is ready", visibility = Visibility.ALL, units = Units.NONE,
+            category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.DYNAMIC)
+    public int getNodeStateCacheReady() {
+        return nodeStateCacheReady ? 1 : 0;
+    }
+
+    /**
+     * @param ready
+     *            true once the NodeStateCache is warmed up
+     */
+    public void setNodeStateCacheReady(final boolean ready) {
+        this.nodeStateCacheReady = ready;
+    }
+
+    /**
+     * @return the number of nodes loaded into the NodeStateCache so far by the warm-up
+     */
+    @MonitoredAttribute(displayName = "Nodes loaded by the NodeStateCache warm-up", visibility = Visibility.ALL, units = Units.NONE,
+            category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.DYNAMIC)
+    public int getNodeStateCacheWarmUpNodes() {
+        return nodeStateCacheWarmUpNodes;
+    }
+
+    /**
+     * @return the time in milliseconds the NodeStateCache warm-up has taken so far
+     */
+    @MonitoredAttribute(displayName = "Duration of the NodeStateCache warm-up", visibility = Visibility.ALL, units = Units.MILLISECONDS,
+            category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.DYNAMIC)
+    public long getNodeStateCacheWarmUpMillis() {
+        return nodeStateCacheWarmUpMillis;
+    }
+
+    /**
+     * @param nodes
+     *            the number of nodes loaded into the NodeStateCache
+     * @param millis
+     *            the time in milliseconds the warm-up has taken
+     */
+    public void setNodeStateCacheWarmUp(final int nodes, final long millis) {
+        this.nodeStateCacheWarmUpNodes = nodes;
+        this.nodeStateCacheWarmUpMillis = millis;
+    }
+
+    /**
+     * @return the number of notifications held until the NodeStateCache was warmed up
+     */
+    @MonitoredAttribute(displayName = "Notifications held until the NodeStateCache was ready", visibility = Visibility.ALL,
+            units = Units.NONE, category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getHeldEarlyNotifications() {
+        return heldEarlyNotifications.sum();
+    }
+
+    /**
+     * @return the number of notifications dropped because they were received before the NodeStateCache was warmed up and the early
+     * notification queue was full
+     */
+    @MonitoredAttribute(displayName = "Notifications dropped before the NodeStateCache was ready", visibility = Visibility.ALL,
+            units = Units.NONE, category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getDroppedEarlyNotifications() {
+        return droppedEarlyNotifications.sum();
+    }
+
+    /**
+     * @return the number of nodes missing from the NodeStateCache which were read from DPS
+     */
+    @MonitoredAttribute(displayName = "Nodes missing from the NodeStateCache read from DPS", visibility = Visibility.ALL,
+            units = Units.NONE, category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getNodeStateReadThroughLoads() {
+        return nodeStateReadThroughLoads.sum();
+    }
+
+    /**
+     * @return the number of lookups of nodes which were recently found not to exist in DPS, and so were not read again
+     */
+    @MonitoredAttribute(displayName = "Lookups of nodes known not to exist in DPS", visibility = Visibility.ALL,
+            units = Units.NONE, category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getNodeStateMissHits() {
+        return nodeStateMissHits.sum();
+    }
+
+    /**
+     * @return the number of nodes in the NodeStateCache checked against DPS by the reconciliation
+     */
+    @MonitoredAttribute(displayName = "Nodes of the NodeStateCache reconciled against DPS", visibility = Visibility.ALL,
+            units = Units.NONE, category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getNodeStateReconciledNodes() {
+        return nodeStateReconciledNodes.sum();
+    }
+
+    /**
+     * @return the number of nodes in the NodeStateCache corrected by the reconciliation because a DPS notification was missed
+     */
+    @MonitoredAttribute(displayName = "Nodes of the NodeStateCache corrected by the reconciliation", visibility = Visibility.ALL,
+            units = Units.NONE, category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getNodeStateReconciliationCorrections() {
+        return nodeStateReconciliationCorrections.sum();
+    }
+
+    /**
+     * @return the number of DPS events of the nodes received by the NodeStateEventCoalescer
+     */
+    @MonitoredAttribute(displayName = "DPS events of the nodes received", visibility = Visibility.ALL, units = Units.NONE,
+            category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getNodeStateEvents() {
+        return nodeStateEvents.sum();
+    }
+
+    /**
+     * @return the number of DPS events merged with a pending change of the same node, so not applied to the NodeStateCache on their own
+     */
+    @MonitoredAttribute(displayName = "DPS events of the nodes coalesced", visibility = Visibility.ALL, units = Units.NONE,
+            category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getCoalescedNodeStateEvents() {
+        return coalescedNodeStateEvents.sum();
+    }
+
+    /**
+     * @return the number of batches of node changes applied to the NodeStateCache
+     */
+    @MonitoredAttribute(displayName = "Batches of node changes applied to the NodeStateCache", visibility = Visibility.ALL,
+            units = Units.NONE, category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getNodeStateEventBatches() {
+        return nodeStateEventBatches.sum();
+    }
+
+    /**
+     * @return the number of node changes applied to the NodeStateCache in batches
+     */
+    @MonitoredAttribute(displayName = "Node changes applied to the NodeStateCache", visibility = Visibility.ALL, units = Units.NONE,
+            category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getNodeStateEventBatchNodes() {
+        return nodeStateEventBatchNodes.sum();
+    }
+
+    /**
+     * @return the time in milliseconds spent applying batches of node changes to the NodeStateCache
+     */
+    @MonitoredAttribute(displayName = "Time applying node changes to the NodeStateCache", visibility = Visibility.ALL,
+            units = Units.MILLISECONDS, category = Category.PERFORMANCE, interval = Interval.ONE_MIN, collectionType = CollectionType.TRENDSUP)
+    public long getNodeStateEventBatchMillis() {
+        return nodeStateEventBatchMillis.sum();
+    }
+
+    /**
+     * Counts a DPS event of a node
+     * @param coalesced
+     *            true if the event was merged with a pending change of the same node
+     */
+    public void addNodeStateEvent(final boolean coalesced) {
+        nodeStateEvents.increment();
+        if (coalesced) {
+            coalescedNodeStateEvents.increment();
+        }
+    }
+
+    /**
+     * @param nodes
+     *            the number of node changes in the batch applied to the NodeStateCache
+     * @param millis
+     *            the time in milliseconds taken to apply the batch
+     */
+    public void addNodeStateEventBatch(final int nodes, final long millis) {
+        nodeStateEventBatches.increment();
+        nodeStateEventBatchNodes.add(nodes);
+        nodeStateEventBatchMillis.add(millis);
+    }
+
+    /**
+     * @param nodes
+     *            the number of nodes checked against DPS
+     * @param corrections
+     *            the number of nodes corrected
+     */
+    public void addNodeStateReconciliation(final int nodes, final int corrections) {
+        nodeStateReconciledNodes.add(nodes);
+        nodeStateReconciliationCorrections.add(corrections);
+    }
+
+    /**
+     * Counts a node missing from the NodeStateCache which was read from DPS
+     */
+    public void addNodeStateReadThroughLoad() {
+        nodeStateReadThroughLoads.increment();
+    }
+
+    /**
+     * Counts a lookup of a node known not to exist in DPS
+     */
+    public void addNodeStateMissHit() {
+        nodeStateMissHits.increment();
+    }
+
+    /**
+     * @param count
+     *            the number of notifications held until the NodeStateCache is warmed up
+     */
+    public void addHeldEarlyNotifications(final int count) {
+        heldEarlyNotifications.add(count);
+    }
+
+    /**
+     * @param count
+     *            the number of notifications dropped before the NodeStateCache was warmed up
+     */
+    public void addDroppedEarlyNotifications(final int count) {
+        droppedEarlyNotifications.add(count);
+    }
+
+    /**
+     * @param count
+     *            the number of notifications evicted from the EventNotificationBuffer
+     */
+    public void addEvictedNotifications(final int count) {
+        evictedNotifications.add(count);
+    }
 
     /**
-     * @return the numberOfRequests
+     * @param count
+     *            the number of notifications sent before the end of the correlation window
      */
-    public int getNumberOfRequests() {
-        return numberOfRequests;
+    public void addEarlySentNotifications(final int count) {
+        earlySentNotifications.add(count);
     }
 
     /**
-     * @param numberOfRequests
-     *            the numberOfRequests to set
+     * @param count
+     *            the number of notifications dropped
      */
-    public void setNumberOfRequests(final int numberOfRequests) {
-        this.numberOfRequests = numberOfRequests;
+    public void addDroppedNotifications(final int count) {
+        droppedNotifications.add(count);
     }
 
 }
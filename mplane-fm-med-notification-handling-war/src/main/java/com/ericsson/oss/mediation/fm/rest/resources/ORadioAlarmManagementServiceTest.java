@@ -15,19 +15,27 @@
 package com.ericsson.oss.mediation.fm.rest.resources;
 
 import com.ericsson.oss.mediation.fm.oradio.api.ORadioAlarmManagementService;
+import com.ericsson.oss.mediation.fm.oradio.api.models.InspectionPage;
+import com.ericsson.oss.mediation.fm.oradio.api.models.InspectionQuery;
+import com.ericsson.oss.mediation.fm.oradio.api.models.ORadioNotification;
 import com.ericsson.oss.mediation.fm.rest.models.ORadioAlarmTestModel;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.inject.Inject;
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 @Path("ORadioAlarmManagementTest")
 public class ORadioAlarmManagementServiceTest {
 
+    private static final String DEFAULT_PAGE_LIMIT = "100";
+
     @Inject
     private ORadioAlarmManagementService oRadioAlarmManagementService;
 
@@ -40,36 +48,76 @@ public class ORadioAlarmManagementServiceTest {
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     public Response checkProcessNotification(final List<ORadioAlarmTestModel> model) {
-        HashMap<String,List<String>> response = new HashMap<>();
+        final List<ORadioNotification> notifications = new ArrayList<>(model.size());
         for (ORadioAlarmTestModel mod: model) {
-            if(!response.containsKey(mod.getNetworkElementName())) {
-                response.put(mod.getNetworkElementName(),new ArrayList<>());
-            }
-            response.replace(mod.getNetworkElementName(),
-                    oRadioAlarmManagementService.processNotification(mod.getNetconfString(), mod.getNetworkElementName()));
+            notifications.add(new ORadioNotification(mod.getNetworkElementName(), mod.getNetconfString()));
         }
-        return Response.ok(response).build();
+        return Response.ok(oRadioAlarmManagementService.processNotifications(notifications)).build();
     }
 
     @GET
     @Path("/checkOssPrefixCache")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response checkOssPrefixCache(){
-        return Response.ok(oRadioAlarmManagementService.getOssPrefixCache()).build();
+    public Response checkOssPrefixCache(@QueryParam("networkElementName") final String networkElementName,
+                                        @QueryParam("prefix") final String prefix,
+                                        @QueryParam("offset") @DefaultValue("0") final int offset,
+                                        @QueryParam("limit") @DefaultValue(DEFAULT_PAGE_LIMIT) final int limit){
+        return streamPage(oRadioAlarmManagementService.getOssPrefixCache(new InspectionQuery(networkElementName, prefix, offset, limit)));
+    }
+
+    @GET
+    @Path("/checkNodeStateCacheStatus")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response checkNodeStateCacheStatus(){
+        return Response.ok(oRadioAlarmManagementService.getNodeStateCacheStatus()).build();
     }
 
     @GET
     @Path("/checkSupervisionStateCache")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response checkSupervisionStateCache(){
-        return Response.ok(oRadioAlarmManagementService.getSupervisionCache()).build();
+    public Response checkSupervisionStateCache(@QueryParam("networkElementName") final String networkElementName,
+                                               @QueryParam("prefix") final String prefix,
+                                               @QueryParam("offset") @DefaultValue("0") final int offset,
+                                               @QueryParam("limit") @DefaultValue(DEFAULT_PAGE_LIMIT) final int limit){
+        return streamPage(oRadioAlarmManagementService.getSupervisionCache(new InspectionQuery(networkElementName, prefix, offset, limit)));
     }
 
     @GET
     @Path("/checkEventNotificationBuffer")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response checkEventNotificationBuffer(){
-        return Response.ok(oRadioAlarmManagementService.getCurrentEventNotificationBuffer()).build();
+    public Response checkEventNotificationBuffer(@QueryParam("networkElementName") final String networkElementName,
+                                                 @QueryParam("prefix") final String prefix,
+                                                 @QueryParam("offset") @DefaultValue("0") final int offset,
+                                                 @QueryParam("limit") @DefaultValue(DEFAULT_PAGE_LIMIT) final int limit){
+        return streamPage(oRadioAlarmManagementService.getCurrentEventNotificationBuffer(
+                new InspectionQuery(networkElementName, prefix, offset, limit)));
+    }
+
+    @GET
+    @Path("/checkInspectionSummary")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response checkInspectionSummary(){
+        return Response.ok(oRadioAlarmManagementService.getInspectionSummary()).build();
+    }
+
+    /**
+     * Writes the page straight to the response as JSON, without building the whole document in memory first
+     */
+    private static Response streamPage(final InspectionPage page) {
+        final StreamingOutput output = outputStream -> {
+            try (JsonGenerator generator = Json.createGenerator(outputStream)) {
+                generator.writeStartObject()
+                        .write("total", page.getTotal())
+                        .write("offset", page.getOffset())
+                        .write("limit", page.getLimit())
+                        .writeStartObject("entries");
+                for (final Map.Entry<String, String> entry : page.getEntries().entrySet()) {
+                    generator.write(entry.getKey(), entry.getValue());
+                }
+                generator.writeEnd().writeEnd();
+            }
+        };
+        return Response.ok(output).build();
     }
 
 }